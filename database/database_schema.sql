@@ -198,7 +198,7 @@ CREATE TABLE appointments (
     staff_id VARCHAR(20) NOT NULL,
     date_time DATETIME NOT NULL,
     department VARCHAR(100),
-    consultation_type ENUM('FOLLOW_UP', 'NEW_PATIENT', 'EMERGENCY', 'ROUTINE') DEFAULT 'FOLLOW_UP',
+    consultation_type VARCHAR(30) DEFAULT 'FOLLOW_UP',
     notes TEXT,
     diagnosis TEXT,
     is_completed BOOLEAN DEFAULT FALSE,
@@ -460,10 +460,10 @@ CREATE TABLE audit_logs (
     details TEXT,
     ip_address VARCHAR(50),
     logged_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    INDEX idx_username (username),
-    INDEX idx_action (action),
-    INDEX idx_entity (entity_type, entity_id),
-    INDEX idx_logged_at (logged_at)
+    INDEX idx_logged_at (logged_at, id),
+    INDEX idx_user_logged (username, logged_at, id),
+    INDEX idx_action_logged (action, logged_at, id),
+    INDEX idx_entity_logged (entity_type, entity_id, logged_at, id)
 );
 
 -- Departments table (reference data)
@@ -0,0 +1,25 @@
+-- Clinical columns on patients that older installations were created without
+ALTER TABLE patients ADD COLUMN email VARCHAR(255);
+ALTER TABLE patients ADD COLUMN patient_type VARCHAR(30);
+ALTER TABLE patients ADD COLUMN allergies TEXT;
+ALTER TABLE patients ADD COLUMN medications TEXT;
+ALTER TABLE patients ADD COLUMN past_medical_history TEXT;
+
+-- Clinical snapshot
+ALTER TABLE patients ADD COLUMN height_cm DOUBLE;
+ALTER TABLE patients ADD COLUMN weight_kg DOUBLE;
+ALTER TABLE patients ADD COLUMN blood_pressure VARCHAR(50);
+
+-- Uploaded test results
+ALTER TABLE patients ADD COLUMN xray_file_path TEXT;
+ALTER TABLE patients ADD COLUMN xray_status VARCHAR(50);
+ALTER TABLE patients ADD COLUMN xray_summary TEXT;
+ALTER TABLE patients ADD COLUMN stool_file_path TEXT;
+ALTER TABLE patients ADD COLUMN stool_status VARCHAR(50);
+ALTER TABLE patients ADD COLUMN stool_summary TEXT;
+ALTER TABLE patients ADD COLUMN urine_file_path TEXT;
+ALTER TABLE patients ADD COLUMN urine_status VARCHAR(50);
+ALTER TABLE patients ADD COLUMN urine_summary TEXT;
+ALTER TABLE patients ADD COLUMN blood_file_path TEXT;
+ALTER TABLE patients ADD COLUMN blood_status VARCHAR(50);
+ALTER TABLE patients ADD COLUMN blood_summary TEXT;
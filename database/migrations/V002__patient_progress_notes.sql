@@ -0,0 +1,18 @@
+CREATE TABLE IF NOT EXISTS patient_progress_notes (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    patient_id VARCHAR(20) NOT NULL,
+    note_text TEXT NOT NULL,
+    created_by VARCHAR(20),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_ppn_patient (patient_id)
+);
+
+-- Older installations may have created this table without note_text or created_by
+ALTER TABLE patient_progress_notes ADD COLUMN note_text TEXT NOT NULL;
+ALTER TABLE patient_progress_notes ADD COLUMN created_by VARCHAR(20);
+
+-- Older installations may have a legacy NOT NULL 'note' column that breaks inserts into note_text
+-- optional
+ALTER TABLE patient_progress_notes MODIFY COLUMN note TEXT NULL;
+-- optional
+UPDATE patient_progress_notes SET note_text = note WHERE (note_text IS NULL OR note_text = '');
@@ -0,0 +1,17 @@
+CREATE TABLE IF NOT EXISTS patient_critical_alerts (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    patient_id VARCHAR(20) NOT NULL,
+    alert_text TEXT NOT NULL,
+    created_by VARCHAR(20),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_pca_patient (patient_id)
+);
+
+CREATE TABLE IF NOT EXISTS patient_staff_notes (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    patient_id VARCHAR(20) NOT NULL,
+    staff_id VARCHAR(20) NOT NULL,
+    note_text TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_psn_patient (patient_id)
+);
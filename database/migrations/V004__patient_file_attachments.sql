@@ -0,0 +1,19 @@
+CREATE TABLE IF NOT EXISTS patient_file_attachments (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    patient_id VARCHAR(20) NOT NULL,
+    file_name VARCHAR(255) NOT NULL,
+    file_path TEXT NOT NULL,
+    file_type VARCHAR(100),
+    category VARCHAR(50),
+    file_size BIGINT,
+    mime_type VARCHAR(100),
+    description TEXT,
+    uploaded_by VARCHAR(50),
+    uploaded_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_modified TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    file_hash VARCHAR(128),
+    is_encrypted BOOLEAN DEFAULT FALSE,
+    status VARCHAR(20) DEFAULT 'Active',
+    INDEX idx_pfa_patient (patient_id),
+    INDEX idx_pfa_status (status)
+);
@@ -0,0 +1,7 @@
+-- Extended staff profile columns that older installations were created without
+ALTER TABLE staff ADD COLUMN photo_path VARCHAR(255);
+ALTER TABLE staff ADD COLUMN certifications TEXT;
+ALTER TABLE staff ADD COLUMN education TEXT;
+ALTER TABLE staff ADD COLUMN expertise TEXT;
+ALTER TABLE staff ADD COLUMN skills TEXT;
+ALTER TABLE staff ADD COLUMN competencies TEXT;
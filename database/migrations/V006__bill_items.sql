@@ -0,0 +1,7 @@
+CREATE TABLE IF NOT EXISTS bill_items (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    bill_id VARCHAR(20) NOT NULL,
+    description VARCHAR(500) NOT NULL,
+    price DOUBLE NOT NULL,
+    INDEX idx_bill_items_bill (bill_id)
+);
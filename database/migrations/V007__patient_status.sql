@@ -0,0 +1,15 @@
+CREATE TABLE IF NOT EXISTS patient_status (
+    patient_id VARCHAR(20) NOT NULL,
+    status VARCHAR(30) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    note TEXT,
+    changed_by VARCHAR(20),
+    PRIMARY KEY (patient_id, created_at),
+    INDEX idx_patient_status (patient_id)
+);
+
+-- Older installations used a shorter status column and lacked the audit columns
+ALTER TABLE patient_status MODIFY COLUMN status VARCHAR(30) NOT NULL;
+ALTER TABLE patient_status ADD COLUMN note TEXT;
+ALTER TABLE patient_status ADD COLUMN created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP;
+ALTER TABLE patient_status ADD COLUMN changed_by VARCHAR(20);
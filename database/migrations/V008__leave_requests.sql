@@ -0,0 +1,18 @@
+CREATE TABLE IF NOT EXISTS leave_requests (
+    id VARCHAR(20) PRIMARY KEY,
+    staff_id VARCHAR(20) NOT NULL,
+    staff_name VARCHAR(100) NOT NULL,
+    role VARCHAR(50) NOT NULL,
+    department VARCHAR(100),
+    leave_type VARCHAR(20) NOT NULL,
+    start_date DATE NOT NULL,
+    end_date DATE NOT NULL,
+    total_days INT NOT NULL,
+    reason TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    approved_by VARCHAR(20),
+    approved_at TIMESTAMP,
+    rejection_reason TEXT,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
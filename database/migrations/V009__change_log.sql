@@ -0,0 +1,89 @@
+-- Change tracking for multi-workstation delta sync (hpms.service.DeltaSync)
+-- Triggers need the MySQL TRIGGER privilege; without it a table is simply not synced
+
+CREATE TABLE IF NOT EXISTS change_log (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    table_name VARCHAR(40) NOT NULL,
+    row_id VARCHAR(40) NOT NULL,
+    op CHAR(1) NOT NULL,
+    origin VARCHAR(40) NULL,
+    changed_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    INDEX idx_change_log_changed (changed_at)
+);
+
+-- patients -> patients
+-- optional
+CREATE TRIGGER trg_patients_ai_changelog AFTER INSERT ON patients FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, op, origin) VALUES ('patients', NEW.id, 'I', @hpms_origin);
+-- optional
+CREATE TRIGGER trg_patients_au_changelog AFTER UPDATE ON patients FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, op, origin) VALUES ('patients', NEW.id, 'U', @hpms_origin);
+-- optional
+CREATE TRIGGER trg_patients_ad_changelog AFTER DELETE ON patients FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, op, origin) VALUES ('patients', OLD.id, 'D', @hpms_origin);
+
+-- staff -> staff
+-- optional
+CREATE TRIGGER trg_staff_ai_changelog AFTER INSERT ON staff FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, op, origin) VALUES ('staff', NEW.id, 'I', @hpms_origin);
+-- optional
+CREATE TRIGGER trg_staff_au_changelog AFTER UPDATE ON staff FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, op, origin) VALUES ('staff', NEW.id, 'U', @hpms_origin);
+-- optional
+CREATE TRIGGER trg_staff_ad_changelog AFTER DELETE ON staff FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, op, origin) VALUES ('staff', OLD.id, 'D', @hpms_origin);
+
+-- appointments -> appointments
+-- optional
+CREATE TRIGGER trg_appointments_ai_changelog AFTER INSERT ON appointments FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, op, origin) VALUES ('appointments', NEW.id, 'I', @hpms_origin);
+-- optional
+CREATE TRIGGER trg_appointments_au_changelog AFTER UPDATE ON appointments FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, op, origin) VALUES ('appointments', NEW.id, 'U', @hpms_origin);
+-- optional
+CREATE TRIGGER trg_appointments_ad_changelog AFTER DELETE ON appointments FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, op, origin) VALUES ('appointments', OLD.id, 'D', @hpms_origin);
+
+-- bills -> bills
+-- optional
+CREATE TRIGGER trg_bills_ai_changelog AFTER INSERT ON bills FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, op, origin) VALUES ('bills', NEW.id, 'I', @hpms_origin);
+-- optional
+CREATE TRIGGER trg_bills_au_changelog AFTER UPDATE ON bills FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, op, origin) VALUES ('bills', NEW.id, 'U', @hpms_origin);
+-- optional
+CREATE TRIGGER trg_bills_ad_changelog AFTER DELETE ON bills FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, op, origin) VALUES ('bills', OLD.id, 'D', @hpms_origin);
+
+-- bill_items -> bills
+-- optional
+CREATE TRIGGER trg_bill_items_ai_changelog AFTER INSERT ON bill_items FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, op, origin) VALUES ('bills', NEW.bill_id, 'U', @hpms_origin);
+-- optional
+CREATE TRIGGER trg_bill_items_au_changelog AFTER UPDATE ON bill_items FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, op, origin) VALUES ('bills', NEW.bill_id, 'U', @hpms_origin);
+-- optional
+CREATE TRIGGER trg_bill_items_ad_changelog AFTER DELETE ON bill_items FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, op, origin) VALUES ('bills', OLD.bill_id, 'U', @hpms_origin);
+
+-- patient_progress_notes -> patients
+-- optional
+CREATE TRIGGER trg_patient_progress_notes_ai_changelog AFTER INSERT ON patient_progress_notes FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, op, origin) VALUES ('patients', NEW.patient_id, 'U', @hpms_origin);
+-- optional
+CREATE TRIGGER trg_patient_progress_notes_au_changelog AFTER UPDATE ON patient_progress_notes FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, op, origin) VALUES ('patients', NEW.patient_id, 'U', @hpms_origin);
+-- optional
+CREATE TRIGGER trg_patient_progress_notes_ad_changelog AFTER DELETE ON patient_progress_notes FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, op, origin) VALUES ('patients', OLD.patient_id, 'U', @hpms_origin);
+
+-- patient_status -> patient_status
+-- optional
+CREATE TRIGGER trg_patient_status_ai_changelog AFTER INSERT ON patient_status FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, op, origin) VALUES ('patient_status', NEW.patient_id, 'U', @hpms_origin);
+-- optional
+CREATE TRIGGER trg_patient_status_au_changelog AFTER UPDATE ON patient_status FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, op, origin) VALUES ('patient_status', NEW.patient_id, 'U', @hpms_origin);
+-- optional
+CREATE TRIGGER trg_patient_status_ad_changelog AFTER DELETE ON patient_status FOR EACH ROW
+    INSERT INTO change_log (table_name, row_id, op, origin) VALUES ('patient_status', OLD.patient_id, 'U', @hpms_origin);
@@ -0,0 +1,28 @@
+-- audit_logs is only in database_schema.sql; installations from the other scripts never had it
+CREATE TABLE IF NOT EXISTS audit_logs (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    username VARCHAR(100),
+    action VARCHAR(100) NOT NULL,
+    entity_type VARCHAR(50),
+    entity_id VARCHAR(50),
+    details TEXT,
+    ip_address VARCHAR(50),
+    logged_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_logged_at (logged_at, id),
+    INDEX idx_user_logged (username, logged_at, id),
+    INDEX idx_action_logged (action, logged_at, id),
+    INDEX idx_entity_logged (entity_type, entity_id, logged_at, id)
+);
+
+-- Keyset pages are read newest first on (logged_at, id), optionally within one user, action or entity
+ALTER TABLE audit_logs ADD INDEX idx_user_logged (username, logged_at, id);
+ALTER TABLE audit_logs ADD INDEX idx_action_logged (action, logged_at, id);
+ALTER TABLE audit_logs ADD INDEX idx_entity_logged (entity_type, entity_id, logged_at, id);
+
+-- The single-column indexes are prefixes of the ones above
+-- optional
+ALTER TABLE audit_logs DROP INDEX idx_username;
+-- optional
+ALTER TABLE audit_logs DROP INDEX idx_action;
+-- optional
+ALTER TABLE audit_logs DROP INDEX idx_entity;
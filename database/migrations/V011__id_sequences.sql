@@ -0,0 +1,15 @@
+-- Next free number per id prefix; workstations reserve blocks of ids from it (hpms.util.IdSequences)
+CREATE TABLE IF NOT EXISTS id_sequences (
+    name VARCHAR(20) PRIMARY KEY,
+    next_value BIGINT NOT NULL
+);
+
+-- Start each sequence after the highest id already in use (a one-time scan)
+INSERT IGNORE INTO id_sequences (name, next_value)
+SELECT 'P', COALESCE(MAX(CAST(SUBSTRING(id, 2) AS UNSIGNED)), 1000) + 1 FROM patients WHERE id REGEXP '^P[0-9]+$';
+INSERT IGNORE INTO id_sequences (name, next_value)
+SELECT 'S', COALESCE(MAX(CAST(SUBSTRING(id, 2) AS UNSIGNED)), 2000) + 1 FROM staff WHERE id REGEXP '^S[0-9]+$';
+INSERT IGNORE INTO id_sequences (name, next_value)
+SELECT 'A', COALESCE(MAX(CAST(SUBSTRING(id, 2) AS UNSIGNED)), 3000) + 1 FROM appointments WHERE id REGEXP '^A[0-9]+$';
+INSERT IGNORE INTO id_sequences (name, next_value)
+SELECT 'B', COALESCE(MAX(CAST(SUBSTRING(id, 2) AS UNSIGNED)), 4000) + 1 FROM bills WHERE id REGEXP '^B[0-9]+$';
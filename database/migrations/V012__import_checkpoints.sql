@@ -0,0 +1,9 @@
+-- How far each bulk CSV import got; written in the same transaction as each batch of rows (hpms.service.ImportService)
+CREATE TABLE IF NOT EXISTS import_checkpoints (
+    source VARCHAR(255) PRIMARY KEY,
+    file_size BIGINT NOT NULL,
+    next_row BIGINT NOT NULL,
+    imported BIGINT NOT NULL DEFAULT 0,
+    rejected BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
@@ -0,0 +1,10 @@
+-- Consultation type decides how long an appointment blocks the doctor's calendar (hpms.model.ConsultationType).
+-- The schema scripts disagree on the column's ENUM values and none covers every type, so store the name as text.
+ALTER TABLE appointments ADD COLUMN consultation_type VARCHAR(30) DEFAULT 'FOLLOW_UP';
+ALTER TABLE appointments MODIFY COLUMN consultation_type VARCHAR(30) DEFAULT 'FOLLOW_UP';
+
+-- Values written by the older ENUMs
+UPDATE appointments SET consultation_type = 'ROUTINE_CHECKUP' WHERE consultation_type = 'ROUTINE';
+UPDATE appointments SET consultation_type = 'NEW_PATIENT' WHERE consultation_type = 'FIRST_TIME';
+UPDATE appointments SET consultation_type = 'SECOND_OPINION' WHERE consultation_type = 'REFERRAL';
+UPDATE appointments SET consultation_type = 'FOLLOW_UP' WHERE consultation_type IS NULL OR consultation_type = '';
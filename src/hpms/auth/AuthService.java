@@ -54,34 +54,23 @@ public class AuthService {
         List<String> out = new ArrayList<>();
         if (username == null || username.trim().isEmpty()) { out.add("Error: Missing username"); return out; }
         
-        // Use database authentication
-        try (Connection conn = DBConnection.getConnection()) {
-            String sql = "SELECT username, password, salt, role, status FROM users WHERE username = ?";
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setString(1, username);
-                ResultSet rs = stmt.executeQuery();
-                
-                if (rs.next()) {
-                    String dbPassword = rs.getString("password");
-                    String dbSalt = rs.getString("salt");
-                    String dbRole = rs.getString("role");
-                    String dbStatus = rs.getString("status");
-                    
-                    // Check if account is deactivated
-                    if ("DEACTIVATED".equals(dbStatus)) {
-                        out.add("Error: Account is deactivated. Please contact administrator.");
-                        return out;
-                    }
-                    
-                    String h = PasswordUtil.hash(password, dbSalt);
-                    if (h != null && h.equals(dbPassword)) {
-                        // Create user object for current session
-                        UserRole role = UserRole.valueOf(dbRole);
-                        current = new User(username, dbPassword, dbSalt, role);
-                        LogManager.log("login " + username);
-                        out.add("Login successful");
-                        return out;
-                    }
+        // Use database authentication; the users row is cached between logins
+        try {
+            UserCache.Entry u = UserCache.get(username);
+            if (u != null) {
+                // Check if account is deactivated
+                if (u.isDeactivated()) {
+                    out.add("Error: Account is deactivated. Please contact administrator.");
+                    return out;
+                }
+
+                if (PasswordUtil.verify(password, u.password, u.salt)) {
+                    // Create user object for current session
+                    current = new User(username, u.password, u.salt, u.role);
+                    AuthServiceDB.upgradeHash(username, password, u.password);
+                    LogManager.log("login", username);
+                    out.add("Login successful");
+                    return out;
                 }
             }
         } catch (SQLException e) {
@@ -95,7 +84,7 @@ public class AuthService {
     }
     public static List<String> logout() { List<String> out = new ArrayList<>();
         // Disabled backup save - using database instead
-        if (current != null) { LogManager.log("logout " + current.username); current = null; }
+        if (current != null) { LogManager.log("logout", current.username); current = null; }
         out.add("Logged out");
         return out;
     }
@@ -172,13 +161,14 @@ public class AuthService {
                 updateStmt.setString(2, salt);
                 updateStmt.setString(3, username);
                 updateStmt.executeUpdate();
+                UserCache.invalidate(username);
             }
             
             // Send email with new password
             boolean emailSent = hpms.util.EmailService.sendPasswordResetEmail(email, username, newPassword);
             
             if (emailSent) {
-                LogManager.log("password_reset username=" + username + " email=" + email);
+                LogManager.log("password_reset", "username=" + username, "email=" + email);
                 out.add("New password has been sent to your email address");
             } else {
                 out.add("Password reset but email delivery failed. Please contact administrator");
@@ -259,7 +249,7 @@ public class AuthService {
                 int rowsAffected = stmt.executeUpdate();
                 System.out.println("SQL executed, rows affected: " + rowsAffected);
 
-                LogManager.log("register " + username + " " + role);
+                LogManager.log("register", username, role);
                 out.add("User registered: " + username);
                 System.out.println("SUCCESS: User registered successfully");
             }
@@ -298,15 +288,16 @@ public class AuthService {
                 stmt.setString(4, hpms.model.UserRole.PATIENT.name());
                 stmt.setString(5, password);
                 int rows = stmt.executeUpdate();
+                UserCache.invalidate(username);
                 created = (rows == 1);
-                LogManager.log("patient_account_db_save " + username + " rows=" + rows);
+                LogManager.log("patient_account_db_save", username, "rows=" + rows);
             }
         } catch (SQLException e) {
             System.err.println("Error saving patient account to database: " + e.getMessage());
             e.printStackTrace();
         }
 
-        LogManager.log("register_patient " + username);
+        LogManager.log("register_patient", username);
         // Disabled backup save - using database instead
         out.add((created ? "Patient account created: " : "Patient account updated: ") + username);
         return out;
@@ -317,21 +308,19 @@ public class AuthService {
         if (username == null || password == null) return false;
         User u = DataStore.users.get(username);
         if (u == null) return false;
-        String h = PasswordUtil.hash(password, u.salt);
-        return Objects.equals(u.password, h);
+        return PasswordUtil.verify(password, u.password, u.salt);
     }
     public static List<String> changePassword(String username, String oldPassword, String newPassword) {
         List<String> out = new ArrayList<>();
         if (Validators.empty(username) || Validators.empty(oldPassword) || Validators.empty(newPassword)) { out.add("Error: Missing parameters"); return out; }
         User u = DataStore.users.get(username);
         if (u == null) { out.add("Error: Unknown user"); return out; }
-        String oldHash = PasswordUtil.hash(oldPassword, u.salt);
-        if (!Objects.equals(oldHash, u.password)) { out.add("Error: Current password incorrect"); return out; }
+        if (!PasswordUtil.verify(oldPassword, u.password, u.salt)) { out.add("Error: Current password incorrect"); return out; }
         if (newPassword.length() < 6) { out.add("Error: New password too short"); return out; }
         String newSalt = PasswordUtil.generateSalt();
         String newHash = PasswordUtil.hash(newPassword, newSalt);
         u.salt = newSalt; u.password = newHash; u.displayPassword = newPassword;
-        LogManager.log("change_password " + username);
+        LogManager.log("change_password", username);
         // Keep plaintext for UI display flows (transient only)
         lastPlain.put(username, newPassword);
         // Disabled backup save - using database instead
@@ -347,7 +336,7 @@ public class AuthService {
         User u = DataStore.users.get(username);
         if (u == null) { out.add("Error: Unknown user"); return out; }
         if (newPassword.length() < 6) { out.add("Error: New password too short"); return out; }
-        String newSalt = PasswordUtil.generateSalt(); String newHash = PasswordUtil.hash(newPassword, newSalt); u.salt = newSalt; u.password = newHash; u.displayPassword = newPassword; LogManager.log("change_password_no_old " + username); out.add("Password changed");
+        String newSalt = PasswordUtil.generateSalt(); String newHash = PasswordUtil.hash(newPassword, newSalt); u.salt = newSalt; u.password = newHash; u.displayPassword = newPassword; LogManager.log("change_password_no_old", username); out.add("Password changed");
         lastPlain.put(username, newPassword);
         // Disabled backup save - using database instead
         clearPlaintextForUI(username);
@@ -362,7 +351,7 @@ public class AuthService {
         String newSalt = PasswordUtil.generateSalt();
         String newHash = PasswordUtil.hash(pwd, newSalt);
         u.salt = newSalt; u.password = newHash; u.displayPassword = pwd;
-        LogManager.log("reset_password " + username);
+        LogManager.log("reset_password", username);
         // keep the reset plaintext available briefly for UI display
         lastPlain.put(username, pwd);
         // Disabled backup save - using database instead
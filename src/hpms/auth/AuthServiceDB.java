@@ -2,6 +2,7 @@ package hpms.auth;
 
 import hpms.model.UserRole;
 import hpms.util.DBConnection;
+import hpms.util.DataStore;
 import hpms.util.LogManager;
 import hpms.util.Validators;
 
@@ -67,51 +68,125 @@ public class AuthServiceDB {
             return out;
         }
 
-        try (Connection conn = DBConnection.getConnection()) {
-            if (conn == null) {
-                out.add("Error: Database connection failed");
+        try {
+            UserCache.Entry u = UserCache.get(username);
+            if (u == null || !PasswordUtil.verify(password, u.password, u.salt)) {
+                out.add("Error: Invalid credentials");
                 return out;
             }
+            if (u.isDeactivated()) {
+                out.add("Error: Account is deactivated. Please contact administrator.");
+                return out;
+            }
+            upgradeHash(username, password, u.password);
 
-            String sql = "SELECT username, password, salt, role, display_password FROM users WHERE username = ?";
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setString(1, username);
-                ResultSet rs = stmt.executeQuery();
+            // Create user object
+            User user = new User(username, u.password, u.salt, u.role);
+            user.displayPassword = u.displayPassword;
+            current = user;
 
-                if (!rs.next()) {
-                    out.add("Error: Invalid credentials");
-                    return out;
-                }
+            LogManager.log("login", username);
+            // Log to audit database
+            hpms.util.AuditLogService.logLogin(username, null);
+            out.add("Login successful");
+        } catch (SQLException e) {
+            out.add(e.getMessage().equals("Database connection failed") ? "Error: Database connection failed"
+                    : "Error: Database error - " + e.getMessage());
+            e.printStackTrace();
+        }
 
-                String storedPassword = rs.getString("password");
-                String salt = rs.getString("salt");
-                String roleStr = rs.getString("role");
-                String displayPassword = rs.getString("display_password");
+        return out;
+    }
 
-                String hashedInput = PasswordUtil.hash(password, salt);
+    /**
+     * Verify the credentials and register a session in SessionRegistry without
+     * touching the current user. Returns the session token, or null if the
+     * credentials are wrong, the account is deactivated or the database is down.
+     */
+    public static String openSession(String username, String password) {
+        UserCache.Entry u;
+        try {
+            u = UserCache.get(username);
+        } catch (SQLException e) {
+            System.err.println("Session login failed for " + username + ": " + e.getMessage());
+            return null;
+        }
+        if (u == null || u.isDeactivated() || !PasswordUtil.verify(password, u.password, u.salt))
+            return null;
+        upgradeHash(username, password, u.password);
+        hpms.model.Staff s = DataStore.staff.get(username);
+        hpms.model.Patient p = DataStore.patients.get(username);
+        String name = s != null && s.name != null ? s.name : p != null && p.name != null ? p.name : username;
+        LogManager.log("session_login", username);
+        return SessionRegistry.open(new AuthSession(username, username, name, u.role, s != null ? s.department : ""));
+    }
 
-                if (hashedInput == null || !storedPassword.equals(hashedInput)) {
-                    out.add("Error: Invalid credentials");
-                    return out;
+    /**
+     * After a successful login, re-hash the password in the background if its
+     * stored hash uses outdated parameters. The login does not wait for it.
+     */
+    static void upgradeHash(String username, String password, String storedHash) {
+        if (!PasswordUtil.needsRehash(storedHash))
+            return;
+        String salt = PasswordUtil.generateSalt();
+        PasswordUtil.hashAsync(password, salt).thenAcceptAsync(hash -> {
+            if (hash == null)
+                return;
+            try (Connection conn = DBConnection.getConnection()) {
+                if (conn != null) {
+                    // Matching the old hash skips the update if the password was changed meanwhile
+                    String sql = "UPDATE users SET password = ?, salt = ? WHERE username = ? AND password = ?";
+                    try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                        stmt.setString(1, hash);
+                        stmt.setString(2, salt);
+                        stmt.setString(3, username);
+                        stmt.setString(4, storedHash);
+                        if (stmt.executeUpdate() == 1)
+                            LogManager.log("password_rehash", username);
+                        UserCache.invalidate(username);
+                    }
                 }
+            } catch (SQLException e) {
+                System.err.println("Password rehash failed for " + username + ": " + e.getMessage());
+            }
+            User u = DataStore.users.get(username);
+            if (u != null && storedHash.equals(u.password)) {
+                u.password = hash;
+                u.salt = salt;
+            }
+        }).exceptionally(e -> {
+            System.err.println("Password rehash skipped for " + username + ": " + e.getMessage());
+            return null;
+        });
+    }
 
-                // Create user object
-                UserRole role = UserRole.valueOf(roleStr);
-                User user = new User(username, storedPassword, salt, role);
-                user.displayPassword = displayPassword;
-                current = user;
-
-                LogManager.log("login " + username);
-                // Log to audit database
-                hpms.util.AuditLogService.logLogin(username, null);
-                out.add("Login successful");
+    /**
+     * Set the account's status ("ACTIVE" or "DEACTIVATED") in the users table
+     * and only then drop the cached row, so the next login reads the new
+     * status. A deactivated user's open sessions are closed. Returns false and
+     * changes nothing if the database write failed.
+     */
+    public static boolean setStatus(String username, String status) {
+        try (Connection conn = DBConnection.getConnection()) {
+            if (conn == null)
+                return false;
+            try (PreparedStatement stmt = conn.prepareStatement("UPDATE users SET status = ? WHERE username = ?")) {
+                stmt.setString(1, status);
+                stmt.setString(2, username);
+                stmt.executeUpdate();
             }
         } catch (SQLException e) {
-            out.add("Error: Database error - " + e.getMessage());
-            e.printStackTrace();
+            System.err.println("Status update failed for " + username + ": " + e.getMessage());
+            return false;
         }
-
-        return out;
+        User u = DataStore.users.get(username);
+        if (u != null)
+            u.status = status;
+        UserCache.invalidate(username);
+        if ("DEACTIVATED".equals(status))
+            SessionRegistry.closeUser(username);
+        LogManager.log("user_status", username, status);
+        return true;
     }
 
     /**
@@ -122,7 +197,7 @@ public class AuthServiceDB {
 
         if (current != null) {
             String username = current.username;
-            LogManager.log("logout " + username);
+            LogManager.log("logout", username);
             // Log to audit database
             hpms.util.AuditLogService.logLogout(username, null);
             current = null;
@@ -188,7 +263,7 @@ public class AuthServiceDB {
                 stmt.setString(5, password);
                 stmt.executeUpdate();
 
-                LogManager.log("register " + username + " " + userRole);
+                LogManager.log("register", username, userRole);
                 // Log to audit database
                 hpms.util.AuditLogService.logCreate(current.username, "USER", username, "Registered new " + userRole + " user");
                 out.add("User registered: " + username);
@@ -244,7 +319,7 @@ public class AuthServiceDB {
                 stmt.executeUpdate();
 
                 lastPlain.put(username, password);
-                LogManager.log("register_patient " + username);
+                LogManager.log("register_patient", username);
                 // Log to audit database
                 hpms.util.AuditLogService.logCreate("SYSTEM", "USER", username, "Patient account auto-created");
                 out.add("Patient account created: " + username);
@@ -264,24 +339,9 @@ public class AuthServiceDB {
         if (username == null || password == null)
             return false;
 
-        try (Connection conn = DBConnection.getConnection()) {
-            if (conn == null)
-                return false;
-
-            String sql = "SELECT password, salt FROM users WHERE username = ?";
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setString(1, username);
-                ResultSet rs = stmt.executeQuery();
-
-                if (!rs.next())
-                    return false;
-
-                String storedPassword = rs.getString("password");
-                String salt = rs.getString("salt");
-                String hashedInput = PasswordUtil.hash(password, salt);
-
-                return storedPassword.equals(hashedInput);
-            }
+        try {
+            UserCache.Entry u = UserCache.get(username);
+            return u != null && PasswordUtil.verify(password, u.password, u.salt);
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
@@ -328,8 +388,7 @@ public class AuthServiceDB {
                 oldSalt = rs.getString("salt");
             }
 
-            String oldPasswordHash = PasswordUtil.hash(oldPassword, oldSalt);
-            if (!oldHash.equals(oldPasswordHash)) {
+            if (!PasswordUtil.verify(oldPassword, oldHash, oldSalt)) {
                 out.add("Error: Current password incorrect");
                 return out;
             }
@@ -345,8 +404,9 @@ public class AuthServiceDB {
                 stmt.setString(3, newPassword);
                 stmt.setString(4, username);
                 stmt.executeUpdate();
+                UserCache.invalidate(username);
 
-                LogManager.log("change_password " + username);
+                LogManager.log("change_password", username);
                 lastPlain.put(username, newPassword);
                 out.add("Password changed");
             }
@@ -402,8 +462,9 @@ public class AuthServiceDB {
                 stmt.setString(3, newPassword);
                 stmt.setString(4, username);
                 stmt.executeUpdate();
+                UserCache.invalidate(username);
 
-                LogManager.log("change_password_no_old " + username);
+                LogManager.log("change_password_no_old", username);
                 lastPlain.put(username, newPassword);
                 out.add("Password changed");
             }
@@ -448,8 +509,9 @@ public class AuthServiceDB {
                 stmt.setString(3, pwd);
                 stmt.setString(4, username);
                 stmt.executeUpdate();
+                UserCache.invalidate(username);
 
-                LogManager.log("reset_password " + username);
+                LogManager.log("reset_password", username);
                 lastPlain.put(username, pwd);
                 return pwd;
             }
@@ -547,6 +609,7 @@ public class AuthServiceDB {
                         stmt.setString(3, plain);
                         stmt.setString(4, username);
                         stmt.executeUpdate();
+                        UserCache.invalidate(username);
 
                         lastPlain.put(username, plain);
                     }
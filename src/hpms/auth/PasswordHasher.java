@@ -0,0 +1,17 @@
+package hpms.auth;
+
+import java.security.GeneralSecurityException;
+
+/**
+ * A key derivation function for stored passwords. Implementations are
+ * registered with PasswordUtil.register under their id, which is written into
+ * every hash they produce so the hash can be verified after the default
+ * algorithm changes.
+ */
+public interface PasswordHasher {
+    /** Name stored in the encoded hash, e.g. "pbkdf2-sha256"; must not contain '$' */
+    String id();
+
+    /** Derive the key for password and salt at the given cost (iterations or equivalent) */
+    byte[] derive(char[] password, byte[] salt, int cost) throws GeneralSecurityException;
+}
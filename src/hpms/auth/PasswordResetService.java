@@ -73,7 +73,7 @@ public class PasswordResetService {
             // Send email with reset code
             boolean emailSent = EmailService.sendPasswordResetCodeEmail(email, username, resetCode);
             if (emailSent) {
-                LogManager.log("password_reset_requested username=" + username);
+                LogManager.log("password_reset_requested", "username=" + username);
                 AuditLogService.logAction(username, "PASSWORD_RESET_REQUEST", "USER", username, "Password reset requested");
                 out.add("Password reset code sent to your email");
             } else {
@@ -146,6 +146,7 @@ public class PasswordResetService {
                 stmt.setString(4, username);
                 stmt.executeUpdate();
             }
+            UserCache.invalidate(username);
             
             // Mark reset code as used
             String markUsedSql = "UPDATE password_resets SET is_used = TRUE WHERE id = ?";
@@ -154,7 +155,7 @@ public class PasswordResetService {
                 stmt.executeUpdate();
             }
             
-            LogManager.log("password_reset_completed username=" + username);
+            LogManager.log("password_reset_completed", "username=" + username);
             AuditLogService.logAction(username, "PASSWORD_RESET_COMPLETE", "USER", username, "Password reset completed via email verification");
             out.add("Password reset successful. You can now login with your new password");
             
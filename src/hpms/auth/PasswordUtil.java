@@ -1,36 +1,211 @@
 package hpms.auth;
 
+import hpms.config.DatabaseConfig;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
 import java.security.SecureRandom;
 import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.*;
 import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.PBEKeySpec;
 
+/**
+ * Password hashing. Hashes carry their own parameters as
+ * {@code $algorithm$iterations$salt$hash} (salt and hash in Base64), so the
+ * default cost can be raised without breaking existing accounts: such hashes
+ * still verify, and needsRehash tells the login code to store a new one.
+ * Bare Base64 hashes from before this format are verified with the salt from
+ * the users.salt column at PBKDF2-SHA256, 10,000 iterations.
+ *
+ * Key derivation runs on a small dedicated pool with a bounded queue, so a
+ * burst of logins cannot take every core. The async methods do not wait and
+ * may be called from the EDT; they fail with RejectedExecutionException when
+ * the queue is full. hash and verify wait for the result, and run on the
+ * calling thread when the queue is full.
+ */
 public class PasswordUtil {
     private static final SecureRandom RAND = new SecureRandom();
-    private static final int ITER = 10000;
+    private static final String LEGACY_ALGORITHM = "pbkdf2-sha256";
+    private static final int LEGACY_ITER = 10000;
     private static final int KEY_LEN = 256;
 
+    private static final Map<String, PasswordHasher> hashers = new ConcurrentHashMap<>();
+    static {
+        register(pbkdf2("pbkdf2-sha256", "PBKDF2WithHmacSHA256"));
+        register(pbkdf2("pbkdf2-sha512", "PBKDF2WithHmacSHA512"));
+        register(pbkdf2("pbkdf2-sha1", "PBKDF2WithHmacSHA1"));
+    }
+
+    private static final int threads = DatabaseConfig.PASSWORD_HASH_THREADS > 0 ? DatabaseConfig.PASSWORD_HASH_THREADS
+            : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private static final ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, DatabaseConfig.PASSWORD_HASH_QUEUE)), KdfThread::new);
+
+    private static final class KdfThread extends Thread {
+        KdfThread(Runnable r) {
+            super(r, "hpms-kdf");
+            setDaemon(true);
+        }
+    }
+
+    /** Make an algorithm available for new hashes (when configured) and for verifying stored ones */
+    public static void register(PasswordHasher hasher) {
+        if (hasher.id().indexOf('$') >= 0)
+            throw new IllegalArgumentException("Hasher id may not contain '$': " + hasher.id());
+        hashers.put(hasher.id(), hasher);
+    }
+
     public static String generateSalt() {
         byte[] s = new byte[16]; RAND.nextBytes(s); return Base64.getEncoder().encodeToString(s);
     }
 
+    /** Encoded hash of plain with the given Base64 salt, using the configured algorithm and iterations */
     public static String hash(String plain, String salt) {
+        return hash(plain, salt, DatabaseConfig.PASSWORD_HASH_ALGORITHM, DatabaseConfig.PASSWORD_HASH_ITERATIONS);
+    }
+
+    /** Encoded hash with explicit parameters; null if plain is null or the algorithm is unknown */
+    public static String hash(String plain, String salt, String algorithm, int iterations) {
         if (plain == null) return null;
         try {
-            char[] chars = plain.toCharArray();
-            byte[] saltBytes = salt == null ? new byte[0] : Base64.getDecoder().decode(salt);
-            PBEKeySpec spec = new PBEKeySpec(chars, saltBytes, ITER, KEY_LEN);
-            SecretKeyFactory skf;
-            try {
-                skf = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
-            } catch (Exception ex) {
-                skf = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1");
-            }
-            byte[] res = skf.generateSecret(spec).getEncoded();
-            return Base64.getEncoder().encodeToString(res);
+            return call(() -> encode(plain, salt, algorithm, iterations));
         } catch (Exception e) {
+            System.err.println("Password hashing failed: " + e.getMessage());
             return null;
         }
     }
-}
 
+    public static CompletableFuture<String> hashAsync(String plain, String salt) {
+        if (plain == null) return CompletableFuture.completedFuture(null);
+        String algorithm = DatabaseConfig.PASSWORD_HASH_ALGORITHM;
+        int iterations = DatabaseConfig.PASSWORD_HASH_ITERATIONS;
+        return submit(() -> encode(plain, salt, algorithm, iterations));
+    }
+
+    /**
+     * Check plain against a stored hash in either format; legacySalt is the
+     * users.salt column and is only used for bare legacy hashes. Comparison
+     * is constant-time.
+     */
+    public static boolean verify(String plain, String stored, String legacySalt) {
+        if (plain == null || stored == null) return false;
+        try {
+            return call(() -> matches(plain, stored, legacySalt));
+        } catch (Exception e) {
+            System.err.println("Password verification failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    public static CompletableFuture<Boolean> verifyAsync(String plain, String stored, String legacySalt) {
+        if (plain == null || stored == null) return CompletableFuture.completedFuture(false);
+        return submit(() -> matches(plain, stored, legacySalt));
+    }
+
+    /** True if stored was not produced with the configured algorithm and at least the configured iterations */
+    public static boolean needsRehash(String stored) {
+        String[] p = parse(stored);
+        if (p == null) return true;
+        try {
+            return !p[0].equals(DatabaseConfig.PASSWORD_HASH_ALGORITHM)
+                    || Integer.parseInt(p[1]) < DatabaseConfig.PASSWORD_HASH_ITERATIONS;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private static String encode(String plain, String salt, String algorithm, int iterations)
+            throws GeneralSecurityException {
+        PasswordHasher hasher = hashers.get(algorithm);
+        if (hasher == null) throw new GeneralSecurityException("Unknown password algorithm " + algorithm);
+        byte[] saltBytes = salt == null ? new byte[0] : Base64.getDecoder().decode(salt);
+        byte[] key = hasher.derive(plain.toCharArray(), saltBytes, iterations);
+        return "$" + algorithm + "$" + iterations + "$" + Base64.getEncoder().encodeToString(saltBytes) + "$"
+                + Base64.getEncoder().encodeToString(key);
+    }
+
+    private static boolean matches(String plain, String stored, String legacySalt) throws GeneralSecurityException {
+        String[] p = parse(stored);
+        String algorithm, salt, expected;
+        int iterations;
+        if (p == null) {
+            if (stored.startsWith("$")) return false;
+            algorithm = LEGACY_ALGORITHM; iterations = LEGACY_ITER; salt = legacySalt; expected = stored;
+        } else {
+            try {
+                iterations = Integer.parseInt(p[1]);
+            } catch (NumberFormatException e) {
+                return false;
+            }
+            algorithm = p[0]; salt = p[2]; expected = p[3];
+        }
+        PasswordHasher hasher = hashers.get(algorithm);
+        if (hasher == null || iterations <= 0) return false;
+        byte[] want, saltBytes;
+        try {
+            want = Base64.getDecoder().decode(expected);
+            saltBytes = salt == null ? new byte[0] : Base64.getDecoder().decode(salt);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return MessageDigest.isEqual(want, hasher.derive(plain.toCharArray(), saltBytes, iterations));
+    }
+
+    /** {algorithm, iterations, salt, hash} of an encoded hash, or null for a legacy or malformed one */
+    private static String[] parse(String stored) {
+        if (stored == null || !stored.startsWith("$")) return null;
+        String[] p = stored.substring(1).split("\\$", -1);
+        return p.length == 4 ? p : null;
+    }
+
+    private static <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> f = new CompletableFuture<>();
+        Runnable r = () -> {
+            try {
+                f.complete(task.call());
+            } catch (Throwable t) {
+                f.completeExceptionally(t);
+            }
+        };
+        if (Thread.currentThread() instanceof KdfThread) {
+            r.run();
+            return f;
+        }
+        try {
+            pool.execute(r);
+        } catch (RejectedExecutionException e) {
+            f.completeExceptionally(new RejectedExecutionException("Too many password checks in progress, try again"));
+        }
+        return f;
+    }
+
+    /** Run task on the pool and wait; if the queue is full, run it on the calling thread instead of failing */
+    private static <T> T call(Callable<T> task) throws Exception {
+        try {
+            return submit(task).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RejectedExecutionException)
+                return task.call();
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    private static PasswordHasher pbkdf2(String id, String jcaName) {
+        return new PasswordHasher() {
+            public String id() {
+                return id;
+            }
+
+            public byte[] derive(char[] password, byte[] salt, int cost) throws GeneralSecurityException {
+                PBEKeySpec spec = new PBEKeySpec(password, salt, cost, KEY_LEN);
+                try {
+                    return SecretKeyFactory.getInstance(jcaName).generateSecret(spec).getEncoded();
+                } finally {
+                    spec.clearPassword();
+                }
+            }
+        };
+    }
+}
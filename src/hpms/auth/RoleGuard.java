@@ -5,9 +5,18 @@ package hpms.auth;
  */
 public class RoleGuard {
     private static AuthSession currentSession = null;
+    private static String currentToken = null;
 
-    public static void setSession(AuthSession session) {
+    /** Set this window's session; it is also registered with SessionRegistry */
+    public static synchronized void setSession(AuthSession session) {
+        SessionRegistry.close(currentToken);
         currentSession = session;
+        currentToken = session == null ? null : SessionRegistry.open(session);
+    }
+
+    /** SessionRegistry token of the current session, or null */
+    public static synchronized String getToken() {
+        return currentToken;
     }
 
     public static AuthSession getSession() {
@@ -15,7 +24,7 @@ public class RoleGuard {
     }
 
     public static void clearSession() {
-        currentSession = null;
+        setSession(null);
     }
 
     public static boolean hasSession() {
@@ -0,0 +1,125 @@
+package hpms.auth;
+
+import hpms.config.DatabaseConfig;
+import hpms.model.UserRole;
+
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Authenticated sessions by token, for deployments where several users are
+ * signed in to one process. A session holds the user's AuthSession, so role
+ * checks need no database access. Sessions unused for SESSION_IDLE_TIMEOUT_MS
+ * expire; expired sessions are swept at most once a minute as the registry
+ * is used.
+ */
+public class SessionRegistry {
+    private static final SecureRandom RAND = new SecureRandom();
+    private static final long SWEEP_INTERVAL_MS = 60 * 1000L;
+
+    private static final class Entry {
+        final AuthSession session;
+        volatile long lastUsed = System.currentTimeMillis();
+
+        Entry(AuthSession session) {
+            this.session = session;
+        }
+    }
+
+    private static final ConcurrentHashMap<String, Entry> sessions = new ConcurrentHashMap<>();
+    private static volatile long lastSweep = System.currentTimeMillis();
+
+    /** Register an authenticated session and return its token */
+    public static String open(AuthSession session) {
+        sweepIfDue();
+        byte[] b = new byte[32];
+        RAND.nextBytes(b);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(b);
+        sessions.put(token, new Entry(session));
+        return token;
+    }
+
+    /** The session for token, or null if unknown or idle too long; a hit counts as activity */
+    public static AuthSession get(String token) {
+        if (token == null)
+            return null;
+        sweepIfDue();
+        Entry e = sessions.get(token);
+        if (e == null)
+            return null;
+        long now = System.currentTimeMillis();
+        if (now - e.lastUsed >= DatabaseConfig.SESSION_IDLE_TIMEOUT_MS) {
+            sessions.remove(token, e);
+            return null;
+        }
+        e.lastUsed = now;
+        return e.session;
+    }
+
+    /** True if token has a live session whose role is one of roles */
+    public static boolean hasRole(String token, UserRole... roles) {
+        AuthSession s = get(token);
+        if (s == null)
+            return false;
+        for (UserRole r : roles)
+            if (s.role == r)
+                return true;
+        return false;
+    }
+
+    /** The session for token, failing unless it is live and (if roles are given) has one of roles */
+    public static AuthSession require(String token, UserRole... roles) throws RoleGuard.AccessDeniedException {
+        AuthSession s = get(token);
+        if (s == null)
+            throw new RoleGuard.AccessDeniedException("Authentication required");
+        if (roles.length == 0)
+            return s;
+        for (UserRole r : roles)
+            if (s.role == r)
+                return s;
+        throw new RoleGuard.AccessDeniedException(Arrays.toString(roles) + " access required");
+    }
+
+    public static void close(String token) {
+        if (token != null)
+            sessions.remove(token);
+    }
+
+    /** End every session of a user, e.g. when the account is deactivated; returns how many */
+    public static int closeUser(String username) {
+        int n = 0;
+        for (Iterator<Entry> it = sessions.values().iterator(); it.hasNext();) {
+            if (it.next().session.username.equals(username)) {
+                it.remove();
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /** Remove sessions unused for at least idleMillis; returns how many */
+    public static int expireIdle(long idleMillis) {
+        long cutoff = System.currentTimeMillis() - idleMillis;
+        int n = 0;
+        for (Iterator<Entry> it = sessions.values().iterator(); it.hasNext();) {
+            if (it.next().lastUsed <= cutoff) {
+                it.remove();
+                n++;
+            }
+        }
+        return n;
+    }
+
+    public static int size() {
+        return sessions.size();
+    }
+
+    private static void sweepIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - lastSweep < SWEEP_INTERVAL_MS)
+            return;
+        lastSweep = now;
+        expireIdle(DatabaseConfig.SESSION_IDLE_TIMEOUT_MS);
+    }
+}
@@ -0,0 +1,92 @@
+package hpms.auth;
+
+import hpms.config.DatabaseConfig;
+import hpms.model.UserRole;
+import hpms.util.DBConnection;
+
+import java.sql.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rows of the users table kept in memory for login and credential checks.
+ * An entry is reloaded after USER_CACHE_TTL_MS so changes made from another
+ * workstation are picked up; changes made here call invalidate so they are
+ * seen at once.
+ */
+public class UserCache {
+
+    /** The columns of one users row needed for authentication */
+    public static final class Entry {
+        public final String username, password, salt, status, displayPassword;
+        public final UserRole role;
+        final long loadedAt;
+
+        public Entry(String username, String password, String salt, UserRole role, String status,
+                String displayPassword) {
+            this.username = username;
+            this.password = password;
+            this.salt = salt;
+            this.role = role;
+            this.status = status == null ? "ACTIVE" : status;
+            this.displayPassword = displayPassword;
+            this.loadedAt = System.currentTimeMillis();
+        }
+
+        public boolean isDeactivated() {
+            return "DEACTIVATED".equals(status);
+        }
+    }
+
+    private static final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * The user's row, from memory if loaded recently, otherwise from the
+     * database; null if there is no such user. Throws if the database is needed
+     * and unavailable.
+     */
+    public static Entry get(String username) throws SQLException {
+        if (username == null)
+            return null;
+        Entry e = entries.get(username);
+        if (e != null && System.currentTimeMillis() - e.loadedAt < DatabaseConfig.USER_CACHE_TTL_MS)
+            return e;
+        try (Connection conn = DBConnection.getConnection()) {
+            if (conn == null)
+                throw new SQLException("Database connection failed");
+            String sql = "SELECT username, password, salt, role, status, display_password FROM users WHERE username = ?";
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setString(1, username);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next()) {
+                        entries.remove(username);
+                        return null;
+                    }
+                    e = new Entry(rs.getString("username"), rs.getString("password"), rs.getString("salt"),
+                            UserRole.valueOf(rs.getString("role")), rs.getString("status"),
+                            rs.getString("display_password"));
+                }
+            }
+        }
+        put(e);
+        return e;
+    }
+
+    /** Cache a row that was just read or written */
+    public static void put(Entry e) {
+        entries.put(e.username, e);
+    }
+
+    /** Drop the user's row; call after changing their password, role or status */
+    public static void invalidate(String username) {
+        if (username != null)
+            entries.remove(username);
+    }
+
+    public static void clear() {
+        entries.clear();
+    }
+
+    public static int size() {
+        return entries.size();
+    }
+}
@@ -22,7 +22,7 @@ public class Verifier {
         System.out.println(step("assign_room", RoomService.assign(DataStore.rooms.keySet().iterator().next(), pid)));
         String backup = BackupUtil.toJson();
         System.out.println(backup != null && backup.startsWith("{") ? "backup: success" : "backup: fail");
-        System.out.println(DataStore.activityLog.isEmpty() ? "activity_log: fail" : "activity_log: success");
+        System.out.println(hpms.util.ActivityLog.isEmpty() ? "activity_log: fail" : "activity_log: success");
         System.out.println(step("logout", AuthService.logout()));
     }
 
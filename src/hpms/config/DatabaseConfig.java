@@ -8,7 +8,7 @@ package hpms.config;
 public final class DatabaseConfig {
     // Database connection URL
     // Format: jdbc:mysql://host:port/database?options
-    public static final String JDBC_URL = "jdbc:mysql://localhost:3306/hpms_db?useSSL=false&serverTimezone=UTC&connectTimeout=5000&socketTimeout=5000";
+    public static final String JDBC_URL = "jdbc:mysql://localhost:3306/hpms_db?useSSL=false&serverTimezone=UTC&connectTimeout=5000&socketTimeout=5000&rewriteBatchedStatements=true";
     
     // Database username
     // For XAMPP default: "root"
@@ -25,7 +25,115 @@ public final class DatabaseConfig {
     
     // Database name (for reference)
     public static final String DATABASE_NAME = "hpms_db";
-    
+
+    // Connection pool settings (see hpms.util.ConnectionPool)
+    // Maximum number of open connections shared by the whole application
+    public static final int POOL_MAX_SIZE = 10;
+    // Idle connections kept open even when unused
+    public static final int POOL_MIN_IDLE = 2;
+    // Idle connections above POOL_MIN_IDLE are closed after this long
+    public static final long POOL_IDLE_TIMEOUT_MS = 5 * 60 * 1000L;
+    // Connections are retired after this long (keep below MySQL wait_timeout)
+    public static final long POOL_MAX_LIFETIME_MS = 30 * 60 * 1000L;
+    // How long getConnection() waits for a free connection before giving up
+    public static final long POOL_BORROW_TIMEOUT_MS = 5000L;
+    // Timeout for the validation ping done when a connection is borrowed
+    public static final int POOL_VALIDATION_TIMEOUT_SEC = 2;
+
+    // Versioned schema scripts applied once by hpms.util.SchemaMigrator
+    public static final String MIGRATIONS_DIR =
+        java.nio.file.Paths.get(System.getProperty("user.dir"), "database", "migrations").toString();
+
+    // Write-behind queue settings (see hpms.util.WriteBehindQueue)
+    // Append-only journal of writes not yet committed to MySQL
+    public static final String WRITE_JOURNAL_PATH =
+        java.nio.file.Paths.get(System.getProperty("user.home"), "hpms_write_journal.log").toString();
+    // Maximum number of queued writes committed in one transaction
+    public static final int WRITE_BATCH_SIZE = 50;
+    // A write that keeps failing with an SQL error is dropped after this many tries
+    public static final int WRITE_MAX_ATTEMPTS = 5;
+    // Longest pause between retries while the database is unreachable
+    public static final long WRITE_MAX_BACKOFF_MS = 30_000L;
+
+    // ID block settings (see hpms.util.IdSequences)
+    // Patient, staff, appointment and bill numbers reserved from id_sequences at a time
+    public static final int ID_BLOCK_SIZE = 100;
+    // After a failed reservation, ids come from the local counter for this long before MySQL is tried again
+    public static final long ID_RETRY_MS = 30_000L;
+
+    // Audit pipeline settings (see hpms.util.AuditPipeline)
+    // Audit events buffered in memory; further events go straight to the spill file
+    public static final int AUDIT_BUFFER_CAPACITY = 4096;
+    // Audit events inserted per transaction; a full batch is flushed at once
+    public static final int AUDIT_BATCH_SIZE = 200;
+    // Buffered audit events are flushed at least this often
+    public static final long AUDIT_FLUSH_INTERVAL_MS = 1000L;
+    // Audit events kept while MySQL is unreachable; replayed once it is back
+    public static final String AUDIT_SPILL_PATH =
+        java.nio.file.Paths.get(System.getProperty("user.home"), "hpms_audit_spill.log").toString();
+
+    // Activity log settings (see hpms.util.ActivityLog)
+    // Newest activity entries kept in memory
+    public static final int ACTIVITY_LOG_CAPACITY = 5000;
+    // Rolling segment files holding the activity log on disk
+    public static final String ACTIVITY_LOG_DIR =
+        java.nio.file.Paths.get(System.getProperty("user.home"), "hpms_activity").toString();
+    // A segment file is closed once it reaches this size
+    public static final long ACTIVITY_SEGMENT_BYTES = 1024 * 1024L;
+    // Segment files kept; older ones are deleted
+    public static final int ACTIVITY_SEGMENT_COUNT = 20;
+
+    // Delta sync settings (see hpms.service.DeltaSync)
+    // How often each workstation polls change_log for other workstations' changes
+    public static final long SYNC_POLL_INTERVAL_MS = 2000L;
+    // Maximum change_log entries read per poll
+    public static final int SYNC_BATCH_LIMIT = 500;
+    // Skipped change_log ids are re-polled this long, in case their transaction commits late
+    public static final long SYNC_GAP_TIMEOUT_MS = 2 * 60 * 1000L;
+    // Most skipped ids remembered at once
+    public static final int SYNC_MAX_GAP_IDS = 10000;
+    // change_log entries older than this are pruned; a workstation offline longer reloads everything
+    public static final int CHANGE_LOG_RETENTION_HOURS = 24;
+    // All tables are reloaded this often, correcting anything change_log did not record
+    public static final long SYNC_RECONCILE_INTERVAL_MS = 6 * 60 * 60 * 1000L;
+    // A full reload that could not read change_log is retried after this, doubling up to the maximum
+    public static final long SYNC_RELOAD_RETRY_MS = 5000L;
+    public static final long SYNC_RELOAD_RETRY_MAX_MS = 5 * 60 * 1000L;
+
+    // Warm-start snapshot settings (see hpms.service.DataSnapshot)
+    // Binary copy of DataStore loaded at startup instead of reading every table
+    public static final String SNAPSHOT_PATH =
+        java.nio.file.Paths.get(System.getProperty("user.home"), "hpms_snapshot.bin").toString();
+    // How often the snapshot is rewritten while running; it is also written on exit
+    public static final long SNAPSHOT_INTERVAL_MS = 10 * 60 * 1000L;
+
+    // Report engine settings (see hpms.service.ReportEngine)
+    // Fork/join worker threads for report aggregation and export; 0 means one less than the CPU count
+    public static final int REPORT_PARALLELISM = 0;
+    // Records formatted per export chunk; at most two chunks per worker are held in memory
+    public static final int REPORT_CHUNK_ROWS = 2048;
+
+    // Bulk import settings (see hpms.service.ImportService)
+    // CSV rows validated, inserted and committed together; the checkpoint advances once per batch
+    public static final int IMPORT_BATCH_SIZE = 1000;
+    // Threads validating rows in parallel; 0 means one per CPU
+    public static final int IMPORT_THREADS = 0;
+
+    // Password hashing settings (see hpms.auth.PasswordUtil)
+    // Algorithm and iterations for new hashes; older hashes are upgraded at the user's next login
+    public static final String PASSWORD_HASH_ALGORITHM = "pbkdf2-sha256";
+    public static final int PASSWORD_HASH_ITERATIONS = 600000;
+    // Key derivation threads; 0 means half the CPU count (at least one)
+    public static final int PASSWORD_HASH_THREADS = 0;
+    // Hashes waiting for a thread before async requests are refused
+    public static final int PASSWORD_HASH_QUEUE = 64;
+
+    // Session settings (see hpms.auth.SessionRegistry and hpms.auth.UserCache)
+    // Sessions unused for this long are signed out
+    public static final long SESSION_IDLE_TIMEOUT_MS = 30 * 60 * 1000L;
+    // Cached users rows are re-read after this long, to see changes made on other workstations
+    public static final long USER_CACHE_TTL_MS = 5 * 60 * 1000L;
+
     // Prevent instantiation
     private DatabaseConfig() {
         // Utility class - no instances allowed
@@ -3,6 +3,9 @@ package hpms.model;
 import java.time.LocalDateTime;
 
 public class Appointment {
+    /** Length assumed for appointments without a consultation type */
+    public static final java.time.Duration DEFAULT_DURATION = java.time.Duration.ofHours(1);
+
     public final String id;
     public String patientId;
     public String staffId;
@@ -23,5 +26,13 @@ public class Appointment {
         this.department = department; 
         this.createdAt = createdAt;
     }
+
+    public java.time.Duration duration() {
+        return consultationType == null ? DEFAULT_DURATION : consultationType.duration();
+    }
+
+    public LocalDateTime endTime() {
+        return dateTime.plus(duration());
+    }
 }
 
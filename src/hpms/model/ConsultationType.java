@@ -1,11 +1,37 @@
 package hpms.model;
 
 public enum ConsultationType {
-    NEW_PATIENT,
-    FOLLOW_UP,
-    EMERGENCY,
-    ROUTINE_CHECKUP,
-    SECOND_OPINION,
-    TELEHEALTH,
-    IN_PERSON
+    NEW_PATIENT(60),
+    FOLLOW_UP(60),
+    EMERGENCY(30),
+    ROUTINE_CHECKUP(30),
+    SECOND_OPINION(60),
+    TELEHEALTH(30),
+    IN_PERSON(60);
+
+    /** Time blocked on the doctor's calendar for this kind of visit */
+    public final int minutes;
+
+    ConsultationType(int minutes) {
+        this.minutes = minutes;
+    }
+
+    public java.time.Duration duration() {
+        return java.time.Duration.ofMinutes(minutes);
+    }
+
+    /** Read appointments.consultation_type; values from the older schema ENUMs map to their current names */
+    public static ConsultationType fromColumn(String value) {
+        if (value == null || value.trim().isEmpty()) return FOLLOW_UP;
+        switch (value.trim().toUpperCase()) {
+            case "ROUTINE": return ROUTINE_CHECKUP;
+            case "FIRST_TIME": return NEW_PATIENT;
+            case "REFERRAL": return SECOND_OPINION;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return FOLLOW_UP;
+        }
+    }
 }
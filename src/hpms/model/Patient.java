@@ -131,7 +131,15 @@ public class Patient {
      * patientType
      */
     public void validateCompleteness() {
-        this.isComplete = name != null && !name.trim().isEmpty()
+        this.isComplete = hasRequiredFields();
+    }
+
+    /**
+     * Same check as validateCompleteness() without updating the flag, so it can
+     * run off the EDT
+     */
+    public boolean hasRequiredFields() {
+        return name != null && !name.trim().isEmpty()
                 && age > 0
                 && birthday != null && !birthday.trim().isEmpty()
                 && gender != null
@@ -0,0 +1,352 @@
+package hpms.service;
+
+import hpms.model.*;
+import hpms.util.DBConnection;
+import hpms.util.DataStore;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.IsoFields;
+import java.util.*;
+
+/**
+ * Column store for long-range appointment and billing trends, e.g. revenue
+ * per department per week over several years or no-show rate by doctor.
+ *
+ * Appointments and bills are copied into parallel primitive arrays (day,
+ * department, staff, payment method, amount, flag) sorted by day, with text
+ * values replaced by dictionary codes. A query binary-searches the date range
+ * and then runs one pass over plain int/double arrays, so it touches about
+ * 20 bytes per row instead of an object graph; the loop has no object loads
+ * or calls, which leaves the JIT free to unroll it.
+ *
+ * The store is a snapshot: load() streams both tables from MySQL (or copies
+ * the DataStore when the database is unavailable) and later edits are only
+ * seen after the next load(). A bill is counted under the department and
+ * doctor of the patient's latest appointment at or before the bill was
+ * created. An appointment is a no-show when it is not completed and its day
+ * was before the day the store was loaded.
+ */
+public class AnalyticsStore {
+
+    public enum Bucket { DAY, WEEK, MONTH, YEAR, ALL }
+
+    public enum Dimension { NONE, DEPARTMENT, STAFF, PAYMENT_METHOD }
+
+    /** Query result: one cell per (period, group); empty cells have count 0 */
+    public static final class Table {
+        public final List<String> periods;
+        public final List<String> groups;
+        private final long[] count;
+        private final double[] sum;
+        private final long[] flagged;
+
+        Table(List<String> periods, List<String> groups, long[] count, double[] sum, long[] flagged) {
+            this.periods = periods;
+            this.groups = groups;
+            this.count = count;
+            this.sum = sum;
+            this.flagged = flagged;
+        }
+
+        public long count(int period, int group) {
+            return count[period * groups.size() + group];
+        }
+
+        /** Billed amount (bills only) */
+        public double sum(int period, int group) {
+            return sum[period * groups.size() + group];
+        }
+
+        /** Paid bills, or no-show appointments */
+        public long flagged(int period, int group) {
+            return flagged[period * groups.size() + group];
+        }
+    }
+
+    /** Dense int code for each distinct value, in first-seen order */
+    private static final class Dictionary {
+        final Map<String, Integer> codes = new HashMap<>();
+        final List<String> names = new ArrayList<>();
+
+        int code(String value) {
+            String v = value == null || value.trim().isEmpty() ? "Unassigned" : value.trim();
+            Integer c = codes.get(v);
+            if (c == null) {
+                c = names.size();
+                codes.put(v, c);
+                names.add(v);
+            }
+            return c;
+        }
+    }
+
+    /** One fact table, rows in day order; built by appending rows already in that order */
+    private static final class Columns {
+        int size;
+        int[] day = new int[1024];
+        int[] dept = new int[1024];
+        int[] staff = new int[1024];
+        int[] method = new int[1024];
+        double[] amount = new double[1024];
+        int[] flag = new int[1024];
+
+        void add(int d, int dp, int st, int m, double amt, boolean f) {
+            if (size == day.length) {
+                int n = size * 2;
+                day = Arrays.copyOf(day, n);
+                dept = Arrays.copyOf(dept, n);
+                staff = Arrays.copyOf(staff, n);
+                method = Arrays.copyOf(method, n);
+                amount = Arrays.copyOf(amount, n);
+                flag = Arrays.copyOf(flag, n);
+            }
+            if (size > 0 && d < day[size - 1])
+                throw new IllegalStateException("Rows must be added in day order");
+            day[size] = d;
+            dept[size] = dp;
+            staff[size] = st;
+            method[size] = m;
+            amount[size] = amt;
+            flag[size] = f ? 1 : 0;
+            size++;
+        }
+
+        /** First row whose day is &gt;= d */
+        int lowerBound(int d) {
+            int lo = 0, hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (day[mid] < d)
+                    lo = mid + 1;
+                else
+                    hi = mid;
+            }
+            return lo;
+        }
+    }
+
+    private static final class Snapshot {
+        final Columns appointments = new Columns();
+        final Columns bills = new Columns();
+        final Dictionary departments = new Dictionary();
+        final Dictionary staff = new Dictionary();
+        final Dictionary methods = new Dictionary();
+        final long today = LocalDate.now().toEpochDay();
+        final LocalDateTime loadedAt = LocalDateTime.now();
+        boolean fromDatabase;
+    }
+
+    private static volatile Snapshot current;
+
+    private static final String APPOINTMENT_SQL =
+            "SELECT date_time, department, staff_id, is_completed FROM appointments ORDER BY date_time";
+
+    // Attribute each bill to the patient's latest appointment at or before it
+    private static final String BILL_SQL = "SELECT b.created_at, b.total, b.paid, b.payment_method, "
+            + "(SELECT a.department FROM appointments a WHERE a.patient_id = b.patient_id AND a.date_time <= b.created_at "
+            + "ORDER BY a.date_time DESC LIMIT 1) AS department, "
+            + "(SELECT a.staff_id FROM appointments a WHERE a.patient_id = b.patient_id AND a.date_time <= b.created_at "
+            + "ORDER BY a.date_time DESC LIMIT 1) AS staff_id "
+            + "FROM bills b ORDER BY b.created_at";
+
+    /**
+     * Rebuild the store. Streams both tables from MySQL; falls back to the
+     * in-memory DataStore when the database cannot be read. Returns true if
+     * the data came from the database.
+     */
+    public static synchronized boolean load() {
+        Snapshot s = null;
+        try {
+            s = loadFromDatabase();
+        } catch (SQLException e) {
+            System.err.println("AnalyticsStore: cannot read database, using loaded records: " + e.getMessage());
+        }
+        if (s == null)
+            s = loadFromDataStore();
+        current = s;
+        return s.fromDatabase;
+    }
+
+    /** When the data being queried was loaded, or null before the first load */
+    public static LocalDateTime loadedAt() {
+        Snapshot s = current;
+        return s == null ? null : s.loadedAt;
+    }
+
+    public static int appointmentRows() {
+        return snapshot().appointments.size;
+    }
+
+    public static int billRows() {
+        return snapshot().bills.size;
+    }
+
+    /** Bills created in [from, to): count, billed amount, paid count */
+    public static Table revenue(LocalDate from, LocalDate to, Bucket bucket, Dimension by) {
+        Snapshot s = snapshot();
+        return scan(s, s.bills, from, to, bucket, by);
+    }
+
+    /** Appointments in [from, to): count and no-shows. There is no payment method grouping */
+    public static Table appointments(LocalDate from, LocalDate to, Bucket bucket, Dimension by) {
+        if (by == Dimension.PAYMENT_METHOD)
+            throw new IllegalArgumentException("Appointments have no payment method");
+        Snapshot s = snapshot();
+        return scan(s, s.appointments, from, to, bucket, by);
+    }
+
+    private static Snapshot snapshot() {
+        Snapshot s = current;
+        if (s == null) {
+            load();
+            s = current;
+        }
+        return s;
+    }
+
+    private static Table scan(Snapshot s, Columns c, LocalDate from, LocalDate to, Bucket bucket, Dimension by) {
+        int lo = c.lowerBound((int) from.toEpochDay());
+        int hi = c.lowerBound((int) to.toEpochDay());
+        List<String> groups;
+        int[] groupCol;
+        switch (by) {
+            case DEPARTMENT: groups = s.departments.names; groupCol = c.dept; break;
+            case STAFF: groups = staffLabels(s.staff.names); groupCol = c.staff; break;
+            case PAYMENT_METHOD: groups = s.methods.names; groupCol = c.method; break;
+            default: groups = Collections.singletonList("All"); groupCol = null;
+        }
+        if (lo >= hi || groups.isEmpty())
+            return new Table(Collections.emptyList(), groups, new long[0], new double[0], new long[0]);
+
+        // Period index for every day in range, so the row loop is a table lookup
+        int firstDay = c.day[lo];
+        int[] periodOfDay = new int[c.day[hi - 1] - firstDay + 1];
+        List<String> periods = new ArrayList<>();
+        String last = null;
+        for (int d = 0; d < periodOfDay.length; d++) {
+            String label = label(bucket, LocalDate.ofEpochDay(firstDay + d));
+            if (!label.equals(last)) {
+                periods.add(label);
+                last = label;
+            }
+            periodOfDay[d] = periods.size() - 1;
+        }
+
+        int width = groups.size();
+        long[] count = new long[periods.size() * width];
+        double[] sum = new double[count.length];
+        long[] flagged = new long[count.length];
+        int[] day = c.day;
+        double[] amount = c.amount;
+        int[] flag = c.flag;
+        if (groupCol == null) {
+            for (int i = lo; i < hi; i++) {
+                int cell = periodOfDay[day[i] - firstDay];
+                count[cell]++;
+                sum[cell] += amount[i];
+                flagged[cell] += flag[i];
+            }
+        } else {
+            for (int i = lo; i < hi; i++) {
+                int cell = periodOfDay[day[i] - firstDay] * width + groupCol[i];
+                count[cell]++;
+                sum[cell] += amount[i];
+                flagged[cell] += flag[i];
+            }
+        }
+        return new Table(Collections.unmodifiableList(periods), groups, count, sum, flagged);
+    }
+
+    private static String label(Bucket bucket, LocalDate d) {
+        switch (bucket) {
+            case DAY: return d.toString();
+            case WEEK: return String.format("%d-W%02d", d.get(IsoFields.WEEK_BASED_YEAR), d.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+            case MONTH: return String.format("%d-%02d", d.getYear(), d.getMonthValue());
+            case YEAR: return String.valueOf(d.getYear());
+            default: return "All";
+        }
+    }
+
+    private static List<String> staffLabels(List<String> ids) {
+        List<String> out = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Staff st = DataStore.staff.get(id);
+            out.add(st == null ? id : id + " " + st.name);
+        }
+        return out;
+    }
+
+    // ---- loading ----
+
+    private static Snapshot loadFromDatabase() throws SQLException {
+        try (Connection conn = DBConnection.getConnection()) {
+            if (conn == null)
+                return null;
+            Snapshot s = new Snapshot();
+            try (PreparedStatement stmt = streaming(conn, APPOINTMENT_SQL); ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp t = rs.getTimestamp(1);
+                    if (t == null)
+                        continue;
+                    int day = (int) t.toLocalDateTime().toLocalDate().toEpochDay();
+                    s.appointments.add(day, s.departments.code(rs.getString(2)), s.staff.code(rs.getString(3)),
+                            0, 0, !rs.getBoolean(4) && day < s.today);
+                }
+            }
+            try (PreparedStatement stmt = streaming(conn, BILL_SQL); ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp t = rs.getTimestamp(1);
+                    if (t == null)
+                        continue;
+                    s.bills.add((int) t.toLocalDateTime().toLocalDate().toEpochDay(), s.departments.code(rs.getString(5)),
+                            s.staff.code(rs.getString(6)), s.methods.code(rs.getString(4)), rs.getDouble(2), rs.getBoolean(3));
+                }
+            }
+            s.fromDatabase = true;
+            return s;
+        }
+    }
+
+    private static PreparedStatement streaming(Connection conn, String sql) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        // Connector/J streams rows one at a time instead of reading the whole result first
+        stmt.setFetchSize(Integer.MIN_VALUE);
+        return stmt;
+    }
+
+    private static Snapshot loadFromDataStore() {
+        Snapshot s = new Snapshot();
+        List<Appointment> appts = new ArrayList<>();
+        for (Appointment a : DataStore.appointments.snapshotValues())
+            if (a != null && a.dateTime != null)
+                appts.add(a);
+        appts.sort(Comparator.comparing(a -> a.dateTime));
+        Map<String, List<Appointment>> byPatient = new HashMap<>();
+        for (Appointment a : appts) {
+            int day = (int) a.dateTime.toLocalDate().toEpochDay();
+            s.appointments.add(day, s.departments.code(a.department), s.staff.code(a.staffId), 0, 0,
+                    !a.isCompleted && day < s.today);
+            byPatient.computeIfAbsent(a.patientId, k -> new ArrayList<>()).add(a);
+        }
+
+        List<Bill> bills = new ArrayList<>();
+        for (Bill b : DataStore.bills.snapshotValues())
+            if (b != null && b.createdAt != null)
+                bills.add(b);
+        bills.sort(Comparator.comparing(b -> b.createdAt));
+        for (Bill b : bills) {
+            Appointment last = null;
+            for (Appointment a : byPatient.getOrDefault(b.patientId, Collections.emptyList())) {
+                if (a.dateTime.isAfter(b.createdAt))
+                    break;
+                last = a;
+            }
+            s.bills.add((int) b.createdAt.toLocalDate().toEpochDay(), s.departments.code(last == null ? null : last.department),
+                    s.staff.code(last == null ? null : last.staffId),
+                    s.methods.code(b.paymentMethod == null ? null : b.paymentMethod.name()), b.total, b.paid);
+        }
+        return s;
+    }
+}
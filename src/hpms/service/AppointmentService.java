@@ -9,6 +9,13 @@ import java.sql.*;
 
 public class AppointmentService {
     public static List<String> schedule(String patientId, String staffId, String date, String time, String department) {
+        return schedule(patientId, staffId, date, time, department, ConsultationType.FOLLOW_UP);
+    }
+
+    /**
+     * Book an appointment blocking the consultation type's duration on the staff calendar
+     */
+    public static List<String> schedule(String patientId, String staffId, String date, String time, String department, ConsultationType type) {
         List<String> out = new ArrayList<>(); if (Validators.empty(patientId) || Validators.empty(staffId) || Validators.empty(date) || Validators.empty(time) || Validators.empty(department)) { out.add("Error: Missing parameters"); return out; }
         Patient p = DataStore.patients.get(patientId); Staff staffObj = DataStore.staff.get(staffId);
         if (p == null) { out.add("Error: Invalid patient ID"); return out; }
@@ -16,19 +23,18 @@ public class AppointmentService {
         if (!DataStore.departments.contains(department.trim())) { out.add("Error: Invalid department"); return out; }
         LocalDate d; LocalTime t; try { d = LocalDate.parse(date.trim()); } catch (Exception e) { out.add("Error: Incorrect date"); return out; } try { t = LocalTime.parse(time.trim()); } catch (Exception e) { out.add("Error: Incorrect time"); return out; }
         LocalDateTime dt = LocalDateTime.of(d, t); if (dt.isBefore(LocalDateTime.now())) { out.add("Error: Scheduling in the past"); return out; }
-        // assume appointments have 1-hour duration; prevent overlapping
-        java.time.LocalDateTime proposedStart = dt; java.time.LocalDateTime proposedEnd = dt.plusHours(1);
-        for (Appointment a : DataStore.appointments.values()) if (a.staffId.equals(staffId)) {
-            java.time.LocalDateTime start = a.dateTime; java.time.LocalDateTime end = a.dateTime.plusHours(1);
-            if (!(proposedEnd.isBefore(start) || proposedStart.isAfter(end) || proposedEnd.equals(start) || proposedStart.equals(end))) { out.add("Error: Staff double-booked (overlap)"); return out; }
-        }
-        String id = IDGenerator.nextId("A"); Appointment a = new Appointment(id, patientId, staffId, dt, department.trim(), LocalDateTime.now()); DataStore.appointments.put(id, a); LogManager.log("schedule_appt " + id);
+        if (SchedulingEngine.isOnLeave(staffId, d)) { out.add("Error: Staff on approved leave"); return out; }
+        if (type == null) type = ConsultationType.FOLLOW_UP;
+        // block the consultation type's duration; prevent overlapping
+        if (DataStore.appointments.findOverlap(staffId, dt, dt.plus(type.duration()), null) != null) { out.add("Error: Staff double-booked (overlap)"); return out; }
+        String id = IDGenerator.nextId("A"); Appointment a = new Appointment(id, patientId, staffId, dt, department.trim(), LocalDateTime.now()); a.consultationType = type; DataStore.appointments.put(id, a); LogManager.log("schedule_appt", id);
         
         // Set initial status as pending
         a.notes = "Pending confirmation";
         
         // Also save to database
         saveToDatabase(a);
+        DomainEvents.created(DomainEvents.Kind.APPOINTMENT, id);
         
         // Send appointment reminder email to patient
         if (p.contact != null && p.contact.contains("@")) {
@@ -52,7 +58,8 @@ public class AppointmentService {
         List<String> out = new ArrayList<>(); 
         Appointment a = DataStore.appointments.remove(id); 
         if (a == null) { out.add("Error: Invalid appointment ID"); return out; } 
-        LogManager.log("cancel_appt " + id);
+        LogManager.log("cancel_appt", id);
+        DomainEvents.deleted(DomainEvents.Kind.APPOINTMENT, id);
         
         // Also remove from database
         deleteFromDatabase(id);
@@ -65,16 +72,14 @@ public class AppointmentService {
         List<String> out = new ArrayList<>(); Appointment a = DataStore.appointments.get(id); if (a == null) { out.add("Error: Invalid appointment ID"); return out; }
         LocalDate d; LocalTime t; try { d = LocalDate.parse(date.trim()); } catch (Exception e) { out.add("Error: Incorrect date"); return out; } try { t = LocalTime.parse(time.trim()); } catch (Exception e) { out.add("Error: Incorrect time"); return out; }
         LocalDateTime dt = LocalDateTime.of(d, t); if (dt.isBefore(LocalDateTime.now())) { out.add("Error: Scheduling in the past"); return out; }
-        // check overlap assuming 1-hour duration
-        java.time.LocalDateTime proposedStart = dt; java.time.LocalDateTime proposedEnd = dt.plusHours(1);
-        for (Appointment x : DataStore.appointments.values()) if (!x.id.equals(id) && x.staffId.equals(a.staffId)) {
-            java.time.LocalDateTime s = x.dateTime; java.time.LocalDateTime e = x.dateTime.plusHours(1);
-            if (!(proposedEnd.isBefore(s) || proposedStart.isAfter(e) || proposedEnd.equals(s) || proposedStart.equals(e))) { out.add("Error: Staff double-booked (overlap)"); return out; }
-        }
-        a.dateTime = dt; LogManager.log("reschedule_appt " + id);
+        if (SchedulingEngine.isOnLeave(a.staffId, d)) { out.add("Error: Staff on approved leave"); return out; }
+        // check overlap for the appointment's own duration
+        if (DataStore.appointments.findOverlap(a.staffId, dt, dt.plus(a.duration()), id) != null) { out.add("Error: Staff double-booked (overlap)"); return out; }
+        a.dateTime = dt; DataStore.appointments.reindex(a); LogManager.log("reschedule_appt", id);
         
         // Also update in database
         updateInDatabase(a);
+        DomainEvents.updated(DomainEvents.Kind.APPOINTMENT, id);
         
         // Disabled backup save - using database instead
         out.add("Appointment rescheduled " + id);
@@ -82,15 +87,14 @@ public class AppointmentService {
     }
 
     public static int countForDoctorOn(String doctorId, java.time.LocalDate date) {
-        int c = 0; for (Appointment a : DataStore.appointments.values()) if (doctorId.equals(a.staffId) && a.dateTime.toLocalDate().equals(date) && !a.isCompleted) c++; return c;
+        int c = 0; for (Appointment a : DataStore.appointments.forStaffOn(doctorId, date)) if (!a.isCompleted) c++; return c;
     }
 
     public static List<String> rescheduleDoctorDay(String doctorId, java.time.LocalDate day, java.time.LocalDate newDate, java.time.LocalTime newStartTime) {
         List<String> out = new ArrayList<>();
         java.util.List<Appointment> list = new java.util.ArrayList<>();
-        for (Appointment a : DataStore.appointments.values()) if (doctorId.equals(a.staffId) && a.dateTime.toLocalDate().equals(day) && !a.isCompleted) list.add(a);
+        for (Appointment a : DataStore.appointments.forStaffOn(doctorId, day)) if (!a.isCompleted) list.add(a);
         if (list.isEmpty()) { out.add("No appointments to reschedule"); return out; }
-        list.sort(java.util.Comparator.comparing(a -> a.dateTime));
         java.time.LocalDate targetDate = (newDate == null ? day : newDate);
         java.time.LocalTime base = (newStartTime == null ? list.get(0).dateTime.toLocalTime() : newStartTime);
         for (int idx = 0; idx < list.size(); idx++) {
@@ -98,26 +102,21 @@ public class AppointmentService {
             java.time.LocalDateTime proposed = java.time.LocalDateTime.of(targetDate, base);
             boolean conflict = true; int guard = 0;
             while (conflict && guard < 48) {
-                conflict = false;
-                java.time.LocalDateTime ps = proposed; java.time.LocalDateTime pe = proposed.plusHours(1);
-                for (Appointment x : DataStore.appointments.values()) {
-                    if (!x.id.equals(a.id) && doctorId.equals(x.staffId) && x.dateTime.toLocalDate().equals(targetDate)) {
-                        java.time.LocalDateTime xs = x.dateTime; java.time.LocalDateTime xe = x.dateTime.plusHours(1);
-                        if (!(pe.isBefore(xs) || ps.isAfter(xe) || pe.equals(xs) || ps.equals(xe))) { conflict = true; break; }
-                    }
-                }
-                if (conflict) { proposed = proposed.plusHours(1); }
+                java.time.LocalDateTime busy = DataStore.appointments.busyUntil(doctorId, proposed, proposed.plus(a.duration()), a.id);
+                conflict = busy != null;
+                if (conflict) { proposed = busy; }
                 guard++;
             }
             a.dateTime = proposed;
+            DataStore.appointments.reindex(a);
             a.notes = (a.notes==null?"":"[Rescheduled] ") + "Rescheduled by doctor";
-            base = proposed.toLocalTime().plusHours(1);
+            base = proposed.plus(a.duration()).toLocalTime();
         }
         
-        // Also update all rescheduled appointments in database
-        for (Appointment a : list) {
-            updateInDatabase(a);
-        }
+        // Also update all rescheduled appointments in database, as one batch
+        updateInDatabase(list);
+        for (Appointment a : list)
+            DomainEvents.updated(DomainEvents.Kind.APPOINTMENT, a.id);
         
         // Disabled backup save - using database instead
         out.add("Rescheduled " + list.size() + " appointment(s)");
@@ -125,56 +124,52 @@ public class AppointmentService {
     }
     
     /**
-     * Save appointment to database
+     * Queue the appointment insert on the write-behind queue
      */
-    private static void saveToDatabase(Appointment appointment) {
-        try (Connection conn = DBConnection.getConnection()) {
-            String sql = "INSERT INTO appointments (id, patient_id, staff_id, date_time, department, created_at, notes, is_completed) " +
-                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setString(1, appointment.id);
-                stmt.setString(2, appointment.patientId);
-                stmt.setString(3, appointment.staffId);
-                stmt.setTimestamp(4, java.sql.Timestamp.valueOf(appointment.dateTime));
-                stmt.setString(5, appointment.department);
-                stmt.setTimestamp(6, java.sql.Timestamp.valueOf(appointment.createdAt));
-                stmt.setString(7, appointment.notes);
-                stmt.setBoolean(8, appointment.isCompleted);
-                stmt.executeUpdate();
-                LogManager.log("appointment_db_save " + appointment.id);
-            }
-        } catch (SQLException e) {
-            System.err.println("Error saving appointment to database: " + e.getMessage());
-            e.printStackTrace();
-        }
+    private static java.util.concurrent.CompletableFuture<Void> saveToDatabase(Appointment appointment) {
+        return WriteBehindQueue.submitFor("appointments:" + appointment.id, "appointment_db_save " + appointment.id,
+                "INSERT INTO appointments (id, patient_id, staff_id, date_time, department, consultation_type, created_at, notes, is_completed) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                appointment.id, appointment.patientId, appointment.staffId,
+                java.sql.Timestamp.valueOf(appointment.dateTime), appointment.department, typeColumn(appointment),
+                java.sql.Timestamp.valueOf(appointment.createdAt), appointment.notes, appointment.isCompleted);
     }
     
     /**
-     * Update appointment in database
+     * Queue an appointment update; the future completes once MySQL has committed it
      */
-    public static void updateInDatabase(Appointment appointment) {
-        try (Connection conn = DBConnection.getConnection()) {
-            String sql = "UPDATE appointments SET date_time=?, department=?, notes=?, is_completed=? WHERE id=?";
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setTimestamp(1, java.sql.Timestamp.valueOf(appointment.dateTime));
-                stmt.setString(2, appointment.department);
-                stmt.setString(3, appointment.notes);
-                stmt.setBoolean(4, appointment.isCompleted);
-                stmt.setString(5, appointment.id);
-                stmt.executeUpdate();
-                LogManager.log("appointment_db_update " + appointment.id);
-            }
-        } catch (SQLException e) {
-            System.err.println("Error updating appointment in database: " + e.getMessage());
-            e.printStackTrace();
-        }
+    public static java.util.concurrent.CompletableFuture<Void> updateInDatabase(Appointment appointment) {
+        return WriteBehindQueue.submitFor("appointments:" + appointment.id, "appointment_db_update " + appointment.id,
+                "UPDATE appointments SET date_time=?, department=?, consultation_type=?, notes=?, is_completed=? WHERE id=?",
+                java.sql.Timestamp.valueOf(appointment.dateTime), appointment.department, typeColumn(appointment),
+                appointment.notes, appointment.isCompleted, appointment.id);
     }
     
+    /**
+     * Queue updates for many appointments as one JDBC batch in one transaction
+     */
+    public static java.util.concurrent.CompletableFuture<Void> updateInDatabase(Collection<Appointment> appointments) {
+        List<Object[]> rows = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        for (Appointment a : appointments) {
+            rows.add(new Object[]{java.sql.Timestamp.valueOf(a.dateTime), a.department, typeColumn(a), a.notes, a.isCompleted, a.id});
+            keys.add("appointments:" + a.id);
+        }
+        return WriteBehindQueue.submitBatchFor(keys, "appointment_db_update_batch " + rows.size(),
+                "UPDATE appointments SET date_time=?, department=?, consultation_type=?, notes=?, is_completed=? WHERE id=?", rows);
+    }
+
+    /** Value written to appointments.consultation_type */
+    private static String typeColumn(Appointment a) {
+        return (a.consultationType == null ? ConsultationType.FOLLOW_UP : a.consultationType).name();
+    }
+
     /**
      * Public method to update appointment confirmation status
      */
     public static void confirmAppointment(Appointment appointment) {
         updateInDatabase(appointment);
+        DomainEvents.updated(DomainEvents.Kind.APPOINTMENT, appointment.id);
     }
     
     /**
@@ -220,79 +215,37 @@ public class AppointmentService {
         // Update appointment status
         appointment.notes = "Confirmed by doctor";
         confirmAppointment(appointment);
-        LogManager.log("confirm_appt " + appointmentId + " by " + staffId);
+        LogManager.log("confirm_appt", appointmentId, "by", staffId);
         
         out.add("Appointment confirmed successfully");
         return out;
     }
     
     /**
-     * Delete appointment from database
+     * Queue the appointment delete on the write-behind queue
      */
-    private static void deleteFromDatabase(String appointmentId) {
-        try (Connection conn = DBConnection.getConnection()) {
-            String sql = "DELETE FROM appointments WHERE id=?";
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setString(1, appointmentId);
-                stmt.executeUpdate();
-                LogManager.log("appointment_db_delete " + appointmentId);
-            }
-        } catch (SQLException e) {
-            System.err.println("Error deleting appointment from database: " + e.getMessage());
-            e.printStackTrace();
-        }
+    private static java.util.concurrent.CompletableFuture<Void> deleteFromDatabase(String appointmentId) {
+        return WriteBehindQueue.submitFor("appointments:" + appointmentId, "appointment_db_delete " + appointmentId,
+                "DELETE FROM appointments WHERE id=?", appointmentId);
     }
     
     /**
      * Load all appointments from database into DataStore
      */
     public static void loadFromDatabase() {
+        Map<String, Appointment> loaded = fetchFromDatabase();
+        if (loaded != null)
+            publish(loaded);
+    }
+
+    /**
+     * Read all appointment rows without touching DataStore.
+     * Returns null when the database is unavailable so existing data is kept.
+     */
+    static Map<String, Appointment> fetchFromDatabase() {
         try (Connection conn = DBConnection.getConnection()) {
-            // Find highest appointment ID to sync aCounter
-            int maxId = 3000; // Start from default
-            String maxIdSql = "SELECT id FROM appointments WHERE id LIKE 'A%' ORDER BY CAST(SUBSTRING(id, 2) AS UNSIGNED) DESC LIMIT 1";
-            try (PreparedStatement maxStmt = conn.prepareStatement(maxIdSql)) {
-                ResultSet maxRs = maxStmt.executeQuery();
-                if (maxRs.next()) {
-                    String highestId = maxRs.getString("id");
-                    if (highestId != null && highestId.startsWith("A")) {
-                        try {
-                            int idNum = Integer.parseInt(highestId.substring(1));
-                            maxId = Math.max(maxId, idNum);
-                        } catch (NumberFormatException e) {
-                            // Ignore if ID format is unexpected
-                        }
-                    }
-                }
-            }
-            
-            // Sync aCounter with highest existing ID
-            DataStore.aCounter.set(maxId);
-            
             // Load appointments
-            String sql = "SELECT id, patient_id, staff_id, date_time, department, created_at, notes, is_completed FROM appointments";
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                ResultSet rs = stmt.executeQuery();
-                DataStore.appointments.clear(); // Clear existing data
-                while (rs.next()) {
-                    String id = rs.getString("id");
-                    String patientId = rs.getString("patient_id");
-                    String staffId = rs.getString("staff_id");
-                    LocalDateTime dateTime = rs.getTimestamp("date_time").toLocalDateTime();
-                    String department = rs.getString("department");
-                    LocalDateTime createdAt = rs.getTimestamp("created_at").toLocalDateTime();
-                    String notes = rs.getString("notes");
-                    boolean isCompleted = rs.getBoolean("is_completed");
-                    
-                    Appointment appointment = new Appointment(id, patientId, staffId, dateTime, department, createdAt);
-                    appointment.notes = notes;
-                    appointment.isCompleted = isCompleted;
-                    
-                    DataStore.appointments.put(id, appointment);
-                    LogManager.log("appointment_db_load " + id);
-                }
-                System.out.println("Loaded " + DataStore.appointments.size() + " appointments from database");
-            }
+            return readRows(conn, null);
         } catch (SQLException e) {
             System.err.println("Error loading appointments from database: " + e.getMessage());
             e.printStackTrace();
@@ -300,5 +253,78 @@ public class AppointmentService {
             System.err.println("Unexpected error loading appointments: " + e.getMessage());
             e.printStackTrace();
         }
+        return null;
+    }
+
+    /**
+     * Read rows from an open connection; ids == null reads the whole table
+     */
+    static Map<String, Appointment> readRows(Connection conn, Collection<String> ids) throws SQLException {
+        String sql = "SELECT id, patient_id, staff_id, date_time, department, consultation_type, created_at, notes, is_completed FROM appointments"
+                + (ids == null ? "" : " WHERE id IN (" + DBConnection.placeholders(ids.size()) + ")");
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            if (ids != null) {
+                int k = 1;
+                for (String id : ids)
+                    stmt.setString(k++, id);
+            }
+            ResultSet rs = stmt.executeQuery();
+            Map<String, Appointment> loaded = new LinkedHashMap<>();
+            while (rs.next()) {
+                String id = rs.getString("id");
+                String patientId = rs.getString("patient_id");
+                String staffId = rs.getString("staff_id");
+                LocalDateTime dateTime = rs.getTimestamp("date_time").toLocalDateTime();
+                String department = rs.getString("department");
+                LocalDateTime createdAt = rs.getTimestamp("created_at").toLocalDateTime();
+                String notes = rs.getString("notes");
+                boolean isCompleted = rs.getBoolean("is_completed");
+                
+                Appointment appointment = new Appointment(id, patientId, staffId, dateTime, department, createdAt);
+                appointment.notes = notes;
+                appointment.isCompleted = isCompleted;
+                appointment.consultationType = ConsultationType.fromColumn(rs.getString("consultation_type"));
+                
+                loaded.put(id, appointment);
+            }
+            return loaded;
+        }
+    }
+
+    /**
+     * Apply appointments changed or deleted on another workstation to DataStore
+     */
+    static void merge(Map<String, Appointment> changed, Collection<String> deleted) {
+        for (String id : deleted) {
+            DataStore.appointments.remove(id);
+            DomainEvents.deleted(DomainEvents.Kind.APPOINTMENT, id);
+        }
+        for (Appointment a : changed.values()) {
+            Appointment old = DataStore.appointments.get(a.id);
+            DataStore.appointments.put(a.id, a);
+            IDGenerator.observe(a.id);
+            DomainEvents.publish(DomainEvents.Kind.APPOINTMENT, old == null ? DomainEvents.Op.CREATED : DomainEvents.Op.UPDATED, a.id);
+        }
+    }
+
+    /**
+     * Replace DataStore.appointments with freshly loaded rows and sync the appointment ID counter
+     */
+    static void publish(Map<String, Appointment> loaded) {
+        int maxId = 3000; // Start from default
+        for (String id : loaded.keySet()) {
+            if (id != null && id.startsWith("A")) {
+                try {
+                    maxId = Math.max(maxId, Integer.parseInt(id.substring(1)));
+                } catch (NumberFormatException e) {
+                    // Ignore if ID format is unexpected
+                }
+            }
+        }
+        DataStore.appointments.replaceContents(loaded);
+        DataStore.aCounter.set(maxId);
+        DomainEvents.reloaded(DomainEvents.Kind.APPOINTMENT);
+        ActivityLog.record("appointment_db_load", "count=" + loaded.size());
+        System.out.println("Loaded " + DataStore.appointments.size() + " appointments from database");
     }
 }
@@ -8,34 +8,6 @@ import java.util.*;
 
 public class AttachmentService {
 
-    private static void ensurePatientFileAttachmentsTable(Connection conn) {
-        if (conn == null)
-            return;
-        try (PreparedStatement stmt = conn.prepareStatement(
-                "CREATE TABLE IF NOT EXISTS patient_file_attachments (" +
-                        "id INT AUTO_INCREMENT PRIMARY KEY," +
-                        "patient_id VARCHAR(20) NOT NULL," +
-                        "file_name VARCHAR(255) NOT NULL," +
-                        "file_path TEXT NOT NULL," +
-                        "file_type VARCHAR(100)," +
-                        "category VARCHAR(50)," +
-                        "file_size BIGINT," +
-                        "mime_type VARCHAR(100)," +
-                        "description TEXT," +
-                        "uploaded_by VARCHAR(50)," +
-                        "uploaded_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP," +
-                        "last_modified TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP," +
-                        "file_hash VARCHAR(128)," +
-                        "is_encrypted BOOLEAN DEFAULT FALSE," +
-                        "status VARCHAR(20) DEFAULT 'Active'," +
-                        "INDEX idx_pfa_patient (patient_id)," +
-                        "INDEX idx_pfa_status (status)" +
-                        ")")) {
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-        }
-    }
-
     /**
      * Upload and store a file attachment for a patient
      */
@@ -70,7 +42,6 @@ public class AttachmentService {
                 "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
         try (Connection conn = DBConnection.getConnection()) {
-            ensurePatientFileAttachmentsTable(conn);
             try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
                 stmt.setString(1, patientId);
@@ -113,7 +84,6 @@ public class AttachmentService {
                 "ORDER BY uploaded_at DESC";
 
         try (Connection conn = DBConnection.getConnection()) {
-            ensurePatientFileAttachmentsTable(conn);
             PreparedStatement stmt = conn.prepareStatement(sql);
 
             stmt.setString(1, patientId);
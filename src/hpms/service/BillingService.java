@@ -33,7 +33,8 @@ public class BillingService {
         String id = IDGenerator.nextId("B");
         Bill b = new Bill(id, patientId, amt, LocalDateTime.now());
         DataStore.bills.put(id, b);
-        LogManager.log("create_bill " + id);
+        LogManager.log("create_bill", id);
+        DomainEvents.created(DomainEvents.Kind.BILL, id);
         
         // Also save to database
         saveToDatabase(b);
@@ -68,16 +69,60 @@ public class BillingService {
             out.add("Error: Invalid amount");
             return out;
         }
-        b.items.add(new BillItem(description.trim(), amt));
+        BillItem item = new BillItem(description.trim(), amt);
+        b.items.add(item);
         b.total = b.items.stream().mapToDouble(i -> i.price).sum();
         b.updatedAt = LocalDateTime.now();
-        LogManager.log("add_bill_item " + billId);
-        // Disabled backup save - using database instead
+        LogManager.log("add_bill_item", billId);
+        DomainEvents.updated(DomainEvents.Kind.BILL, billId);
+        saveItemsToDatabase(b, Collections.singletonList(item));
         out.add("Bill item added");
         out.add("Total " + String.format(java.util.Locale.US, "%.2f", b.total));
         return out;
     }
 
+    /**
+     * Post several line items at once; all are validated first and persisted
+     * as one JDBC batch, so a long bill is a single round trip
+     */
+    public static List<String> addItems(String billId, List<BillItem> items) {
+        List<String> out = new ArrayList<>();
+        Bill b = DataStore.bills.get(billId);
+        if (b == null) {
+            out.add("Error: Invalid bill ID");
+            return out;
+        }
+        if (b.paid) {
+            out.add("Error: Cannot add item to paid bill");
+            return out;
+        }
+        if (items == null || items.isEmpty()) {
+            out.add("Error: Missing parameters");
+            return out;
+        }
+        List<BillItem> clean = new ArrayList<>();
+        for (BillItem i : items) {
+            if (i == null || Validators.empty(i.description)) {
+                out.add("Error: Missing parameters");
+                return out;
+            }
+            if (i.price < 0 || Double.isNaN(i.price)) {
+                out.add("Error: Invalid amount");
+                return out;
+            }
+            clean.add(new BillItem(i.description.trim(), i.price));
+        }
+        b.items.addAll(clean);
+        b.total = b.items.stream().mapToDouble(i -> i.price).sum();
+        b.updatedAt = LocalDateTime.now();
+        LogManager.log("add_bill_items", billId, "count=" + clean.size());
+        DomainEvents.updated(DomainEvents.Kind.BILL, billId);
+        saveItemsToDatabase(b, clean);
+        out.add(clean.size() + " bill item(s) added");
+        out.add("Total " + String.format(java.util.Locale.US, "%.2f", b.total));
+        return out;
+    }
+
     public static List<String> pay(String billId, String method) {
         List<String> out = new ArrayList<>();
         Bill b = DataStore.bills.get(billId);
@@ -103,7 +148,8 @@ public class BillingService {
         b.paymentMethod = m;
         b.paid = true;
         b.updatedAt = LocalDateTime.now();
-        LogManager.log("pay_bill " + billId + " " + m);
+        LogManager.log("pay_bill", billId, m);
+        DomainEvents.updated(DomainEvents.Kind.BILL, billId);
         // Also update in database
         updateInDatabase(b);
         
@@ -139,7 +185,8 @@ public class BillingService {
         b.updatedAt = LocalDateTime.now();
         // Note: b.paid remains false until confirmation
         
-        LogManager.log("initiate_payment " + billId + " " + m);
+        LogManager.log("initiate_payment", billId, m);
+        DomainEvents.updated(DomainEvents.Kind.BILL, billId);
         // Update in database to show pending payment
         updateInDatabase(b);
         
@@ -167,7 +214,8 @@ public class BillingService {
         b.paid = true;
         b.updatedAt = LocalDateTime.now();
         
-        LogManager.log("confirm_payment " + billId + " " + b.paymentMethod);
+        LogManager.log("confirm_payment", billId, b.paymentMethod);
+        DomainEvents.updated(DomainEvents.Kind.BILL, billId);
         // Update in database
         updateInDatabase(b);
         
@@ -175,97 +223,79 @@ public class BillingService {
         return out;
     }
     
+    public static List<String> delete(String billId) {
+        List<String> out = new ArrayList<>();
+        Bill b = billId == null ? null : DataStore.bills.remove(billId);
+        if (b == null) {
+            out.add("Error: Invalid bill ID");
+            return out;
+        }
+        LogManager.log("delete_bill", billId);
+        DomainEvents.deleted(DomainEvents.Kind.BILL, billId);
+        deleteFromDatabase(billId);
+        out.add("Bill deleted " + billId);
+        return out;
+    }
+    
     /**
-     * Save bill to database
+     * Queue the bill insert on the write-behind queue
      */
-    private static void saveToDatabase(Bill bill) {
-        try (Connection conn = DBConnection.getConnection()) {
-            String sql = "INSERT INTO bills (id, patient_id, total, created_at, paid, payment_method) " +
-                        "VALUES (?, ?, ?, ?, ?, ?)";
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setString(1, bill.id);
-                stmt.setString(2, bill.patientId);
-                stmt.setDouble(3, bill.total);
-                stmt.setTimestamp(4, java.sql.Timestamp.valueOf(bill.createdAt));
-                stmt.setBoolean(5, bill.paid);
-                stmt.setString(6, bill.paymentMethod != null ? bill.paymentMethod.name() : null);
-                stmt.executeUpdate();
-                LogManager.log("bill_db_save " + bill.id);
-            }
-        } catch (SQLException e) {
-            System.err.println("Error saving bill to database: " + e.getMessage());
-            e.printStackTrace();
-        }
+    private static java.util.concurrent.CompletableFuture<Void> saveToDatabase(Bill bill) {
+        return WriteBehindQueue.submitFor("bills:" + bill.id, "bill_db_save " + bill.id,
+                "INSERT INTO bills (id, patient_id, total, created_at, paid, payment_method) VALUES (?, ?, ?, ?, ?, ?)",
+                bill.id, bill.patientId, bill.total, java.sql.Timestamp.valueOf(bill.createdAt), bill.paid,
+                bill.paymentMethod != null ? bill.paymentMethod.name() : null);
     }
     
     /**
-     * Update bill in database
+     * Queue the item inserts as one batch followed by the new bill total
      */
-    private static void updateInDatabase(Bill bill) {
-        try (Connection conn = DBConnection.getConnection()) {
-            String sql = "UPDATE bills SET total=?, paid=?, payment_method=? WHERE id=?";
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setDouble(1, bill.total);
-                stmt.setBoolean(2, bill.paid);
-                stmt.setString(3, bill.paymentMethod != null ? bill.paymentMethod.name() : null);
-                stmt.setString(4, bill.id);
-                stmt.executeUpdate();
-                LogManager.log("bill_db_update " + bill.id);
-            }
-        } catch (SQLException e) {
-            System.err.println("Error updating bill in database: " + e.getMessage());
-            e.printStackTrace();
-        }
+    private static java.util.concurrent.CompletableFuture<Void> saveItemsToDatabase(Bill bill, List<BillItem> items) {
+        List<Object[]> rows = new ArrayList<>();
+        for (BillItem i : items)
+            rows.add(new Object[]{bill.id, i.description, i.price});
+        WriteBehindQueue.submitBatchFor(Collections.singletonList("bills:" + bill.id),
+                "bill_items_db_save " + bill.id + " count=" + rows.size(),
+                "INSERT INTO bill_items (bill_id, description, price) VALUES (?, ?, ?)", rows);
+        return updateInDatabase(bill);
+    }
+
+    /**
+     * Queue the delete of the bill and its items on the write-behind queue
+     */
+    private static java.util.concurrent.CompletableFuture<Void> deleteFromDatabase(String billId) {
+        WriteBehindQueue.submitFor("bills:" + billId, "bill_items_db_delete " + billId,
+                "DELETE FROM bill_items WHERE bill_id=?", billId);
+        return WriteBehindQueue.submitFor("bills:" + billId, "bill_db_delete " + billId,
+                "DELETE FROM bills WHERE id=?", billId);
+    }
+
+    /**
+     * Queue the bill update on the write-behind queue
+     */
+    private static java.util.concurrent.CompletableFuture<Void> updateInDatabase(Bill bill) {
+        return WriteBehindQueue.submitFor("bills:" + bill.id, "bill_db_update " + bill.id,
+                "UPDATE bills SET total=?, paid=?, payment_method=? WHERE id=?",
+                bill.total, bill.paid, bill.paymentMethod != null ? bill.paymentMethod.name() : null, bill.id);
     }
     
     /**
      * Load all bills from database into DataStore
      */
     public static void loadFromDatabase() {
+        Map<String, Bill> loaded = fetchFromDatabase();
+        if (loaded != null)
+            publish(loaded);
+    }
+
+    /**
+     * Read all bill rows without touching DataStore.
+     * Returns null when the database is unavailable so existing data is kept.
+     */
+    static Map<String, Bill> fetchFromDatabase() {
         try (Connection conn = DBConnection.getConnection()) {
-            // Find highest bill ID to sync bCounter
-            int maxId = 4000; // Start from default
-            String maxIdSql = "SELECT id FROM bills WHERE id LIKE 'B%' ORDER BY CAST(SUBSTRING(id, 2) AS UNSIGNED) DESC LIMIT 1";
-            try (PreparedStatement maxStmt = conn.prepareStatement(maxIdSql)) {
-                ResultSet maxRs = maxStmt.executeQuery();
-                if (maxRs.next()) {
-                    String highestId = maxRs.getString("id");
-                    if (highestId != null && highestId.startsWith("B")) {
-                        try {
-                            int idNum = Integer.parseInt(highestId.substring(1));
-                            maxId = Math.max(maxId, idNum);
-                        } catch (NumberFormatException e) {
-                            // Ignore if ID format is unexpected
-                        }
-                    }
-                }
-            }
-            
-            // Sync bCounter with highest existing ID
-            DataStore.bCounter.set(maxId);
-            
             // Load bills
-            String sql = "SELECT id, patient_id, total, created_at, paid, payment_method FROM bills";
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                ResultSet rs = stmt.executeQuery();
-                DataStore.bills.clear(); // Clear existing data
-                while (rs.next()) {
-                    String id = rs.getString("id");
-                    String patientId = rs.getString("patient_id");
-                    double amount = rs.getDouble("total");
-                    LocalDateTime createdAt = rs.getTimestamp("created_at").toLocalDateTime();
-                    boolean isPaid = rs.getBoolean("paid");
-                    String paymentMethod = rs.getString("payment_method");
-                    
-                    Bill bill = new Bill(id, patientId, amount, createdAt);
-                    bill.paid = isPaid;
-                    bill.paymentMethod = paymentMethod != null ? PaymentMethod.valueOf(paymentMethod) : null;
-                    
-                    DataStore.bills.put(id, bill);
-                    LogManager.log("bill_db_load " + id);
-                }
-                System.out.println("Loaded " + DataStore.bills.size() + " bills from database");
-            }
+            return readRows(conn, null);
         } catch (SQLException e) {
             System.err.println("Error loading bills from database: " + e.getMessage());
             e.printStackTrace();
@@ -273,5 +303,101 @@ public class BillingService {
             System.err.println("Unexpected error loading bills: " + e.getMessage());
             e.printStackTrace();
         }
+        return null;
+    }
+
+    /**
+     * Read rows from an open connection; ids == null reads the whole table
+     */
+    static Map<String, Bill> readRows(Connection conn, Collection<String> ids) throws SQLException {
+        String sql = "SELECT id, patient_id, total, created_at, paid, payment_method FROM bills"
+                + (ids == null ? "" : " WHERE id IN (" + DBConnection.placeholders(ids.size()) + ")");
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            if (ids != null) {
+                int k = 1;
+                for (String id : ids)
+                    stmt.setString(k++, id);
+            }
+            ResultSet rs = stmt.executeQuery();
+            Map<String, Bill> loaded = new LinkedHashMap<>();
+            while (rs.next()) {
+                String id = rs.getString("id");
+                String patientId = rs.getString("patient_id");
+                double amount = rs.getDouble("total");
+                LocalDateTime createdAt = rs.getTimestamp("created_at").toLocalDateTime();
+                boolean isPaid = rs.getBoolean("paid");
+                String paymentMethod = rs.getString("payment_method");
+                
+                Bill bill = new Bill(id, patientId, amount, createdAt);
+                bill.paid = isPaid;
+                bill.paymentMethod = paymentMethod != null ? PaymentMethod.valueOf(paymentMethod) : null;
+                
+                loaded.put(id, bill);
+            }
+            loadItems(conn, loaded, ids != null);
+            return loaded;
+        }
+    }
+
+    /**
+     * Apply bills changed or deleted on another workstation to DataStore
+     */
+    static void merge(Map<String, Bill> changed, Collection<String> deleted) {
+        for (String id : deleted) {
+            DataStore.bills.remove(id);
+            DomainEvents.deleted(DomainEvents.Kind.BILL, id);
+        }
+        for (Bill b : changed.values()) {
+            Bill old = DataStore.bills.put(b.id, b);
+            IDGenerator.observe(b.id);
+            DomainEvents.publish(DomainEvents.Kind.BILL, old == null ? DomainEvents.Op.CREATED : DomainEvents.Op.UPDATED, b.id);
+        }
+    }
+
+    /**
+     * Attach line items; onlyThese restricts the query to the given bills
+     */
+    private static void loadItems(Connection conn, Map<String, Bill> bills, boolean onlyThese) {
+        if (onlyThese && bills.isEmpty())
+            return;
+        String sql = "SELECT bill_id, description, price FROM bill_items"
+                + (onlyThese ? " WHERE bill_id IN (" + DBConnection.placeholders(bills.size()) + ")" : "")
+                + " ORDER BY id ASC";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            if (onlyThese) {
+                int k = 1;
+                for (String id : bills.keySet())
+                    stmt.setString(k++, id);
+            }
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                Bill b = bills.get(rs.getString("bill_id"));
+                if (b != null)
+                    b.items.add(new BillItem(rs.getString("description"), rs.getDouble("price")));
+            }
+        } catch (SQLException e) {
+            System.err.println("Error loading bill items: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Replace DataStore.bills with freshly loaded rows and sync the bill ID counter
+     */
+    static void publish(Map<String, Bill> loaded) {
+        int maxId = 4000; // Start from default
+        for (String id : loaded.keySet()) {
+            if (id != null && id.startsWith("B")) {
+                try {
+                    maxId = Math.max(maxId, Integer.parseInt(id.substring(1)));
+                } catch (NumberFormatException e) {
+                    // Ignore if ID format is unexpected
+                }
+            }
+        }
+        DataStore.bills.replaceContents(loaded);
+        DataStore.bCounter.set(maxId);
+        DomainEvents.reloaded(DomainEvents.Kind.BILL);
+        ActivityLog.record("bill_db_load", "count=" + loaded.size());
+        System.out.println("Loaded " + DataStore.bills.size() + " bills from database");
     }
 }
@@ -9,42 +9,7 @@ import java.util.*;
 
 public class CommunicationService {
 
-    private static void ensureCriticalAlertsTable(Connection conn) {
-        if (conn == null)
-            return;
-        String sql = "CREATE TABLE IF NOT EXISTS patient_critical_alerts (" +
-                "id INT AUTO_INCREMENT PRIMARY KEY," +
-                "patient_id VARCHAR(20) NOT NULL," +
-                "alert_text TEXT NOT NULL," +
-                "created_by VARCHAR(20)," +
-                "created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP," +
-                "INDEX idx_pca_patient (patient_id)" +
-                ")";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-        }
-    }
-
-    private static void ensureStaffNotesTable(Connection conn) {
-        if (conn == null)
-            return;
-        String sql = "CREATE TABLE IF NOT EXISTS patient_staff_notes (" +
-                "id INT AUTO_INCREMENT PRIMARY KEY," +
-                "patient_id VARCHAR(20) NOT NULL," +
-                "staff_id VARCHAR(20) NOT NULL," +
-                "note_text TEXT NOT NULL," +
-                "created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP," +
-                "INDEX idx_psn_patient (patient_id)" +
-                ")";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-        }
-    }
-
     private static void saveCriticalAlert(Connection conn, String patientId, String createdBy, String text) throws SQLException {
-        ensureCriticalAlertsTable(conn);
         String sql = "INSERT INTO patient_critical_alerts (patient_id, alert_text, created_by, created_at) VALUES (?, ?, ?, ?)";
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, patientId);
@@ -56,7 +21,6 @@ public class CommunicationService {
     }
 
     private static void saveStaffNote(Connection conn, String patientId, String staffId, String text) throws SQLException {
-        ensureStaffNotesTable(conn);
         String sql = "INSERT INTO patient_staff_notes (patient_id, staff_id, note_text, created_at) VALUES (?, ?, ?, ?)";
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, patientId);
@@ -68,23 +32,39 @@ public class CommunicationService {
     }
 
     public static void loadNotesAndAlertsFromDatabase() {
+        NotesAndAlerts loaded = fetchNotesAndAlerts();
+        if (loaded != null)
+            publish(loaded);
+    }
+
+    /**
+     * Critical alerts and staff notes read from the database, keyed by patient ID
+     */
+    static class NotesAndAlerts {
+        final Map<String, List<String>> criticalAlerts = new LinkedHashMap<>();
+        final Map<String, List<StaffNote>> staffNotes = new LinkedHashMap<>();
+    }
+
+    /**
+     * Read critical alerts and staff notes without touching DataStore.
+     * Returns null when the database is unavailable so existing data is kept.
+     */
+    static NotesAndAlerts fetchNotesAndAlerts() {
         try (Connection conn = DBConnection.getConnection()) {
             if (conn == null)
-                return;
-            ensureCriticalAlertsTable(conn);
-            ensureStaffNotesTable(conn);
+                return null;
+                    NotesAndAlerts loaded = new NotesAndAlerts();
 
             // Critical alerts
             try (PreparedStatement stmt = conn.prepareStatement(
                     "SELECT patient_id, alert_text FROM patient_critical_alerts ORDER BY created_at ASC")) {
                 ResultSet rs = stmt.executeQuery();
-                DataStore.criticalAlerts.clear();
                 while (rs.next()) {
                     String pid = rs.getString("patient_id");
                     String txt = rs.getString("alert_text");
                     if (pid == null)
                         continue;
-                    DataStore.criticalAlerts.computeIfAbsent(pid, k -> new ArrayList<>())
+                    loaded.criticalAlerts.computeIfAbsent(pid, k -> new ArrayList<>())
                             .add(txt == null ? "" : txt);
                 }
             }
@@ -93,7 +73,6 @@ public class CommunicationService {
             try (PreparedStatement stmt = conn.prepareStatement(
                     "SELECT patient_id, staff_id, note_text, created_at FROM patient_staff_notes ORDER BY created_at ASC")) {
                 ResultSet rs = stmt.executeQuery();
-                DataStore.staffNotes.clear();
                 while (rs.next()) {
                     String pid = rs.getString("patient_id");
                     String sid = rs.getString("staff_id");
@@ -102,15 +81,22 @@ public class CommunicationService {
                     LocalDateTime at = ts != null ? ts.toLocalDateTime() : LocalDateTime.now();
                     if (pid == null)
                         continue;
-                    DataStore.staffNotes.computeIfAbsent(pid, k -> new ArrayList<>())
+                    loaded.staffNotes.computeIfAbsent(pid, k -> new ArrayList<>())
                             .add(new StaffNote(sid, txt == null ? "" : txt, at));
                 }
             }
+            return loaded;
         } catch (SQLException e) {
             System.err.println("Error loading notes/alerts from DB: " + e.getMessage());
+            return null;
         }
     }
 
+    static void publish(NotesAndAlerts loaded) {
+        DataStore.criticalAlerts.replaceContents(loaded.criticalAlerts);
+        DataStore.staffNotes.replaceContents(loaded.staffNotes);
+    }
+
     public static List<String> addNote(String patientId, String staffId, String text) {
         List<String> out = new ArrayList<>();
         if (!DataStore.patients.containsKey(patientId)) {
@@ -131,7 +117,7 @@ public class CommunicationService {
         } catch (SQLException e) {
             System.err.println("Error saving staff note to DB: " + e.getMessage());
         }
-        LogManager.log("staff_note " + patientId);
+        LogManager.log("staff_note", patientId);
         out.add("Note added");
         return out;
     }
@@ -155,7 +141,7 @@ public class CommunicationService {
         } catch (SQLException e) {
             System.err.println("Error saving critical alert to DB: " + e.getMessage());
         }
-        LogManager.log("critical_alert " + patientId);
+        LogManager.log("critical_alert", patientId);
         out.add("Alert added");
         return out;
     }
@@ -180,7 +166,7 @@ public class CommunicationService {
         comm.messageType = messageType;
 
         DataStore.communications.put(id, comm);
-        DataStore.log("send_message " + senderId + " to " + recipientId);
+        LogManager.log("send_message", senderId, "to", recipientId);
         out.add("Message sent successfully");
         return out;
     }
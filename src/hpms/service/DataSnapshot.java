@@ -0,0 +1,643 @@
+package hpms.service;
+
+import hpms.config.DatabaseConfig;
+import hpms.model.*;
+import hpms.util.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import javax.swing.SwingUtilities;
+
+/**
+ * Binary snapshot of the database-backed DataStore maps for a fast warm start.
+ *
+ * The snapshot holds patients (with progress notes), staff, appointments,
+ * bills, patient status and the ID counters, together with the change_log
+ * mark it is current to. At startup it is memory-mapped and published in
+ * place of the full table reads; DeltaSync then polls change_log from the
+ * mark and merges whatever changed since. A snapshot is only used while the
+ * change_log triggers are installed and change_log still holds every entry
+ * after its mark; otherwise it is ignored and the full load runs as before.
+ *
+ * The file is a fixed header (magic, format version, creation time, mark,
+ * payload length, CRC32 of the payload) followed by the payload. It is
+ * rewritten every SNAPSHOT_INTERVAL_MS and on exit.
+ */
+public class DataSnapshot {
+    private static final int MAGIC = 0x48505353; // "HPSS"
+    static final int VERSION = 1;
+    private static final int HEADER_BYTES = 40;
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private static final Object lock = new Object();
+    private static ScheduledExecutorService writer;
+    // Held while a snapshot file is written; the exit hook can run while a periodic write is in progress
+    private static final Object fileLock = new Object();
+    // Creation time of the newest snapshot written, so an older capture never replaces it
+    private static long lastWrittenAt = Long.MIN_VALUE;
+
+    /** Counters saved with the snapshot, in file order; append new ones at the end */
+    private static AtomicInteger[] counters() {
+        return new AtomicInteger[] { DataStore.pCounter, DataStore.sCounter, DataStore.aCounter, DataStore.bCounter,
+                DataStore.rCounter, DataStore.lCounter, DataStore.prCounter, DataStore.dischargeCounter,
+                DataStore.commCounter };
+    }
+
+    /**
+     * Snapshot contents read from disk, not yet published
+     */
+    public static class Contents {
+        public final long createdAt;
+        public final long changeLogMark;
+        final Map<String, Patient> patients = new LinkedHashMap<>();
+        final Map<String, Staff> staff = new LinkedHashMap<>();
+        final Map<String, Appointment> appointments = new LinkedHashMap<>();
+        final Map<String, Bill> bills = new LinkedHashMap<>();
+        final PatientStatusService.StatusData status = new PatientStatusService.StatusData();
+        int[] counters = new int[0];
+
+        Contents(long createdAt, long changeLogMark) {
+            this.createdAt = createdAt;
+            this.changeLogMark = changeLogMark;
+        }
+
+        /**
+         * Replace DataStore contents; call on the event thread
+         */
+        public void publish() {
+            StaffService.publish(staff);
+            PatientService.publish(patients);
+            PatientStatusService.publish(status);
+            AppointmentService.publish(appointments);
+            BillingService.publish(bills);
+            // publish() derives counters from the highest ID; IDs handed out and deleted since count too
+            AtomicInteger[] live = counters();
+            for (int i = 0; i < live.length && i < counters.length; i++) {
+                int saved = counters[i];
+                live[i].accumulateAndGet(saved, Math::max);
+            }
+            LogManager.log("snapshot_load", "patients=" + patients.size(), "mark=" + changeLogMark);
+        }
+    }
+
+    public static Path path() {
+        return Paths.get(DatabaseConfig.SNAPSHOT_PATH);
+    }
+
+    /**
+     * Read the snapshot if it exists, is intact and change_log can bring it
+     * current; otherwise null, and the caller loads from the database
+     */
+    static Contents readIfResumable() {
+        Path file = path();
+        if (!Files.isRegularFile(file))
+            return null;
+        Contents c;
+        try {
+            c = read(file);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Snapshot " + file + " ignored: " + e.getMessage());
+            return null;
+        }
+        if (!DeltaSync.canResumeFrom(c.changeLogMark)) {
+            System.err.println("Snapshot " + file + " cannot be brought current from change_log; loading from database");
+            return null;
+        }
+        return c;
+    }
+
+    /**
+     * Memory-map and decode a snapshot file
+     */
+    public static Contents read(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size < HEADER_BYTES)
+                throw new IOException("truncated header");
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buf.getInt() != MAGIC)
+                throw new IOException("not a snapshot file");
+            int version = buf.getInt();
+            if (version != VERSION)
+                throw new IOException("unsupported format version " + version);
+            long createdAt = buf.getLong();
+            long mark = buf.getLong();
+            long length = buf.getLong();
+            long crc = buf.getLong();
+            if (length != size - HEADER_BYTES)
+                throw new IOException("truncated payload");
+            ByteBuffer payload = buf.slice();
+            CRC32 check = new CRC32();
+            check.update(payload.duplicate());
+            if (check.getValue() != crc)
+                throw new IOException("checksum mismatch");
+            Contents c = new Contents(createdAt, mark);
+            decode(new In(payload), c);
+            return c;
+        }
+    }
+
+    /**
+     * Encode DataStore at DeltaSync's applied mark, or null when DataStore is
+     * not being kept in step with the database
+     */
+    static byte[] capture() throws IOException {
+        long mark = DeltaSync.getAppliedMark();
+        return mark < 0 ? null : capture(mark);
+    }
+
+    /**
+     * Encode DataStore as it is now, recording it as current to mark. Call on
+     * the event thread (or while nothing else can change DataStore) so the
+     * contents and the mark agree.
+     */
+    public static byte[] capture(long mark) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+        encode(new Out(new DataOutputStream(bytes)));
+        byte[] payload = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer file = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        file.putInt(MAGIC).putInt(VERSION).putLong(System.currentTimeMillis()).putLong(mark)
+                .putLong(payload.length).putLong(crc.getValue()).put(payload);
+        return file.array();
+    }
+
+    /**
+     * Write encoded bytes next to the snapshot and move them into place, so a
+     * crash mid-write keeps the previous snapshot. Each write uses its own
+     * temporary file, and writes from this process run one at a time.
+     */
+    public static void write(Path file, byte[] data) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        synchronized (fileLock) {
+            Path tmp = Files.createTempFile(dir, file.getFileName() + ".", ".tmp");
+            try {
+                try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+                    ByteBuffer buf = ByteBuffer.wrap(data);
+                    while (buf.hasRemaining())
+                        ch.write(buf);
+                    ch.force(true);
+                }
+                try {
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+    }
+
+    /**
+     * Start periodic snapshots and the on-exit snapshot. Idempotent.
+     */
+    public static void schedule() {
+        synchronized (lock) {
+            if (writer != null)
+                return;
+            writer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "hpms-snapshot");
+                t.setDaemon(true);
+                return t;
+            });
+            writer.scheduleWithFixedDelay(DataSnapshot::saveFromBackground, DatabaseConfig.SNAPSHOT_INTERVAL_MS,
+                    DatabaseConfig.SNAPSHOT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            // System.exit from a window listener blocks the event thread, so DataStore is still while this runs
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> save("exit"), "hpms-snapshot-exit"));
+        }
+    }
+
+    /**
+     * Capture and write a snapshot now; must be called on the event thread or at exit
+     */
+    public static boolean save(String reason) {
+        try {
+            byte[] data = capture();
+            if (data == null)
+                return false;
+            return writeLogged(data, reason);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Snapshot (" + reason + ") failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static void saveFromBackground() {
+        try {
+            // Encode on the event thread, where DataStore changes; write the file here
+            FutureTask<byte[]> task = new FutureTask<>(DataSnapshot::capture);
+            SwingUtilities.invokeAndWait(task);
+            byte[] data = task.get();
+            if (data != null)
+                writeLogged(data, "periodic");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.err.println("Snapshot (periodic) failed: " + e.getMessage());
+        }
+    }
+
+    private static boolean writeLogged(byte[] data, String reason) {
+        long t0 = System.nanoTime();
+        long createdAt = ByteBuffer.wrap(data).getLong(8);
+        synchronized (fileLock) {
+            if (createdAt < lastWrittenAt)
+                return true;
+            try {
+                write(path(), data);
+            } catch (IOException e) {
+                System.err.println("Snapshot (" + reason + ") failed: " + e.getMessage());
+                return false;
+            }
+            lastWrittenAt = createdAt;
+        }
+        System.out.println("Snapshot (" + reason + ") " + data.length + " bytes in "
+                + (System.nanoTime() - t0) / 1_000_000L + "ms");
+        return true;
+    }
+
+    // ---- payload ----
+
+    private static void encode(Out o) throws IOException {
+        AtomicInteger[] live = counters();
+        o.out.writeInt(live.length);
+        for (AtomicInteger c : live)
+            o.out.writeInt(c.get());
+
+        // Point-in-time copies, so each count matches the records written after it
+        List<Patient> patients = DataStore.patients.snapshotValues();
+        o.out.writeInt(patients.size());
+        for (Patient p : patients)
+            writePatient(o, p);
+        List<Staff> staff = DataStore.staff.snapshotValues();
+        o.out.writeInt(staff.size());
+        for (Staff s : staff)
+            writeStaff(o, s);
+        List<Appointment> appointments = DataStore.appointments.snapshotValues();
+        o.out.writeInt(appointments.size());
+        for (Appointment a : appointments) {
+            o.str(a.id).str(a.patientId).str(a.staffId).time(a.dateTime).str(a.department)
+                    .str(a.consultationType == null ? null : a.consultationType.name()).str(a.notes)
+                    .str(a.diagnosis).str(a.outcome).time(a.createdAt);
+            o.out.writeBoolean(a.isCompleted);
+        }
+        List<Bill> bills = DataStore.bills.snapshotValues();
+        o.out.writeInt(bills.size());
+        for (Bill b : bills) {
+            o.str(b.id).str(b.patientId).str(b.paymentMethod == null ? null : b.paymentMethod.name())
+                    .time(b.createdAt).time(b.updatedAt);
+            o.out.writeDouble(b.total);
+            o.out.writeBoolean(b.paid);
+            o.out.writeInt(b.items.size());
+            for (BillItem it : b.items) {
+                o.str(it.description);
+                o.out.writeDouble(it.price);
+            }
+        }
+        Map<String, PatientStatus> status = DataStore.patientStatus.snapshotMap();
+        o.out.writeInt(status.size());
+        for (Map.Entry<String, PatientStatus> e : status.entrySet())
+            o.str(e.getKey()).str(e.getValue() == null ? null : e.getValue().name());
+        Map<String, List<StatusHistoryEntry>> history = DataStore.statusHistory.snapshotMap();
+        o.out.writeInt(history.size());
+        for (Map.Entry<String, List<StatusHistoryEntry>> e : history.entrySet()) {
+            o.str(e.getKey());
+            List<StatusHistoryEntry> h = e.getValue() == null ? Collections.emptyList() : e.getValue();
+            o.out.writeInt(h.size());
+            for (StatusHistoryEntry s : h)
+                o.str(s.status == null ? null : s.status.name()).time(s.at).str(s.byStaffId).str(s.note);
+        }
+        o.out.flush();
+    }
+
+    private static void decode(In in, Contents c) {
+        int n = in.buf.getInt();
+        c.counters = new int[n];
+        for (int i = 0; i < n; i++)
+            c.counters[i] = in.buf.getInt();
+
+        for (int i = in.buf.getInt(); i > 0; i--) {
+            Patient p = readPatient(in);
+            c.patients.put(p.id, p);
+        }
+        for (int i = in.buf.getInt(); i > 0; i--) {
+            Staff s = readStaff(in);
+            c.staff.put(s.id, s);
+        }
+        for (int i = in.buf.getInt(); i > 0; i--) {
+            String id = in.str(), pid = in.str(), sid = in.str();
+            LocalDateTime at = in.time();
+            String dept = in.str(), type = in.str(), notes = in.str(), diagnosis = in.str(), outcome = in.str();
+            Appointment a = new Appointment(id, pid, sid, at, dept, in.time());
+            a.consultationType = type == null ? null : ConsultationType.valueOf(type);
+            a.notes = notes;
+            a.diagnosis = diagnosis;
+            a.outcome = outcome;
+            a.isCompleted = in.bool();
+            c.appointments.put(a.id, a);
+        }
+        for (int i = in.buf.getInt(); i > 0; i--) {
+            String id = in.str(), pid = in.str(), method = in.str();
+            LocalDateTime created = in.time(), updated = in.time();
+            Bill b = new Bill(id, pid, in.buf.getDouble(), created);
+            b.updatedAt = updated;
+            b.paymentMethod = method == null ? null : PaymentMethod.valueOf(method);
+            b.paid = in.bool();
+            for (int k = in.buf.getInt(); k > 0; k--)
+                b.items.add(new BillItem(in.str(), in.buf.getDouble()));
+            c.bills.put(b.id, b);
+        }
+        for (int i = in.buf.getInt(); i > 0; i--) {
+            String id = in.str(), st = in.str();
+            c.status.current.put(id, st == null ? null : PatientStatus.valueOf(st));
+        }
+        for (int i = in.buf.getInt(); i > 0; i--) {
+            String id = in.str();
+            List<StatusHistoryEntry> h = new ArrayList<>();
+            for (int k = in.buf.getInt(); k > 0; k--) {
+                String st = in.str();
+                h.add(new StatusHistoryEntry(st == null ? null : PatientStatus.valueOf(st), in.time(), in.str(),
+                        in.str()));
+                c.status.records++;
+            }
+            c.status.history.put(id, h);
+        }
+    }
+
+    private static void writePatient(Out o, Patient p) throws IOException {
+        o.str(p.id).str(p.name).str(p.birthday).str(p.gender == null ? null : p.gender.name()).str(p.contact)
+                .str(p.address).time(p.createdAt);
+        o.out.writeInt(p.age);
+        o.str(p.preferredPronouns).str(p.city).str(p.state).str(p.zip).str(p.email).str(p.primaryLanguage)
+                .str(p.interpreterNeeded).str(p.emergencyContactName).str(p.emergencyContactPhone)
+                .str(p.emergencyContactRelationship).str(p.preferredContactMethod).str(p.patientType);
+        o.out.writeBoolean(p.isOutpatientPermanent);
+        o.out.writeBoolean(p.isComplete);
+        o.out.writeBoolean(p.isActive);
+        o.str(p.allergies).str(p.medications).str(p.pastMedicalHistory).str(p.surgicalHistory)
+                .str(p.familyHistory).str(p.smokingStatus).str(p.alcoholUse).str(p.drugUse).str(p.occupation)
+                .str(p.photoPath).list(p.attachmentPaths).dbl(p.heightCm).dbl(p.weightKg).str(p.bloodPressure)
+                .str(p.registrationType).str(p.incidentTime).str(p.broughtBy).str(p.initialBp).str(p.initialHr)
+                .str(p.initialSpo2).str(p.chiefComplaint).list(p.progressNotes).list(p.labResults)
+                .list(p.radiologyReports)
+                .str(p.xrayFilePath).str(p.xrayStatus).str(p.xraySummary)
+                .str(p.stoolFilePath).str(p.stoolStatus).str(p.stoolSummary)
+                .str(p.urineFilePath).str(p.urineStatus).str(p.urineSummary)
+                .str(p.bloodFilePath).str(p.bloodStatus).str(p.bloodSummary)
+                .list(p.diagnoses).list(p.treatmentPlans).list(p.dischargeSummaries)
+                .str(p.insuranceProvider).str(p.insuranceId).str(p.insuranceGroup).str(p.policyHolderName)
+                .str(p.policyHolderDob).str(p.policyRelationship).str(p.secondaryInsurance);
+    }
+
+    private static Patient readPatient(In in) {
+        String id = in.str(), name = in.str(), birthday = in.str(), gender = in.str(), contact = in.str(),
+                address = in.str();
+        LocalDateTime created = in.time();
+        Patient p = new Patient(id, name, in.buf.getInt(), birthday, gender == null ? null : Gender.valueOf(gender),
+                contact, address, created);
+        p.preferredPronouns = in.str();
+        p.city = in.str();
+        p.state = in.str();
+        p.zip = in.str();
+        p.email = in.str();
+        p.primaryLanguage = in.str();
+        p.interpreterNeeded = in.str();
+        p.emergencyContactName = in.str();
+        p.emergencyContactPhone = in.str();
+        p.emergencyContactRelationship = in.str();
+        p.preferredContactMethod = in.str();
+        p.patientType = in.str();
+        p.isOutpatientPermanent = in.bool();
+        p.isComplete = in.bool();
+        p.isActive = in.bool();
+        p.allergies = in.str();
+        p.medications = in.str();
+        p.pastMedicalHistory = in.str();
+        p.surgicalHistory = in.str();
+        p.familyHistory = in.str();
+        p.smokingStatus = in.str();
+        p.alcoholUse = in.str();
+        p.drugUse = in.str();
+        p.occupation = in.str();
+        p.photoPath = in.str();
+        p.attachmentPaths = in.list();
+        p.heightCm = in.dbl();
+        p.weightKg = in.dbl();
+        p.bloodPressure = in.str();
+        p.registrationType = in.str();
+        p.incidentTime = in.str();
+        p.broughtBy = in.str();
+        p.initialBp = in.str();
+        p.initialHr = in.str();
+        p.initialSpo2 = in.str();
+        p.chiefComplaint = in.str();
+        p.progressNotes = in.list();
+        p.labResults = in.list();
+        p.radiologyReports = in.list();
+        p.xrayFilePath = in.str();
+        p.xrayStatus = in.str();
+        p.xraySummary = in.str();
+        p.stoolFilePath = in.str();
+        p.stoolStatus = in.str();
+        p.stoolSummary = in.str();
+        p.urineFilePath = in.str();
+        p.urineStatus = in.str();
+        p.urineSummary = in.str();
+        p.bloodFilePath = in.str();
+        p.bloodStatus = in.str();
+        p.bloodSummary = in.str();
+        p.diagnoses = in.list();
+        p.treatmentPlans = in.list();
+        p.dischargeSummaries = in.list();
+        p.insuranceProvider = in.str();
+        p.insuranceId = in.str();
+        p.insuranceGroup = in.str();
+        p.policyHolderName = in.str();
+        p.policyHolderDob = in.str();
+        p.policyRelationship = in.str();
+        p.secondaryInsurance = in.str();
+        return p;
+    }
+
+    private static void writeStaff(Out o, Staff s) throws IOException {
+        o.str(s.id).str(s.name).str(s.role == null ? null : s.role.name()).str(s.department).time(s.createdAt)
+                .str(s.phone).str(s.email).str(s.address).str(s.licenseNumber).str(s.specialty)
+                .str(s.subSpecialization).str(s.nursingField).integer(s.yearsExperience).integer(s.yearsPractice)
+                .integer(s.yearsOfWork).str(s.clinicSchedule_str).time(s.scheduleStartDate).time(s.scheduleEndDate)
+                .str(s.qualifications).str(s.certifications).str(s.education).str(s.expertise).str(s.skills)
+                .str(s.competencies).str(s.bio).str(s.employeeId).str(s.status).str(s.photoPath);
+        o.out.writeBoolean(s.isAvailable);
+        o.out.writeBoolean(s.isActive);
+        Map<String, Staff.ScheduleEntry> sched = s.clinicSchedule == null ? Collections.emptyMap() : s.clinicSchedule;
+        o.out.writeInt(sched.size());
+        for (Map.Entry<String, Staff.ScheduleEntry> e : sched.entrySet()) {
+            Staff.ScheduleEntry v = e.getValue();
+            o.str(e.getKey());
+            o.out.writeBoolean(v != null && v.active);
+            o.str(v == null ? null : v.startTime).str(v == null ? null : v.endTime);
+        }
+    }
+
+    private static Staff readStaff(In in) {
+        String id = in.str(), name = in.str(), role = in.str(), dept = in.str();
+        Staff s = new Staff(id, name, role == null ? null : StaffRole.valueOf(role), dept, in.time());
+        s.phone = in.str();
+        s.email = in.str();
+        s.address = in.str();
+        s.licenseNumber = in.str();
+        s.specialty = in.str();
+        s.subSpecialization = in.str();
+        s.nursingField = in.str();
+        s.yearsExperience = in.integer();
+        s.yearsPractice = in.integer();
+        s.yearsOfWork = in.integer();
+        s.clinicSchedule_str = in.str();
+        s.scheduleStartDate = in.time();
+        s.scheduleEndDate = in.time();
+        s.qualifications = in.str();
+        s.certifications = in.str();
+        s.education = in.str();
+        s.expertise = in.str();
+        s.skills = in.str();
+        s.competencies = in.str();
+        s.bio = in.str();
+        s.employeeId = in.str();
+        s.status = in.str();
+        s.photoPath = in.str();
+        s.isAvailable = in.bool();
+        s.isActive = in.bool();
+        for (int k = in.buf.getInt(); k > 0; k--) {
+            String day = in.str();
+            boolean active = in.bool();
+            s.clinicSchedule.put(day, new Staff.ScheduleEntry(active, in.str(), in.str()));
+        }
+        return s;
+    }
+
+    /** Nullable values over a DataOutputStream; strings are UTF-8 after a varint of length + 1, 0 for null */
+    private static final class Out {
+        final DataOutputStream out;
+
+        Out(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void varint(int v) throws IOException {
+            while ((v & ~0x7F) != 0) {
+                out.writeByte((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            out.writeByte(v);
+        }
+
+        Out str(String s) throws IOException {
+            if (s == null) {
+                varint(0);
+            } else {
+                byte[] b = s.getBytes(StandardCharsets.UTF_8);
+                varint(b.length + 1);
+                out.write(b);
+            }
+            return this;
+        }
+
+        Out list(List<String> l) throws IOException {
+            varint(l == null ? 0 : l.size() + 1);
+            if (l != null)
+                for (String s : l)
+                    str(s);
+            return this;
+        }
+
+        Out time(LocalDateTime t) throws IOException {
+            out.writeLong(t == null ? NO_TIME : t.toEpochSecond(ZoneOffset.UTC));
+            if (t != null)
+                out.writeInt(t.getNano());
+            return this;
+        }
+
+        Out dbl(Double d) throws IOException {
+            out.writeBoolean(d != null);
+            if (d != null)
+                out.writeDouble(d);
+            return this;
+        }
+
+        Out integer(Integer i) throws IOException {
+            out.writeBoolean(i != null);
+            if (i != null)
+                out.writeInt(i);
+            return this;
+        }
+    }
+
+    /** Reads what {@link Out} wrote, straight from the mapped buffer */
+    private static final class In {
+        final ByteBuffer buf;
+
+        In(ByteBuffer buf) {
+            this.buf = buf;
+        }
+
+        int varint() {
+            int v = 0;
+            for (int shift = 0;; shift += 7) {
+                byte b = buf.get();
+                v |= (b & 0x7F) << shift;
+                if (b >= 0)
+                    return v;
+            }
+        }
+
+        String str() {
+            int n = varint() - 1;
+            if (n < 0)
+                return null;
+            if (n == 0)
+                return "";
+            byte[] b = new byte[n];
+            buf.get(b);
+            return new String(b, StandardCharsets.UTF_8);
+        }
+
+        List<String> list() {
+            int n = varint() - 1;
+            List<String> l = new ArrayList<>(Math.max(n, 0));
+            for (int i = 0; i < n; i++)
+                l.add(str());
+            return l;
+        }
+
+        LocalDateTime time() {
+            long secs = buf.getLong();
+            return secs == NO_TIME ? null : LocalDateTime.ofEpochSecond(secs, buf.getInt(), ZoneOffset.UTC);
+        }
+
+        boolean bool() {
+            return buf.get() != 0;
+        }
+
+        Double dbl() {
+            return bool() ? buf.getDouble() : null;
+        }
+
+        Integer integer() {
+            return bool() ? buf.getInt() : null;
+        }
+    }
+}
@@ -0,0 +1,553 @@
+package hpms.service;
+
+import hpms.config.DatabaseConfig;
+import hpms.util.*;
+
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import javax.swing.SwingUtilities;
+
+/**
+ * Keeps DataStore current with changes made by other workstations.
+ *
+ * Triggers on the tracked tables (installed by schema migration
+ * V009__change_log.sql) append (table, row id, op, origin) to change_log; each process tags its own connections with
+ * DBConnection.WORKSTATION_ID so it can skip its own changes. A background
+ * poller reads change_log past its high-water mark, re-reads only the changed
+ * rows and merges them into DataStore on the event thread. Per-table lag
+ * (time from the database change to the local merge) is kept for monitoring.
+ *
+ * change_log ids are assigned at insert, not at commit, so a transaction can
+ * commit an id below one already read. Ids skipped over are remembered as
+ * gaps and looked up again on every poll until they appear or are older than
+ * SYNC_GAP_TIMEOUT_MS (a rolled-back insert never fills its id). The applied
+ * mark stays below the oldest open gap.
+ *
+ * Every SYNC_RECONCILE_INTERVAL_MS all tables are reloaded in full, so
+ * changes change_log never saw (triggers dropped, edits with triggers
+ * disabled) do not stay wrong for the life of the process. The poller stays
+ * up during a reload; if the reload cannot read the change_log mark it is
+ * tried again after SYNC_RELOAD_RETRY_MS, backing off to
+ * SYNC_RELOAD_RETRY_MAX_MS. Records edited here while the reload reads the
+ * tables are put back over the reloaded rows before they are published.
+ *
+ * A changed row that still has a local write queued in WriteBehindQueue is
+ * not merged over the local edit: once the local write is committed, the row
+ * is re-read and merged then.
+ */
+public class DeltaSync {
+
+    public static class TableLag {
+        public final String table;
+        public final long rowsApplied;
+        public final long lastLagMs;
+        public final long maxLagMs;
+        public final long lastAppliedAt;
+
+        TableLag(String table, long rowsApplied, long lastLagMs, long maxLagMs, long lastAppliedAt) {
+            this.table = table;
+            this.rowsApplied = rowsApplied;
+            this.lastLagMs = lastLagMs;
+            this.maxLagMs = maxLagMs;
+            this.lastAppliedAt = lastAppliedAt;
+        }
+
+        @Override
+        public String toString() {
+            return table + " rows=" + rowsApplied + " lag=" + lastLagMs + "ms max=" + maxLagMs + "ms";
+        }
+    }
+
+    /** Tables whose changes the V009 triggers record in change_log */
+    static final String[] TRACKED_TABLES = { "patients", "staff", "appointments", "bills", "bill_items",
+            "patient_progress_notes", "patient_status" };
+
+    private static final Object lock = new Object();
+    private static ScheduledExecutorService poller;
+    private static volatile long highWaterMark;
+    // Highest change_log id whose changes have been merged into DataStore; -1 while not syncing
+    private static volatile long appliedMark = -1;
+    private static volatile long lastPollAt;
+    // When the next full reload is due, to correct drift change_log missed
+    private static volatile long reconcileAt;
+    private static long lastPruneAt;
+    private static final Map<String, long[]> lag = new ConcurrentHashMap<>(); // rows, last, max, appliedAt
+    // change_log ids below the high-water mark not read yet -> when first noticed; poller thread only
+    private static final TreeMap<Long, Long> gaps = new TreeMap<>();
+    // "table:id" of remote changes held back behind a queued local write
+    private static final Set<String> deferred = ConcurrentHashMap.newKeySet();
+    // Set while a full reload runs; reloadRetryAt is when a failed one is tried again, 0 while one is in progress
+    private static volatile boolean reloading;
+    private static volatile long reloadRetryAt;
+    private static long reloadBackoffMs;
+    // Ids of records changed here since the running reload started, per kind; null when no reload runs
+    private static volatile Map<DomainEvents.Kind, Set<String>> localEdits;
+    private static final DomainEvents.Listener localEditRecorder = events -> {
+        Map<DomainEvents.Kind, Set<String>> edits = localEdits;
+        if (edits == null)
+            return;
+        for (DomainEvents.Event e : events)
+            if (e.id != null && e.op != DomainEvents.Op.RELOADED)
+                edits.computeIfAbsent(e.kind, k -> ConcurrentHashMap.newKeySet()).add(e.id);
+    };
+
+    /**
+     * Current change_log high-water mark. Read this before a full load so
+     * nothing is missed. Returns -1 when the database is unavailable.
+     */
+    public static long readHighWaterMark() {
+        try (Connection conn = DBConnection.getConnection()) {
+            if (conn == null)
+                return -1;
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT COALESCE(MAX(id), 0) FROM change_log");
+                 ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        } catch (SQLException e) {
+            System.err.println("DeltaSync: could not read change_log: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Whether a copy of DataStore taken at mark can be brought current by
+     * polling from it: the change_log triggers are all installed and
+     * change_log still holds every entry after mark
+     */
+    public static boolean canResumeFrom(long mark) {
+        if (mark < 0)
+            return false;
+        try (Connection conn = DBConnection.getConnection()) {
+            if (conn == null)
+                return false;
+            List<String> missing = missingTriggers(conn);
+            if (!missing.isEmpty()) {
+                System.err.println("DeltaSync: change_log triggers missing: " + missing);
+                return false;
+            }
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT MIN(id), MAX(id) FROM change_log");
+                 ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next())
+                    return false;
+                long min = rs.getLong(1);
+                if (rs.wasNull()) {
+                    // Nothing to show that no change was missed, e.g. everything pruned or the table recreated
+                    System.err.println("DeltaSync: change_log is empty");
+                    return false;
+                }
+                long max = rs.getLong(2);
+                // A mark past the end means the database was replaced; a gap means entries were pruned
+                if (max < mark || min > mark + 1) {
+                    System.err.println("DeltaSync: change_log holds ids " + min + ".." + max + ", not everything after " + mark);
+                    return false;
+                }
+                return true;
+            }
+        } catch (SQLException e) {
+            System.err.println("DeltaSync: could not read change_log: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /** Names of the V009 change_log triggers not present in the current schema */
+    private static List<String> missingTriggers(Connection conn) throws SQLException {
+        Set<String> present = new HashSet<>();
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT TRIGGER_NAME FROM information_schema.TRIGGERS WHERE TRIGGER_SCHEMA = DATABASE()");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next())
+                present.add(rs.getString(1).toLowerCase(Locale.ROOT));
+        }
+        List<String> missing = new ArrayList<>();
+        for (String table : TRACKED_TABLES)
+            for (String op : new String[] { "ai", "au", "ad" }) {
+                String name = "trg_" + table + "_" + op + "_changelog";
+                if (!present.contains(name))
+                    missing.add(name);
+            }
+        return missing;
+    }
+
+    /**
+     * Start (or restart) polling from the given high-water mark. Call on the
+     * event thread once DataStore holds everything up to that mark.
+     */
+    public static void start(long mark) {
+        if (mark < 0)
+            return;
+        synchronized (lock) {
+            highWaterMark = mark;
+            appliedMark = mark;
+            lastPollAt = System.currentTimeMillis();
+            reconcileAt = lastPollAt + DatabaseConfig.SYNC_RECONCILE_INTERVAL_MS;
+            reloading = false;
+            reloadRetryAt = 0;
+            synchronized (gaps) {
+                gaps.clear();
+            }
+            if (poller == null) {
+                poller = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread t = new Thread(r, "hpms-delta-sync");
+                    t.setDaemon(true);
+                    return t;
+                });
+                // First poll right away so a warm start catches up before the user gets going
+                poller.scheduleWithFixedDelay(DeltaSync::pollSafely, 0,
+                        DatabaseConfig.SYNC_POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    public static void stop() {
+        synchronized (lock) {
+            if (poller != null) {
+                poller.shutdownNow();
+                poller = null;
+            }
+            appliedMark = -1;
+            reloading = false;
+            reloadRetryAt = 0;
+        }
+    }
+
+    public static long getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    /**
+     * change_log id up to which DataStore is current, or -1 when not syncing.
+     * Read on the event thread to pair it with the DataStore contents.
+     */
+    public static long getAppliedMark() {
+        return appliedMark;
+    }
+
+    /**
+     * Lag metrics per logical table (patients, staff, appointments, bills, patient_status)
+     */
+    public static List<TableLag> lagStats() {
+        List<TableLag> out = new ArrayList<>();
+        for (Map.Entry<String, long[]> e : new TreeMap<>(lag).entrySet()) {
+            long[] v = e.getValue();
+            synchronized (v) {
+                out.add(new TableLag(e.getKey(), v[0], v[1], v[2], v[3]));
+            }
+        }
+        return out;
+    }
+
+    private static void pollSafely() {
+        try {
+            // Keep reading while batches come back full, e.g. catching up after a warm start
+            while (poll() >= DatabaseConfig.SYNC_BATCH_LIMIT && !Thread.currentThread().isInterrupted()) {
+            }
+        } catch (Exception e) {
+            System.err.println("DeltaSync: poll failed: " + e.getMessage());
+        }
+    }
+
+    /** One poll; returns the number of change_log entries read past the high-water mark */
+    private static int poll() throws SQLException {
+        long retentionMs = DatabaseConfig.CHANGE_LOG_RETENTION_HOURS * 3600_000L;
+        long now = System.currentTimeMillis();
+        if (reloading) {
+            // A reload is running, or failed and waits for its retry
+            if (reloadRetryAt > 0 && now >= reloadRetryAt && WriteBehindQueue.stats().pending == 0) {
+                LogManager.log("delta_sync", "reload_retry");
+                reload();
+            }
+            return 0;
+        }
+        if (now - lastPollAt > retentionMs) {
+            // Offline longer than change_log keeps entries: deltas may be gone, reload everything
+            reload();
+            return 0;
+        }
+        if (now >= reconcileAt && WriteBehindQueue.stats().pending == 0) {
+            // Periodic full reload picks up changes made without the triggers (dropped triggers, manual SQL).
+            // Put off while local writes are queued, so the reload cannot replace an uncommitted edit.
+            LogManager.log("delta_sync", "reconcile");
+            reload();
+            return 0;
+        }
+        int read = 0;
+        try (Connection conn = DBConnection.getConnection()) {
+            if (conn == null)
+                return 0;
+            Map<String, Map<String, Character>> ops = new LinkedHashMap<>();
+            Map<String, Long> ageUs = new HashMap<>();
+            String cols = "SELECT id, table_name, row_id, op, origin, TIMESTAMPDIFF(MICROSECOND, changed_at, NOW(3)) AS age_us FROM change_log ";
+
+            // Entries that committed after later ids had been read
+            List<Long> open;
+            synchronized (gaps) {
+                long expired = System.currentTimeMillis() - DatabaseConfig.SYNC_GAP_TIMEOUT_MS;
+                gaps.values().removeIf(noticed -> noticed < expired);
+                open = new ArrayList<>(gaps.keySet());
+            }
+            for (int from = 0; from < open.size(); from += 500) {
+                List<Long> part = open.subList(from, Math.min(open.size(), from + 500));
+                StringBuilder in = new StringBuilder();
+                for (int i = 0; i < part.size(); i++)
+                    in.append(i == 0 ? "?" : ",?");
+                try (PreparedStatement stmt = conn.prepareStatement(cols + "WHERE id IN (" + in + ") ORDER BY id")) {
+                    for (int i = 0; i < part.size(); i++)
+                        stmt.setLong(i + 1, part.get(i));
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            synchronized (gaps) {
+                                gaps.remove(rs.getLong("id"));
+                            }
+                            collect(rs, ops, ageUs);
+                        }
+                    }
+                }
+            }
+
+            long mark = highWaterMark;
+            try (PreparedStatement stmt = conn.prepareStatement(cols + "WHERE id > ? ORDER BY id LIMIT ?")) {
+                stmt.setLong(1, mark);
+                stmt.setInt(2, DatabaseConfig.SYNC_BATCH_LIMIT);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        read++;
+                        long id = rs.getLong("id");
+                        noteGap(mark, id);
+                        mark = id;
+                        collect(rs, ops, ageUs);
+                    }
+                }
+            }
+
+            // Rows held back earlier whose local write has now been committed
+            for (Iterator<String> it = deferred.iterator(); it.hasNext();) {
+                String key = it.next();
+                if (WriteBehindQueue.hasPending(key))
+                    continue;
+                it.remove();
+                int sep = key.indexOf(':');
+                ops.computeIfAbsent(key.substring(0, sep), k -> new LinkedHashMap<>()).putIfAbsent(key.substring(sep + 1), 'U');
+            }
+
+            lastPollAt = System.currentTimeMillis();
+            long polled;
+            synchronized (gaps) {
+                polled = gaps.isEmpty() ? mark : Math.min(mark, gaps.firstKey() - 1);
+            }
+            if (!ops.isEmpty()) {
+                List<Runnable> merges = new ArrayList<>();
+                for (Map.Entry<String, Map<String, Character>> e : ops.entrySet())
+                    merges.add(fetch(conn, e.getKey(), e.getValue()));
+                long fetchedAt = System.nanoTime();
+                SwingUtilities.invokeLater(() -> {
+                    for (Runnable r : merges)
+                        r.run();
+                    applied(polled);
+                    long applyMs = (System.nanoTime() - fetchedAt) / 1_000_000L;
+                    for (Map.Entry<String, Map<String, Character>> e : ops.entrySet()) {
+                        long lagMs = ageUs.getOrDefault(e.getKey(), 0L) / 1000 + applyMs;
+                        record(e.getKey(), e.getValue().size(), lagMs);
+                        LogManager.log("delta_sync", "table=" + e.getKey(), "rows=" + e.getValue().size(),
+                                "lag=" + lagMs + "ms");
+                    }
+                });
+            } else if (polled > appliedMark) {
+                // Only our own changes: nothing to merge, but keep the applied mark in order behind earlier merges
+                SwingUtilities.invokeLater(() -> applied(polled));
+            }
+            highWaterMark = mark;
+            prune(conn);
+        }
+        return read;
+    }
+
+    /**
+     * Reload every table in full while the poller keeps running. Local edits
+     * are recorded until the reload has been published (see keepLocalEdits).
+     * When the reload ends without restarting sync, e.g. the change_log mark
+     * could not be read, it is retried with backoff.
+     */
+    private static void reload() {
+        synchronized (lock) {
+            reloading = true;
+            reloadRetryAt = 0;
+            appliedMark = -1;
+        }
+        localEdits = new ConcurrentHashMap<>();
+        DomainEvents.subscribeSync(localEditRecorder, DomainEvents.Kind.PATIENT, DomainEvents.Kind.STAFF,
+                DomainEvents.Kind.APPOINTMENT, DomainEvents.Kind.BILL, DomainEvents.Kind.STATUS);
+        StartupLoader.loadAsync(null, false).whenComplete((result, err) -> {
+            DomainEvents.unsubscribe(localEditRecorder);
+            localEdits = null;
+            synchronized (lock) {
+                if (!reloading || poller == null) {
+                    reloadBackoffMs = 0;
+                    return;
+                }
+                reloadBackoffMs = reloadBackoffMs == 0 ? DatabaseConfig.SYNC_RELOAD_RETRY_MS
+                        : Math.min(reloadBackoffMs * 2, DatabaseConfig.SYNC_RELOAD_RETRY_MAX_MS);
+                reloadRetryAt = System.currentTimeMillis() + reloadBackoffMs;
+            }
+            System.err.println("DeltaSync: reload did not restart sync, retrying in " + reloadBackoffMs + "ms");
+        });
+    }
+
+    /**
+     * Put records changed on this workstation since the running reload
+     * started back over the reloaded rows, so publishing the reload does not
+     * undo them; a record deleted here is dropped. Call on the event thread
+     * right before a reloaded table is published. Does nothing outside a
+     * reload.
+     */
+    static <T> void keepLocalEdits(DomainEvents.Kind kind, Map<String, T> loaded, Function<String, T> current) {
+        Map<DomainEvents.Kind, Set<String>> edits = localEdits;
+        Set<String> ids = edits == null ? null : edits.get(kind);
+        if (ids == null)
+            return;
+        for (String id : ids) {
+            T v = current.apply(id);
+            if (v == null)
+                loaded.remove(id);
+            else
+                loaded.put(id, v);
+        }
+    }
+
+    /** Remember the ids skipped between the previous entry read and this one */
+    private static void noteGap(long previous, long id) {
+        if (id <= previous + 1)
+            return;
+        long now = System.currentTimeMillis();
+        synchronized (gaps) {
+            // A huge jump is an auto-increment step or a restored database, not open transactions
+            long from = Math.max(previous + 1, id - DatabaseConfig.SYNC_MAX_GAP_IDS);
+            for (long g = from; g < id && gaps.size() < DatabaseConfig.SYNC_MAX_GAP_IDS; g++)
+                gaps.putIfAbsent(g, now);
+        }
+    }
+
+    /** Add one change_log row to the per-table operations, skipping this workstation's own changes */
+    private static void collect(ResultSet rs, Map<String, Map<String, Character>> ops, Map<String, Long> ageUs) throws SQLException {
+        if (DBConnection.WORKSTATION_ID.equals(rs.getString("origin")))
+            return;
+        String table = rs.getString("table_name");
+        // Last operation per row wins; an insert or update after a delete re-reads the row
+        ops.computeIfAbsent(table, k -> new LinkedHashMap<>()).put(rs.getString("row_id"), rs.getString("op").charAt(0));
+        ageUs.merge(table, rs.getLong("age_us"), Math::max);
+    }
+
+    /**
+     * Drop rows that have a local write still queued from a merge about to run,
+     * remembering them to be re-read once the write is committed. Runs on the
+     * event thread, where local edits are queued, so none can slip in between.
+     */
+    private static void holdBack(String table, Collection<String> ids) {
+        for (Iterator<String> it = ids.iterator(); it.hasNext();) {
+            String key = table + ":" + it.next();
+            if (WriteBehindQueue.hasPending(key)) {
+                it.remove();
+                deferred.add(key);
+            }
+        }
+    }
+
+    private static void applied(long mark) {
+        synchronized (lock) {
+            if (poller != null && !reloading)
+                appliedMark = Math.max(appliedMark, mark);
+        }
+    }
+
+    /**
+     * Re-read the changed rows of one table now; the returned merge runs on the event thread
+     */
+    private static Runnable fetch(Connection conn, String table, Map<String, Character> rows) throws SQLException {
+        List<String> deleted = new ArrayList<>();
+        List<String> changed = new ArrayList<>();
+        for (Map.Entry<String, Character> r : rows.entrySet())
+            (r.getValue() == 'D' ? deleted : changed).add(r.getKey());
+        switch (table) {
+            case "patients": {
+                Map<String, hpms.model.Patient> m = new HashMap<>(changed.isEmpty() ? new HashMap<>() : PatientService.fetchChanged(conn, changed));
+                deleted.addAll(missing(changed, m.keySet()));
+                return () -> {
+                    holdBack(table, m.keySet());
+                    holdBack(table, deleted);
+                    PatientService.merge(m, deleted);
+                };
+            }
+            case "staff": {
+                Map<String, hpms.model.Staff> m = new HashMap<>(changed.isEmpty() ? new HashMap<>() : StaffService.readRows(conn, changed));
+                deleted.addAll(missing(changed, m.keySet()));
+                return () -> {
+                    holdBack(table, m.keySet());
+                    holdBack(table, deleted);
+                    StaffService.merge(m, deleted);
+                };
+            }
+            case "appointments": {
+                Map<String, hpms.model.Appointment> m = new HashMap<>(changed.isEmpty() ? new HashMap<>() : AppointmentService.readRows(conn, changed));
+                deleted.addAll(missing(changed, m.keySet()));
+                return () -> {
+                    holdBack(table, m.keySet());
+                    holdBack(table, deleted);
+                    AppointmentService.merge(m, deleted);
+                };
+            }
+            case "bills": {
+                Map<String, hpms.model.Bill> m = new HashMap<>(changed.isEmpty() ? new HashMap<>() : BillingService.readRows(conn, changed));
+                deleted.addAll(missing(changed, m.keySet()));
+                return () -> {
+                    holdBack(table, m.keySet());
+                    holdBack(table, deleted);
+                    BillingService.merge(m, deleted);
+                };
+            }
+            case "patient_status": {
+                PatientStatusService.StatusData d = PatientStatusService.readRows(conn, rows.keySet());
+                Set<String> ids = new LinkedHashSet<>(rows.keySet());
+                return () -> {
+                    holdBack(table, ids);
+                    PatientStatusService.merge(d, ids);
+                };
+            }
+            default:
+                return () -> { };
+        }
+    }
+
+    /** Rows logged as changed that no longer exist were deleted after the change */
+    private static List<String> missing(List<String> wanted, Set<String> found) {
+        List<String> out = new ArrayList<>();
+        for (String id : wanted)
+            if (!found.contains(id))
+                out.add(id);
+        return out;
+    }
+
+    private static void record(String table, int rows, long lagMs) {
+        long[] v = lag.computeIfAbsent(table, k -> new long[4]);
+        synchronized (v) {
+            v[0] += rows;
+            v[1] = lagMs;
+            v[2] = Math.max(v[2], lagMs);
+            v[3] = System.currentTimeMillis();
+        }
+    }
+
+    private static void prune(Connection conn) {
+        long now = System.currentTimeMillis();
+        if (now - lastPruneAt < 3600_000L)
+            return;
+        lastPruneAt = now;
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "DELETE FROM change_log WHERE changed_at < NOW() - INTERVAL ? HOUR")) {
+            stmt.setInt(1, DatabaseConfig.CHANGE_LOG_RETENTION_HOURS);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("DeltaSync: change_log prune failed: " + e.getMessage());
+        }
+    }
+}
@@ -54,7 +54,9 @@ public class DischargeService {
         room.status = RoomStatus.VACANT;
         room.occupantPatientId = null;
 
-        DataStore.log("discharge_patient " + patientId + " from " + roomId);
+        LogManager.log("discharge_patient", patientId, "from", roomId);
+        DomainEvents.updated(DomainEvents.Kind.ROOM, roomId);
+        DomainEvents.updated(DomainEvents.Kind.PATIENT, patientId);
         // Disabled backup save - using database instead
         out.add("Patient discharged successfully. Discharge ID: " + id);
         return out;
@@ -72,7 +74,7 @@ public class DischargeService {
         try {
             discharge.followUpAppointmentDate = LocalDateTime.parse(followUpDate);
             discharge.followUpInstructions = instructions;
-            DataStore.log("add_followup " + dischargeId);
+            LogManager.log("add_followup", dischargeId);
             out.add("Follow-up instructions added");
         } catch (Exception e) {
             out.add("Error: Invalid date format");
@@ -3,6 +3,7 @@ package hpms.service;
 import hpms.model.Staff;
 import hpms.model.StaffRole;
 import hpms.util.DataStore;
+import hpms.util.DomainEvents;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -80,6 +81,7 @@ public class DoctorService {
         
         // Save changes
         DataStore.staff.put(existing.id, existing);
+        DomainEvents.updated(DomainEvents.Kind.STAFF, existing.id);
         return true;
     }
     
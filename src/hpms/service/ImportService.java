@@ -0,0 +1,568 @@
+package hpms.service;
+
+import hpms.config.DatabaseConfig;
+import hpms.model.*;
+import hpms.util.*;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Bulk import of patients or staff from CSV, for migrating records from
+ * another system.
+ *
+ * Each batch of IMPORT_BATCH_SIZE rows goes through four stages:
+ * <ol>
+ * <li>it is read from the file, one record at a time, by CsvReader;</li>
+ * <li>its rows are validated in parallel with the same rules as the
+ * registration forms;</li>
+ * <li>duplicates of existing records or of earlier rows are rejected, in
+ * file order;</li>
+ * <li>the remaining rows are inserted with one JDBC batch and committed in one
+ * transaction with the import's checkpoint.</li>
+ * </ol>
+ *
+ * Because the checkpoint commits with the rows, an interrupted import that is
+ * run again on the same, unchanged file continues after the last committed
+ * batch. Rejected rows go to &lt;file&gt;.rejected.csv with the reason. A dry
+ * run validates and writes the rejects file but inserts nothing.
+ *
+ * The first row must be a header. Column names are case-insensitive and
+ * spaces count as underscores. Patients need name, age, birthday, gender,
+ * contact, address and patient_type. Optional patient columns are email,
+ * registration_type, allergies, medications and past_medical_history. Staff
+ * need name, role and department. Optional staff columns are specialty,
+ * phone, email, license_number and qualifications.
+ */
+public class ImportService {
+
+    public enum Kind { PATIENTS, STAFF }
+
+    /** Running counts, passed to Progress after every batch */
+    public static final class Stats {
+        public long read, imported, rejected, skipped;
+        final long startNanos = System.nanoTime();
+
+        /** Rows read (not counting rows skipped on resume) per second */
+        public double rowsPerSecond() {
+            double secs = (System.nanoTime() - startNanos) / 1e9;
+            return secs <= 0 ? 0 : (read - skipped) / secs;
+        }
+    }
+
+    public interface Progress {
+        void update(Stats stats);
+    }
+
+    private static final String[] PATIENT_REQUIRED = { "name", "age", "birthday", "gender", "contact", "address",
+            "patient_type" };
+    private static final String[] STAFF_REQUIRED = { "name", "role", "department" };
+
+    private static final String PATIENT_INSERT = "INSERT INTO patients (id, name, age, gender, contact, address, email, "
+            + "registration_type, is_active, created_at, patient_type, allergies, medications, past_medical_history) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String STAFF_INSERT = "INSERT INTO staff (id, name, role, department, phone, email, "
+            + "license_number, specialty, qualifications, status, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SAVE_CHECKPOINT = "INSERT INTO import_checkpoints "
+            + "(source, file_size, next_row, imported, rejected) VALUES (?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE file_size = VALUES(file_size), next_row = VALUES(next_row), "
+            + "imported = VALUES(imported), rejected = VALUES(rejected)";
+
+    private static final ExecutorService validators = Executors.newFixedThreadPool(
+            DatabaseConfig.IMPORT_THREADS > 0 ? DatabaseConfig.IMPORT_THREADS
+                    : Runtime.getRuntime().availableProcessors(),
+            r -> {
+                Thread t = new Thread(r, "hpms-import");
+                t.setDaemon(true);
+                return t;
+            });
+
+    /** One data row on its way through the pipeline */
+    private static final class Row {
+        final long number;  // 1-based, header excluded
+        final long line;
+        final List<String> fields;
+        String error;
+        // Parsed by validation
+        String name, contact, address, email, birthday, patientType, department, phone, license, dupKey;
+        String registrationType, allergies, medications, history, specialty, qualifications;
+        int age;
+        Gender gender;
+        StaffRole role;
+        Object entity;
+
+        Row(long number, long line, List<String> fields) {
+            this.number = number;
+            this.line = line;
+            this.fields = fields;
+        }
+    }
+
+    public static List<String> importPatients(Path csv, boolean dryRun, Progress progress) {
+        return run(Kind.PATIENTS, csv, dryRun, progress);
+    }
+
+    public static List<String> importStaff(Path csv, boolean dryRun, Progress progress) {
+        return run(Kind.STAFF, csv, dryRun, progress);
+    }
+
+    private static List<String> run(Kind kind, Path csv, boolean dryRun, Progress progress) {
+        List<String> out = new ArrayList<>();
+        if (csv == null || !Files.isRegularFile(csv)) {
+            out.add("Error: File not found " + csv);
+            return out;
+        }
+        Stats stats = new Stats();
+        String what = kind == Kind.PATIENTS ? "patients" : "staff";
+        Path rejects = csv.resolveSibling(csv.getFileName() + ".rejected.csv");
+        String source = source(kind, csv);
+        Connection conn = null;
+        try (CsvReader in = new CsvReader(Files.newBufferedReader(csv, StandardCharsets.UTF_8))) {
+            long size = Files.size(csv);
+            List<String> header = in.next();
+            if (header == null) {
+                out.add("Error: Empty file");
+                return out;
+            }
+            Map<String, Integer> cols = columns(header);
+            for (String c : kind == Kind.PATIENTS ? PATIENT_REQUIRED : STAFF_REQUIRED)
+                if (!cols.containsKey(c)) {
+                    out.add("Error: Missing column " + c);
+                    return out;
+                }
+
+            long resumeAt = 0;
+            if (!dryRun) {
+                conn = DBConnection.getConnection();
+                if (conn == null) {
+                    out.add("Error: Database unavailable");
+                    return out;
+                }
+                conn.setAutoCommit(false);
+                resumeAt = checkpoint(conn, source, size, stats);
+            }
+            Set<String> seen = existingKeys(kind);
+            try (Writer err = rejectsWriter(rejects, resumeAt > 0, header)) {
+                List<Row> batch = new ArrayList<>(DatabaseConfig.IMPORT_BATCH_SIZE);
+                List<String> fields;
+                while (true) {
+                    fields = in.next();
+                    if (fields != null) {
+                        stats.read++;
+                        if (stats.read <= resumeAt) {
+                            stats.skipped++;
+                            continue;
+                        }
+                        batch.add(new Row(stats.read, in.recordLine(), fields));
+                        if (batch.size() < DatabaseConfig.IMPORT_BATCH_SIZE)
+                            continue;
+                    }
+                    if (!batch.isEmpty()) {
+                        validate(kind, cols, batch);
+                        List<Row> accepted = dedupe(kind, batch, seen);
+                        long rejected = batch.size() - accepted.size();
+                        if (!dryRun)
+                            insert(kind, conn, accepted, source, size, stats.read, stats.imported + accepted.size(),
+                                    stats.rejected + rejected);
+                        stats.imported += accepted.size();
+                        stats.rejected += rejected;
+                        if (!dryRun)
+                            publish(kind, accepted);
+                        for (Row r : batch)
+                            if (r.error != null)
+                                writeReject(err, r);
+                        err.flush();
+                        batch.clear();
+                        if (progress != null)
+                            progress.update(stats);
+                    }
+                    if (fields == null)
+                        break;
+                }
+            }
+            if (!dryRun)
+                clearCheckpoint(conn, source);
+        } catch (SQLException | IOException | RuntimeException e) {
+            System.err.println("ImportService: " + what + " import stopped: " + e.getMessage());
+            out.add("Error: Import stopped after row " + (stats.imported + stats.rejected + stats.skipped) + ": "
+                    + e.getMessage() + (dryRun ? "" : " (run the import again to resume)"));
+            return out;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException ignored) {
+                }
+            }
+            if (!dryRun && stats.imported > 0)
+                DomainEvents.reloaded(kind == Kind.PATIENTS ? DomainEvents.Kind.PATIENT : DomainEvents.Kind.STAFF);
+        }
+        LogManager.log("import_" + what, "file=" + csv.getFileName(), "imported=" + stats.imported,
+                "rejected=" + stats.rejected, "dry_run=" + dryRun);
+        out.add((dryRun ? "Dry run: " + stats.imported + " " + what + " would be imported"
+                : "Imported " + stats.imported + " " + what) + ", rejected " + stats.rejected
+                + (stats.skipped > 0 ? ", skipped " + stats.skipped + " already imported" : ""));
+        out.add(String.format(Locale.US, "Throughput: %.0f rows/sec", stats.rowsPerSecond()));
+        if (stats.rejected > 0)
+            out.add("Rejected rows written to " + rejects);
+        return out;
+    }
+
+    /** Checkpoint key; file paths are cut to fit the key column */
+    private static String source(Kind kind, Path csv) {
+        String path = csv.toAbsolutePath().normalize().toString();
+        String prefix = kind.name() + ":";
+        int max = 255 - prefix.length();
+        return prefix + (path.length() > max ? path.substring(path.length() - max) : path);
+    }
+
+    private static Map<String, Integer> columns(List<String> header) {
+        Map<String, Integer> cols = new HashMap<>();
+        for (int i = 0; i < header.size(); i++)
+            cols.putIfAbsent(header.get(i).trim().toLowerCase(Locale.ROOT).replace(' ', '_'), i);
+        return cols;
+    }
+
+    // ---- stage 2: validation, in parallel ----
+
+    private static void validate(Kind kind, Map<String, Integer> cols, List<Row> batch) {
+        int threads = DatabaseConfig.IMPORT_THREADS > 0 ? DatabaseConfig.IMPORT_THREADS
+                : Runtime.getRuntime().availableProcessors();
+        int slice = Math.max(64, (batch.size() + threads - 1) / threads);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int from = 0; from < batch.size(); from += slice) {
+            List<Row> part = batch.subList(from, Math.min(batch.size(), from + slice));
+            tasks.add(() -> {
+                for (Row r : part) {
+                    try {
+                        r.error = kind == Kind.PATIENTS ? validatePatient(cols, r) : validateStaff(cols, r);
+                    } catch (RuntimeException e) {
+                        r.error = "Invalid row: " + e.getMessage();
+                    }
+                }
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> f : validators.invokeAll(tasks))
+                f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Import interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Validation failed", e.getCause());
+        }
+    }
+
+    private static String field(Map<String, Integer> cols, Row r, String name) {
+        Integer i = cols.get(name);
+        if (i == null || i >= r.fields.size())
+            return "";
+        return r.fields.get(i).trim();
+    }
+
+    /** The checks PatientService.add makes, plus Validators' name and email rules; null if valid */
+    private static String validatePatient(Map<String, Integer> cols, Row r) {
+        r.name = field(cols, r, "name");
+        r.birthday = field(cols, r, "birthday");
+        r.contact = field(cols, r, "contact");
+        r.address = field(cols, r, "address");
+        r.email = field(cols, r, "email");
+        String age = field(cols, r, "age");
+        String gender = field(cols, r, "gender");
+        r.patientType = field(cols, r, "patient_type").toUpperCase(Locale.ROOT);
+        r.registrationType = field(cols, r, "registration_type");
+        r.allergies = field(cols, r, "allergies");
+        r.medications = field(cols, r, "medications");
+        r.history = field(cols, r, "past_medical_history");
+        for (String c : PATIENT_REQUIRED)
+            if (Validators.empty(field(cols, r, c)))
+                return "Missing " + c;
+        if (!Validators.isValidName(r.name))
+            return Validators.getErrorMessage("name", r.name, "name");
+        try {
+            r.age = Integer.parseInt(age);
+        } catch (NumberFormatException e) {
+            return Validators.getErrorMessage("age", age, "age");
+        }
+        if (r.age <= 0 || !Validators.isValidAge(r.age))
+            return Validators.getErrorMessage("age", age, "age");
+        if (!r.patientType.equals("INPATIENT") && !r.patientType.equals("OUTPATIENT")
+                && !r.patientType.equals("EMERGENCY"))
+            return "Patient Type must be either INPATIENT, EMERGENCY, or OUTPATIENT";
+        if (!r.email.isEmpty() && !Validators.isValidEmail(r.email))
+            return Validators.getErrorMessage("email", r.email, "email");
+        r.gender = PatientService.parseGender(gender);
+        Patient p = new Patient(null, r.name, r.age, r.birthday, r.gender, r.contact, r.address, LocalDateTime.now());
+        p.patientType = r.patientType;
+        if (!p.hasRequiredFields())
+            return "Incomplete record";
+        r.dupKey = r.contact.toLowerCase(Locale.ROOT);
+        return null;
+    }
+
+    /** The checks StaffService.add makes; null if valid */
+    private static String validateStaff(Map<String, Integer> cols, Row r) {
+        r.name = field(cols, r, "name");
+        r.department = field(cols, r, "department");
+        r.phone = field(cols, r, "phone");
+        r.email = field(cols, r, "email");
+        r.license = field(cols, r, "license_number");
+        r.specialty = field(cols, r, "specialty");
+        r.qualifications = field(cols, r, "qualifications");
+        String role = field(cols, r, "role");
+        for (String c : STAFF_REQUIRED)
+            if (Validators.empty(field(cols, r, c)))
+                return "Missing " + c;
+        try {
+            r.role = StaffRole.valueOf(role.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return "Invalid role " + role;
+        }
+        if (!DataStore.departments.contains(r.department))
+            return "Invalid department " + r.department;
+        if (r.name.length() > 120)
+            return "Name too long";
+        if (!r.email.isEmpty() && !StaffService.isValidEmail(r.email))
+            return "Invalid email address";
+        if (!r.phone.isEmpty() && !StaffService.isValidPhone(r.phone))
+            return "Invalid phone number";
+        r.dupKey = (r.name + "|" + r.role + "|" + r.department).toLowerCase(Locale.ROOT);
+        return null;
+    }
+
+    // ---- stage 3: duplicates, in file order ----
+
+    /** Keys of the records already in the DataStore, so an import never adds a second copy */
+    private static Set<String> existingKeys(Kind kind) {
+        Set<String> keys = new HashSet<>();
+        if (kind == Kind.PATIENTS) {
+            for (Patient p : DataStore.patients.snapshotValues())
+                if (p != null && p.contact != null)
+                    keys.add(p.contact.trim().toLowerCase(Locale.ROOT));
+        } else {
+            for (Staff s : DataStore.staff.snapshotValues()) {
+                if (s == null)
+                    continue;
+                keys.add((s.name + "|" + s.role + "|" + s.department).toLowerCase(Locale.ROOT));
+                if (!Validators.empty(s.licenseNumber))
+                    keys.add("license|" + s.licenseNumber.trim().toLowerCase(Locale.ROOT));
+                if (!Validators.empty(s.email))
+                    keys.add("email|" + s.email.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        return keys;
+    }
+
+    /** Reject duplicates and give the remaining rows ids and entities; returns them in file order */
+    private static List<Row> dedupe(Kind kind, List<Row> batch, Set<String> seen) {
+        List<Row> accepted = new ArrayList<>(batch.size());
+        for (Row r : batch) {
+            if (r.error != null)
+                continue;
+            if (kind == Kind.PATIENTS) {
+                if (!seen.add(r.dupKey)) {
+                    r.error = "Duplicate contact";
+                    continue;
+                }
+                String id = IDGenerator.nextId("P");
+                Patient p = new Patient(id, r.name, r.age, r.birthday, r.gender, r.contact, r.address, LocalDateTime.now());
+                p.patientType = r.patientType;
+                p.email = r.email;
+                p.registrationType = r.registrationType.isEmpty() ? "Walk-in Patient" : r.registrationType;
+                p.allergies = r.allergies;
+                p.medications = r.medications;
+                p.pastMedicalHistory = r.history;
+                p.validateCompleteness();
+                r.entity = p;
+            } else {
+                String license = r.license.isEmpty() ? null : "license|" + r.license.toLowerCase(Locale.ROOT);
+                String email = r.email.isEmpty() ? null : "email|" + r.email.toLowerCase(Locale.ROOT);
+                if (seen.contains(r.dupKey)) {
+                    r.error = "Staff already exists with same name, role and department";
+                    continue;
+                }
+                if (license != null && seen.contains(license)) {
+                    r.error = "A staff member with the same license number already exists";
+                    continue;
+                }
+                if (email != null && seen.contains(email)) {
+                    r.error = "A staff member with the same email already exists";
+                    continue;
+                }
+                seen.add(r.dupKey);
+                if (license != null)
+                    seen.add(license);
+                if (email != null)
+                    seen.add(email);
+                String id = IDGenerator.nextId("S");
+                Staff s = new Staff(id, r.name, r.role, r.department, LocalDateTime.now());
+                s.phone = r.phone.isEmpty() ? null : r.phone;
+                s.email = r.email.isEmpty() ? null : r.email;
+                s.licenseNumber = r.license.isEmpty() ? null : r.license;
+                if (!r.specialty.isEmpty())
+                    s.specialty = r.specialty;
+                s.qualifications = r.qualifications;
+                r.entity = s;
+            }
+            accepted.add(r);
+        }
+        return accepted;
+    }
+
+    // ---- stage 4: batched insert, committed with the checkpoint ----
+
+    private static void insert(Kind kind, Connection conn, List<Row> rows, String source, long size, long nextRow,
+            long imported, long rejected) throws SQLException {
+        try {
+            if (!rows.isEmpty()) {
+                try (PreparedStatement st = conn.prepareStatement(kind == Kind.PATIENTS ? PATIENT_INSERT : STAFF_INSERT)) {
+                    for (Row r : rows) {
+                        if (kind == Kind.PATIENTS)
+                            bindPatient(st, (Patient) r.entity);
+                        else
+                            bindStaff(st, (Staff) r.entity);
+                        st.addBatch();
+                    }
+                    st.executeBatch();
+                }
+            }
+            try (PreparedStatement st = conn.prepareStatement(SAVE_CHECKPOINT)) {
+                st.setString(1, source);
+                st.setLong(2, size);
+                st.setLong(3, nextRow);
+                st.setLong(4, imported);
+                st.setLong(5, rejected);
+                st.executeUpdate();
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        }
+    }
+
+    private static void bindPatient(PreparedStatement st, Patient p) throws SQLException {
+        int i = 1;
+        st.setString(i++, p.id);
+        st.setString(i++, p.name);
+        st.setInt(i++, p.age);
+        st.setString(i++, p.gender != null ? p.gender.toString() : null);
+        st.setString(i++, p.contact);
+        st.setString(i++, p.address);
+        st.setString(i++, p.email);
+        st.setString(i++, p.registrationType);
+        st.setBoolean(i++, p.isActive);
+        st.setTimestamp(i++, Timestamp.valueOf(p.createdAt));
+        st.setString(i++, p.patientType);
+        st.setString(i++, p.allergies);
+        st.setString(i++, p.medications);
+        st.setString(i, p.pastMedicalHistory);
+    }
+
+    private static void bindStaff(PreparedStatement st, Staff s) throws SQLException {
+        int i = 1;
+        st.setString(i++, s.id);
+        st.setString(i++, s.name);
+        st.setString(i++, s.role.toString());
+        st.setString(i++, s.department);
+        st.setString(i++, s.phone);
+        st.setString(i++, s.email);
+        st.setString(i++, s.licenseNumber);
+        st.setString(i++, s.specialty);
+        st.setString(i++, s.qualifications);
+        st.setString(i++, s.isActive ? "Active" : "Inactive");
+        st.setTimestamp(i, Timestamp.valueOf(s.createdAt));
+    }
+
+    /** Make a committed batch visible in memory; listeners get one RELOADED at the end of the import */
+    private static void publish(Kind kind, List<Row> rows) {
+        for (Row r : rows) {
+            if (kind == Kind.PATIENTS) {
+                Patient p = (Patient) r.entity;
+                DataStore.patients.put(p.id, p);
+                PatientSearchIndex.index(p);
+                PatientStatus initial = "INPATIENT".equals(p.patientType) ? PatientStatus.INPATIENT
+                        : "EMERGENCY".equals(p.patientType) ? PatientStatus.EMERGENCY : null;
+                if (initial != null) {
+                    DataStore.patientStatus.put(p.id, initial);
+                    DataStore.statusHistory.computeIfAbsent(p.id, k -> new ArrayList<>())
+                            .add(new StatusHistoryEntry(initial, p.createdAt, "SYSTEM", "Imported"));
+                }
+            } else {
+                Staff s = (Staff) r.entity;
+                DataStore.staff.put(s.id, s);
+            }
+        }
+    }
+
+    /** Rows of this file already committed, or 0 to start from the top */
+    private static long checkpoint(Connection conn, String source, long size, Stats stats) throws SQLException {
+        try (PreparedStatement st = conn.prepareStatement(
+                "SELECT file_size, next_row, imported, rejected FROM import_checkpoints WHERE source = ?")) {
+            st.setString(1, source);
+            try (ResultSet rs = st.executeQuery()) {
+                if (!rs.next())
+                    return 0;
+                if (rs.getLong(1) != size) {
+                    System.err.println("ImportService: " + source + " changed since the last run, starting over");
+                    return 0;
+                }
+                stats.imported = rs.getLong(3);
+                stats.rejected = rs.getLong(4);
+                return rs.getLong(2);
+            }
+        }
+    }
+
+    private static void clearCheckpoint(Connection conn, String source) throws SQLException {
+        try (PreparedStatement st = conn.prepareStatement("DELETE FROM import_checkpoints WHERE source = ?")) {
+            st.setString(1, source);
+            st.executeUpdate();
+        }
+        conn.commit();
+    }
+
+    // ---- rejects file ----
+
+    private static Writer rejectsWriter(Path rejects, boolean resume, List<String> header) throws IOException {
+        Writer w;
+        if (resume && Files.exists(rejects)) {
+            w = Files.newBufferedWriter(rejects, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        } else {
+            w = Files.newBufferedWriter(rejects, StandardCharsets.UTF_8);
+            List<String> cols = new ArrayList<>(Arrays.asList("row", "line", "error"));
+            cols.addAll(header);
+            writeCsv(w, cols);
+        }
+        return w;
+    }
+
+    private static void writeReject(Writer w, Row r) throws IOException {
+        List<String> cols = new ArrayList<>(r.fields.size() + 3);
+        cols.add(String.valueOf(r.number));
+        cols.add(String.valueOf(r.line));
+        cols.add(r.error);
+        cols.addAll(r.fields);
+        writeCsv(w, cols);
+    }
+
+    private static void writeCsv(Writer w, List<String> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0)
+                w.write(',');
+            String v = values.get(i) == null ? "" : values.get(i);
+            if (v.indexOf(',') >= 0 || v.indexOf('"') >= 0 || v.indexOf('\n') >= 0 || v.indexOf('\r') >= 0)
+                v = '"' + v.replace("\"", "\"\"") + '"';
+            w.write(v);
+        }
+        w.write("\r\n");
+    }
+}
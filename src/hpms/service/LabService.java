@@ -15,7 +15,7 @@ public class LabService {
         if (!DataStore.staff.containsKey(doctorId)) { out.add("Error: Doctor not found"); return out; }
         String id = "L" + DataStore.lCounter.incrementAndGet();
         LabTestRequest req = new LabTestRequest(id, patientId, doctorId, testName.trim(), LocalDateTime.now());
-        DataStore.labTests.put(id, req); LogManager.log("lab_request " + id);
+        DataStore.labTests.put(id, req); LogManager.log("lab_request", id);
         out.add("Lab test requested " + id);
         return out;
     }
@@ -24,7 +24,7 @@ public class LabService {
         if (req == null) { out.add("Error: Request not found"); return out; }
         String id = "LR" + DataStore.lCounter.incrementAndGet();
         LabResult res = new LabResult(id, requestId, resultText==null?"":resultText.trim(), LocalDateTime.now());
-        DataStore.labResults.put(id, res); LogManager.log("lab_result " + id);
+        DataStore.labResults.put(id, res); LogManager.log("lab_result", id);
         out.add("Lab result entered " + id);
         return out;
     }
@@ -91,8 +91,8 @@ public class LeaveRequestService {
             e.printStackTrace();
         }
         
-        LogManager.log("leave_request_created id=" + request.id + " staff=" + staffId + 
-                      " type=" + leaveType + " days=" + request.totalDays);
+        LogManager.log("leave_request_created", "id=" + request.id, "staff=" + staffId, "type=" + leaveType,
+                "days=" + request.totalDays);
         
         out.add("Leave request created successfully. Request ID: " + request.id);
         return out;
@@ -139,7 +139,7 @@ public class LeaveRequestService {
             e.printStackTrace();
         }
         
-        LogManager.log("leave_request_approved id=" + requestId + " by=" + approvedBy);
+        LogManager.log("leave_request_approved", "id=" + requestId, "by=" + approvedBy);
         out.add("Leave request approved successfully");
         return out;
     }
@@ -184,7 +184,7 @@ public class LeaveRequestService {
             e.printStackTrace();
         }
         
-        LogManager.log("leave_request_rejected id=" + requestId + " reason=" + rejectionReason);
+        LogManager.log("leave_request_rejected", "id=" + requestId, "reason=" + rejectionReason);
         out.add("Leave request rejected");
         return out;
     }
@@ -9,173 +9,63 @@ import java.sql.*;
 
 public class PatientService {
 
-    private static void ensurePatientClinicalColumns(Connection conn) {
-        if (conn == null)
-            return;
-        try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE patients ADD COLUMN email VARCHAR(255)")) {
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-        }
-        try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE patients ADD COLUMN patient_type VARCHAR(30)")) {
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-        }
-        try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE patients ADD COLUMN allergies TEXT")) {
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-        }
-        try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE patients ADD COLUMN medications TEXT")) {
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-        }
-        try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE patients ADD COLUMN past_medical_history TEXT")) {
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-        }
-
-        // Clinical snapshot
-        try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE patients ADD COLUMN height_cm DOUBLE")) {
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-        }
-        try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE patients ADD COLUMN weight_kg DOUBLE")) {
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-        }
-        try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE patients ADD COLUMN blood_pressure VARCHAR(50)")) {
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-        }
-
-        try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE patients ADD COLUMN xray_file_path TEXT")) {
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-        }
-        try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE patients ADD COLUMN xray_status VARCHAR(50)")) {
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-        }
-        try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE patients ADD COLUMN xray_summary TEXT")) {
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-        }
-
-        try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE patients ADD COLUMN stool_file_path TEXT")) {
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-        }
-        try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE patients ADD COLUMN stool_status VARCHAR(50)")) {
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-        }
-        try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE patients ADD COLUMN stool_summary TEXT")) {
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-        }
-
-        try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE patients ADD COLUMN urine_file_path TEXT")) {
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-        }
-        try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE patients ADD COLUMN urine_status VARCHAR(50)")) {
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-        }
-        try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE patients ADD COLUMN urine_summary TEXT")) {
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-        }
-
-        try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE patients ADD COLUMN blood_file_path TEXT")) {
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-        }
-        try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE patients ADD COLUMN blood_status VARCHAR(50)")) {
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-        }
-        try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE patients ADD COLUMN blood_summary TEXT")) {
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-        }
+    /**
+     * Queue a progress note insert
+     */
+    private static java.util.concurrent.CompletableFuture<Void> addProgressNoteToDatabase(String patientId, String byStaffId, String note) {
+        if (patientId == null || patientId.trim().isEmpty())
+            return java.util.concurrent.CompletableFuture.completedFuture(null);
+        if (note == null || note.trim().isEmpty())
+            return java.util.concurrent.CompletableFuture.completedFuture(null);
+        String sql = "INSERT INTO patient_progress_notes (patient_id, note_text, created_by, created_at) VALUES (?, ?, ?, ?)";
+        return WriteBehindQueue.submitFor("patients:" + patientId, null, sql, patientId, note.trim(), byStaffId,
+                java.sql.Timestamp.valueOf(java.time.LocalDateTime.now()));
     }
 
-    private static void ensurePatientProgressNotesTable(Connection conn) {
-        if (conn == null)
-            return;
-        try (PreparedStatement stmt = conn.prepareStatement(
-                "CREATE TABLE IF NOT EXISTS patient_progress_notes (" +
-                        "id INT AUTO_INCREMENT PRIMARY KEY," +
-                        "patient_id VARCHAR(20) NOT NULL," +
-                        "note_text TEXT NOT NULL," +
-                        "created_by VARCHAR(20)," +
-                        "created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP," +
-                        "INDEX idx_ppn_patient (patient_id)" +
-                        ")")) {
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-        }
-
-        // Migration: older installations may have created this table without note_text
-        try (PreparedStatement stmt = conn.prepareStatement(
-                "ALTER TABLE patient_progress_notes ADD COLUMN note_text TEXT NOT NULL")) {
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-        }
-
-        // Migration: older installations may have created this table without created_by
-        try (PreparedStatement stmt = conn.prepareStatement(
-                "ALTER TABLE patient_progress_notes ADD COLUMN created_by VARCHAR(20)")) {
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-        }
-
-        // Migration: older installations may have a legacy NOT NULL 'note' column that breaks inserts
-        // (because newer code inserts into note_text only). Make it nullable.
-        try (PreparedStatement stmt = conn.prepareStatement(
-                "ALTER TABLE patient_progress_notes MODIFY COLUMN note TEXT NULL")) {
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-        }
-
-        // Optional backfill if an older column name exists
-        try (PreparedStatement stmt = conn.prepareStatement(
-                "UPDATE patient_progress_notes SET note_text = note WHERE (note_text IS NULL OR note_text = '')")) {
-            stmt.executeUpdate();
-        } catch (SQLException e) {
+    /**
+     * Append several notes to a patient's record and persist them as one batch
+     */
+    public static java.util.concurrent.CompletableFuture<Void> addProgressNotes(String patientId, String byStaffId, List<String> notes) {
+        Patient p = DataStore.patients.get(patientId);
+        if (p == null || notes == null)
+            return java.util.concurrent.CompletableFuture.completedFuture(null);
+        java.sql.Timestamp now = java.sql.Timestamp.valueOf(java.time.LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>();
+        for (String n : notes) {
+            if (n == null || n.trim().isEmpty())
+                continue;
+            p.progressNotes.add(n.trim());
+            rows.add(new Object[]{patientId, n.trim(), byStaffId, now});
         }
+        String sql = "INSERT INTO patient_progress_notes (patient_id, note_text, created_by, created_at) VALUES (?, ?, ?, ?)";
+        return WriteBehindQueue.submitBatchFor(Collections.singletonList("patients:" + patientId), null, sql, rows);
     }
 
-    private static void addProgressNoteToDatabase(Connection conn, String patientId, String byStaffId, String note) {
-        if (conn == null)
-            return;
-        if (patientId == null || patientId.trim().isEmpty())
-            return;
-        if (note == null || note.trim().isEmpty())
-            return;
-        ensurePatientProgressNotesTable(conn);
-        String sql = "INSERT INTO patient_progress_notes (patient_id, note_text, created_by, created_at) VALUES (?, ?, ?, ?)";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, patientId);
-            stmt.setString(2, note.trim());
-            stmt.setString(3, byStaffId);
-            stmt.setTimestamp(4, java.sql.Timestamp.valueOf(java.time.LocalDateTime.now()));
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-            System.err.println("Error saving progress note: " + e.getMessage());
-        }
+    private static void loadProgressNotesFromDatabase(Connection conn, Map<String, Patient> patients) {
+        loadProgressNotesFromDatabase(conn, patients, false);
     }
 
-    private static void loadProgressNotesFromDatabase(Connection conn) {
+    /**
+     * Attach stored notes; onlyThese restricts the query to the given patients
+     */
+    private static void loadProgressNotesFromDatabase(Connection conn, Map<String, Patient> patients, boolean onlyThese) {
         if (conn == null)
             return;
-        ensurePatientProgressNotesTable(conn);
-        String sql = "SELECT patient_id, note_text, created_by, created_at FROM patient_progress_notes ORDER BY created_at ASC";
+        if (onlyThese && patients.isEmpty())
+            return;
+        String sql = "SELECT patient_id, note_text, created_by, created_at FROM patient_progress_notes"
+                + (onlyThese ? " WHERE patient_id IN (" + DBConnection.placeholders(patients.size()) + ")" : "")
+                + " ORDER BY created_at ASC";
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            if (onlyThese) {
+                int k = 1;
+                for (String id : patients.keySet())
+                    stmt.setString(k++, id);
+            }
             ResultSet rs = stmt.executeQuery();
             while (rs.next()) {
                 String pid = rs.getString("patient_id");
-                Patient p = DataStore.patients.get(pid);
+                Patient p = patients.get(pid);
                 if (p == null)
                     continue;
                 String noteText = rs.getString("note_text");
@@ -200,18 +90,7 @@ public class PatientService {
         }
         Gender g;
         try {
-            String gu = gender == null ? "" : gender.trim();
-            String genderUpper = gu.toUpperCase(Locale.ROOT);
-            // Normalize common forms and map to enum safely
-            if ("MALE".equalsIgnoreCase(gu) || "M".equalsIgnoreCase(gu))
-                g = Gender.Male;
-            else if ("FEMALE".equalsIgnoreCase(gu) || "F".equalsIgnoreCase(gu))
-                g = Gender.Female;
-            else if ("LGBTQ+".equalsIgnoreCase(gu) || "LGBTQ_PLUS".equalsIgnoreCase(genderUpper)
-                    || "LGBTQ".equalsIgnoreCase(genderUpper))
-                g = Gender.LGBTQ_PLUS;
-            else
-                g = Gender.OTHER; // default for 'Other', 'Prefer not to say' and unknown values
+            g = parseGender(gender);
         } catch (Exception e) {
             out.add("Error: Invalid gender");
             return out;
@@ -272,8 +151,12 @@ public class PatientService {
                     .add(new StatusHistoryEntry(initialStatus, LocalDateTime.now(), "SYSTEM", "Initial registration"));
         }
 
-        LogManager.log("add_patient id=" + id + " complete=" + p.isComplete + " type=" + p.patientType
-                + " initial_status=" + initialStatus);
+        LogManager.log("add_patient", "id=" + id, "complete=" + p.isComplete, "type=" + p.patientType,
+                "initial_status=" + initialStatus);
+        PatientSearchIndex.index(p);
+        DomainEvents.created(DomainEvents.Kind.PATIENT, id);
+        if (initialStatus != null)
+            DomainEvents.updated(DomainEvents.Kind.STATUS, id);
         
         // Also save to database
         saveToDatabase(p);
@@ -283,6 +166,21 @@ public class PatientService {
         return out;
     }
 
+    /** Map the gender forms accepted at registration (M, Female, LGBTQ+, ...) to the enum */
+    static Gender parseGender(String gender) {
+        String gu = gender == null ? "" : gender.trim();
+        String genderUpper = gu.toUpperCase(Locale.ROOT);
+        // Normalize common forms and map to enum safely
+        if ("MALE".equalsIgnoreCase(gu) || "M".equalsIgnoreCase(gu))
+            return Gender.Male;
+        if ("FEMALE".equalsIgnoreCase(gu) || "F".equalsIgnoreCase(gu))
+            return Gender.Female;
+        if ("LGBTQ+".equalsIgnoreCase(gu) || "LGBTQ_PLUS".equalsIgnoreCase(genderUpper)
+                || "LGBTQ".equalsIgnoreCase(genderUpper))
+            return Gender.LGBTQ_PLUS;
+        return Gender.OTHER; // default for 'Other', 'Prefer not to say' and unknown values
+    }
+
     // extended add allowing optional patient-provided and insurance fields
     public static List<String> add(String name, String age, String birthday, String gender, String contact,
             String address,
@@ -347,7 +245,9 @@ public class PatientService {
             p.policyHolderDob = policyHolderDob.trim();
         if (policyRelationship != null)
             p.policyRelationship = policyRelationship.trim();
-        LogManager.log("add_patient_extended " + id);
+        LogManager.log("add_patient_extended", id);
+        PatientSearchIndex.index(p);
+        DomainEvents.updated(DomainEvents.Kind.PATIENT, id);
         
         // Also save to database
         saveToDatabase(p);
@@ -379,8 +279,8 @@ public class PatientService {
             List<String> out = new ArrayList<>();
             out.add("Error: Patient record is locked. Once marked as Outpatient or Discharged, the record cannot be edited. "
                     + "If this patient returns, please create a new patient record.");
-            LogManager.log("patient_edit_extended_rejected patient=" + id
-                    + " reason=record_locked permanent_outpatient=" + p.isOutpatientPermanent);
+            LogManager.log("patient_edit_extended_rejected", "patient=" + id, "reason=record_locked",
+                    "permanent_outpatient=" + p.isOutpatientPermanent);
             return out;
         }
 
@@ -399,10 +299,9 @@ public class PatientService {
         // The patientType parameter is completely ignored in edit operations
         if (patientType != null && !patientType.trim().isEmpty()) {
             // Log the attempt but do NOT change the patient type
-            LogManager.log("patient_type_change_rejected patient=" + id
-                    + " current_type=" + p.patientType
-                    + " attempted_type=" + patientType.trim().toUpperCase()
-                    + " reason=patient_type_locked_after_creation");
+            LogManager.log("patient_type_change_rejected", "patient=" + id, "current_type=" + p.patientType,
+                    "attempted_type=" + patientType.trim().toUpperCase(),
+                    "reason=patient_type_locked_after_creation");
 
             // Set permanent outpatient flag if applicable
             if ("OUTPATIENT".equals(p.patientType) && !p.isOutpatientPermanent) {
@@ -439,11 +338,11 @@ public class PatientService {
             if (chiefComplaint != null)
                 p.chiefComplaint = chiefComplaint.trim();
 
-            LogManager.log("first_arrival_data_saved patient=" + id + " type=" + p.registrationType);
+            LogManager.log("first_arrival_data_saved", "patient=" + id, "type=" + p.registrationType);
         } else {
             // Patient already has arrival data - DO NOT OVERWRITE
             // New arrivals should be handled by VisitService.createVisit()
-            LogManager.log("edit_patient_skip_arrival_data patient=" + id + " (first arrival preserved)");
+            LogManager.log("edit_patient_skip_arrival_data", "patient=" + id, "first_arrival_preserved");
         }
 
         // These fields CAN be updated on subsequent edits (not arrival-specific)
@@ -470,7 +369,9 @@ public class PatientService {
         if (policyRelationship != null)
             p.policyRelationship = policyRelationship.trim();
         p.validateCompleteness(); // Re-validate after editing extended fields
-        LogManager.log("edit_patient_extended " + id + " complete=" + p.isComplete);
+        LogManager.log("edit_patient_extended", id, "complete=" + p.isComplete);
+        PatientSearchIndex.index(p);
+        DomainEvents.updated(DomainEvents.Kind.PATIENT, id);
         // Disabled backup save - using database instead
         out.clear();
         out.add("Patient updated " + id);
@@ -497,24 +398,30 @@ public class PatientService {
         void clinicalUpdated(String patientId);
     }
 
-    private static final java.util.List<ClinicalUpdateListener> clinicalListeners = new java.util.ArrayList<>();
+    // Clinical listeners are adapters over DomainEvents PATIENT updates, called on the EDT
+    private static final java.util.Map<ClinicalUpdateListener, DomainEvents.Listener> clinicalListeners =
+            new java.util.concurrent.ConcurrentHashMap<>();
 
     public static void addClinicalUpdateListener(ClinicalUpdateListener l) {
-        if (l != null)
-            clinicalListeners.add(l);
+        if (l == null || clinicalListeners.containsKey(l))
+            return;
+        DomainEvents.Listener bridge = events -> {
+            for (DomainEvents.Event e : events)
+                if (e.id != null && e.op != DomainEvents.Op.DELETED)
+                    l.clinicalUpdated(e.id);
+        };
+        clinicalListeners.put(l, bridge);
+        DomainEvents.subscribe(bridge, DomainEvents.Kind.PATIENT);
     }
 
     public static void removeClinicalUpdateListener(ClinicalUpdateListener l) {
-        clinicalListeners.remove(l);
+        DomainEvents.Listener bridge = l == null ? null : clinicalListeners.remove(l);
+        if (bridge != null)
+            DomainEvents.unsubscribe(bridge);
     }
 
     private static void notifyClinicalUpdate(String patientId) {
-        for (ClinicalUpdateListener l : clinicalListeners) {
-            try {
-                l.clinicalUpdated(patientId);
-            } catch (Exception ex) {
-                /* ignore listener error */ }
-        }
+        DomainEvents.updated(DomainEvents.Kind.PATIENT, patientId);
     }
 
     public static List<String> addClinicalInfo(String id, String heightCmStr, String weightKgStr, String bloodPressure,
@@ -583,49 +490,45 @@ public class PatientService {
                 if (a != null && !a.trim().isEmpty())
                     p.attachmentPaths.add(a.trim());
         }
-        LogManager.log("add_clinical " + id + " by " + (byStaffId == null ? "?" : byStaffId));
+        LogManager.log("add_clinical", id, "by", (byStaffId == null ? "?" : byStaffId));
         // notify listeners so dashboards and other UI can refresh
         notifyClinicalUpdate(id);
 
         // Persist snapshot + note
-        try (Connection conn = DBConnection.getConnection()) {
-            ensurePatientClinicalColumns(conn);
-            saveToDatabase(p);
-            if (note != null && !note.trim().isEmpty()) {
-                addProgressNoteToDatabase(conn, id, byStaffId, note);
-            }
+        saveToDatabase(p);
+        if (note != null && !note.trim().isEmpty()) {
+            addProgressNoteToDatabase(id, byStaffId, note);
+        }
 
-            String uploadedBy = (byStaffId == null || byStaffId.trim().isEmpty()) ? "SYSTEM" : byStaffId.trim();
-            if (xrayPath != null && !xrayPath.trim().isEmpty()) {
-                java.io.File f = new java.io.File(xrayPath.trim());
-                hpms.service.AttachmentService.uploadAttachment(id, f.getName(), f.getAbsolutePath(),
-                        "X-ray", "Imaging", xraySummary == null ? "" : xraySummary, uploadedBy);
-            }
-            if (stoolPath != null && !stoolPath.trim().isEmpty()) {
-                java.io.File f = new java.io.File(stoolPath.trim());
-                hpms.service.AttachmentService.uploadAttachment(id, f.getName(), f.getAbsolutePath(),
-                        "Lab Results", "Laboratory", stoolSummary == null ? "" : stoolSummary, uploadedBy);
-            }
-            if (urinePath != null && !urinePath.trim().isEmpty()) {
-                java.io.File f = new java.io.File(urinePath.trim());
-                hpms.service.AttachmentService.uploadAttachment(id, f.getName(), f.getAbsolutePath(),
-                        "Lab Results", "Laboratory", urineSummary == null ? "" : urineSummary, uploadedBy);
-            }
-            if (bloodPath != null && !bloodPath.trim().isEmpty()) {
-                java.io.File f = new java.io.File(bloodPath.trim());
+        String uploadedBy = (byStaffId == null || byStaffId.trim().isEmpty()) ? "SYSTEM" : byStaffId.trim();
+        if (xrayPath != null && !xrayPath.trim().isEmpty()) {
+            java.io.File f = new java.io.File(xrayPath.trim());
+            hpms.service.AttachmentService.uploadAttachment(id, f.getName(), f.getAbsolutePath(),
+                    "X-ray", "Imaging", xraySummary == null ? "" : xraySummary, uploadedBy);
+        }
+        if (stoolPath != null && !stoolPath.trim().isEmpty()) {
+            java.io.File f = new java.io.File(stoolPath.trim());
+            hpms.service.AttachmentService.uploadAttachment(id, f.getName(), f.getAbsolutePath(),
+                    "Lab Results", "Laboratory", stoolSummary == null ? "" : stoolSummary, uploadedBy);
+        }
+        if (urinePath != null && !urinePath.trim().isEmpty()) {
+            java.io.File f = new java.io.File(urinePath.trim());
+            hpms.service.AttachmentService.uploadAttachment(id, f.getName(), f.getAbsolutePath(),
+                    "Lab Results", "Laboratory", urineSummary == null ? "" : urineSummary, uploadedBy);
+        }
+        if (bloodPath != null && !bloodPath.trim().isEmpty()) {
+            java.io.File f = new java.io.File(bloodPath.trim());
+            hpms.service.AttachmentService.uploadAttachment(id, f.getName(), f.getAbsolutePath(),
+                    "Lab Results", "Laboratory", bloodSummary == null ? "" : bloodSummary, uploadedBy);
+        }
+        if (otherAttachments != null && !otherAttachments.isEmpty()) {
+            for (String a : otherAttachments) {
+                if (a == null || a.trim().isEmpty())
+                    continue;
+                java.io.File f = new java.io.File(a.trim());
                 hpms.service.AttachmentService.uploadAttachment(id, f.getName(), f.getAbsolutePath(),
-                        "Lab Results", "Laboratory", bloodSummary == null ? "" : bloodSummary, uploadedBy);
+                        "General Document", "Documentation", "Uploaded via clinical notes", uploadedBy);
             }
-            if (otherAttachments != null && !otherAttachments.isEmpty()) {
-                for (String a : otherAttachments) {
-                    if (a == null || a.trim().isEmpty())
-                        continue;
-                    java.io.File f = new java.io.File(a.trim());
-                    hpms.service.AttachmentService.uploadAttachment(id, f.getName(), f.getAbsolutePath(),
-                            "General Document", "Documentation", "Uploaded via clinical notes", uploadedBy);
-                }
-            }
-        } catch (SQLException ignored) {
         }
 
         out.add("Clinical info updated " + id);
@@ -646,8 +549,8 @@ public class PatientService {
         if (p.isOutpatientPermanent) {
             out.add("Error: Patient record is locked. Once marked as Outpatient or Discharged, the record cannot be edited. "
                     + "If this patient returns, please create a new patient record.");
-            LogManager.log("patient_edit_rejected patient=" + id + " reason=record_locked permanent_outpatient="
-                    + p.isOutpatientPermanent);
+            LogManager.log("patient_edit_rejected", "patient=" + id, "reason=record_locked",
+                    "permanent_outpatient=" + p.isOutpatientPermanent);
             return out;
         }
 
@@ -707,7 +610,9 @@ public class PatientService {
         }
         p.address = address.trim();
         p.validateCompleteness(); // Re-validate completeness after edit
-        LogManager.log("edit_patient " + id + " complete=" + p.isComplete);
+        LogManager.log("edit_patient", id, "complete=" + p.isComplete);
+        PatientSearchIndex.index(p);
+        DomainEvents.updated(DomainEvents.Kind.PATIENT, id);
         // Disabled backup save - using database instead
         out.add("Patient updated " + id);
         return out;
@@ -746,11 +651,12 @@ public class PatientService {
         }
         // Enhanced audit log
         PatientStatus status = PatientStatusService.getStatus(id);
-        LogManager.log("deactivate_patient patient=" + id
-                + " name=" + p.name
-                + " status=" + status
-                + " room_cleared=" + (clearedRoom != null ? clearedRoom : "none")
-                + " reason=manual_deactivation");
+        LogManager.log("deactivate_patient", "patient=" + id, "name=" + p.name, "status=" + status,
+                "room_cleared=" + (clearedRoom != null ? clearedRoom : "none"), "reason=manual_deactivation");
+        PatientSearchIndex.index(p);
+        DomainEvents.updated(DomainEvents.Kind.PATIENT, id);
+        if (clearedRoom != null)
+            DomainEvents.updated(DomainEvents.Kind.ROOM, clearedRoom);
         // Disabled backup save - using database instead
         out.add("Patient deactivated " + id + " - Record preserved in database");
         return out;
@@ -771,10 +677,10 @@ public class PatientService {
         p.isActive = true;
         // Enhanced audit log
         PatientStatus status = PatientStatusService.getStatus(id);
-        LogManager.log("reactivate_patient patient=" + id
-                + " name=" + p.name
-                + " status=" + status
-                + " reason=manual_reactivation");
+        LogManager.log("reactivate_patient", "patient=" + id, "name=" + p.name, "status=" + status,
+                "reason=manual_reactivation");
+        PatientSearchIndex.index(p);
+        DomainEvents.updated(DomainEvents.Kind.PATIENT, id);
         // Disabled backup save - using database instead
         out.add("Patient reactivated " + id);
         return out;
@@ -786,14 +692,21 @@ public class PatientService {
         return deactivate(id);
     }
 
-    public static List<String> search(String id) {
+    /**
+     * Look a patient up by exact ID, else by name, contact, email, address or
+     * ID terms (prefix and typo tolerant), best matches first
+     */
+    public static List<String> search(String query) {
         List<String> out = new ArrayList<>();
-        Patient p = DataStore.patients.get(id);
-        if (p == null) {
+        Patient exact = query == null ? null : DataStore.patients.get(query.trim());
+        List<String> ids = exact != null ? Collections.singletonList(exact.id) : PatientSearchIndex.rank(query, 20);
+        for (String id : ids) {
+            Patient p = DataStore.patients.get(id);
+            if (p != null)
+                out.add(p.id + " " + p.name + " " + p.age + " " + p.gender);
+        }
+        if (out.isEmpty())
             out.add("Error: Invalid patient ID");
-            return out;
-        }
-        out.add(p.id + " " + p.name + " " + p.age + " " + p.gender);
         return out;
     }
 
@@ -825,8 +738,8 @@ public class PatientService {
 
         // Remove all appointments between doctor and patient
         java.util.List<String> appointmentsToRemove = new java.util.ArrayList<>();
-        for (hpms.model.Appointment appt : DataStore.appointments.values()) {
-            if (appt.patientId.equals(patientId) && appt.staffId.equals(doctorId)) {
+        for (hpms.model.Appointment appt : DataStore.appointments.forPatient(patientId)) {
+            if (doctorId.equals(appt.staffId)) {
                 appointmentsToRemove.add(appt.id);
             }
         }
@@ -835,6 +748,7 @@ public class PatientService {
         int appointmentsDeleted = 0;
         for (String apptId : appointmentsToRemove) {
             DataStore.appointments.remove(apptId);
+            DomainEvents.deleted(DomainEvents.Kind.APPOINTMENT, apptId);
             appointmentsDeleted++;
         }
 
@@ -848,7 +762,8 @@ public class PatientService {
         p.secondaryInsurance = "";
 
         // Log the action
-        LogManager.log("remove_patient_from_doctor " + patientId + " from " + doctorId);
+        LogManager.log("remove_patient_from_doctor", patientId, "from", doctorId);
+        DomainEvents.updated(DomainEvents.Kind.PATIENT, patientId);
 
         // Disabled backup save - using database instead
 
@@ -862,8 +777,6 @@ public class PatientService {
      */
     private static void saveToDatabase(Patient patient) {
         try (Connection conn = DBConnection.getConnection()) {
-            ensurePatientClinicalColumns(conn);
-
             // Check if patient already exists in database
             String checkSql = "SELECT id FROM patients WHERE id = ?";
             boolean exists = false;
@@ -978,7 +891,7 @@ public class PatientService {
                 }
                 
                 stmt.executeUpdate();
-                LogManager.log("patient_db_" + (exists ? "update" : "insert") + " " + patient.id);
+                LogManager.log(exists ? "patient_db_update" : "patient_db_insert", patient.id);
             }
         } catch (SQLException e) {
             System.err.println("Error saving patient to database: " + e.getMessage());
@@ -990,123 +903,20 @@ public class PatientService {
      * Load all patients from database into DataStore
      */
     public static void loadFromDatabase() {
+        Map<String, Patient> loaded = fetchFromDatabase();
+        if (loaded == null)
+            return;
+        fetchProgressNotes(loaded);
+        publish(loaded);
+    }
+
+    /**
+     * Read all patient rows without touching DataStore.
+     * Returns null when the database is unavailable so existing data is kept.
+     */
+    static Map<String, Patient> fetchFromDatabase() {
         try (Connection conn = DBConnection.getConnection()) {
-            ensurePatientClinicalColumns(conn);
-            ensurePatientProgressNotesTable(conn);
-
-            // Find the highest patient ID to sync pCounter
-            int maxId = 1000; // Start from default
-            String maxIdSql = "SELECT id FROM patients WHERE id LIKE 'P%' ORDER BY CAST(SUBSTRING(id, 2) AS UNSIGNED) DESC LIMIT 1";
-            try (PreparedStatement maxStmt = conn.prepareStatement(maxIdSql)) {
-                ResultSet maxRs = maxStmt.executeQuery();
-                if (maxRs.next()) {
-                    String highestId = maxRs.getString("id");
-                    if (highestId != null && highestId.startsWith("P")) {
-                        try {
-                            int idNum = Integer.parseInt(highestId.substring(1));
-                            maxId = Math.max(maxId, idNum);
-                        } catch (NumberFormatException e) {
-                            // Ignore if ID format is unexpected
-                        }
-                    }
-                }
-            }
-            
-            // Sync pCounter with highest existing ID
-            DataStore.pCounter.set(maxId);
-            
-            String sql = "SELECT id, name, age, gender, contact, address, registration_type, is_active, created_at, "
-                    + "email, patient_type, allergies, medications, past_medical_history, "
-                    + "height_cm, weight_kg, blood_pressure, "
-                    + "xray_file_path, xray_status, xray_summary, "
-                    + "stool_file_path, stool_status, stool_summary, "
-                    + "urine_file_path, urine_status, urine_summary, "
-                    + "blood_file_path, blood_status, blood_summary "
-                    + "FROM patients";
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                ResultSet rs = stmt.executeQuery();
-                DataStore.patients.clear(); // Clear existing data
-                while (rs.next()) {
-                    String id = rs.getString("id");
-                    String name = rs.getString("name");
-                    int age = rs.getInt("age");
-                    String birthday = "2000-01-01"; // Default birthday for database-loaded patients
-                    // Fix case mismatch: database stores "MALE" but enum has "Male"
-                    String genderStr = rs.getString("gender");
-                    Gender gender;
-                    try {
-                        gender = Gender.valueOf(genderStr);
-                    } catch (IllegalArgumentException e) {
-                        // Handle case mismatch (e.g., "MALE" -> "Male")
-                        gender = switch (genderStr.toUpperCase()) {
-                            case "MALE" -> Gender.Male;
-                            case "FEMALE" -> Gender.Female;
-                            case "LGBTQ_PLUS" -> Gender.LGBTQ_PLUS;
-                            case "OTHER" -> Gender.OTHER;
-                            default -> Gender.OTHER;
-                        };
-                    }
-                    String contact = rs.getString("contact");
-                    String address = rs.getString("address");
-                    LocalDateTime createdAt = rs.getTimestamp("created_at").toLocalDateTime();
-                    
-                    Patient patient = new Patient(id, name, age, birthday, gender, contact, address, createdAt);
-                    patient.email = rs.getString("email");
-                    if ((patient.email == null || patient.email.trim().isEmpty()) && patient.contact != null) {
-                        String[] parts = patient.contact.split("\\|");
-                        for (String part : parts) {
-                            String candidate = part == null ? null : part.trim();
-                            if (candidate != null && hpms.util.Validators.isValidEmail(candidate)) {
-                                patient.email = candidate;
-                                break;
-                            }
-                        }
-                    }
-                    patient.registrationType = rs.getString("registration_type");
-                    patient.isActive = rs.getBoolean("is_active");
-
-                    patient.patientType = rs.getString("patient_type");
-                    if (patient.patientType == null || patient.patientType.trim().isEmpty())
-                        patient.patientType = "OUTPATIENT";
-
-                    patient.allergies = rs.getString("allergies");
-                    patient.medications = rs.getString("medications");
-                    patient.pastMedicalHistory = rs.getString("past_medical_history");
-
-                    try {
-                        double h = rs.getDouble("height_cm");
-                        patient.heightCm = rs.wasNull() ? null : h;
-                    } catch (Exception ignored) {
-                        patient.heightCm = null;
-                    }
-                    try {
-                        double w = rs.getDouble("weight_kg");
-                        patient.weightKg = rs.wasNull() ? null : w;
-                    } catch (Exception ignored) {
-                        patient.weightKg = null;
-                    }
-                    patient.bloodPressure = rs.getString("blood_pressure");
-
-                    patient.xrayFilePath = rs.getString("xray_file_path");
-                    patient.xrayStatus = rs.getString("xray_status");
-                    patient.xraySummary = rs.getString("xray_summary");
-                    patient.stoolFilePath = rs.getString("stool_file_path");
-                    patient.stoolStatus = rs.getString("stool_status");
-                    patient.stoolSummary = rs.getString("stool_summary");
-                    patient.urineFilePath = rs.getString("urine_file_path");
-                    patient.urineStatus = rs.getString("urine_status");
-                    patient.urineSummary = rs.getString("urine_summary");
-                    patient.bloodFilePath = rs.getString("blood_file_path");
-                    patient.bloodStatus = rs.getString("blood_status");
-                    patient.bloodSummary = rs.getString("blood_summary");
-                    
-                    DataStore.patients.put(id, patient);
-                    LogManager.log("patient_db_load " + id);
-                }
-                // Load progress notes after patients exist
-                loadProgressNotesFromDatabase(conn);
-                System.out.println("Loaded " + DataStore.patients.size() + " patients from database");
-            }
+            return readRows(conn, null);
         } catch (SQLException e) {
             System.err.println("Error loading patients from database: " + e.getMessage());
             e.printStackTrace();
@@ -1114,5 +924,168 @@ public class PatientService {
             System.err.println("Unexpected error loading patients: " + e.getMessage());
             e.printStackTrace();
         }
+        return null;
+    }
+
+    /**
+     * Read rows from an open connection; ids == null reads the whole table
+     */
+    static Map<String, Patient> readRows(Connection conn, Collection<String> ids) throws SQLException {
+        String sql = "SELECT id, name, age, gender, contact, address, registration_type, is_active, created_at, "
+                + "email, patient_type, allergies, medications, past_medical_history, "
+                + "height_cm, weight_kg, blood_pressure, "
+                + "xray_file_path, xray_status, xray_summary, "
+                + "stool_file_path, stool_status, stool_summary, "
+                + "urine_file_path, urine_status, urine_summary, "
+                + "blood_file_path, blood_status, blood_summary "
+                + "FROM patients"
+                + (ids == null ? "" : " WHERE id IN (" + DBConnection.placeholders(ids.size()) + ")");
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            if (ids != null) {
+                int k = 1;
+                for (String id : ids)
+                    stmt.setString(k++, id);
+            }
+            ResultSet rs = stmt.executeQuery();
+            Map<String, Patient> loaded = new LinkedHashMap<>();
+            while (rs.next()) {
+                String id = rs.getString("id");
+                String name = rs.getString("name");
+                int age = rs.getInt("age");
+                String birthday = "2000-01-01"; // Default birthday for database-loaded patients
+                // Fix case mismatch: database stores "MALE" but enum has "Male"
+                String genderStr = rs.getString("gender");
+                Gender gender;
+                try {
+                    gender = Gender.valueOf(genderStr);
+                } catch (IllegalArgumentException e) {
+                    // Handle case mismatch (e.g., "MALE" -> "Male")
+                    gender = switch (genderStr.toUpperCase()) {
+                        case "MALE" -> Gender.Male;
+                        case "FEMALE" -> Gender.Female;
+                        case "LGBTQ_PLUS" -> Gender.LGBTQ_PLUS;
+                        case "OTHER" -> Gender.OTHER;
+                        default -> Gender.OTHER;
+                    };
+                }
+                String contact = rs.getString("contact");
+                String address = rs.getString("address");
+                LocalDateTime createdAt = rs.getTimestamp("created_at").toLocalDateTime();
+                
+                Patient patient = new Patient(id, name, age, birthday, gender, contact, address, createdAt);
+                patient.email = rs.getString("email");
+                if ((patient.email == null || patient.email.trim().isEmpty()) && patient.contact != null) {
+                    String[] parts = patient.contact.split("\\|");
+                    for (String part : parts) {
+                        String candidate = part == null ? null : part.trim();
+                        if (candidate != null && hpms.util.Validators.isValidEmail(candidate)) {
+                            patient.email = candidate;
+                            break;
+                        }
+                    }
+                }
+                patient.registrationType = rs.getString("registration_type");
+                patient.isActive = rs.getBoolean("is_active");
+
+                patient.patientType = rs.getString("patient_type");
+                if (patient.patientType == null || patient.patientType.trim().isEmpty())
+                    patient.patientType = "OUTPATIENT";
+                patient.validateCompleteness();
+
+                patient.allergies = rs.getString("allergies");
+                patient.medications = rs.getString("medications");
+                patient.pastMedicalHistory = rs.getString("past_medical_history");
+
+                try {
+                    double h = rs.getDouble("height_cm");
+                    patient.heightCm = rs.wasNull() ? null : h;
+                } catch (Exception ignored) {
+                    patient.heightCm = null;
+                }
+                try {
+                    double w = rs.getDouble("weight_kg");
+                    patient.weightKg = rs.wasNull() ? null : w;
+                } catch (Exception ignored) {
+                    patient.weightKg = null;
+                }
+                patient.bloodPressure = rs.getString("blood_pressure");
+
+                patient.xrayFilePath = rs.getString("xray_file_path");
+                patient.xrayStatus = rs.getString("xray_status");
+                patient.xraySummary = rs.getString("xray_summary");
+                patient.stoolFilePath = rs.getString("stool_file_path");
+                patient.stoolStatus = rs.getString("stool_status");
+                patient.stoolSummary = rs.getString("stool_summary");
+                patient.urineFilePath = rs.getString("urine_file_path");
+                patient.urineStatus = rs.getString("urine_status");
+                patient.urineSummary = rs.getString("urine_summary");
+                patient.bloodFilePath = rs.getString("blood_file_path");
+                patient.bloodStatus = rs.getString("blood_status");
+                patient.bloodSummary = rs.getString("blood_summary");
+                
+                loaded.put(id, patient);
+            }
+            return loaded;
+        }
+    }
+
+    /**
+     * Re-read changed patients together with their progress notes (delta sync)
+     */
+    static Map<String, Patient> fetchChanged(Connection conn, Collection<String> ids) throws SQLException {
+        Map<String, Patient> changed = readRows(conn, ids);
+        loadProgressNotesFromDatabase(conn, changed, true);
+        return changed;
+    }
+
+    /**
+     * Apply patients changed or deleted on another workstation to DataStore
+     */
+    static void merge(Map<String, Patient> changed, Collection<String> deleted) {
+        for (String id : deleted) {
+            DataStore.patients.remove(id);
+            PatientSearchIndex.remove(id);
+            DomainEvents.deleted(DomainEvents.Kind.PATIENT, id);
+        }
+        for (Patient p : changed.values()) {
+            DataStore.patients.put(p.id, p);
+            PatientSearchIndex.index(p);
+            IDGenerator.observe(p.id);
+            notifyClinicalUpdate(p.id);
+        }
+    }
+
+    /**
+     * Attach stored progress notes to freshly loaded (not yet published) patients
+     */
+    static void fetchProgressNotes(Map<String, Patient> patients) {
+        try (Connection conn = DBConnection.getConnection()) {
+            loadProgressNotesFromDatabase(conn, patients);
+        } catch (SQLException e) {
+            System.err.println("Error loading progress notes: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Replace DataStore.patients with freshly loaded rows and sync the patient ID counter
+     */
+    static void publish(Map<String, Patient> loaded) {
+        int maxId = 1000; // Start from default
+        for (String id : loaded.keySet()) {
+            if (id != null && id.startsWith("P")) {
+                try {
+                    maxId = Math.max(maxId, Integer.parseInt(id.substring(1)));
+                } catch (NumberFormatException e) {
+                    // Ignore if ID format is unexpected
+                }
+            }
+        }
+        DataStore.patients.replaceContents(loaded);
+        // Sync pCounter with highest existing ID
+        DataStore.pCounter.set(maxId);
+        PatientSearchIndex.rebuild(loaded.values());
+        DomainEvents.reloaded(DomainEvents.Kind.PATIENT);
+        ActivityLog.record("patient_db_load", "count=" + loaded.size());
+        System.out.println("Loaded " + DataStore.patients.size() + " patients from database");
     }
 }
@@ -9,7 +9,9 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class PatientStatusService {
     public static List<String> setStatus(String patientId, String status, String byStaffId, String note) {
@@ -28,10 +30,9 @@ public class PatientStatusService {
                 || p.isOutpatientPermanent) {
             out.add("Error: Patient record is locked. Once marked as Outpatient or Discharged, status cannot be changed. "
                     + "If returning, please create a new patient record.");
-            LogManager.log("status_change_rejected patient=" + patientId
-                    + " reason=record_locked current_status=" + currentStatus
-                    + " permanent_outpatient=" + p.isOutpatientPermanent
-                    + " attempted_status=" + status.toUpperCase(java.util.Locale.ROOT));
+            LogManager.log("status_change_rejected", "patient=" + patientId, "reason=record_locked",
+                    "current_status=" + currentStatus, "permanent_outpatient=" + p.isOutpatientPermanent,
+                    "attempted_status=" + status.toUpperCase(java.util.Locale.ROOT));
             return out;
         }
 
@@ -53,45 +54,47 @@ public class PatientStatusService {
                     r.status = RoomStatus.VACANT;
                     r.occupantPatientId = null;
                     // Enhanced audit log with previous and new status
-                    LogManager.log("auto_vacate_room " + r.id + " patient_now_outpatient " + patientId
-                            + " previous_status=" + (oldStatus != null ? oldStatus : "UNKNOWN")
-                            + " by_staff=" + (byStaffId != null ? byStaffId : "SYSTEM"));
+                    LogManager.log("auto_vacate_room", r.id, "patient_now_outpatient", patientId,
+                            "previous_status=" + (oldStatus != null ? oldStatus : "UNKNOWN"),
+                            "by_staff=" + (byStaffId != null ? byStaffId : "SYSTEM"));
+                    DomainEvents.updated(DomainEvents.Kind.ROOM, r.id);
                     break;
                 }
             }
         }
 
         DataStore.patientStatus.put(patientId, st);
-        DataStore.statusHistory.computeIfAbsent(patientId, k -> new ArrayList<>())
-                .add(new StatusHistoryEntry(st, LocalDateTime.now(), byStaffId, note));
+        StatusHistoryEntry entry = new StatusHistoryEntry(st, LocalDateTime.now(), byStaffId, note);
+        DataStore.statusHistory.computeIfAbsent(patientId, k -> new ArrayList<>()).add(entry);
         
         // Save to database
-        try (Connection conn = DBConnection.getConnection()) {
-            String insertSql = "INSERT INTO patient_status (patient_id, status, created_at, changed_by, note) VALUES (?, ?, ?, ?, ?)";
-            try (PreparedStatement stmt = conn.prepareStatement(insertSql)) {
-                stmt.setString(1, patientId);
-                stmt.setString(2, st.toString());
-                stmt.setTimestamp(3, java.sql.Timestamp.valueOf(LocalDateTime.now()));
-                stmt.setString(4, byStaffId);
-                stmt.setString(5, note);
-                stmt.executeUpdate();
-            }
-        } catch (Exception e) {
-            System.err.println("Error saving patient status to database: " + e.getMessage());
-            // Continue with in-memory update even if database save fails
-        }
+        saveHistoryToDatabase(java.util.Collections.singletonMap(patientId, java.util.Collections.singletonList(entry)));
         
         // Enhanced audit log with detailed status change information
-        LogManager.log("status_change patient=" + patientId
-                + " from=" + (oldStatus != null ? oldStatus : "NEW")
-                + " to=" + st
-                + " by=" + (byStaffId != null ? byStaffId : "UNKNOWN")
-                + " note=" + (note != null && !note.isEmpty() ? note : "none"));
+        LogManager.log("status_change", "patient=" + patientId, "from=" + (oldStatus != null ? oldStatus : "NEW"),
+                "to=" + st, "by=" + (byStaffId != null ? byStaffId : "UNKNOWN"),
+                "note=" + (note != null && !note.isEmpty() ? note : "none"));
+        DomainEvents.updated(DomainEvents.Kind.STATUS, patientId);
         // Disabled backup save - using database instead
         out.add("Status updated to " + st);
         return out;
     }
 
+    /**
+     * Queue status history rows for any number of patients as one JDBC batch
+     */
+    public static java.util.concurrent.CompletableFuture<Void> saveHistoryToDatabase(Map<String, List<StatusHistoryEntry>> entries) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Map.Entry<String, List<StatusHistoryEntry>> e : entries.entrySet())
+            for (StatusHistoryEntry h : e.getValue())
+                rows.add(new Object[]{e.getKey(), h.status.toString(), java.sql.Timestamp.valueOf(h.at), h.byStaffId, h.note});
+        List<String> keys = new ArrayList<>();
+        for (String id : entries.keySet())
+            keys.add("patient_status:" + id);
+        return WriteBehindQueue.submitBatchFor(keys, null,
+                "INSERT INTO patient_status (patient_id, status, created_at, changed_by, note) VALUES (?, ?, ?, ?, ?)", rows);
+    }
+
     public static PatientStatus getStatus(String patientId) {
         return DataStore.patientStatus.getOrDefault(patientId, PatientStatus.INPATIENT);
     }
@@ -113,38 +116,34 @@ public class PatientStatusService {
      * Load all patient status data from database into DataStore
      */
     public static void loadFromDatabase() {
+        StatusData loaded = fetchFromDatabase();
+        if (loaded != null)
+            publish(loaded);
+    }
+
+    /**
+     * Current status and status history per patient, as read from the database
+     */
+    static class StatusData {
+        final Map<String, PatientStatus> current = new LinkedHashMap<>();
+        final Map<String, List<StatusHistoryEntry>> history = new LinkedHashMap<>();
+        int records;
+    }
+
+    /**
+     * Read patient status rows without touching DataStore.
+     * Returns null when the database is unavailable so existing data is kept.
+     */
+    static StatusData fetchFromDatabase() {
         try (Connection conn = DBConnection.getConnection()) {
             if (conn == null) {
                 System.err.println("Database connection is null - cannot load patient status");
-                return;
+                return null;
             }
             
             System.out.println("Loading patient status data from database...");
             
-            // Load patient status data
-            String statusSql = "SELECT patient_id, status, created_at, changed_by, note FROM patient_status ORDER BY patient_id, created_at";
-            try (PreparedStatement statusStmt = conn.prepareStatement(statusSql)) {
-                ResultSet statusRs = statusStmt.executeQuery();
-                int count = 0;
-                while (statusRs.next()) {
-                    String patientId = statusRs.getString("patient_id");
-                    String statusStr = statusRs.getString("status");
-                    PatientStatus status = PatientStatus.valueOf(statusStr.toUpperCase());
-                    LocalDateTime changedAt = statusRs.getTimestamp("created_at").toLocalDateTime();
-                    String changedBy = statusRs.getString("changed_by");
-                    String note = statusRs.getString("note");
-                    
-                    // Set current status (last entry for each patient)
-                    DataStore.patientStatus.put(patientId, status);
-                    
-                    // Add to history
-                    DataStore.statusHistory.computeIfAbsent(patientId, k -> new ArrayList<>())
-                            .add(new StatusHistoryEntry(status, changedAt, changedBy, note));
-                    count++;
-                }
-                
-                System.out.println("Successfully loaded patient status data for " + DataStore.patientStatus.size() + " patients (" + count + " records) from database");
-            }
+            return readRows(conn, null);
             
         } catch (SQLException e) {
             System.err.println("SQL Error loading patient status data: " + e.getMessage());
@@ -156,5 +155,67 @@ public class PatientStatusService {
             e.printStackTrace();
             System.out.println("Patient status will be managed in-memory only.");
         }
+        return null;
+    }
+
+    /**
+     * Read status rows from an open connection; patientIds == null reads every patient
+     */
+    static StatusData readRows(Connection conn, java.util.Collection<String> patientIds) throws SQLException {
+        // Load patient status data
+        String statusSql = "SELECT patient_id, status, created_at, changed_by, note FROM patient_status"
+                + (patientIds == null ? "" : " WHERE patient_id IN (" + DBConnection.placeholders(patientIds.size()) + ")")
+                + " ORDER BY patient_id, created_at";
+        try (PreparedStatement statusStmt = conn.prepareStatement(statusSql)) {
+            if (patientIds != null) {
+                int k = 1;
+                for (String id : patientIds)
+                    statusStmt.setString(k++, id);
+            }
+            ResultSet statusRs = statusStmt.executeQuery();
+            StatusData loaded = new StatusData();
+            while (statusRs.next()) {
+                String patientId = statusRs.getString("patient_id");
+                String statusStr = statusRs.getString("status");
+                PatientStatus status = PatientStatus.valueOf(statusStr.toUpperCase());
+                LocalDateTime changedAt = statusRs.getTimestamp("created_at").toLocalDateTime();
+                String changedBy = statusRs.getString("changed_by");
+                String note = statusRs.getString("note");
+                
+                // Set current status (last entry for each patient)
+                loaded.current.put(patientId, status);
+                
+                // Add to history
+                loaded.history.computeIfAbsent(patientId, k -> new ArrayList<>())
+                        .add(new StatusHistoryEntry(status, changedAt, changedBy, note));
+                loaded.records++;
+            }
+            return loaded;
+        }
+    }
+
+    /**
+     * Replace the status and history of patients changed on another workstation
+     */
+    static void merge(StatusData changed, java.util.Collection<String> patientIds) {
+        for (String id : patientIds) {
+            List<StatusHistoryEntry> h = changed.history.get(id);
+            if (h == null) {
+                DataStore.patientStatus.remove(id);
+                DataStore.statusHistory.remove(id);
+            } else {
+                DataStore.patientStatus.put(id, changed.current.get(id));
+                DataStore.statusHistory.put(id, h);
+            }
+            DomainEvents.updated(DomainEvents.Kind.STATUS, id);
+        }
+    }
+
+    static void publish(StatusData loaded) {
+        DataStore.patientStatus.putAll(loaded.current);
+        for (Map.Entry<String, List<StatusHistoryEntry>> e : loaded.history.entrySet())
+            DataStore.statusHistory.put(e.getKey(), e.getValue());
+        DomainEvents.reloaded(DomainEvents.Kind.STATUS);
+        System.out.println("Successfully loaded patient status data for " + DataStore.patientStatus.size() + " patients (" + loaded.records + " records) from database");
     }
 }
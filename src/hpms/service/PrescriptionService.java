@@ -34,7 +34,7 @@ public class PrescriptionService {
         p.indication = indication;
         
         DataStore.prescriptions.put(id, p);
-        DataStore.log("prescribe " + id + " to " + patientId);
+        LogManager.log("prescribe", id, "to", patientId);
         out.add("Prescription created " + id);
         return out;
     }
@@ -64,7 +64,7 @@ public class PrescriptionService {
         }
         
         p.isActive = false;
-        DataStore.log("discontinue_prescription " + prescriptionId);
+        LogManager.log("discontinue_prescription", prescriptionId);
         out.add("Prescription discontinued");
         return out;
     }
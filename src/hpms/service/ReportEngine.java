@@ -0,0 +1,360 @@
+package hpms.service;
+
+import hpms.config.DatabaseConfig;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Runs detail reports over the in-memory entity collections on a fork/join
+ * pool, off the event thread.
+ *
+ * The records are split into chunks of REPORT_CHUNK_ROWS. Each chunk is
+ * filtered, formatted and totalled by a RecursiveTask that halves itself
+ * down to small leaves, so one chunk uses every worker. Export keeps at most
+ * two chunks per worker in flight and writes finished chunks to disk in
+ * order, so memory use does not grow with the size of the report.
+ *
+ * Exports go to "&lt;target&gt;.part" and are renamed when complete. A
+ * cancelled or failed export leaves no file behind. XLSX is written directly
+ * as a single-sheet workbook with inline strings, without a spreadsheet
+ * library.
+ */
+public class ReportEngine {
+
+    public enum Format { CSV, XLSX }
+
+    /** Called on the exporting thread with records processed so far */
+    public interface Progress {
+        void update(int done, int total);
+    }
+
+    /** What to report over records of type T */
+    public static final class Definition<T> {
+        final String[] header;
+        final Predicate<T> filter;
+        final Function<T, Object[]> row;
+        final ToDoubleFunction<T> amount;
+
+        /** amount may be null when the report has nothing to sum */
+        public Definition(String[] header, Predicate<T> filter, Function<T, Object[]> row, ToDoubleFunction<T> amount) {
+            this.header = header;
+            this.filter = filter;
+            this.row = row;
+            this.amount = amount;
+        }
+    }
+
+    /** Handle for a running report; cancel() stops it at the next leaf */
+    public static final class Job {
+        private volatile boolean cancelled;
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    /** Rows matched and their summed amount */
+    public static final class Totals {
+        public long rows;
+        public double amount;
+
+        void add(Totals o) {
+            rows += o.rows;
+            amount += o.amount;
+        }
+    }
+
+    /** Rows matched, in record order, with their totals */
+    public static final class Rows {
+        public final List<Object[]> rows;
+        public final Totals totals;
+
+        Rows(List<Object[]> rows, Totals totals) {
+            this.rows = rows;
+            this.totals = totals;
+        }
+    }
+
+    private static final int LEAF = 256;
+
+    private static final ForkJoinPool pool = new ForkJoinPool(
+            DatabaseConfig.REPORT_PARALLELISM > 0 ? DatabaseConfig.REPORT_PARALLELISM
+                    : Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+            p -> {
+                ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                t.setName("hpms-report-" + t.getPoolIndex());
+                t.setDaemon(true);
+                return t;
+            }, null, false);
+
+    /** Total the records matching def in parallel */
+    public static <T> Totals summarize(List<T> records, Definition<T> def, Job job) {
+        Chunk c = pool.invoke(new ChunkTask<>(records, def, job, 0, records.size(), false));
+        if (job != null && job.isCancelled())
+            throw new CancellationException("Report cancelled");
+        return c.totals;
+    }
+
+    /** Build the rows matching def in parallel, for a report shown on screen */
+    public static <T> Rows collect(List<T> records, Definition<T> def, Job job) {
+        Chunk c = pool.invoke(new ChunkTask<>(records, def, job, 0, records.size(), true));
+        if (job != null && job.isCancelled())
+            throw new CancellationException("Report cancelled");
+        return new Rows(c.rows, c.totals);
+    }
+
+    /**
+     * Write every record matching def to target, in record order, and return
+     * the totals. Throws CancellationException if job was cancelled.
+     */
+    public static <T> Totals export(List<T> records, Definition<T> def, Format format, Path target, Job job,
+            Progress progress) throws IOException {
+        Job j = job == null ? new Job() : job;
+        Path part = target.resolveSibling(target.getFileName() + ".part");
+        Totals totals = new Totals();
+        int chunkRows = Math.max(LEAF, DatabaseConfig.REPORT_CHUNK_ROWS);
+        int window = Math.max(2, pool.getParallelism() * 2);
+        int done = 0;
+        ArrayDeque<ForkJoinTask<Chunk>> inFlight = new ArrayDeque<>();
+        boolean complete = false;
+        try (RowWriter out = format == Format.XLSX ? new XlsxWriter(part) : new CsvWriter(part)) {
+            out.write(def.header);
+            int next = 0;
+            while (next < records.size() || !inFlight.isEmpty()) {
+                while (next < records.size() && inFlight.size() < window) {
+                    int end = Math.min(records.size(), next + chunkRows);
+                    inFlight.add(pool.submit(new ChunkTask<>(records, def, j, next, end, true)));
+                    next = end;
+                }
+                Chunk c = join(inFlight.poll());
+                if (j.isCancelled())
+                    throw new CancellationException("Report cancelled");
+                for (Object[] row : c.rows)
+                    out.write(row);
+                totals.add(c.totals);
+                done += c.scanned;
+                if (progress != null)
+                    progress.update(done, records.size());
+            }
+            complete = true;
+        } finally {
+            if (!complete) {
+                j.cancel();
+                for (ForkJoinTask<Chunk> t : inFlight)
+                    t.cancel(false);
+                Files.deleteIfExists(part);
+            }
+        }
+        Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+        return totals;
+    }
+
+    private static Chunk join(ForkJoinTask<Chunk> t) throws IOException {
+        try {
+            return t.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Report interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            throw new IOException("Report failed", cause);
+        }
+    }
+
+    // ---- fork/join ----
+
+    private static final class Chunk {
+        final List<Object[]> rows;
+        final Totals totals = new Totals();
+        int scanned;
+
+        Chunk(List<Object[]> rows) {
+            this.rows = rows;
+        }
+    }
+
+    private static final class ChunkTask<T> extends RecursiveTask<Chunk> {
+        final List<T> records;
+        final Definition<T> def;
+        final Job job;
+        final int lo, hi;
+        final boolean keepRows;
+
+        ChunkTask(List<T> records, Definition<T> def, Job job, int lo, int hi, boolean keepRows) {
+            this.records = records;
+            this.def = def;
+            this.job = job;
+            this.lo = lo;
+            this.hi = hi;
+            this.keepRows = keepRows;
+        }
+
+        @Override
+        protected Chunk compute() {
+            if (job != null && job.isCancelled())
+                return new Chunk(new ArrayList<>());
+            if (hi - lo <= LEAF)
+                return leaf();
+            int mid = (lo + hi) >>> 1;
+            ChunkTask<T> left = new ChunkTask<>(records, def, job, lo, mid, keepRows);
+            left.fork();
+            Chunk right = new ChunkTask<>(records, def, job, mid, hi, keepRows).compute();
+            Chunk merged = left.join();
+            // Left rows first, so a chunk's rows stay in record order
+            if (keepRows)
+                merged.rows.addAll(right.rows);
+            merged.totals.add(right.totals);
+            merged.scanned += right.scanned;
+            return merged;
+        }
+
+        private Chunk leaf() {
+            Chunk c = new Chunk(new ArrayList<>());
+            for (int i = lo; i < hi; i++) {
+                T t = records.get(i);
+                if (t == null || (def.filter != null && !def.filter.test(t)))
+                    continue;
+                c.totals.rows++;
+                if (def.amount != null)
+                    c.totals.amount += def.amount.applyAsDouble(t);
+                if (keepRows)
+                    c.rows.add(def.row.apply(t));
+            }
+            c.scanned = hi - lo;
+            return c;
+        }
+    }
+
+    // ---- writers ----
+
+    private interface RowWriter extends Closeable {
+        void write(Object[] row) throws IOException;
+    }
+
+    private static final class CsvWriter implements RowWriter {
+        private final Writer out;
+
+        CsvWriter(Path p) throws IOException {
+            out = Files.newBufferedWriter(p, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void write(Object[] row) throws IOException {
+            for (int i = 0; i < row.length; i++) {
+                if (i > 0)
+                    out.write(',');
+                String v = row[i] == null ? "" : String.valueOf(row[i]);
+                if (v.indexOf(',') >= 0 || v.indexOf('"') >= 0 || v.indexOf('\n') >= 0 || v.indexOf('\r') >= 0)
+                    v = '"' + v.replace("\"", "\"\"") + '"';
+                out.write(v);
+            }
+            out.write("\r\n");
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /** Minimal Office Open XML workbook: one sheet, numbers as numbers, everything else as inline strings */
+    private static final class XlsxWriter implements RowWriter {
+        private final ZipOutputStream zip;
+        private final Writer out;
+        private int row;
+
+        XlsxWriter(Path p) throws IOException {
+            zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(p)));
+            out = new OutputStreamWriter(zip, StandardCharsets.UTF_8);
+            entry("[Content_Types].xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                    + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+                    + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+                    + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+                    + "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>"
+                    + "<Override PartName=\"/xl/worksheets/sheet1.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>"
+                    + "</Types>");
+            entry("_rels/.rels", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                    + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                    + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"xl/workbook.xml\"/>"
+                    + "</Relationships>");
+            entry("xl/workbook.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                    + "<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" "
+                    + "xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\">"
+                    + "<sheets><sheet name=\"Report\" sheetId=\"1\" r:id=\"rId1\"/></sheets></workbook>");
+            entry("xl/_rels/workbook.xml.rels", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                    + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                    + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" Target=\"worksheets/sheet1.xml\"/>"
+                    + "</Relationships>");
+            zip.putNextEntry(new ZipEntry("xl/worksheets/sheet1.xml"));
+            out.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                    + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>");
+        }
+
+        private void entry(String name, String xml) throws IOException {
+            zip.putNextEntry(new ZipEntry(name));
+            out.write(xml);
+            out.flush();
+            zip.closeEntry();
+        }
+
+        @Override
+        public void write(Object[] cells) throws IOException {
+            row++;
+            out.write("<row r=\"" + row + "\">");
+            for (Object v : cells) {
+                if (v instanceof Number && Double.isFinite(((Number) v).doubleValue())) {
+                    out.write("<c><v>" + v + "</v></c>");
+                } else {
+                    out.write("<c t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+                    out.write(xml(v == null ? "" : String.valueOf(v)));
+                    out.write("</t></is></c>");
+                }
+            }
+            out.write("</row>");
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                out.write("</sheetData></worksheet>");
+                out.flush();
+                zip.closeEntry();
+            } finally {
+                out.close();
+            }
+        }
+
+        private static String xml(String s) {
+            StringBuilder sb = new StringBuilder(s.length() + 8);
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                switch (c) {
+                    case '<': sb.append("&lt;"); break;
+                    case '>': sb.append("&gt;"); break;
+                    case '&': sb.append("&amp;"); break;
+                    case '"': sb.append("&quot;"); break;
+                    default:
+                        // Control characters other than tab and newlines are not allowed in XML
+                        if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r')
+                            sb.append(c);
+                }
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package hpms.service;
 
 import hpms.model.*;
+import hpms.util.ActivityLog;
 import hpms.util.DataStore;
 
 import java.time.LocalDate;
@@ -11,44 +12,44 @@ public class ReportService {
     public static List<String> dailyAppointments() {
         LocalDate today = LocalDate.now();
         List<String> out = new ArrayList<>();
-        for (Appointment a : DataStore.appointments.values())
-            if (a.dateTime.toLocalDate().equals(today))
+        for (String id : StatisticsService.appointmentIdsOn(today)) {
+            Appointment a = DataStore.appointments.get(id);
+            if (a != null)
                 out.add(a.id + " " + a.patientId + " " + a.staffId + " " + a.dateTime.toLocalTime());
+        }
         if (out.isEmpty())
             out.add("No appointments today");
         return out;
     }
 
     public static List<String> activity() {
-        return new ArrayList<>(DataStore.activityLog);
+        List<String> out = new ArrayList<>();
+        for (ActivityLog.Entry e : ActivityLog.since(0))
+            out.add(e.toString());
+        return out;
+    }
+
+    /** Activity logged in [from, to), oldest first; at most limit entries, the newest ones */
+    public static List<ActivityLog.Entry> activity(java.time.LocalDateTime from, java.time.LocalDateTime to, int limit) {
+        java.time.ZoneId zone = java.time.ZoneId.systemDefault();
+        return ActivityLog.query(from.atZone(zone).toInstant().toEpochMilli(), to.atZone(zone).toInstant().toEpochMilli(),
+                limit);
     }
 
     public static List<String> billingOverviewDaily() {
         java.time.LocalDate today = java.time.LocalDate.now();
         List<String> out = new ArrayList<>();
-        double total = 0;
-        int paid = 0, pending = 0;
-        for (Bill b : DataStore.bills.values()) {
-            if (b.updatedAt != null && b.updatedAt.toLocalDate().equals(today)) {
-                total += b.total;
-                if (b.paid)
-                    paid++;
-                else
-                    pending++;
-            }
-        }
-        out.add("Total: " + String.format(java.util.Locale.US, "%.2f", total));
-        out.add("Paid: " + paid);
-        out.add("Pending: " + pending);
+        StatisticsService.BillTotals paid = StatisticsService.bills(today, null, true);
+        StatisticsService.BillTotals pending = StatisticsService.bills(today, null, false);
+        out.add("Total: " + String.format(java.util.Locale.US, "%.2f", paid.amount + pending.amount));
+        out.add("Paid: " + paid.count);
+        out.add("Pending: " + pending.count);
         return out;
     }
 
     public static List<String> appointmentSummary() {
         List<String> out = new ArrayList<>();
-        java.util.Map<String, Long> byDept = new java.util.LinkedHashMap<>();
-        for (Appointment a : DataStore.appointments.values())
-            byDept.put(a.department, byDept.getOrDefault(a.department, 0L) + 1);
-        for (java.util.Map.Entry<String, Long> e : byDept.entrySet())
+        for (java.util.Map.Entry<String, Integer> e : StatisticsService.appointmentsByDepartment().entrySet())
             out.add(e.getKey() + ": " + e.getValue());
         if (out.isEmpty())
             out.add("No appointments");
@@ -66,6 +67,92 @@ public class ReportService {
         return out;
     }
 
+    /** Bills created in [from, to): one row per bill; the amount is the bill total */
+    public static ReportEngine.Definition<Bill> billDetail(LocalDate from, LocalDate to) {
+        return new ReportEngine.Definition<>(
+                new String[] { "Bill ID", "Patient ID", "Patient", "Created", "Updated", "Total", "Paid", "Method", "Items" },
+                b -> b.createdAt != null && !b.createdAt.toLocalDate().isBefore(from) && b.createdAt.toLocalDate().isBefore(to),
+                b -> {
+                    Patient p = DataStore.patients.get(b.patientId);
+                    return new Object[] { b.id, b.patientId, p != null ? p.name : "Unknown", b.createdAt,
+                            b.updatedAt, b.total, b.paid ? "YES" : "NO",
+                            b.paymentMethod != null ? b.paymentMethod.name() : "", b.items.size() };
+                },
+                b -> b.total);
+    }
+
+    /** Appointments in [from, to): one row per appointment */
+    public static ReportEngine.Definition<Appointment> appointmentDetail(LocalDate from, LocalDate to) {
+        return new ReportEngine.Definition<>(
+                new String[] { "Appointment ID", "Date", "Time", "Patient ID", "Patient", "Staff ID", "Doctor",
+                        "Department", "Type", "Completed" },
+                a -> a.dateTime != null && !a.dateTime.toLocalDate().isBefore(from) && a.dateTime.toLocalDate().isBefore(to),
+                a -> {
+                    Patient p = DataStore.patients.get(a.patientId);
+                    Staff s = DataStore.staff.get(a.staffId);
+                    return new Object[] { a.id, a.dateTime.toLocalDate(), a.dateTime.toLocalTime(), a.patientId,
+                            p != null ? p.name : "Unknown", a.staffId, s != null ? s.name : "Unknown", a.department,
+                            a.consultationType, a.isCompleted ? "YES" : "NO" };
+                },
+                null);
+    }
+
+    /** Stream the bill detail report for [from, to) to target; see ReportEngine.export */
+    public static ReportEngine.Totals exportBills(LocalDate from, LocalDate to, ReportEngine.Format format,
+            java.nio.file.Path target, ReportEngine.Job job, ReportEngine.Progress progress) throws java.io.IOException {
+        return ReportEngine.export(DataStore.bills.snapshotValues(), billDetail(from, to), format, target, job, progress);
+    }
+
+    /** Stream the appointment detail report for [from, to) to target; see ReportEngine.export */
+    public static ReportEngine.Totals exportAppointments(LocalDate from, LocalDate to, ReportEngine.Format format,
+            java.nio.file.Path target, ReportEngine.Job job, ReportEngine.Progress progress) throws java.io.IOException {
+        return ReportEngine.export(DataStore.appointments.snapshotValues(), appointmentDetail(from, to), format, target,
+                job, progress);
+    }
+
+    /** Number and total of the bills created in [from, to), counted in parallel */
+    public static ReportEngine.Totals billingTotals(LocalDate from, LocalDate to) {
+        return ReportEngine.summarize(DataStore.bills.snapshotValues(), billDetail(from, to), null);
+    }
+
+    /** Every appointment as shown in the Reports panel */
+    public static ReportEngine.Rows appointmentTable(ReportEngine.Job job) {
+        return ReportEngine.collect(DataStore.appointments.snapshotValues(), new ReportEngine.Definition<Appointment>(
+                new String[] { "ID", "Patient", "Doctor", "Date", "Time", "Status" },
+                a -> a.dateTime != null,
+                a -> {
+                    Patient p = DataStore.patients.get(a.patientId);
+                    Staff s = DataStore.staff.get(a.staffId);
+                    return new Object[] { a.id, p != null ? p.name : "Unknown", s != null ? s.name : "Unknown",
+                            a.dateTime.toLocalDate(), a.dateTime.toLocalTime(), "Scheduled" };
+                },
+                null), job);
+    }
+
+    /** Every bill as shown in the Reports panel; the amount is the bill total */
+    public static ReportEngine.Rows billingTable(ReportEngine.Job job) {
+        return ReportEngine.collect(DataStore.bills.snapshotValues(), new ReportEngine.Definition<Bill>(
+                new String[] { "Bill ID", "Patient", "Amount", "Paid", "Status", "Date" },
+                null,
+                b -> {
+                    Patient p = DataStore.patients.get(b.patientId);
+                    String amount = "$" + String.format("%.2f", b.total);
+                    return new Object[] { b.id, p != null ? p.name : "Unknown", amount, b.paid ? amount : "$0.00",
+                            b.paid ? "PAID" : "PENDING",
+                            b.createdAt != null ? b.createdAt.toLocalDate().toString() : "Unknown" };
+                },
+                b -> b.total), job);
+    }
+
+    /** Deactivated patients as shown in the Reports panel */
+    public static ReportEngine.Rows deactivatedPatients(ReportEngine.Job job) {
+        return ReportEngine.collect(DataStore.patients.snapshotValues(), new ReportEngine.Definition<Patient>(
+                new String[] { "Patient ID", "Name", "Age", "Contact", "Patient Type" },
+                p -> !p.isActive,
+                p -> new Object[] { p.id, p.name, p.age, p.contact, p.patientType },
+                null), job);
+    }
+
     public static List<String> medicineStockSummary() {
         return hpms.service.InventoryService.summary();
     }
@@ -25,15 +25,15 @@ public class RoomService {
             String message = "Error: Only inpatients can be assigned to rooms. Current status: " + status;
             out.add(message);
             // Audit log the failed attempt
-            LogManager.log("assign_room_rejected patient=" + patientId + " room=" + roomId
-                    + " reason=wrong_status current_status=" + status);
+            LogManager.log("assign_room_rejected", "patient=" + patientId, "room=" + roomId, "reason=wrong_status",
+                    "current_status=" + status);
             return out;
         }
         // Check if room is occupied by a different patient
         if (r.occupantPatientId != null && !r.occupantPatientId.equals(patientId)) {
             out.add("Error: Room is already occupied by another patient");
-            LogManager.log("assign_room_rejected patient=" + patientId + " room=" + roomId
-                    + " reason=room_occupied_by_different_patient occupant=" + r.occupantPatientId);
+            LogManager.log("assign_room_rejected", "patient=" + patientId, "room=" + roomId,
+                    "reason=room_occupied_by_different_patient", "occupant=" + r.occupantPatientId);
             return out;
         }
 
@@ -41,8 +41,8 @@ public class RoomService {
         for (Room room : DataStore.rooms.values()) {
             if (room.occupantPatientId != null && room.occupantPatientId.equals(patientId) && !room.id.equals(roomId)) {
                 out.add("Error: Patient is already assigned to another room (" + room.id + ")");
-                LogManager.log("assign_room_rejected patient=" + patientId + " room=" + roomId
-                        + " reason=patient_already_has_room existing_room=" + room.id);
+                LogManager.log("assign_room_rejected", "patient=" + patientId, "room=" + roomId,
+                        "reason=patient_already_has_room", "existing_room=" + room.id);
                 return out;
             }
         }
@@ -50,9 +50,9 @@ public class RoomService {
         r.status = RoomStatus.OCCUPIED;
         r.occupantPatientId = patientId;
         // Enhanced audit log with more details
-        LogManager.log("assign_room room=" + roomId + " patient=" + patientId
-                + " patient_name=" + (p != null ? p.name : "unknown")
-                + " status=" + status);
+        LogManager.log("assign_room", "room=" + roomId, "patient=" + patientId,
+                "patient_name=" + (p != null ? p.name : "unknown"), "status=" + status);
+        DomainEvents.updated(DomainEvents.Kind.ROOM, roomId);
         // Disabled backup save - using database instead
         out.add("Room assigned");
         
@@ -74,8 +74,9 @@ public class RoomService {
         r.status = RoomStatus.VACANT;
         r.occupantPatientId = null;
         // Enhanced audit log
-        LogManager.log("vacate_room room=" + roomId
-                + " previous_occupant=" + (previousOccupant != null ? previousOccupant : "none"));
+        LogManager.log("vacate_room", "room=" + roomId,
+                "previous_occupant=" + (previousOccupant != null ? previousOccupant : "none"));
+        DomainEvents.updated(DomainEvents.Kind.ROOM, roomId);
         // Disabled backup save - using database instead
         out.add("Room vacated");
         
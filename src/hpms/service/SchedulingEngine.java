@@ -0,0 +1,146 @@
+package hpms.service;
+
+import hpms.model.*;
+import hpms.util.*;
+
+import java.time.*;
+import java.util.*;
+
+/**
+ * Free-slot search over the per-staff interval trees kept by
+ * DataStore.appointments. Working hours come from Staff.clinicSchedule (or a
+ * Monday-Friday 08:00-17:00 default when no schedule is defined), days covered
+ * by an approved leave request are skipped, and each candidate is checked in
+ * O(log n) so a search stays well under a millisecond.
+ */
+public class SchedulingEngine {
+    /** Granularity of suggested start times */
+    public static final int GRID_MINUTES = 15;
+    /** How far ahead a search looks before giving up */
+    public static final int HORIZON_DAYS = 60;
+
+    private static final LocalTime DEFAULT_START = LocalTime.of(8, 0);
+    private static final LocalTime DEFAULT_END = LocalTime.of(17, 0);
+
+    public static class FreeSlot {
+        public final String staffId;
+        public final LocalDateTime start;
+        public final LocalDateTime end;
+
+        public FreeSlot(String staffId, LocalDateTime start, LocalDateTime end) {
+            this.staffId = staffId;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public String toString() {
+            return staffId + " " + start + "-" + end.toLocalTime();
+        }
+    }
+
+    /**
+     * Next count free, non-overlapping slots for one staff member starting no
+     * earlier than from (or now, whichever is later)
+     */
+    public static List<FreeSlot> nextFreeSlots(String staffId, LocalDateTime from, ConsultationType type, int count) {
+        List<FreeSlot> out = new ArrayList<>();
+        Staff s = DataStore.staff.get(staffId);
+        if (s == null || count <= 0)
+            return out;
+        Duration length = type == null ? Appointment.DEFAULT_DURATION : type.duration();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cursor = roundUp(from == null || from.isBefore(now) ? now : from);
+        List<LeaveRequest> leave = approvedLeave(staffId);
+        LocalDate last = cursor.toLocalDate().plusDays(HORIZON_DAYS);
+        for (LocalDate day = cursor.toLocalDate(); !day.isAfter(last) && out.size() < count; day = day.plusDays(1)) {
+            LocalTime[] window = workingWindow(s, day);
+            if (window == null || onLeave(leave, day))
+                continue;
+            LocalDateTime t = day.atTime(window[0]);
+            if (t.isBefore(cursor))
+                t = cursor;
+            LocalDateTime close = day.atTime(window[1]);
+            while (out.size() < count && !t.plus(length).isAfter(close)) {
+                LocalDateTime busy = DataStore.appointments.busyUntil(staffId, t, t.plus(length), null);
+                if (busy == null) {
+                    out.add(new FreeSlot(staffId, t, t.plus(length)));
+                    t = t.plus(length);
+                } else {
+                    t = roundUp(busy);
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Earliest count free slots across the active doctors of a department
+     */
+    public static List<FreeSlot> nextFreeSlotsInDepartment(String department, LocalDateTime from, ConsultationType type, int count) {
+        PriorityQueue<FreeSlot> merged = new PriorityQueue<>(
+                Comparator.comparing((FreeSlot f) -> f.start).thenComparing(f -> f.staffId));
+        for (Staff s : DataStore.staff.values()) {
+            if (s.role != StaffRole.DOCTOR || !s.isActive || s.department == null || !s.department.equalsIgnoreCase(department))
+                continue;
+            merged.addAll(nextFreeSlots(s.id, from, type, count));
+        }
+        List<FreeSlot> out = new ArrayList<>();
+        while (out.size() < count && !merged.isEmpty())
+            out.add(merged.poll());
+        return out;
+    }
+
+    /**
+     * True when the staff member has an approved leave request covering the day
+     */
+    public static boolean isOnLeave(String staffId, LocalDate day) {
+        return onLeave(approvedLeave(staffId), day);
+    }
+
+    /**
+     * Working hours for the day as {start, end}, or null when the staff member
+     * does not work that day
+     */
+    public static LocalTime[] workingWindow(Staff s, LocalDate day) {
+        boolean weekday = day.getDayOfWeek() != DayOfWeek.SATURDAY && day.getDayOfWeek() != DayOfWeek.SUNDAY;
+        if (s.clinicSchedule == null || s.clinicSchedule.isEmpty() || s.isScheduleExpired())
+            return weekday ? new LocalTime[]{DEFAULT_START, DEFAULT_END} : null;
+        if (s.scheduleStartDate != null && day.isBefore(s.scheduleStartDate.toLocalDate()))
+            return weekday ? new LocalTime[]{DEFAULT_START, DEFAULT_END} : null;
+        String name = day.getDayOfWeek().getDisplayName(java.time.format.TextStyle.FULL, Locale.ENGLISH);
+        Staff.ScheduleEntry e = s.clinicSchedule.get(name);
+        if (e == null || !e.active)
+            return null;
+        try {
+            LocalTime start = LocalTime.parse(e.startTime.trim());
+            LocalTime end = LocalTime.parse(e.endTime.trim());
+            return start.isBefore(end) ? new LocalTime[]{start, end} : null;
+        } catch (Exception ex) {
+            return null;
+        }
+    }
+
+    private static List<LeaveRequest> approvedLeave(String staffId) {
+        List<LeaveRequest> out = new ArrayList<>();
+        for (LeaveRequest r : DataStore.leaveRequests.values())
+            if (r.status == LeaveRequest.LeaveStatus.APPROVED && staffId.equals(r.staffId) && r.startDate != null && r.endDate != null)
+                out.add(r);
+        return out;
+    }
+
+    private static boolean onLeave(List<LeaveRequest> leave, LocalDate day) {
+        for (LeaveRequest r : leave)
+            if (!day.isBefore(r.startDate) && !day.isAfter(r.endDate))
+                return true;
+        return false;
+    }
+
+    private static LocalDateTime roundUp(LocalDateTime t) {
+        LocalDateTime base = t.withSecond(0).withNano(0);
+        if (base.isBefore(t))
+            base = base.plusMinutes(1);
+        int rem = base.getMinute() % GRID_MINUTES;
+        return rem == 0 ? base : base.plusMinutes(GRID_MINUTES - rem);
+    }
+}
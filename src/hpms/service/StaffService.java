@@ -11,40 +11,6 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 
 public class StaffService {
-    private static void ensureStaffPhotoPathColumn(Connection conn) {
-        if (conn == null) return;
-        try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE staff ADD COLUMN photo_path VARCHAR(255)")) {
-            stmt.executeUpdate();
-        } catch (SQLException e) {
-            // Column likely already exists or cannot be added; ignore to avoid breaking startup.
-        }
-    }
-
-     private static void ensureStaffExtendedProfileColumns(Connection conn) {
-         if (conn == null) return;
-         ensureStaffPhotoPathColumn(conn);
-         try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE staff ADD COLUMN certifications TEXT")) {
-             stmt.executeUpdate();
-         } catch (SQLException e) {
-         }
-         try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE staff ADD COLUMN education TEXT")) {
-             stmt.executeUpdate();
-         } catch (SQLException e) {
-         }
-         try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE staff ADD COLUMN expertise TEXT")) {
-             stmt.executeUpdate();
-         } catch (SQLException e) {
-         }
-         try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE staff ADD COLUMN skills TEXT")) {
-             stmt.executeUpdate();
-         } catch (SQLException e) {
-         }
-         try (PreparedStatement stmt = conn.prepareStatement("ALTER TABLE staff ADD COLUMN competencies TEXT")) {
-             stmt.executeUpdate();
-         } catch (SQLException e) {
-         }
-     }
-
     public static List<String> add(String name, String role, String department) {
         return add(name, role, department, null, null, null, null, null, null);
     }
@@ -124,7 +90,8 @@ public class StaffService {
         }
 
         DataStore.staff.put(id, s);
-        LogManager.log("add_staff " + id);
+        LogManager.log("add_staff", id);
+        DomainEvents.created(DomainEvents.Kind.STAFF, id);
         
         // Also save to database
         boolean dbSaveSuccess = saveToDatabase(s);
@@ -137,14 +104,14 @@ public class StaffService {
         return out;
     }
 
-    private static boolean isValidEmail(String email) {
+    static boolean isValidEmail(String email) {
         if (email == null)
             return false;
         // Simple, permissive pattern — sufficient for basic validation
         return email.matches("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$");
     }
 
-    private static boolean isValidPhone(String phone) {
+    static boolean isValidPhone(String phone) {
         if (phone == null)
             return false;
         String p = phone.trim();
@@ -173,6 +140,7 @@ public class StaffService {
             if (id.equals(a.staffId) && !a.isCompleted && a.dateTime.isAfter(now.minusHours(1))) {
                 affected++;
                 a.notes = (a.notes == null ? "" : "[Doctor unavailable] ") + "Doctor deactivated; please reschedule";
+                DomainEvents.updated(DomainEvents.Kind.APPOINTMENT, a.id);
                 try {
                     CommunicationService.addAlert(a.patientId, "Your doctor (" + (s.name == null ? id : s.name)
                             + ") is currently unavailable. Please choose another doctor.");
@@ -181,7 +149,13 @@ public class StaffService {
             }
         }
 
-        LogManager.log("deactivate_staff " + id + " affected_appts=" + affected);
+        // The staff member's account (username = staff id) must not stay signed in
+        if (!hpms.auth.AuthServiceDB.setStatus(id, "DEACTIVATED")) {
+            System.err.println("Warning: Staff deactivated in DataStore but failed to update the account in database");
+            hpms.auth.SessionRegistry.closeUser(id);
+        }
+        LogManager.log("deactivate_staff", id, "affected_appts=" + affected);
+        DomainEvents.updated(DomainEvents.Kind.STAFF, id);
         // Disabled backup save - using database instead
         out.add("Staff deactivated " + id
                 + (affected > 0 ? (" — notified patients for " + affected + " appointment(s)") : ""));
@@ -200,6 +174,11 @@ public class StaffService {
             return out;
         }
         s.isAvailable = true;
+        s.isActive = true;
+        s.status = "Active";
+        if (!hpms.auth.AuthServiceDB.setStatus(id, "ACTIVE"))
+            System.err.println("Warning: Staff reactivated in DataStore but failed to update the account in database");
+        DomainEvents.updated(DomainEvents.Kind.STAFF, id);
         // Disabled backup save - using database instead
         out.add("Staff reactivated " + id);
         return out;
@@ -241,7 +220,8 @@ public class StaffService {
         }
         
         // Log the update
-        LogManager.log("staff_updated " + staff.id + " name=" + staff.name + " role=" + staff.role);
+        LogManager.log("staff_updated", staff.id, "name=" + staff.name, "role=" + staff.role);
+        DomainEvents.updated(DomainEvents.Kind.STAFF, staff.id);
         
         out.add("Staff updated successfully: " + staff.id);
         return out;
@@ -254,8 +234,6 @@ public class StaffService {
                 return false;
             }
 
-            ensureStaffExtendedProfileColumns(conn);
-
             String sql = "UPDATE staff SET name = ?, role = ?, department = ?, phone = ?, email = ?, license_number = ?, specialty = ?, qualifications = ?, certifications = ?, education = ?, expertise = ?, skills = ?, competencies = ?, status = ?, photo_path = ? WHERE id = ?";
             try (PreparedStatement stmt = conn.prepareStatement(sql)) {
                 stmt.setString(1, staff.name);
@@ -296,8 +274,6 @@ public class StaffService {
                 return false;
             }
 
-            ensureStaffExtendedProfileColumns(conn);
-
             String sql = "INSERT INTO staff (id, name, role, department, phone, email, license_number, specialty, qualifications, certifications, education, expertise, skills, competencies, status, created_at, photo_path) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
             try (PreparedStatement stmt = conn.prepareStatement(sql)) {
                 stmt.setString(1, staff.id);
@@ -318,7 +294,7 @@ public class StaffService {
                 stmt.setTimestamp(16, java.sql.Timestamp.valueOf(staff.createdAt != null ? staff.createdAt : java.time.LocalDateTime.now()));
                 stmt.setString(17, staff.photoPath);
                 stmt.executeUpdate();
-                LogManager.log("staff_db_save " + staff.id);
+                LogManager.log("staff_db_save", staff.id);
                 return true;
             }
         } catch (SQLException e) {
@@ -340,7 +316,8 @@ public class StaffService {
             if (staff.isScheduleExpired()) {
                 staff.clearExpiredSchedule();
                 clearedCount++;
-                LogManager.log("schedule_expired " + staff.id + " - cleared expired schedule");
+                LogManager.log("schedule_expired", staff.id, "cleared_schedule");
+                DomainEvents.updated(DomainEvents.Kind.STAFF, staff.id);
             }
         }
         // Disabled backup saving - using database instead
@@ -357,7 +334,8 @@ public class StaffService {
         Staff staff = DataStore.staff.get(staffId);
         if (staff != null && staff.isScheduleExpired()) {
             staff.clearExpiredSchedule();
-            LogManager.log("schedule_expired " + staffId + " - cleared expired schedule");
+            LogManager.log("schedule_expired", staffId, "cleared_schedule");
+            DomainEvents.updated(DomainEvents.Kind.STAFF, staffId);
             // Disabled backup saving - using database instead
             return true;
         }
@@ -369,69 +347,123 @@ public class StaffService {
      * Load all staff from database into DataStore
      */
     public static void loadFromDatabase() {
+        Map<String, Staff> loaded = fetchFromDatabase();
+        if (loaded != null)
+            publish(loaded);
+    }
+
+    /**
+     * Read all staff rows without touching DataStore.
+     * Returns null when the database is unavailable so existing data is kept.
+     */
+    static Map<String, Staff> fetchFromDatabase() {
         try (Connection conn = DBConnection.getConnection()) {
             if (conn == null) {
                 System.err.println("Database connection is null - cannot load staff");
-                return;
+                return null;
             }
 
-            ensureStaffExtendedProfileColumns(conn);
+            return readRows(conn, null);
+        } catch (SQLException e) {
+            System.err.println("Failed to load staff from database: " + e.getMessage());
+            e.printStackTrace();
+            return null;
+        }
+    }
 
-            String sql = "SELECT id, name, role, department, phone, email, license_number, specialty, qualifications, certifications, education, expertise, skills, competencies, status, created_at, photo_path FROM staff";
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                ResultSet rs = stmt.executeQuery();
-                DataStore.staff.clear();
-                int maxStaffId = 2000;
-
-                while (rs.next()) {
-                    Staff staff = new Staff();
-                    staff.id = rs.getString("id");
-                    staff.name = rs.getString("name");
-                    try {
-                        staff.role = StaffRole.valueOf(rs.getString("role"));
-                    } catch (Exception e) {
-                        staff.role = null;
-                    }
-                    staff.department = rs.getString("department");
-                    staff.phone = rs.getString("phone");
-                    staff.email = rs.getString("email");
-                    staff.licenseNumber = rs.getString("license_number");
-                    staff.specialty = rs.getString("specialty");
-                    staff.qualifications = rs.getString("qualifications");
-                    staff.certifications = rs.getString("certifications");
-                    staff.education = rs.getString("education");
-                    staff.expertise = rs.getString("expertise");
-                    staff.skills = rs.getString("skills");
-                    staff.competencies = rs.getString("competencies");
-                    staff.isActive = "Active".equals(rs.getString("status"));
-
-                    java.sql.Timestamp ts = rs.getTimestamp("created_at");
-                    staff.createdAt = ts != null ? ts.toLocalDateTime() : java.time.LocalDateTime.now();
-
-                    staff.photoPath = rs.getString("photo_path");
-
-                    DataStore.staff.put(staff.id, staff);
-
-                    if (staff.id != null && staff.id.startsWith("S")) {
-                        try {
-                            int idNum = Integer.parseInt(staff.id.substring(1));
-                            if (idNum > maxStaffId) {
-                                maxStaffId = idNum;
-                            }
-                        } catch (NumberFormatException e) {
-                            // Skip invalid IDs
-                        }
-                    }
+    /**
+     * Read rows from an open connection; ids == null reads the whole table
+     */
+    static Map<String, Staff> readRows(Connection conn, Collection<String> ids) throws SQLException {
+        String sql = "SELECT id, name, role, department, phone, email, license_number, specialty, qualifications, certifications, education, expertise, skills, competencies, status, created_at, photo_path FROM staff"
+                + (ids == null ? "" : " WHERE id IN (" + DBConnection.placeholders(ids.size()) + ")");
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            if (ids != null) {
+                int k = 1;
+                for (String id : ids)
+                    stmt.setString(k++, id);
+            }
+            ResultSet rs = stmt.executeQuery();
+            Map<String, Staff> loaded = new LinkedHashMap<>();
+
+            while (rs.next()) {
+                Staff staff = new Staff();
+                staff.id = rs.getString("id");
+                staff.name = rs.getString("name");
+                try {
+                    staff.role = StaffRole.valueOf(rs.getString("role"));
+                } catch (Exception e) {
+                    staff.role = null;
                 }
+                staff.department = rs.getString("department");
+                staff.phone = rs.getString("phone");
+                staff.email = rs.getString("email");
+                staff.licenseNumber = rs.getString("license_number");
+                staff.specialty = rs.getString("specialty");
+                staff.qualifications = rs.getString("qualifications");
+                staff.certifications = rs.getString("certifications");
+                staff.education = rs.getString("education");
+                staff.expertise = rs.getString("expertise");
+                staff.skills = rs.getString("skills");
+                staff.competencies = rs.getString("competencies");
+                staff.isActive = "Active".equals(rs.getString("status"));
+
+                java.sql.Timestamp ts = rs.getTimestamp("created_at");
+                staff.createdAt = ts != null ? ts.toLocalDateTime() : java.time.LocalDateTime.now();
+
+                staff.photoPath = rs.getString("photo_path");
+
+                loaded.put(staff.id, staff);
+            }
+            return loaded;
+        }
+    }
 
-                DataStore.sCounter.set(maxStaffId);
-                System.err.println("DEBUG: Staff loading complete. Max staff ID found: " + maxStaffId + ", counter set to: " + DataStore.sCounter.get());
-                LogManager.log("staff_db_load " + DataStore.staff.size() + " staff loaded, counter updated to " + maxStaffId);
+    /**
+     * Apply staff changed or deleted on another workstation to DataStore.
+     * Clinic schedules are not stored in the database, so the local one is kept.
+     */
+    static void merge(Map<String, Staff> changed, Collection<String> deleted) {
+        for (String id : deleted) {
+            DataStore.staff.remove(id);
+            DomainEvents.deleted(DomainEvents.Kind.STAFF, id);
+        }
+        for (Staff s : changed.values()) {
+            Staff old = DataStore.staff.get(s.id);
+            if (old != null) {
+                s.clinicSchedule = old.clinicSchedule;
+                s.clinicSchedule_str = old.clinicSchedule_str;
+                s.scheduleStartDate = old.scheduleStartDate;
+                s.scheduleEndDate = old.scheduleEndDate;
+            }
+            DataStore.staff.put(s.id, s);
+            IDGenerator.observe(s.id);
+            DomainEvents.publish(DomainEvents.Kind.STAFF, old == null ? DomainEvents.Op.CREATED : DomainEvents.Op.UPDATED, s.id);
+        }
+    }
+
+    /**
+     * Replace DataStore.staff with freshly loaded rows and sync the staff ID counter
+     */
+    static void publish(Map<String, Staff> loaded) {
+        int maxStaffId = 2000;
+        for (String id : loaded.keySet()) {
+            if (id != null && id.startsWith("S")) {
+                try {
+                    int idNum = Integer.parseInt(id.substring(1));
+                    if (idNum > maxStaffId) {
+                        maxStaffId = idNum;
+                    }
+                } catch (NumberFormatException e) {
+                    // Skip invalid IDs
+                }
             }
-        } catch (SQLException e) {
-            System.err.println("Failed to load staff from database: " + e.getMessage());
-            e.printStackTrace();
         }
+        DataStore.staff.replaceContents(loaded);
+        DataStore.sCounter.set(maxStaffId);
+        DomainEvents.reloaded(DomainEvents.Kind.STAFF);
+        System.err.println("DEBUG: Staff loading complete. Max staff ID found: " + maxStaffId + ", counter set to: " + DataStore.sCounter.get());
+        LogManager.log("staff_db_load", "staff=" + DataStore.staff.size(), "counter=" + maxStaffId);
     }
 
  }
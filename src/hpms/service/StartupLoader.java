@@ -0,0 +1,216 @@
+package hpms.service;
+
+import hpms.model.*;
+import hpms.util.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.swing.SwingUtilities;
+
+/**
+ * Loads the startup data set from the database as a small dependency graph.
+ * Independent tables (staff, patients, appointments, bills, status) are read in
+ * parallel; progress notes and staff notes/alerts wait for patients. Nothing is
+ * written to DataStore until every stage has finished, then all results are
+ * published together on the Swing event thread.
+ *
+ * When a DataSnapshot that change_log can still bring current is on disk, it
+ * is published instead of the table reads and DeltaSync catches up from the
+ * snapshot's mark.
+ */
+public class StartupLoader {
+
+    public interface ProgressListener {
+        /** Called from a loader thread each time a stage finishes */
+        void stageCompleted(StageTiming stage, int completed, int total);
+    }
+
+    public static class StageTiming {
+        public final String name;
+        public final long millis;
+        public final boolean loaded;
+
+        public StageTiming(String name, long millis, boolean loaded) {
+            this.name = name;
+            this.millis = millis;
+            this.loaded = loaded;
+        }
+
+        @Override
+        public String toString() {
+            return name + "=" + millis + "ms" + (loaded ? "" : " (skipped)");
+        }
+    }
+
+    private static final int LOADER_THREADS = 4;
+
+    /**
+     * Run all stages in the background. The returned future completes after
+     * the results have been published into DataStore on the event thread.
+     */
+    public static CompletableFuture<List<StageTiming>> loadAsync(ProgressListener listener) {
+        return loadAsync(listener, true);
+    }
+
+    /**
+     * As {@link #loadAsync(ProgressListener)}; with useSnapshot false every
+     * table is read from the database even when a snapshot could be used
+     */
+    public static CompletableFuture<List<StageTiming>> loadAsync(ProgressListener listener, boolean useSnapshot) {
+        AtomicReference<Map<String, Patient>> patients = new AtomicReference<>();
+        AtomicReference<DataSnapshot.Contents> warm = new AtomicReference<>();
+        List<Stage> stages = new ArrayList<>();
+        Stage snapshot = stage(stages, "snapshot", () -> {
+            DataSnapshot.Contents c = useSnapshot ? DataSnapshot.readIfResumable() : null;
+            warm.set(c);
+            return c == null ? null : c::publish;
+        });
+        // Read the change_log mark before any table so changes made during the load are replayed
+        Stage syncMark = stage(stages, "sync_mark", () -> {
+            DataSnapshot.Contents c = warm.get();
+            long mark = c != null ? c.changeLogMark : DeltaSync.readHighWaterMark();
+            return () -> DeltaSync.start(mark);
+        }, snapshot);
+        stage(stages, "staff", unlessWarm(warm, () -> {
+            Map<String, Staff> m = StaffService.fetchFromDatabase();
+            return m == null ? null : () -> {
+                DeltaSync.keepLocalEdits(DomainEvents.Kind.STAFF, m, DataStore.staff::get);
+                StaffService.publish(m);
+            };
+        }), syncMark);
+        Stage patientRows = stage(stages, "patients", unlessWarm(warm, () -> {
+            Map<String, Patient> m = PatientService.fetchFromDatabase();
+            patients.set(m);
+            return m == null ? null : () -> {
+                DeltaSync.keepLocalEdits(DomainEvents.Kind.PATIENT, m, DataStore.patients::get);
+                PatientService.publish(m);
+            };
+        }), syncMark);
+        stage(stages, "progress_notes", () -> {
+            Map<String, Patient> m = patients.get();
+            if (m == null)
+                return null;
+            PatientService.fetchProgressNotes(m);
+            return () -> { };
+        }, patientRows);
+        stage(stages, "notes_alerts", () -> {
+            CommunicationService.NotesAndAlerts n = CommunicationService.fetchNotesAndAlerts();
+            return n == null ? null : () -> CommunicationService.publish(n);
+        }, patientRows);
+        stage(stages, "patient_status", unlessWarm(warm, () -> {
+            PatientStatusService.StatusData d = PatientStatusService.fetchFromDatabase();
+            return d == null ? null : () -> {
+                DeltaSync.keepLocalEdits(DomainEvents.Kind.STATUS, d.current, DataStore.patientStatus::get);
+                DeltaSync.keepLocalEdits(DomainEvents.Kind.STATUS, d.history, DataStore.statusHistory::get);
+                PatientStatusService.publish(d);
+            };
+        }), syncMark);
+        stage(stages, "appointments", unlessWarm(warm, () -> {
+            Map<String, Appointment> m = AppointmentService.fetchFromDatabase();
+            return m == null ? null : () -> {
+                DeltaSync.keepLocalEdits(DomainEvents.Kind.APPOINTMENT, m, DataStore.appointments::get);
+                AppointmentService.publish(m);
+            };
+        }), syncMark);
+        stage(stages, "bills", unlessWarm(warm, () -> {
+            Map<String, Bill> m = BillingService.fetchFromDatabase();
+            return m == null ? null : () -> {
+                DeltaSync.keepLocalEdits(DomainEvents.Kind.BILL, m, DataStore.bills::get);
+                BillingService.publish(m);
+            };
+        }), syncMark);
+
+        ExecutorService pool = Executors.newFixedThreadPool(LOADER_THREADS, r -> {
+            Thread t = new Thread(r, "hpms-startup-loader");
+            t.setDaemon(true);
+            return t;
+        });
+        long started = System.nanoTime();
+        AtomicInteger completed = new AtomicInteger();
+        List<StageTiming> timings = Collections.synchronizedList(new ArrayList<>());
+        for (Stage s : stages) {
+            CompletableFuture<?>[] deps = new CompletableFuture<?>[s.deps.length];
+            for (int i = 0; i < deps.length; i++)
+                deps[i] = s.deps[i].future;
+            s.future = CompletableFuture.allOf(deps).thenApplyAsync(v -> {
+                long t0 = System.nanoTime();
+                Runnable publish = null;
+                try {
+                    publish = s.task.call();
+                } catch (Exception ex) {
+                    System.err.println("Startup stage " + s.name + " failed: " + ex.getMessage());
+                }
+                StageTiming timing = new StageTiming(s.name, (System.nanoTime() - t0) / 1_000_000L, publish != null);
+                timings.add(timing);
+                if (listener != null) {
+                    try {
+                        listener.stageCompleted(timing, completed.incrementAndGet(), stages.size());
+                    } catch (Exception ignored) {
+                    }
+                }
+                return publish;
+            }, pool);
+        }
+
+        CompletableFuture<List<StageTiming>> done = new CompletableFuture<>();
+        CompletableFuture<?>[] all = new CompletableFuture<?>[stages.size()];
+        for (int i = 0; i < all.length; i++)
+            all[i] = stages.get(i).future;
+        CompletableFuture.allOf(all).whenComplete((v, err) -> {
+            pool.shutdown();
+            SwingUtilities.invokeLater(() -> {
+                try {
+                    // Stages are declared in dependency order, so publish in that order too
+                    for (Stage s : stages) {
+                        Runnable publish = s.future.getNow(null);
+                        if (publish != null)
+                            publish.run();
+                    }
+                    DataSnapshot.schedule();
+                    List<StageTiming> result = new ArrayList<>(timings);
+                    long total = (System.nanoTime() - started) / 1_000_000L;
+                    LogManager.log("startup_load", "total=" + total + "ms", "stages=" + result);
+                    done.complete(result);
+                } catch (Exception ex) {
+                    done.completeExceptionally(ex);
+                }
+            });
+        });
+        return done;
+    }
+
+    /**
+     * Blocking variant for callers that are not on the event thread
+     */
+    public static List<StageTiming> load() {
+        if (SwingUtilities.isEventDispatchThread())
+            throw new IllegalStateException("StartupLoader.load() would block the event thread; use loadAsync");
+        return loadAsync(null).join();
+    }
+
+    /** A table read that is skipped when the snapshot already supplied the table */
+    private static Callable<Runnable> unlessWarm(AtomicReference<DataSnapshot.Contents> warm, Callable<Runnable> task) {
+        return () -> warm.get() != null ? null : task.call();
+    }
+
+    private static Stage stage(List<Stage> stages, String name, Callable<Runnable> task, Stage... deps) {
+        Stage s = new Stage(name, task, deps);
+        stages.add(s);
+        return s;
+    }
+
+    private static final class Stage {
+        final String name;
+        final Callable<Runnable> task;
+        final Stage[] deps;
+        CompletableFuture<Runnable> future;
+
+        Stage(String name, Callable<Runnable> task, Stage[] deps) {
+            this.name = name;
+            this.task = task;
+            this.deps = deps;
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package hpms.service;
+
+import hpms.model.*;
+import hpms.util.DataStore;
+import hpms.util.DomainEvents;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Running totals behind the dashboards and the Reports panel, so a report
+ * reads a handful of counters instead of walking every appointment, bill and
+ * room.
+ *
+ * Counters are keyed by day and department (appointments) and by day,
+ * payment method and paid status (bills). They are kept current from the
+ * DomainEvents every service mutation publishes: the entity's previous
+ * contribution is subtracted and its current one added, so an update that
+ * moves a bill to another day or marks it paid shifts it between counters.
+ * A RELOADED event, or a map whose size no longer matches what was counted
+ * (a bulk write that published nothing), rebuilds that kind from the
+ * DataStore.
+ *
+ * The service starts listening on first use. Events are taken synchronously
+ * on the publishing thread, so a report run right after a service call
+ * already includes it.
+ */
+public class StatisticsService {
+
+    /** Count and amount of the bills in one (day, payment method, paid) cell */
+    public static final class BillTotals {
+        public int count;
+        public double amount;
+    }
+
+    /** What one appointment adds to the counters */
+    private static final class AppointmentPart {
+        final LocalDate day;
+        final String department;
+
+        AppointmentPart(Appointment a) {
+            this.day = a.dateTime == null ? null : a.dateTime.toLocalDate();
+            this.department = a.department;
+        }
+    }
+
+    /** What one bill adds to the counters */
+    private static final class BillPart {
+        final List<Object> key; // day of last update, payment method, paid
+        final double total;
+        final boolean paid;
+
+        BillPart(Bill b) {
+            LocalDate day = b.updatedAt == null ? null : b.updatedAt.toLocalDate();
+            this.key = Arrays.asList(day, b.paymentMethod, b.paid);
+            this.total = b.total;
+            this.paid = b.paid;
+        }
+    }
+
+    private static boolean started;
+
+    private static final Map<String, AppointmentPart> appointmentParts = new HashMap<>();
+    private static final Map<LocalDate, Map<String, Integer>> appointmentsByDayDept = new HashMap<>();
+    private static final Map<LocalDate, LinkedHashSet<String>> appointmentIdsByDay = new HashMap<>();
+    private static final Map<String, Integer> appointmentsByDept = new LinkedHashMap<>();
+
+    private static final Map<String, BillPart> billParts = new HashMap<>();
+    private static final Map<List<Object>, BillTotals> billCells = new HashMap<>();
+    private static double billedTotal, paidTotal;
+
+    private static final Map<String, Boolean> patientActive = new HashMap<>();
+    private static int activePatients;
+
+    private static final Map<String, Boolean> roomOccupied = new HashMap<>();
+    private static int occupiedRooms;
+
+    private static final DomainEvents.Listener listener = StatisticsService::apply;
+
+    // ---- queries ----
+
+    /** Number of appointments on day */
+    public static synchronized int appointmentsOn(LocalDate day) {
+        ensure(DomainEvents.Kind.APPOINTMENT);
+        Set<String> ids = appointmentIdsByDay.get(day);
+        return ids == null ? 0 : ids.size();
+    }
+
+    /** Ids of the appointments on day, in the order they were counted */
+    public static synchronized List<String> appointmentIdsOn(LocalDate day) {
+        ensure(DomainEvents.Kind.APPOINTMENT);
+        Set<String> ids = appointmentIdsByDay.get(day);
+        return ids == null ? Collections.emptyList() : new ArrayList<>(ids);
+    }
+
+    /** Appointments per department, all days, in the order departments were first seen */
+    public static synchronized Map<String, Integer> appointmentsByDepartment() {
+        ensure(DomainEvents.Kind.APPOINTMENT);
+        return new LinkedHashMap<>(appointmentsByDept);
+    }
+
+    /** Appointments per department on day */
+    public static synchronized Map<String, Integer> appointmentsByDepartment(LocalDate day) {
+        ensure(DomainEvents.Kind.APPOINTMENT);
+        Map<String, Integer> m = appointmentsByDayDept.get(day);
+        return m == null ? Collections.emptyMap() : new LinkedHashMap<>(m);
+    }
+
+    /** Bills last updated on day with the given method (null for any) and paid status (null for either) */
+    public static synchronized BillTotals bills(LocalDate day, PaymentMethod method, Boolean paid) {
+        ensure(DomainEvents.Kind.BILL);
+        BillTotals out = new BillTotals();
+        for (Map.Entry<List<Object>, BillTotals> e : billCells.entrySet()) {
+            List<Object> k = e.getKey();
+            if (Objects.equals(k.get(0), day) && (method == null || method == k.get(1))
+                    && (paid == null || paid.equals(k.get(2)))) {
+                out.count += e.getValue().count;
+                out.amount += e.getValue().amount;
+            }
+        }
+        return out;
+    }
+
+    public static synchronized int billCount() {
+        ensure(DomainEvents.Kind.BILL);
+        return billParts.size();
+    }
+
+    public static synchronized double billedTotal() {
+        ensure(DomainEvents.Kind.BILL);
+        return billedTotal;
+    }
+
+    public static synchronized double paidTotal() {
+        ensure(DomainEvents.Kind.BILL);
+        return paidTotal;
+    }
+
+    public static synchronized int activePatients() {
+        ensure(DomainEvents.Kind.PATIENT);
+        return activePatients;
+    }
+
+    public static synchronized int occupiedRooms() {
+        ensure(DomainEvents.Kind.ROOM);
+        return occupiedRooms;
+    }
+
+    /** Drop every counter and recount all kinds from the DataStore */
+    public static synchronized void rebuild() {
+        start();
+        for (DomainEvents.Kind k : new DomainEvents.Kind[] { DomainEvents.Kind.PATIENT, DomainEvents.Kind.ROOM,
+                DomainEvents.Kind.APPOINTMENT, DomainEvents.Kind.BILL })
+            rebuild(k);
+    }
+
+    // ---- maintenance ----
+
+    private static void start() {
+        if (started)
+            return;
+        started = true;
+        DomainEvents.subscribeSync(listener, DomainEvents.Kind.PATIENT, DomainEvents.Kind.ROOM,
+                DomainEvents.Kind.APPOINTMENT, DomainEvents.Kind.BILL);
+        for (DomainEvents.Kind k : new DomainEvents.Kind[] { DomainEvents.Kind.PATIENT, DomainEvents.Kind.ROOM,
+                DomainEvents.Kind.APPOINTMENT, DomainEvents.Kind.BILL })
+            rebuild(k);
+    }
+
+    /** Start if needed, and recount kind if its DataStore map changed behind our back */
+    private static void ensure(DomainEvents.Kind kind) {
+        start();
+        int counted, actual;
+        switch (kind) {
+            case PATIENT: counted = patientActive.size(); actual = DataStore.patients.size(); break;
+            case ROOM: counted = roomOccupied.size(); actual = DataStore.rooms.size(); break;
+            case APPOINTMENT: counted = appointmentParts.size(); actual = DataStore.appointments.size(); break;
+            case BILL: counted = billParts.size(); actual = DataStore.bills.size(); break;
+            default: return;
+        }
+        if (counted != actual)
+            rebuild(kind);
+    }
+
+    private static synchronized void apply(List<DomainEvents.Event> events) {
+        if (!started)
+            return;
+        for (DomainEvents.Event e : events) {
+            if (e.op == DomainEvents.Op.RELOADED || e.id == null) {
+                rebuild(e.kind);
+                continue;
+            }
+            switch (e.kind) {
+                case PATIENT: setPatient(e.id, DataStore.patients.get(e.id)); break;
+                case ROOM: setRoom(e.id, DataStore.rooms.get(e.id)); break;
+                case APPOINTMENT: setAppointment(e.id, DataStore.appointments.get(e.id)); break;
+                case BILL: setBill(e.id, DataStore.bills.get(e.id)); break;
+                default: break;
+            }
+        }
+    }
+
+    private static void rebuild(DomainEvents.Kind kind) {
+        switch (kind) {
+            case PATIENT:
+                patientActive.clear();
+                activePatients = 0;
+                for (Patient p : DataStore.patients.snapshotValues())
+                    if (p != null)
+                        setPatient(p.id, p);
+                break;
+            case ROOM:
+                roomOccupied.clear();
+                occupiedRooms = 0;
+                for (Room r : DataStore.rooms.snapshotValues())
+                    if (r != null)
+                        setRoom(r.id, r);
+                break;
+            case APPOINTMENT:
+                appointmentParts.clear();
+                appointmentsByDayDept.clear();
+                appointmentIdsByDay.clear();
+                appointmentsByDept.clear();
+                for (Appointment a : DataStore.appointments.snapshotValues())
+                    if (a != null)
+                        setAppointment(a.id, a);
+                break;
+            case BILL:
+                billParts.clear();
+                billCells.clear();
+                billedTotal = 0;
+                paidTotal = 0;
+                for (Bill b : DataStore.bills.snapshotValues())
+                    if (b != null)
+                        setBill(b.id, b);
+                break;
+            default:
+                break;
+        }
+    }
+
+    // Each set* replaces id's contribution with that of its current state; null removes it
+
+    private static void setPatient(String id, Patient p) {
+        Boolean old = p == null ? patientActive.remove(id) : patientActive.put(id, p.isActive);
+        if (Boolean.TRUE.equals(old))
+            activePatients--;
+        if (p != null && p.isActive)
+            activePatients++;
+    }
+
+    private static void setRoom(String id, Room r) {
+        boolean occupied = r != null && r.occupantPatientId != null && !r.occupantPatientId.isEmpty();
+        Boolean old = r == null ? roomOccupied.remove(id) : roomOccupied.put(id, occupied);
+        if (Boolean.TRUE.equals(old))
+            occupiedRooms--;
+        if (occupied)
+            occupiedRooms++;
+    }
+
+    private static void setAppointment(String id, Appointment a) {
+        AppointmentPart old = a == null ? appointmentParts.remove(id) : appointmentParts.put(id, new AppointmentPart(a));
+        if (old != null) {
+            Set<String> ids = appointmentIdsByDay.get(old.day);
+            if (ids != null && ids.remove(id) && ids.isEmpty())
+                appointmentIdsByDay.remove(old.day);
+            Map<String, Integer> byDept = appointmentsByDayDept.get(old.day);
+            if (byDept != null && add(byDept, old.department, -1) && byDept.isEmpty())
+                appointmentsByDayDept.remove(old.day);
+            add(appointmentsByDept, old.department, -1);
+        }
+        if (a != null) {
+            AppointmentPart now = appointmentParts.get(id);
+            appointmentIdsByDay.computeIfAbsent(now.day, d -> new LinkedHashSet<>()).add(id);
+            add(appointmentsByDayDept.computeIfAbsent(now.day, d -> new LinkedHashMap<>()), now.department, 1);
+            add(appointmentsByDept, now.department, 1);
+        }
+    }
+
+    private static void setBill(String id, Bill b) {
+        BillPart old = b == null ? billParts.remove(id) : billParts.put(id, new BillPart(b));
+        if (old != null) {
+            BillTotals cell = billCells.get(old.key);
+            if (cell != null) {
+                cell.count--;
+                cell.amount -= old.total;
+                if (cell.count <= 0)
+                    billCells.remove(old.key);
+            }
+            billedTotal -= old.total;
+            if (old.paid)
+                paidTotal -= old.total;
+        }
+        if (b != null) {
+            BillPart now = billParts.get(id);
+            BillTotals cell = billCells.computeIfAbsent(now.key, k -> new BillTotals());
+            cell.count++;
+            cell.amount += now.total;
+            billedTotal += now.total;
+            if (now.paid)
+                paidTotal += now.total;
+        }
+    }
+
+    /** Add delta to m[key], dropping the key at zero; true if the key was present */
+    private static boolean add(Map<String, Integer> m, String key, int delta) {
+        Integer cur = m.get(key);
+        if (cur == null && delta < 0)
+            return false;
+        int n = (cur == null ? 0 : cur) + delta;
+        if (n <= 0)
+            m.remove(key);
+        else
+            m.put(key, n);
+        return cur != null;
+    }
+}
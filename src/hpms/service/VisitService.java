@@ -64,15 +64,15 @@ public class VisitService {
                 if (rs.next()) {
                     int visitId = rs.getInt(1);
                     out.add("Visit created successfully - Visit ID: " + visitId);
-                    LogManager.log("new_visit_created patient=" + patientId + " type=" + registrationType + " visitId="
-                            + visitId);
+                    LogManager.log("new_visit_created", "patient=" + patientId, "type=" + registrationType,
+                            "visitId=" + visitId);
                 }
             } else {
                 out.add("Error: Failed to create visit record");
             }
         } catch (SQLException e) {
             out.add("Error: " + e.getMessage());
-            LogManager.log("visit_creation_error: " + e.getMessage());
+            LogManager.log("visit_creation_error", e.getMessage());
         } finally {
             DBConnection.closeConnection(conn);
         }
@@ -103,7 +103,7 @@ public class VisitService {
 
             if (rowsAffected > 0) {
                 out.add("Diagnosis added to visit #" + visitId);
-                LogManager.log("diagnosis_added_to_visit visitId=" + visitId + " doctor=" + attendingDoctor);
+                LogManager.log("diagnosis_added_to_visit", "visitId=" + visitId, "doctor=" + attendingDoctor);
             } else {
                 out.add("Error: Visit not found");
             }
@@ -140,7 +140,7 @@ public class VisitService {
 
             if (rowsAffected > 0) {
                 out.add("New diagnosis record created");
-                LogManager.log("new_diagnosis patient=" + patientId + " by=" + diagnosedBy);
+                LogManager.log("new_diagnosis", "patient=" + patientId, "by=" + diagnosedBy);
             } else {
                 out.add("Error: Failed to create diagnosis");
             }
@@ -193,7 +193,7 @@ public class VisitService {
                 visits.add(visit);
             }
         } catch (SQLException e) {
-            LogManager.log("visit_history_error: " + e.getMessage());
+            LogManager.log("visit_history_error", e.getMessage());
         } finally {
             DBConnection.closeConnection(conn);
         }
@@ -228,7 +228,7 @@ public class VisitService {
                 diagnoses.add(entry);
             }
         } catch (SQLException e) {
-            LogManager.log("diagnosis_history_error: " + e.getMessage());
+            LogManager.log("diagnosis_history_error", e.getMessage());
         } finally {
             DBConnection.closeConnection(conn);
         }
@@ -0,0 +1,68 @@
+package hpms.test;
+
+import hpms.config.DatabaseConfig;
+import hpms.util.ActivityLog;
+import hpms.util.DataStore;
+import hpms.util.LogManager;
+
+import java.io.File;
+import java.util.List;
+
+public class ActivityLogTest {
+    public static void main(String[] args) throws Exception {
+        System.out.println("Starting activity log tests...");
+        File dir = new File(DatabaseConfig.ACTIVITY_LOG_DIR);
+        File[] old = dir.listFiles();
+        if (old != null)
+            for (File f : old)
+                f.delete();
+
+        long start = System.currentTimeMillis();
+        final int n = 100000;
+        for (int i = 0; i < n; i++)
+            ActivityLog.record("patient_edit", "P" + (1000 + i), "complete=true\tnote");
+        DataStore.log("login admin");
+        long end = System.currentTimeMillis() + 1;
+
+        // 1) Memory holds only the newest entries
+        List<ActivityLog.Entry> mem = ActivityLog.since(0);
+        if (mem.size() != DatabaseConfig.ACTIVITY_LOG_CAPACITY) { System.err.println("Ring holds " + mem.size()); System.exit(2); }
+        ActivityLog.Entry last = mem.get(mem.size() - 1);
+        if (!"login".equals(last.code) || !"admin".equals(last.details()) || last.seq != n) {
+            System.err.println("Legacy message not structured: " + last); System.exit(3);
+        }
+        if (ActivityLog.since(last.seq).size() != 1 || ActivityLog.recent(3).get(0).seq != n - 2) {
+            System.err.println("since/recent wrong"); System.exit(4);
+        }
+
+        // 2) The full range comes back from the segment files, oldest first, args intact
+        List<ActivityLog.Entry> all = ActivityLog.query(start, end, Integer.MAX_VALUE);
+        if (all.size() != n + 1 || !"P1000".equals(all.get(0).args.get(0))
+                || !"complete=true\tnote".equals(all.get(0).args.get(1))) {
+            System.err.println("Query returned " + all.size() + " entries"); System.exit(5);
+        }
+        List<ActivityLog.Entry> tail = ActivityLog.query(start, end, 10);
+        if (tail.size() != 10 || !"login".equals(tail.get(9).code)) { System.err.println("Limit should keep the newest"); System.exit(6); }
+        if (!ActivityLog.query(end, end + 1000, 10).isEmpty()) { System.err.println("Range not applied"); System.exit(7); }
+
+        // 3) Segment files are size-capped and rotated
+        File[] segs = dir.listFiles();
+        if (segs == null || segs.length < 2 || segs.length > DatabaseConfig.ACTIVITY_SEGMENT_COUNT) {
+            System.err.println("Unexpected segment count " + (segs == null ? 0 : segs.length)); System.exit(8);
+        }
+        for (File f : segs)
+            if (f.length() > DatabaseConfig.ACTIVITY_SEGMENT_BYTES + 1024) { System.err.println(f + " too large"); System.exit(9); }
+
+        // 4) Structured log calls keep each argument as its own field
+        LogManager.log("pay_bill", "B4001", hpms.model.PaymentMethod.CASH, 12.5);
+        ActivityLog.Entry paid = ActivityLog.recent(1).get(0);
+        if (!"pay_bill".equals(paid.code) || !java.util.Arrays.asList("B4001", "CASH", "12.5").equals(paid.args)
+                || !"B4001 CASH 12.5".equals(paid.details())) {
+            System.err.println("Structured entry wrong: " + paid); System.exit(10);
+        }
+
+        System.out.println(segs.length + " segment files, " + all.size() + " entries read back");
+        System.out.println("Activity log tests passed");
+        System.exit(0);
+    }
+}
@@ -0,0 +1,82 @@
+package hpms.test;
+
+import hpms.model.*;
+import hpms.service.AnalyticsStore;
+import hpms.util.DataStore;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public class AnalyticsStoreTest {
+    public static void main(String[] args) {
+        System.out.println("Starting analytics store tests...");
+        DataStore.appointments.clear();
+        DataStore.bills.clear();
+        LocalDateTime jan = LocalDateTime.of(2024, 1, 10, 9, 0);
+        LocalDateTime feb = LocalDateTime.of(2024, 2, 5, 9, 0);
+
+        // Two cardiology visits in January (one missed), one pediatrics visit in February
+        put(new Appointment("A1", "P1", "S1", jan, "Cardiology", jan), true);
+        put(new Appointment("A2", "P2", "S1", jan.plusDays(1), "Cardiology", jan), false);
+        put(new Appointment("A3", "P3", "S2", feb, "Pediatrics", feb), true);
+        bill("B1", "P1", 100, jan.plusHours(2), PaymentMethod.CARD, true);
+        bill("B2", "P3", 40, feb.plusHours(1), PaymentMethod.CASH, false);
+        bill("B3", "P3", 60, feb.plusDays(2), PaymentMethod.CASH, true);
+        bill("B4", "P9", 5, feb.plusDays(3), null, false); // no appointment
+
+        // No database in the test environment: the store is built from the DataStore
+        if (AnalyticsStore.load() || AnalyticsStore.appointmentRows() != 3 || AnalyticsStore.billRows() != 4) {
+            System.err.println("Load failed"); System.exit(2);
+        }
+
+        LocalDate from = LocalDate.of(2024, 1, 1), to = LocalDate.of(2025, 1, 1);
+        AnalyticsStore.Table rev = AnalyticsStore.revenue(from, to, AnalyticsStore.Bucket.MONTH,
+                AnalyticsStore.Dimension.DEPARTMENT);
+        int jan24 = rev.periods.indexOf("2024-01"), feb24 = rev.periods.indexOf("2024-02");
+        int cardio = rev.groups.indexOf("Cardiology"), peds = rev.groups.indexOf("Pediatrics"),
+                none = rev.groups.indexOf("Unassigned");
+        if (jan24 < 0 || feb24 < 0 || rev.sum(jan24, cardio) != 100 || rev.count(feb24, peds) != 2
+                || rev.sum(feb24, peds) != 100 || rev.flagged(feb24, peds) != 1 || rev.sum(feb24, none) != 5
+                || rev.count(jan24, peds) != 0) {
+            System.err.println("Revenue by department per month wrong: " + rev.periods + " " + rev.groups); System.exit(3);
+        }
+
+        AnalyticsStore.Table byMethod = AnalyticsStore.revenue(from, to, AnalyticsStore.Bucket.ALL,
+                AnalyticsStore.Dimension.PAYMENT_METHOD);
+        if (byMethod.periods.size() != 1 || byMethod.sum(0, byMethod.groups.indexOf("CASH")) != 100) {
+            System.err.println("Revenue by payment method wrong"); System.exit(4);
+        }
+
+        AnalyticsStore.Table noShows = AnalyticsStore.appointments(from, to, AnalyticsStore.Bucket.ALL,
+                AnalyticsStore.Dimension.STAFF);
+        int s1 = -1;
+        for (int g = 0; g < noShows.groups.size(); g++)
+            if (noShows.groups.get(g).startsWith("S1"))
+                s1 = g;
+        if (s1 < 0 || noShows.count(0, s1) != 2 || noShows.flagged(0, s1) != 1) {
+            System.err.println("No-shows by doctor wrong: " + noShows.groups); System.exit(5);
+        }
+
+        // Range is [from, to) by day
+        AnalyticsStore.Table week = AnalyticsStore.appointments(LocalDate.of(2024, 1, 11), LocalDate.of(2024, 2, 5),
+                AnalyticsStore.Bucket.WEEK, AnalyticsStore.Dimension.NONE);
+        if (week.periods.size() != 1 || !"2024-W02".equals(week.periods.get(0)) || week.count(0, 0) != 1) {
+            System.err.println("Date range or week bucket wrong: " + week.periods); System.exit(6);
+        }
+
+        System.out.println("Analytics store tests passed");
+        System.exit(0);
+    }
+
+    private static void put(Appointment a, boolean completed) {
+        a.isCompleted = completed;
+        DataStore.appointments.put(a.id, a);
+    }
+
+    private static void bill(String id, String patientId, double total, LocalDateTime at, PaymentMethod m, boolean paid) {
+        Bill b = new Bill(id, patientId, total, at);
+        b.paymentMethod = m;
+        b.paid = paid;
+        DataStore.bills.put(id, b);
+    }
+}
@@ -0,0 +1,51 @@
+package hpms.test;
+
+import hpms.model.Appointment;
+import hpms.util.IndexedAppointmentMap;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public class AppointmentIndexTest {
+    public static void main(String[] args) {
+        System.out.println("Starting appointment index tests...");
+        IndexedAppointmentMap m = new IndexedAppointmentMap();
+        LocalDate day = LocalDate.of(2030, 1, 15);
+        LocalDateTime nine = day.atTime(9, 0);
+
+        m.put("A1", new Appointment("A1", "P1", "S1", nine, "ER", LocalDateTime.now()));
+        m.put("A2", new Appointment("A2", "P1", "S1", nine.plusHours(2), "ER", LocalDateTime.now()));
+        m.put("A3", new Appointment("A3", "P2", "S2", nine, "ER", LocalDateTime.now()));
+
+        // 1) Staff/day lookup is sorted and scoped to the staff member
+        if (m.forStaffOn("S1", day).size() != 2 || !m.forStaffOn("S1", day).get(0).id.equals("A1")) {
+            System.err.println("forStaffOn wrong: " + m.forStaffOn("S1", day)); System.exit(2);
+        }
+
+        // 2) Overlap detection: 9:30 overlaps A1, 10:00 touches A1 and is free
+        if (m.findOverlap("S1", nine.plusMinutes(30), nine.plusMinutes(90), null) == null) { System.err.println("Overlap not detected"); System.exit(3); }
+        if (m.findOverlap("S1", nine.plusHours(1), nine.plusHours(2), null) != null) { System.err.println("Touching slot reported as overlap"); System.exit(4); }
+        if (m.findOverlap("S1", nine, nine.plusHours(1), "A1") != null) { System.err.println("excludeId ignored"); System.exit(5); }
+
+        // 3) Cross-midnight overlap is found in the previous day's bucket
+        m.put("A4", new Appointment("A4", "P3", "S3", day.atTime(23, 30), "ER", LocalDateTime.now()));
+        if (m.findOverlap("S3", day.plusDays(1).atStartOfDay(), day.plusDays(1).atTime(1, 0), null) == null) { System.err.println("Cross-midnight overlap missed"); System.exit(6); }
+
+        // 4) Reindex after an in-place reschedule
+        Appointment a1 = m.get("A1");
+        a1.dateTime = day.plusDays(1).atTime(9, 0);
+        m.reindex(a1);
+        if (m.forStaffOn("S1", day).size() != 1 || m.forStaffOn("S1", day.plusDays(1)).size() != 1) { System.err.println("Reindex failed"); System.exit(7); }
+        if (!"A1".equals(m.latestForPatient("P1").id)) { System.err.println("latestForPatient wrong"); System.exit(8); }
+
+        // 5) Removal through the map and through value iterators keeps indexes consistent
+        m.remove("A2");
+        m.values().removeIf(a -> a.id.equals("A3"));
+        if (!m.forStaffOn("S2", day).isEmpty() || m.forPatient("P1").size() != 1 || m.size() != 2) { System.err.println("Removal left stale index entries"); System.exit(9); }
+
+        m.clear();
+        if (m.latestForPatient("P1") != null) { System.err.println("clear left index entries"); System.exit(10); }
+
+        System.out.println("Appointment index tests OK");
+    }
+}
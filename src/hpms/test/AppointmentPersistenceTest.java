@@ -0,0 +1,62 @@
+package hpms.test;
+
+import hpms.model.Appointment;
+import hpms.model.ConsultationType;
+import hpms.service.AppointmentService;
+import hpms.service.PatientService;
+import hpms.service.StaffService;
+import hpms.util.DataStore;
+import hpms.util.WriteBehindQueue;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class AppointmentPersistenceTest {
+    public static void main(String[] args) throws Exception {
+        System.out.println("Starting appointment persistence tests...");
+        // 1) Values written by the older schema ENUMs read as the current types
+        if (ConsultationType.fromColumn("ROUTINE") != ConsultationType.ROUTINE_CHECKUP
+                || ConsultationType.fromColumn("FIRST_TIME") != ConsultationType.NEW_PATIENT
+                || ConsultationType.fromColumn("telehealth") != ConsultationType.TELEHEALTH
+                || ConsultationType.fromColumn(null) != ConsultationType.FOLLOW_UP
+                || ConsultationType.fromColumn("HOUSE_CALL") != ConsultationType.FOLLOW_UP) {
+            System.err.println("Column values not mapped"); System.exit(2);
+        }
+
+        // 2) The consultation type survives a reload from the database
+        List<String> p = PatientService.add("Persist Type", "40", "1986-01-02", "Female", "555-0100", "Addr", "OUTPATIENT");
+        List<String> s = StaffService.add("Dr Persist", "DOCTOR", "Cardiology");
+        if (!p.get(0).startsWith("Patient created") || !s.get(0).startsWith("Staff added")) {
+            System.err.println("Setup failed: " + p + " " + s); System.exit(3);
+        }
+        String pid = p.get(0).split(" ")[2];
+        String sid = s.get(0).split(" ")[2];
+        String date = LocalDate.now().plusDays(2).toString();
+        List<String> out = AppointmentService.schedule(pid, sid, date, "09:00", "Cardiology", ConsultationType.EMERGENCY);
+        if (!out.get(0).startsWith("Appointment created")) { System.err.println("Schedule failed: " + out); System.exit(4); }
+        String aid = out.get(0).split(" ")[2];
+        if (!WriteBehindQueue.flush(10000)) { System.err.println("Insert not written"); System.exit(5); }
+
+        AppointmentService.loadFromDatabase();
+        Appointment a = DataStore.appointments.get(aid);
+        if (a == null || a.consultationType != ConsultationType.EMERGENCY || !Duration.ofMinutes(30).equals(a.duration())) {
+            System.err.println("Type lost on insert: " + (a == null ? null : a.consultationType)); System.exit(6);
+        }
+
+        // 3) An update rewrites the type
+        a.consultationType = ConsultationType.SECOND_OPINION;
+        AppointmentService.updateInDatabase(a).get(10, TimeUnit.SECONDS);
+        AppointmentService.loadFromDatabase();
+        a = DataStore.appointments.get(aid);
+        if (a == null || a.consultationType != ConsultationType.SECOND_OPINION || !Duration.ofMinutes(60).equals(a.duration())) {
+            System.err.println("Type lost on update: " + (a == null ? null : a.consultationType)); System.exit(7);
+        }
+
+        AppointmentService.cancel(aid);
+        WriteBehindQueue.flush(10000);
+        System.out.println("Appointment persistence tests passed");
+        System.exit(0);
+    }
+}
@@ -0,0 +1,65 @@
+package hpms.test;
+
+import hpms.config.DatabaseConfig;
+import hpms.util.AuditLogService;
+import hpms.util.AuditPipeline;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+public class AuditPipelineTest {
+    public static void main(String[] args) throws Exception {
+        System.out.println("Starting audit pipeline tests...");
+        // Runs without MySQL: every event must end up in the spill file, and quickly
+        Path spill = Paths.get(DatabaseConfig.AUDIT_SPILL_PATH);
+        Files.deleteIfExists(spill);
+        Files.deleteIfExists(spill.resolveSibling(spill.getFileName() + ".replay"));
+
+        final int threads = 4, perThread = 5000;
+        long[] worstNs = new long[threads];
+        Thread[] ts = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            ts[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    long t0 = System.nanoTime();
+                    AuditLogService.logUpdate("user" + id, "PATIENT", "P" + i, i == 0 ? "tab\there\nnewline \\N" : null);
+                    worstNs[id] = Math.max(worstNs[id], System.nanoTime() - t0);
+                }
+            });
+            ts[t].start();
+        }
+        for (Thread t : ts)
+            t.join();
+        long worst = 0;
+        for (long w : worstNs)
+            worst = Math.max(worst, w);
+        if (!AuditPipeline.flush(30000)) { System.err.println("Flush timed out: " + AuditPipeline.stats()); System.exit(2); }
+        AuditPipeline.Stats st = AuditPipeline.stats();
+        System.out.println("Stats: " + st + ", slowest logAction " + worst / 1000 + "us");
+
+        List<String> lines = Files.readAllLines(spill, StandardCharsets.UTF_8);
+        if (st.spilled != threads * perThread || lines.size() != threads * perThread) {
+            System.err.println("Expected every event spilled, got " + lines.size() + " lines"); System.exit(3);
+        }
+        boolean escaped = false;
+        for (String l : lines) {
+            String[] f = l.split("\t", -1);
+            if (f.length != 7 || !"UPDATE".equals(f[2])) { System.err.println("Bad spill line: " + l); System.exit(4); }
+            if ("tab\\there\\nnewline \\\\N".equals(f[5])) escaped = true;
+            else if (!"\\N".equals(f[5])) { System.err.println("Null not kept: " + l); System.exit(5); }
+        }
+        if (!escaped) { System.err.println("Details not escaped"); System.exit(6); }
+        if (spill.getFileSystem().supportedFileAttributeViews().contains("posix")
+                && !Files.getPosixFilePermissions(spill).equals(java.nio.file.attribute.PosixFilePermissions.fromString("rw-------"))) {
+            System.err.println("Spill permissions: " + Files.getPosixFilePermissions(spill)); System.exit(7);
+        }
+        Files.deleteIfExists(spill);
+
+        System.out.println("Audit pipeline tests passed");
+        System.exit(0);
+    }
+}
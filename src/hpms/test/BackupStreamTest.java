@@ -0,0 +1,113 @@
+package hpms.test;
+
+import hpms.auth.User;
+import hpms.model.*;
+import hpms.util.BackupUtil;
+import hpms.util.DataStore;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+public class BackupStreamTest {
+    public static void main(String[] args) throws Exception {
+        System.out.println("Starting streaming backup tests...");
+        System.setProperty("user.home", Files.createTempDirectory("hpms-backup").toString());
+
+        Patient p = new Patient("P9001", "Ana \"Cruz\" Dela", 41, "", Gender.Female, "0917\t555", "Line 1\nLine 2\\x",
+                LocalDateTime.now());
+        p.heightCm = 160.25;
+        p.weightKg = 55.0;
+        p.allergies = "penicillin é\u0001";
+        p.diagnoses = new java.util.ArrayList<>(Arrays.asList("flu", "asthma"));
+        DataStore.patients.put(p.id, p);
+        Staff s = new Staff("S9001", "Dr. Reyes", StaffRole.DOCTOR, "Cardiology", LocalDateTime.now());
+        s.yearsExperience = 12;
+        s.isAvailable = false;
+        DataStore.staff.put(s.id, s);
+        DataStore.rooms.put("R9001", new Room("R9001", RoomStatus.OCCUPIED, "P9001"));
+        LocalDateTime when = LocalDateTime.of(2026, 3, 4, 9, 30);
+        DataStore.appointments.put("A9001", new Appointment("A9001", "P9001", "S9001", when, "Cardiology", LocalDateTime.now()));
+        Bill b = new Bill("B9001", "P9001", 1234.5, LocalDateTime.now());
+        b.paid = true;
+        b.paymentMethod = PaymentMethod.CARD;
+        DataStore.bills.put(b.id, b);
+        DataStore.users.put("tester", new User("tester", "hash", "salt", UserRole.NURSE));
+
+        // 1) Round trip through writeTo/readFrom keeps every field, including escaped characters
+        StringWriter sw = new StringWriter();
+        BackupUtil.writeTo(sw);
+        String json = sw.toString();
+        DataStore.patients.remove("P9001");
+        DataStore.users.remove("tester");
+        BackupUtil.readFrom(new StringReader(json));
+        Patient rp = DataStore.patients.get("P9001");
+        if (rp == null || !p.name.equals(rp.name) || !p.contact.equals(rp.contact) || !p.address.equals(rp.address)
+                || !p.allergies.equals(rp.allergies) || rp.gender != Gender.Female || rp.age != 41
+                || rp.heightCm != 160.25 || !Arrays.asList("flu", "asthma").equals(rp.diagnoses)) {
+            System.err.println("Patient not restored: " + json); System.exit(2);
+        }
+        Staff rs = DataStore.staff.get("S9001");
+        Room rr = DataStore.rooms.get("R9001");
+        Appointment ra = DataStore.appointments.get("A9001");
+        Bill rb = DataStore.bills.get("B9001");
+        User ru = DataStore.users.get("tester");
+        if (rs == null || rs.role != StaffRole.DOCTOR || rs.yearsExperience != 12 || rs.isAvailable
+                || rr == null || rr.status != RoomStatus.OCCUPIED || !"P9001".equals(rr.occupantPatientId)
+                || ra == null || !when.equals(ra.dateTime) || !"S9001".equals(ra.staffId)
+                || rb == null || !rb.paid || rb.total != 1234.5 || rb.paymentMethod != PaymentMethod.CARD
+                || ru == null || ru.role != UserRole.NURSE || !"hash".equals(ru.password)) {
+            System.err.println("Records not restored: " + json); System.exit(3);
+        }
+
+        // 2) Writing the restored store gives the same document
+        StringWriter again = new StringWriter();
+        BackupUtil.writeTo(again);
+        if (!json.equals(again.toString())) {
+            System.err.println("Second backup differs:\n" + json + "\n" + again); System.exit(4);
+        }
+
+        // 3) A file cut off midway or with broken syntax is rejected and leaves the store as it was
+        int patients = DataStore.patients.size();
+        String[] bad = {
+                json.substring(0, json.length() / 2),
+                json.substring(0, json.indexOf("\"staff\"") - 1),
+                json.replaceFirst("\"name\":", "\"name\""),
+                json.replace("],\"staff\":[", "],\"staff\":["
+                        + "{\"id\":\"S1\",\"name\":\"x\",\"role\":\"DOCTOR\",\"department\":\"ER\""),
+                "{\"patients\":[{\"id\":\"P1\",\"name\":\"x\",\"age\":",
+                json.replace("\"role\":\"DOCTOR\"", "\"role\":\"WIZARD\""),
+                json.replace("\"age\":41", "\"age\":4x1"),
+                "",
+        };
+        for (int i = 0; i < bad.length; i++) {
+            try {
+                BackupUtil.readFrom(new StringReader(bad[i]));
+                System.err.println("Malformed backup " + i + " accepted"); System.exit(5);
+            } catch (IOException expected) {
+            }
+            if (DataStore.patients.size() != patients || DataStore.patients.get("P9001") == null
+                    || DataStore.users.get("tester") == null) {
+                System.err.println("Store changed by malformed backup " + i); System.exit(6);
+            }
+        }
+
+        // 4) loadFromFile reports a truncated file as a failure and saveToFile round trips
+        Path file = Paths.get(System.getProperty("user.home"), "hpms_backup.json");
+        Files.write(file, json.substring(0, json.length() - 3).getBytes(StandardCharsets.UTF_8));
+        if (BackupUtil.loadFromFile(file)) {
+            System.err.println("Truncated file loaded"); System.exit(7);
+        }
+        if (!BackupUtil.saveToFile(file) || !BackupUtil.loadFromFile(file)
+                || !json.equals(new String(Files.readAllBytes(file), StandardCharsets.UTF_8))) {
+            System.err.println("File round trip failed"); System.exit(8);
+        }
+
+        System.out.println("Streaming backup tests passed");
+        System.exit(0);
+    }
+}
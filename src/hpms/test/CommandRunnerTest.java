@@ -0,0 +1,64 @@
+package hpms.test;
+
+import hpms.util.CommandRunner;
+import hpms.util.DataStore;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+public class CommandRunnerTest {
+    public static void main(String[] args) throws Exception {
+        System.out.println("Starting command runner tests...");
+        DataStore.staff.clear();
+        DataStore.departments.add("Cardiology");
+
+        StringBuilder script = new StringBuilder("# smoke load\n\n");
+        for (int i = 0; i < 50; i++)
+            script.append("list_staff\n");
+        script.append("add_staff Ada DOCTOR Cardiology\n");
+        script.append("add_staff Grace DOCTOR Nowhere\n");
+        for (int i = 0; i < 50; i++)
+            script.append("list_staff\n");
+        script.append("restore\n");
+
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        CommandRunner.Summary s;
+        try (PrintStream out = new PrintStream(buf, true, "UTF-8")) {
+            s = CommandRunner.run(new BufferedReader(new StringReader(script.toString())), out, 4);
+        }
+        List<String> lines = Arrays.asList(buf.toString("UTF-8").split("\\r?\\n"));
+
+        // Results stay in script order; reads before the write see no staff, reads after it see the new one
+        int write = lines.indexOf("> add_staff Ada DOCTOR Cardiology");
+        if (write < 0 || !lines.get(write + 1).startsWith("Staff added")) {
+            System.err.println("Write failed: " + lines); System.exit(2);
+        }
+        int before = 0, after = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            if (!lines.get(i).equals("> list_staff"))
+                continue;
+            String next = lines.get(i + 1);
+            if (i < write) {
+                before++;
+                if (!next.equals("No staff")) { System.err.println("Read ran after a later write: " + next); System.exit(2); }
+            } else {
+                after++;
+                if (!next.contains(" Ada DOCTOR Cardiology")) { System.err.println("Read missed the write: " + next); System.exit(2); }
+            }
+        }
+        if (before != 50 || after != 50 || s.commands() != 103 || s.count("list_staff") != 100) {
+            System.err.println("Wrong counts: before=" + before + " after=" + after + " total=" + s.commands()); System.exit(3);
+        }
+        if (!lines.get(lines.size() - 1).startsWith("Error: restore is not available") || s.errors() < 2) {
+            System.err.println("Errors not counted: " + s.errors()); System.exit(4);
+        }
+        List<String> summary = s.format();
+        if (!summary.get(0).startsWith("command") || !summary.get(summary.size() - 1).startsWith("103 commands")) {
+            System.err.println("Summary wrong: " + summary); System.exit(5);
+        }
+
+        System.out.println("Command runner tests passed");
+        System.exit(0);
+    }
+}
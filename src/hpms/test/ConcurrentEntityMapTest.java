@@ -0,0 +1,95 @@
+package hpms.test;
+
+import hpms.util.ConcurrentEntityMap;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ConcurrentEntityMapTest {
+    public static void main(String[] args) throws Exception {
+        System.out.println("Starting concurrent entity map tests...");
+        ConcurrentEntityMap<String> m = new ConcurrentEntityMap<>();
+
+        // 1) LinkedHashMap behaviour: insertion order, re-put keeps position, null values
+        m.put("b", "1");
+        m.put("a", "2");
+        m.put("c", null);
+        m.put("b", "3");
+        if (!Arrays.asList("b", "a", "c").equals(new ArrayList<>(m.keySet())) || !"3".equals(m.get("b"))
+                || !m.containsKey("c") || m.get("c") != null) {
+            System.err.println("Order or values wrong: " + m); System.exit(2);
+        }
+        m.values().removeIf("2"::equals);
+        if (m.containsKey("a") || m.size() != 2) { System.err.println("Iterator remove failed"); System.exit(3); }
+
+        // 2) Writers, iteration and bulk replacement at the same time
+        final int even = 20000;
+        Map<String, String> full = new LinkedHashMap<>();
+        for (int i = 0; i < even; i++)
+            full.put("P" + i, "v" + i);
+        m.replaceContents(full);
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread[] writers = new Thread[4];
+        for (int w = 0; w < writers.length; w++) {
+            final int id = w;
+            writers[w] = new Thread(() -> {
+                Random r = new Random(id);
+                while (!stop.get()) {
+                    String k = "W" + id + "-" + r.nextInt(1000);
+                    if (r.nextBoolean())
+                        m.put(k, k);
+                    else
+                        m.remove(k);
+                }
+            });
+            writers[w].start();
+        }
+        Thread swapper = new Thread(() -> {
+            while (!stop.get())
+                m.replaceContents(full);
+        });
+        swapper.start();
+        long deadline = System.currentTimeMillis() + 1500;
+        int iterations = 0;
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                int seen = 0;
+                String prev = null;
+                for (Map.Entry<String, String> e : m.entrySet()) {
+                    if (e.getKey().startsWith("P")) {
+                        seen++;
+                        // Bulk-loaded entries keep their relative order
+                        if (prev != null && Integer.parseInt(e.getKey().substring(1)) <= Integer.parseInt(prev.substring(1)))
+                            failure.compareAndSet(null, "Order broken at " + e.getKey());
+                        prev = e.getKey();
+                    }
+                }
+                // A replacement is never seen half applied
+                if (seen != even)
+                    failure.compareAndSet(null, "Saw " + seen + " bulk entries");
+                if (m.get("P" + (iterations % even)) == null)
+                    failure.compareAndSet(null, "Lookup missed during replacement");
+            } catch (ConcurrentModificationException e) {
+                failure.compareAndSet(null, "ConcurrentModificationException");
+            }
+            iterations++;
+        }
+        stop.set(true);
+        for (Thread t : writers)
+            t.join();
+        swapper.join();
+        if (failure.get() != null) { System.err.println(failure.get()); System.exit(4); }
+
+        // 3) Snapshots are point-in-time and reused while nothing changes
+        List<String> snap = m.snapshotValues();
+        if (!snap.equals(m.snapshotValues())) { System.err.println("Snapshot unstable"); System.exit(5); }
+        m.put("late", "x");
+        if (snap.contains("x") || !m.snapshotValues().contains("x")) { System.err.println("Snapshot not point-in-time"); System.exit(6); }
+
+        System.out.println(iterations + " full iterations under concurrent writes");
+        System.out.println("Concurrent entity map tests passed");
+        System.exit(0);
+    }
+}
@@ -0,0 +1,122 @@
+package hpms.test;
+
+import hpms.model.*;
+import hpms.service.DataSnapshot;
+import hpms.util.DataStore;
+
+import javax.swing.SwingUtilities;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+
+public class DataSnapshotTest {
+    public static void main(String[] args) throws Exception {
+        System.out.println("Starting data snapshot tests...");
+        LocalDateTime now = LocalDateTime.of(2026, 3, 14, 9, 26, 53, 589_000_000);
+        for (int i = 0; i < 50000; i++) {
+            Patient p = new Patient("P" + (1001 + i), "Patient " + i, 30 + i % 50, "1990-01-01", Gender.Female,
+                    "0917" + i, "Address " + i, now);
+            p.heightCm = i % 2 == 0 ? 160.5 : null;
+            p.progressNotes.add("note for " + i);
+            p.isOutpatientPermanent = i % 7 == 0;
+            DataStore.patients.put(p.id, p);
+        }
+        Patient first = DataStore.patients.get("P1001");
+        first.allergies = "Penicillin — ñ";
+        first.xrayStatus = null;
+        Staff s = new Staff("S2001", "Dr. Cruz", StaffRole.DOCTOR, "Cardiology", now);
+        s.yearsExperience = 12;
+        s.clinicSchedule.put("Monday", new Staff.ScheduleEntry(true, "08:00", "12:00"));
+        DataStore.staff.put(s.id, s);
+        Appointment a = new Appointment("A3001", "P1001", "S2001", now.plusDays(1), "Cardiology", now);
+        a.consultationType = ConsultationType.values()[0];
+        a.notes = "chest pain";
+        DataStore.appointments.put(a.id, a);
+        Bill b = new Bill("B4001", "P1001", 1500.25, now);
+        b.items.add(new BillItem("Consultation", 1500.25));
+        b.paymentMethod = PaymentMethod.CASH;
+        DataStore.bills.put(b.id, b);
+        DataStore.patientStatus.put("P1001", PatientStatus.values()[0]);
+        DataStore.statusHistory.put("P1001", new ArrayList<>());
+        DataStore.statusHistory.get("P1001").add(new StatusHistoryEntry(PatientStatus.values()[0], now, "S2001", "admitted"));
+        DataStore.pCounter.set(60000);
+
+        // 1) Round trip through a file
+        Path file = Files.createTempFile("hpms_snapshot", ".bin");
+        long t0 = System.nanoTime();
+        byte[] data = DataSnapshot.capture(42);
+        DataSnapshot.write(file, data);
+        long writeMs = (System.nanoTime() - t0) / 1_000_000L;
+        DataStore.patients.clear();
+        DataStore.staff.clear();
+        DataStore.appointments.clear();
+        DataStore.bills.clear();
+        DataStore.patientStatus.clear();
+        DataStore.statusHistory.clear();
+        DataStore.pCounter.set(1000);
+        t0 = System.nanoTime();
+        DataSnapshot.Contents c = DataSnapshot.read(file);
+        long readMs = (System.nanoTime() - t0) / 1_000_000L;
+        if (c.changeLogMark != 42) { System.err.println("Mark not kept: " + c.changeLogMark); System.exit(2); }
+        SwingUtilities.invokeAndWait(c::publish);
+        System.out.println("Snapshot of " + DataStore.patients.size() + " patients: " + data.length + " bytes, write "
+                + writeMs + "ms, read " + readMs + "ms");
+
+        Patient p = DataStore.patients.get("P1001");
+        if (DataStore.patients.size() != 50000 || p == null || !"Penicillin — ñ".equals(p.allergies)
+                || p.xrayStatus != null || p.heightCm != 160.5 || !p.isOutpatientPermanent
+                || !now.equals(p.createdAt) || !"note for 0".equals(p.progressNotes.get(0))
+                || DataStore.patients.get("P1002").heightCm != null) {
+            System.err.println("Patient not restored"); System.exit(3);
+        }
+        Staff rs = DataStore.staff.get("S2001");
+        Appointment ra = DataStore.appointments.get("A3001");
+        Bill rb = DataStore.bills.get("B4001");
+        if (rs == null || rs.yearsExperience != 12 || rs.yearsPractice != null || !rs.clinicSchedule.get("Monday").active
+                || ra == null || !"chest pain".equals(ra.notes) || !now.plusDays(1).equals(ra.dateTime)
+                || rb == null || rb.items.size() != 1 || rb.paymentMethod != PaymentMethod.CASH
+                || DataStore.statusHistory.get("P1001").size() != 1) {
+            System.err.println("Staff, appointment, bill or status not restored"); System.exit(4);
+        }
+        if (DataStore.pCounter.get() != 60000) { System.err.println("Counter not restored: " + DataStore.pCounter.get()); System.exit(5); }
+
+        // 2) A damaged file is rejected instead of loading bad data
+        data[data.length / 2] ^= 0x40;
+        DataSnapshot.write(file, data);
+        try {
+            DataSnapshot.read(file);
+            System.err.println("Corrupt snapshot was accepted"); System.exit(6);
+        } catch (java.io.IOException expected) {
+        }
+
+        // 3) Concurrent writers (periodic task and exit hook) never clash on the temporary file
+        byte[] good = DataSnapshot.capture(43);
+        java.util.List<Throwable> errors = java.util.Collections.synchronizedList(new ArrayList<>());
+        Thread[] writers = new Thread[4];
+        for (int i = 0; i < writers.length; i++) {
+            writers[i] = new Thread(() -> {
+                try {
+                    for (int k = 0; k < 10; k++)
+                        DataSnapshot.write(file, good);
+                } catch (Throwable t) {
+                    errors.add(t);
+                }
+            });
+            writers[i].start();
+        }
+        for (Thread t : writers)
+            t.join();
+        String prefix = file.getFileName() + ".";
+        try (java.util.stream.Stream<Path> siblings = Files.list(file.getParent())) {
+            if (!errors.isEmpty() || DataSnapshot.read(file).changeLogMark != 43
+                    || siblings.anyMatch(q -> q.getFileName().toString().startsWith(prefix))) {
+                System.err.println("Concurrent snapshot writes failed: " + errors); System.exit(7);
+            }
+        }
+        Files.deleteIfExists(file);
+
+        System.out.println("Data snapshot tests passed");
+        System.exit(0);
+    }
+}
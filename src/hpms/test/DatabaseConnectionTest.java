@@ -130,6 +130,21 @@ public class DatabaseConnectionTest {
         // Close connection
         DBConnection.closeConnection(conn);
 
+        // Test 5: Pooled connections are reused
+        System.out.println("Test 5: Testing connection pool reuse...");
+        for (int i = 0; i < 20; i++) {
+            DBConnection.closeConnection(DBConnection.getConnection());
+        }
+        hpms.util.ConnectionPool.PoolStats stats = DBConnection.getPoolStats();
+        if (stats != null && stats.created < 20) {
+            System.out.println("✓ Pool reused connections (" + stats.created + " opened for " + stats.borrows + " borrows)");
+        } else {
+            System.out.println("✗ Pool did not reuse connections");
+        }
+        System.out.println("  - " + stats);
+
+        System.out.println();
+
         System.out.println("=================================");
         System.out.println("All tests completed!");
         System.out.println("=================================");
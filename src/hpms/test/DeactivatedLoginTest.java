@@ -0,0 +1,75 @@
+package hpms.test;
+
+import hpms.auth.*;
+import hpms.model.UserRole;
+import hpms.util.DBConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+
+public class DeactivatedLoginTest {
+    public static void main(String[] args) throws Exception {
+        System.out.println("Starting deactivated login tests...");
+        String salt = PasswordUtil.generateSalt();
+        String hash = PasswordUtil.hash("Secret#123", salt);
+
+        // 1) A cached active row signs in through every entry point
+        UserCache.put(new UserCache.Entry("deact_cached", hash, salt, UserRole.NURSE, "ACTIVE", null));
+        String token = AuthServiceDB.openSession("deact_cached", "Secret#123");
+        if (!"Login successful".equals(AuthService.login("deact_cached", "Secret#123").get(0))
+                || !"Login successful".equals(AuthServiceDB.login("deact_cached", "Secret#123").get(0))
+                || token == null) {
+            System.err.println("Active user refused"); System.exit(2);
+        }
+        SessionRegistry.close(token);
+
+        // 2) A cached deactivated row is refused by every entry point
+        UserCache.put(new UserCache.Entry("deact_cached", hash, salt, UserRole.NURSE, "DEACTIVATED", null));
+        if (!AuthService.login("deact_cached", "Secret#123").get(0).startsWith("Error: Account is deactivated")
+                || !AuthServiceDB.login("deact_cached", "Secret#123").get(0).startsWith("Error: Account is deactivated")
+                || AuthServiceDB.openSession("deact_cached", "Secret#123") != null) {
+            System.err.println("Deactivated cached user signed in"); System.exit(3);
+        }
+        UserCache.invalidate("deact_cached");
+
+        // 3) Deactivating writes the status before dropping the cached row, so the reload refuses the user
+        try (Connection conn = DBConnection.getConnection()) {
+            if (conn == null) { System.err.println("No database"); System.exit(4); }
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO users (username, password, salt, role, status) VALUES (?, ?, ?, ?, 'ACTIVE')")) {
+                stmt.setString(1, "deact_db");
+                stmt.setString(2, hash);
+                stmt.setString(3, salt);
+                stmt.setString(4, UserRole.NURSE.name());
+                stmt.executeUpdate();
+            }
+        }
+        try {
+            token = AuthServiceDB.openSession("deact_db", "Secret#123");
+            if (token == null || UserCache.size() == 0) { System.err.println("Active user refused"); System.exit(5); }
+            if (!AuthServiceDB.setStatus("deact_db", "DEACTIVATED")) { System.err.println("Status not saved"); System.exit(6); }
+            if (SessionRegistry.get(token) != null) { System.err.println("Session left open"); System.exit(7); }
+            if (!AuthService.login("deact_db", "Secret#123").get(0).startsWith("Error: Account is deactivated")
+                    || !AuthServiceDB.login("deact_db", "Secret#123").get(0).startsWith("Error: Account is deactivated")
+                    || AuthServiceDB.openSession("deact_db", "Secret#123") != null) {
+                System.err.println("Deactivated user signed in after invalidation"); System.exit(8);
+            }
+
+            // 4) Reactivating lets the user back in
+            if (!AuthServiceDB.setStatus("deact_db", "ACTIVE")
+                    || !"Login successful".equals(AuthServiceDB.login("deact_db", "Secret#123").get(0))) {
+                System.err.println("Reactivated user refused"); System.exit(9);
+            }
+        } finally {
+            try (Connection conn = DBConnection.getConnection();
+                    PreparedStatement stmt = conn.prepareStatement("DELETE FROM users WHERE username = ?")) {
+                stmt.setString(1, "deact_db");
+                stmt.executeUpdate();
+            }
+            UserCache.invalidate("deact_db");
+        }
+
+        System.out.println("Deactivated login tests passed");
+        System.exit(0);
+    }
+}
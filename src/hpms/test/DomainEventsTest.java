@@ -0,0 +1,68 @@
+package hpms.test;
+
+import hpms.util.DomainEvents;
+import hpms.util.DomainEvents.Event;
+import hpms.util.DomainEvents.Kind;
+import hpms.util.DomainEvents.Op;
+
+import javax.swing.SwingUtilities;
+import java.util.ArrayList;
+import java.util.List;
+
+public class DomainEventsTest {
+    public static void main(String[] args) throws Exception {
+        System.out.println("Starting domain event tests...");
+        List<List<Event>> batches = new ArrayList<>();
+        DomainEvents.subscribe(batches::add, Kind.PATIENT, Kind.APPOINTMENT, Kind.BILL);
+
+        // 1) Events published in one EDT frame arrive as one coalesced batch
+        SwingUtilities.invokeAndWait(() -> {
+            DomainEvents.created(Kind.APPOINTMENT, "A1");
+            DomainEvents.updated(Kind.APPOINTMENT, "A1");
+            DomainEvents.updated(Kind.PATIENT, "P1");
+            DomainEvents.updated(Kind.PATIENT, "P1");
+            DomainEvents.created(Kind.BILL, "B1");
+            DomainEvents.deleted(Kind.BILL, "B1");
+            DomainEvents.updated(Kind.STAFF, "S1"); // not subscribed
+        });
+        SwingUtilities.invokeAndWait(() -> { });
+        if (batches.size() != 1) { System.err.println("Expected one batch, got " + batches); System.exit(2); }
+        List<Event> b = batches.get(0);
+        if (b.size() != 2 || b.get(0).op != Op.CREATED || !"A1".equals(b.get(0).id) || !"P1".equals(b.get(1).id)) {
+            System.err.println("Coalescing failed: " + b); System.exit(3);
+        }
+
+        // 2) A reload supersedes row events of the same kind
+        batches.clear();
+        SwingUtilities.invokeAndWait(() -> {
+            DomainEvents.updated(Kind.APPOINTMENT, "A2");
+            DomainEvents.reloaded(Kind.APPOINTMENT);
+            DomainEvents.updated(Kind.APPOINTMENT, "A3");
+            DomainEvents.updated(Kind.PATIENT, "P2");
+        });
+        SwingUtilities.invokeAndWait(() -> { });
+        b = batches.isEmpty() ? new ArrayList<>() : batches.get(0);
+        if (b.size() != 2 || b.get(0).op != Op.RELOADED || b.get(0).kind != Kind.APPOINTMENT || !"P2".equals(b.get(1).id)) {
+            System.err.println("Reload not applied: " + b); System.exit(4);
+        }
+
+        // 3) Publishing from many threads still delivers every record once
+        batches.clear();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final int base = t * 1000;
+            Thread th = new Thread(() -> { for (int i = 0; i < 1000; i++) DomainEvents.updated(Kind.PATIENT, "P" + (base + i)); });
+            threads.add(th);
+            th.start();
+        }
+        for (Thread th : threads) th.join();
+        SwingUtilities.invokeAndWait(() -> { });
+        int total = 0;
+        for (List<Event> batch : batches) total += batch.size();
+        if (total != 4000) { System.err.println("Lost events: " + total); System.exit(5); }
+        System.out.println("Delivered 4000 events in " + batches.size() + " batch(es)");
+
+        System.out.println("Domain event tests passed");
+        System.exit(0);
+    }
+}
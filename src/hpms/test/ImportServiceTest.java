@@ -0,0 +1,80 @@
+package hpms.test;
+
+import hpms.model.*;
+import hpms.service.ImportService;
+import hpms.util.CsvReader;
+import hpms.util.DataStore;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.util.*;
+
+public class ImportServiceTest {
+    public static void main(String[] args) throws Exception {
+        System.out.println("Starting import service tests...");
+
+        // 1) Quoted fields with commas, quotes and line breaks
+        CsvReader r = new CsvReader(new StringReader("a,\"b,1\",\"say \"\"hi\"\"\"\r\n\r\n\"two\nlines\",,x\n"));
+        List<String> first = r.next(), second = r.next();
+        if (!Arrays.asList("a", "b,1", "say \"hi\"").equals(first) || !Arrays.asList("two\nlines", "", "x").equals(second)
+                || r.recordLine() != 3 || r.next() != null) {
+            System.err.println("CSV parsing wrong: " + first + " " + second); System.exit(2);
+        }
+
+        // 2) Dry run: validation, duplicates and the rejects file, without a database
+        DataStore.patients.clear();
+        DataStore.patients.put("P1", new Patient("P1", "Existing", 40, "1985-01-01", Gender.Male, "09170000000",
+                "Old St", LocalDateTime.now()));
+        Path dir = Files.createTempDirectory("hpms-import");
+        Path csv = dir.resolve("patients.csv");
+        StringBuilder sb = new StringBuilder("Name,Age,Birthday,Gender,Contact,Address,Patient Type,Email\n");
+        for (int i = 0; i < 2500; i++)
+            sb.append("Patient ").append(letters(i)).append(",30,1995-05-05,F,0918").append(String.format("%07d", i))
+                    .append(",\"12 Main St, Town\",outpatient,\n");
+        sb.append("Bad Age,abc,1995-05-05,M,09990000001,Addr,INPATIENT,\n");
+        sb.append("Dup Existing,30,1995-05-05,M,09170000000,Addr,INPATIENT,\n");
+        sb.append("Dup Row,30,1995-05-05,M,09180000000,Addr,INPATIENT,\n");
+        sb.append("No Type,30,1995-05-05,M,09990000002,Addr,,\n");
+        sb.append("Bad Email,30,1995-05-05,M,09990000003,Addr,EMERGENCY,not-an-email\n");
+        Files.write(csv, sb.toString().getBytes(StandardCharsets.UTF_8));
+
+        List<ImportService.Stats> updates = new ArrayList<>();
+        List<String> out = ImportService.importPatients(csv, true, updates::add);
+        if (!out.get(0).equals("Dry run: 2500 patients would be imported, rejected 5") || !out.get(1).startsWith("Throughput: ")
+                || updates.size() != 3 || DataStore.patients.size() != 1) {
+            System.err.println("Dry run result wrong: " + out + " updates=" + updates.size()); System.exit(3);
+        }
+        List<String> rejects = Files.readAllLines(dir.resolve("patients.csv.rejected.csv"), StandardCharsets.UTF_8);
+        if (rejects.size() != 6 || !rejects.get(0).startsWith("row,line,error,Name")
+                || !rejects.get(1).startsWith("2501,2502,'abc' is not a valid age")
+                || !rejects.get(2).contains("Duplicate contact") || !rejects.get(3).contains("Duplicate contact")
+                || !rejects.get(4).contains("Missing patient_type") || !rejects.get(5).contains("not a valid email")) {
+            System.err.println("Rejects file wrong: " + rejects); System.exit(4);
+        }
+
+        // 3) Header problems and a real import without a database
+        Path bad = dir.resolve("bad.csv");
+        Files.write(bad, "name,age\nX,3\n".getBytes(StandardCharsets.UTF_8));
+        if (!ImportService.importPatients(bad, true, null).get(0).equals("Error: Missing column birthday")) {
+            System.err.println("Missing column not reported"); System.exit(5);
+        }
+        if (!ImportService.importPatients(csv, false, null).get(0).equals("Error: Database unavailable")) {
+            System.err.println("Database check missing"); System.exit(6);
+        }
+
+        System.out.println("Import service tests passed");
+        System.exit(0);
+    }
+
+    /** Names may not contain digits */
+    private static String letters(int n) {
+        StringBuilder s = new StringBuilder();
+        do {
+            s.append((char) ('a' + n % 26));
+            n /= 26;
+        } while (n > 0);
+        return s.toString();
+    }
+}
@@ -0,0 +1,61 @@
+package hpms.test;
+
+import hpms.auth.PasswordUtil;
+import hpms.config.DatabaseConfig;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+public class PasswordUtilTest {
+    public static void main(String[] args) throws Exception {
+        System.out.println("Starting password hashing tests...");
+
+        // 1) New hashes carry their parameters and verify
+        String salt = PasswordUtil.generateSalt();
+        String h = PasswordUtil.hash("s3cret!", salt);
+        String prefix = "$" + DatabaseConfig.PASSWORD_HASH_ALGORITHM + "$" + DatabaseConfig.PASSWORD_HASH_ITERATIONS + "$" + salt + "$";
+        if (h == null || !h.startsWith(prefix)) {
+            System.err.println("Encoded hash wrong: " + h); System.exit(2);
+        }
+        if (!PasswordUtil.verify("s3cret!", h, null) || PasswordUtil.verify("s3cret?", h, null)
+                || PasswordUtil.needsRehash(h)) {
+            System.err.println("Current hash not verified"); System.exit(3);
+        }
+
+        // 2) Hashes stored before the encoded format still verify, and are due for a rehash
+        PBEKeySpec spec = new PBEKeySpec("admin123".toCharArray(), Base64.getDecoder().decode(salt), 10000, 256);
+        String legacy = Base64.getEncoder().encodeToString(
+                SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded());
+        if (!PasswordUtil.verify("admin123", legacy, salt) || PasswordUtil.verify("admin124", legacy, salt)
+                || !PasswordUtil.needsRehash(legacy)) {
+            System.err.println("Legacy hash handling wrong"); System.exit(4);
+        }
+
+        // 3) Weaker or other-algorithm hashes verify and need a rehash; junk never verifies
+        String weak = PasswordUtil.hash("pw", salt, DatabaseConfig.PASSWORD_HASH_ALGORITHM, 1000);
+        String other = PasswordUtil.hash("pw", salt, "pbkdf2-sha1", DatabaseConfig.PASSWORD_HASH_ITERATIONS);
+        if (!PasswordUtil.verify("pw", weak, null) || !PasswordUtil.needsRehash(weak)
+                || !PasswordUtil.verify("pw", other, null) || !PasswordUtil.needsRehash(other)) {
+            System.err.println("Outdated parameters not detected"); System.exit(5);
+        }
+        if (PasswordUtil.hash("pw", salt, "md5", 1) != null || PasswordUtil.verify("pw", "$md5$1$" + salt + "$AAAA", null)
+                || PasswordUtil.verify("pw", "$pbkdf2-sha256$x$y", null) || PasswordUtil.verify("pw", null, salt)) {
+            System.err.println("Malformed hashes accepted"); System.exit(6);
+        }
+
+        // 4) Async verification of a burst completes without blocking the caller
+        List<CompletableFuture<Boolean>> burst = new ArrayList<>();
+        for (int i = 0; i < 8; i++)
+            burst.add(PasswordUtil.verifyAsync(i % 2 == 0 ? "pw" : "nope", weak, null));
+        for (int i = 0; i < burst.size(); i++) {
+            if (burst.get(i).get() != (i % 2 == 0)) {
+                System.err.println("Async verify wrong at " + i); System.exit(7);
+            }
+        }
+
+        System.out.println("Password hashing tests passed");
+        System.exit(0);
+    }
+}
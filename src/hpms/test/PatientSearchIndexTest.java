@@ -0,0 +1,66 @@
+package hpms.test;
+
+import hpms.model.Gender;
+import hpms.model.Patient;
+import hpms.util.PatientSearchIndex;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class PatientSearchIndexTest {
+    public static void main(String[] args) {
+        System.out.println("Starting patient search index tests...");
+        List<Patient> all = new ArrayList<>();
+        all.add(patient("P1001", "José Dela Cruz", "09171234567 | jose.cruz@example.com", "12 Rizal St, Manila"));
+        all.add(patient("P1002", "Maria Santos", "0918-765-4321", "45 Mabini Ave, Cebu"));
+        all.add(patient("P1003", "Mario Santiago", "09190000000", "7 Luna Rd, Davao"));
+        PatientSearchIndex.rebuild(all);
+
+        // 1) Accents are ignored and the last term matches as a prefix
+        if (!PatientSearchIndex.search("jose dela cr").contains("P1001")) { System.err.println("Prefix search failed"); System.exit(2); }
+        // 2) One typo is tolerated on longer terms; short terms stay exact
+        if (!PatientSearchIndex.search("santso").contains("P1002")) { System.err.println("Fuzzy search failed"); System.exit(3); }
+        if (PatientSearchIndex.search("mar").size() != 2 || !PatientSearchIndex.search("mab").contains("P1002")) { System.err.println("Short prefix search failed"); System.exit(4); }
+        // Fragments of 3+ characters match inside a term, as the old substring filter did
+        if (!PatientSearchIndex.search("antia").contains("P1003") || !PatientSearchIndex.search("ruz").contains("P1001")
+                || PatientSearchIndex.search("uz").contains("P1001")) { System.err.println("Substring search failed"); System.exit(4); }
+        // 3) IDs, phone digits and email are searchable
+        if (!PatientSearchIndex.search("1003").contains("P1003") || !PatientSearchIndex.search("09187654321").contains("P1002")) { System.err.println("ID/phone search failed"); System.exit(5); }
+        List<String> dup = PatientSearchIndex.likelyDuplicates("Jose Cruz", "", "JOSE.CRUZ@example.com", 5);
+        if (dup.isEmpty() || !dup.get(0).equals("P1001")) { System.err.println("Duplicate not found: " + dup); System.exit(6); }
+        dup = PatientSearchIndex.likelyDuplicates("Someone Else", "0918 765 4321", null, 5);
+        if (dup.size() != 1 || !dup.get(0).equals("P1002")) { System.err.println("Phone duplicate not found: " + dup); System.exit(7); }
+
+        // 4) Re-indexing after an edit drops the old terms
+        Patient maria = all.get(1);
+        maria.name = "Maria Reyes";
+        PatientSearchIndex.index(maria);
+        if (PatientSearchIndex.search("santos").contains("P1002") || !PatientSearchIndex.search("reyes").contains("P1002")) { System.err.println("Incremental update failed"); System.exit(8); }
+        PatientSearchIndex.remove("P1003");
+        if (!PatientSearchIndex.search("santiago").isEmpty()) { System.err.println("Remove failed"); System.exit(9); }
+
+        // 5) Duplicate lookups stay in the millisecond range on a large index
+        String[] first = {"Ana", "Juan", "Pedro", "Luz", "Carmen", "Ramon", "Elena", "Miguel", "Rosa", "Andres"};
+        String[] last = {"Garcia", "Reyes", "Ramos", "Mendoza", "Torres", "Flores", "Gonzales", "Bautista", "Villanueva", "Aquino"};
+        List<Patient> big = new ArrayList<>();
+        for (int i = 0; i < 200000; i++)
+            big.add(patient("P" + (10000 + i), first[i % 10] + " " + last[(i / 10) % 10] + " " + (char) ('a' + i % 26) + "x" + (i % 997),
+                    "09" + (100000000 + i), i + " Street"));
+        PatientSearchIndex.rebuild(big);
+        long t0 = System.nanoTime();
+        int runs = 200;
+        for (int i = 0; i < runs; i++)
+            PatientSearchIndex.likelyDuplicates("Carmen Villanuev", "09" + (100000000 + i * 7), null, 5);
+        double avgMs = (System.nanoTime() - t0) / 1e6 / runs;
+        System.out.println(String.format("likelyDuplicates avg %.2fms over %d patients", avgMs, PatientSearchIndex.size()));
+        if (avgMs > 50) { System.err.println("Duplicate lookup too slow"); System.exit(10); }
+
+        System.out.println("Patient search index tests passed");
+        System.exit(0);
+    }
+
+    private static Patient patient(String id, String name, String contact, String address) {
+        return new Patient(id, name, 30, "1995-01-01", Gender.Male, contact, address, LocalDateTime.now());
+    }
+}
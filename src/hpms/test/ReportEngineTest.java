@@ -0,0 +1,102 @@
+package hpms.test;
+
+import hpms.model.Bill;
+import hpms.service.ReportEngine;
+import hpms.service.ReportService;
+import hpms.util.DataStore;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.zip.ZipFile;
+
+public class ReportEngineTest {
+    public static void main(String[] args) throws Exception {
+        System.out.println("Starting report engine tests...");
+        DataStore.bills.clear();
+        LocalDateTime start = LocalDateTime.of(2023, 1, 1, 8, 0);
+        Map<String, Bill> bills = new LinkedHashMap<>();
+        double expected = 0;
+        int inYear = 0;
+        for (int i = 0; i < 20000; i++) {
+            Bill b = new Bill("B" + i, "P" + (i % 50), i % 100, start.plusHours(i));
+            bills.put(b.id, b);
+            if (b.createdAt.getYear() == 2023) {
+                expected += b.total;
+                inYear++;
+            }
+        }
+        DataStore.bills.replaceContents(bills);
+        LocalDate from = LocalDate.of(2023, 1, 1), to = LocalDate.of(2024, 1, 1);
+        Path dir = Files.createTempDirectory("hpms-report");
+
+        // 1) Parallel totals
+        ReportEngine.Totals t = ReportService.billingTotals(from, to);
+        if (t.rows != inYear || Math.abs(t.amount - expected) > 1e-6) {
+            System.err.println("Totals wrong: " + t.rows + " " + t.amount); System.exit(2);
+        }
+
+        // 2) CSV keeps record order and reports progress up to the total
+        Path csv = dir.resolve("bills.csv");
+        int[] last = new int[1];
+        ReportEngine.Totals ct = ReportService.exportBills(from, to, ReportEngine.Format.CSV, csv, null,
+                (done, total) -> last[0] = done);
+        List<String> lines = Files.readAllLines(csv, StandardCharsets.UTF_8);
+        if (ct.rows != inYear || lines.size() != inYear + 1 || !lines.get(0).startsWith("Bill ID,")
+                || !lines.get(1).startsWith("B0,") || !lines.get(inYear).startsWith("B" + (inYear - 1) + ",")
+                || last[0] != bills.size()) {
+            System.err.println("CSV export wrong: " + lines.size() + " lines"); System.exit(3);
+        }
+
+        // 3) XLSX is a workbook holding the same rows
+        Path xlsx = dir.resolve("bills.xlsx");
+        ReportService.exportBills(from, to, ReportEngine.Format.XLSX, xlsx, null, null);
+        try (ZipFile zip = new ZipFile(xlsx.toFile())) {
+            if (zip.getEntry("xl/workbook.xml") == null) { System.err.println("Workbook missing"); System.exit(4); }
+            String sheet = new String(readAll(zip.getInputStream(zip.getEntry("xl/worksheets/sheet1.xml"))),
+                    StandardCharsets.UTF_8);
+            if (!sheet.contains("<row r=\"" + (inYear + 1) + "\">") || sheet.contains("<row r=\"" + (inYear + 2) + "\">")) {
+                System.err.println("Sheet rows wrong"); System.exit(5);
+            }
+        }
+
+        // 4) Cancelling stops the export and leaves no file
+        Path cancelled = dir.resolve("cancelled.csv");
+        ReportEngine.Job job = new ReportEngine.Job();
+        try {
+            ReportService.exportBills(from, to, ReportEngine.Format.CSV, cancelled, job, (done, total) -> job.cancel());
+            System.err.println("Cancel ignored"); System.exit(6);
+        } catch (CancellationException expectedCancel) {
+            // expected
+        }
+        if (Files.exists(cancelled) || Files.exists(dir.resolve("cancelled.csv.part"))) {
+            System.err.println("Cancelled export left a file"); System.exit(7);
+        }
+
+        // 5) The on-screen bill table keeps every bill in order with the full total
+        ReportEngine.Rows table = ReportService.billingTable(null);
+        double all = 0;
+        for (Bill b : bills.values())
+            all += b.total;
+        if (table.rows.size() != bills.size() || !"B0".equals(table.rows.get(0)[0])
+                || !("B" + (bills.size() - 1)).equals(table.rows.get(bills.size() - 1)[0])
+                || Math.abs(table.totals.amount - all) > 1e-6) {
+            System.err.println("Bill table wrong: " + table.rows.size() + " " + table.totals.amount); System.exit(8);
+        }
+
+        System.out.println("Report engine tests passed");
+        System.exit(0);
+    }
+
+    private static byte[] readAll(java.io.InputStream in) throws java.io.IOException {
+        java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream();
+        byte[] buf = new byte[8192];
+        int n;
+        while ((n = in.read(buf)) > 0)
+            out.write(buf, 0, n);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,64 @@
+package hpms.test;
+
+import hpms.model.*;
+import hpms.service.SchedulingEngine;
+import hpms.util.DataStore;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+
+public class SchedulingEngineTest {
+    public static void main(String[] args) {
+        System.out.println("Starting scheduling engine tests...");
+        DataStore.appointments.clear();
+        DataStore.staff.clear();
+        DataStore.leaveRequests.clear();
+
+        Staff doc = new Staff("S9001", "Dr Slot", StaffRole.DOCTOR, "Cardiology", LocalDateTime.now());
+        doc.clinicSchedule.put("Monday", new Staff.ScheduleEntry(true, "09:00", "12:00"));
+        DataStore.staff.put(doc.id, doc);
+        Staff other = new Staff("S9002", "Dr Other", StaffRole.DOCTOR, "Cardiology", LocalDateTime.now());
+        DataStore.staff.put(other.id, other);
+
+        LocalDate monday = LocalDate.now().plusWeeks(1).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        Appointment a = new Appointment("A9001", "P1", doc.id, monday.atTime(9, 0), "Cardiology", LocalDateTime.now());
+        a.consultationType = ConsultationType.EMERGENCY; // 30 minutes
+        DataStore.appointments.put(a.id, a);
+
+        // 1) First slot follows the 30-minute booking; slots stay inside clinic hours
+        List<SchedulingEngine.FreeSlot> slots = SchedulingEngine.nextFreeSlots(doc.id, monday.atStartOfDay(), ConsultationType.FOLLOW_UP, 3);
+        if (slots.size() != 3 || !slots.get(0).start.equals(monday.atTime(9, 30))) { System.err.println("Unexpected slots: " + slots); System.exit(2); }
+        if (!slots.get(1).start.equals(monday.atTime(10, 30)) || !slots.get(2).start.toLocalDate().equals(monday.plusWeeks(1))) { System.err.println("Clinic hours ignored: " + slots); System.exit(3); }
+
+        // 2) Approved leave skips the whole day
+        LeaveRequest leave = new LeaveRequest(doc.id, doc.name, "DOCTOR", "Cardiology", LeaveRequest.LeaveType.VACATION, monday, monday, "test");
+        leave.status = LeaveRequest.LeaveStatus.APPROVED;
+        DataStore.leaveRequests.put(leave.id, leave);
+        slots = SchedulingEngine.nextFreeSlots(doc.id, monday.atStartOfDay(), ConsultationType.FOLLOW_UP, 1);
+        if (slots.isEmpty() || !slots.get(0).start.toLocalDate().equals(monday.plusWeeks(1))) { System.err.println("Leave not respected: " + slots); System.exit(4); }
+
+        // 3) Department search merges doctors by start time (default hours start at 08:00)
+        slots = SchedulingEngine.nextFreeSlotsInDepartment("Cardiology", monday.atStartOfDay(), ConsultationType.TELEHEALTH, 2);
+        if (slots.size() != 2 || !slots.get(0).staffId.equals(other.id) || !slots.get(0).start.equals(monday.atTime(8, 0))) { System.err.println("Department merge wrong: " + slots); System.exit(5); }
+
+        // 4) Latency: a lookup against a busy calendar stays under a millisecond on average
+        for (int i = 0; i < 2000; i++) {
+            LocalDateTime t = monday.plusDays(i / 16).atTime(8, 0).plusMinutes(30L * (i % 16));
+            Appointment b = new Appointment("B" + i, "P2", other.id, t, "Cardiology", LocalDateTime.now());
+            b.consultationType = ConsultationType.TELEHEALTH;
+            DataStore.appointments.put(b.id, b);
+        }
+        int runs = 1000;
+        long t0 = System.nanoTime();
+        for (int i = 0; i < runs; i++)
+            SchedulingEngine.nextFreeSlots(other.id, monday.atStartOfDay(), ConsultationType.FOLLOW_UP, 5);
+        double avgMicros = (System.nanoTime() - t0) / 1000.0 / runs;
+        System.out.println("nextFreeSlots avg " + String.format("%.1f", avgMicros) + "us");
+        if (avgMicros > 1000) { System.err.println("Free-slot search too slow"); System.exit(6); }
+
+        System.out.println("Scheduling engine tests OK");
+    }
+}
@@ -0,0 +1,40 @@
+package hpms.test;
+
+import hpms.util.SchemaMigrator;
+import hpms.util.SchemaMigrator.Migration;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class SchemaMigratorTest {
+    public static void main(String[] args) throws Exception {
+        System.out.println("Starting schema migration script tests...");
+        // 1) The shipped scripts are found from any working directory, ordered and split into statements
+        Path located = SchemaMigrator.locate();
+        List<Migration> shipped = SchemaMigrator.scan(located);
+        if (shipped.isEmpty()) { System.err.println("No migration scripts found at " + located); System.exit(2); }
+        for (int i = 0; i < shipped.size(); i++) {
+            Migration m = shipped.get(i);
+            if (m.version != i + 1) { System.err.println("Migration versions must be 1..n without gaps: " + shipped); System.exit(3); }
+            if (m.statements.isEmpty()) { System.err.println(m + " has no statements"); System.exit(4); }
+            for (String s : m.statements)
+                if (s.endsWith(";") || s.startsWith("--")) { System.err.println(m + " statement not split cleanly: " + s); System.exit(5); }
+        }
+
+        // 2) Multi-line statements, comments and "-- optional" markers
+        Path dir = Files.createTempDirectory("hpms_migrations");
+        Files.write(dir.resolve("V2__second.sql"), "-- optional\nALTER TABLE t MODIFY COLUMN old TEXT NULL;\nUPDATE t SET a = 'x;y';\n".getBytes("UTF-8"));
+        Files.write(dir.resolve("V1__first_step.sql"), "-- comment\nCREATE TABLE IF NOT EXISTS t (\n  id INT,\n  a TEXT\n);\n\nALTER TABLE t ADD COLUMN b INT;".getBytes("UTF-8"));
+        Files.write(dir.resolve("notes.txt"), "ignored".getBytes("UTF-8"));
+        List<Migration> ms = SchemaMigrator.scan(dir);
+        if (ms.size() != 2 || ms.get(0).version != 1 || !"first step".equals(ms.get(0).description)) { System.err.println("Scan failed: " + ms); System.exit(6); }
+        if (ms.get(0).statements.size() != 2 || !ms.get(0).statements.get(0).contains("a TEXT") || !ms.get(0).optional.isEmpty()) { System.err.println("Split failed: " + ms.get(0).statements); System.exit(7); }
+        if (!ms.get(1).optional.contains(0) || ms.get(1).optional.contains(1) || !ms.get(1).statements.get(1).contains("'x;y'")) { System.err.println("Optional marker failed"); System.exit(8); }
+        if (ms.get(0).checksum.length() != 64 || ms.get(0).checksum.equals(ms.get(1).checksum)) { System.err.println("Checksum failed"); System.exit(9); }
+
+        System.out.println(shipped.size() + " migration scripts OK");
+        System.out.println("Schema migration script tests passed");
+        System.exit(0);
+    }
+}
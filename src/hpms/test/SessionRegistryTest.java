@@ -0,0 +1,76 @@
+package hpms.test;
+
+import hpms.auth.*;
+import hpms.model.UserRole;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+public class SessionRegistryTest {
+    public static void main(String[] args) throws Exception {
+        System.out.println("Starting session registry tests...");
+
+        // 1) Tokens resolve to their sessions; role checks need no database
+        String doc = SessionRegistry.open(new AuthSession("2001", "2001", "Dr. Cruz", UserRole.DOCTOR, "Cardiology"));
+        String admin = SessionRegistry.open(new AuthSession("admin", "admin", "Administrator", UserRole.ADMIN, ""));
+        if (doc.equals(admin) || doc.length() < 40 || !"Dr. Cruz".equals(SessionRegistry.get(doc).fullName)
+                || !SessionRegistry.hasRole(doc, UserRole.DOCTOR, UserRole.NURSE)
+                || SessionRegistry.hasRole(doc, UserRole.ADMIN) || SessionRegistry.get("forged") != null) {
+            System.err.println("Lookup wrong"); System.exit(2);
+        }
+        try {
+            SessionRegistry.require(doc, UserRole.ADMIN);
+            System.err.println("Doctor passed admin check"); System.exit(3);
+        } catch (RoleGuard.AccessDeniedException expected) {
+        }
+        if (SessionRegistry.require(admin, UserRole.ADMIN).role != UserRole.ADMIN) {
+            System.err.println("Admin check failed"); System.exit(3);
+        }
+
+        // 2) Many threads signing in and checking at once
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> checks = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            String user = "n" + (i % 20);
+            checks.add(pool.submit(() -> {
+                String t = SessionRegistry.open(new AuthSession(user, user, user, UserRole.NURSE, "ER"));
+                return SessionRegistry.hasRole(t, UserRole.NURSE) && SessionRegistry.get(t).username.equals(user);
+            }));
+        }
+        for (Future<Boolean> f : checks)
+            if (!f.get()) { System.err.println("Concurrent lookup wrong"); System.exit(4); }
+        pool.shutdown();
+        if (SessionRegistry.size() != 402 || SessionRegistry.closeUser("n3") != 20 || SessionRegistry.size() != 382) {
+            System.err.println("closeUser wrong: " + SessionRegistry.size()); System.exit(5);
+        }
+
+        // 3) Idle sessions expire; recently used ones stay
+        Thread.sleep(30);
+        SessionRegistry.get(doc);
+        int expired = SessionRegistry.expireIdle(20);
+        if (expired != 381 || SessionRegistry.get(doc) == null || SessionRegistry.get(admin) != null) {
+            System.err.println("Idle expiry wrong: " + expired); System.exit(6);
+        }
+        SessionRegistry.close(doc);
+        if (SessionRegistry.get(doc) != null || SessionRegistry.size() != 0) {
+            System.err.println("Close failed"); System.exit(7);
+        }
+
+        // 4) RoleGuard's desktop session is registered too
+        RoleGuard.setSession(new AuthSession("c1", "c1", "Cashier", UserRole.CASHIER, ""));
+        String t = RoleGuard.getToken();
+        if (!SessionRegistry.hasRole(t, UserRole.CASHIER)) { System.err.println("RoleGuard not registered"); System.exit(8); }
+        RoleGuard.clearSession();
+        if (SessionRegistry.get(t) != null || RoleGuard.hasSession()) { System.err.println("RoleGuard not cleared"); System.exit(8); }
+
+        // 5) Cached users rows are served from memory until invalidated
+        UserCache.put(new UserCache.Entry("alice", "h", "s", UserRole.NURSE, "ACTIVE", null));
+        UserCache.Entry e = UserCache.get("alice");
+        if (e == null || e.role != UserRole.NURSE || e.isDeactivated()) { System.err.println("Cache miss"); System.exit(9); }
+        UserCache.invalidate("alice");
+        if (UserCache.size() != 0) { System.err.println("Invalidate failed"); System.exit(9); }
+
+        System.out.println("Session registry tests passed");
+        System.exit(0);
+    }
+}
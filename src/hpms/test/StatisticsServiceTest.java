@@ -0,0 +1,85 @@
+package hpms.test;
+
+import hpms.model.*;
+import hpms.service.ReportService;
+import hpms.service.StatisticsService;
+import hpms.util.DataStore;
+import hpms.util.DomainEvents;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+public class StatisticsServiceTest {
+    public static void main(String[] args) {
+        System.out.println("Starting statistics service tests...");
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate today = now.toLocalDate();
+        DataStore.appointments.clear();
+        DataStore.bills.clear();
+        DataStore.rooms.clear();
+
+        // 1) Counts built from what is already loaded
+        put(new Appointment("A1", "P1", "S1", now, "Cardiology", now));
+        put(new Appointment("A2", "P2", "S1", now.minusDays(3), "Cardiology", now));
+        put(new Appointment("A3", "P3", "S2", now, "Pediatrics", now));
+        Bill b1 = new Bill("B1", "P1", 100, now);
+        Bill b2 = new Bill("B2", "P2", 50, now);
+        DataStore.bills.put(b1.id, b1);
+        DataStore.bills.put(b2.id, b2);
+        if (StatisticsService.appointmentsOn(today) != 2
+                || !Arrays.asList("A1", "A3").equals(StatisticsService.appointmentIdsOn(today))) {
+            System.err.println("Today's appointments wrong: " + StatisticsService.appointmentIdsOn(today)); System.exit(2);
+        }
+        if (!Integer.valueOf(2).equals(StatisticsService.appointmentsByDepartment().get("Cardiology"))
+                || !Integer.valueOf(1).equals(StatisticsService.appointmentsByDepartment(today).get("Cardiology"))) {
+            System.err.println("Department counts wrong: " + StatisticsService.appointmentsByDepartment()); System.exit(3);
+        }
+        if (StatisticsService.billCount() != 2 || StatisticsService.billedTotal() != 150 || StatisticsService.paidTotal() != 0) {
+            System.err.println("Bill totals wrong"); System.exit(4);
+        }
+
+        // 2) Published mutations move an entity between counters
+        b1.paid = true;
+        b1.paymentMethod = PaymentMethod.CARD;
+        DomainEvents.updated(DomainEvents.Kind.BILL, b1.id);
+        Appointment a2 = DataStore.appointments.get("A2");
+        a2.dateTime = now;
+        a2.department = "Pediatrics";
+        DomainEvents.updated(DomainEvents.Kind.APPOINTMENT, a2.id);
+        DataStore.appointments.remove("A3");
+        DomainEvents.deleted(DomainEvents.Kind.APPOINTMENT, "A3");
+        StatisticsService.BillTotals card = StatisticsService.bills(today, PaymentMethod.CARD, true);
+        if (card.count != 1 || card.amount != 100 || StatisticsService.paidTotal() != 100
+                || StatisticsService.bills(today, null, false).count != 1) {
+            System.err.println("Bill update not applied"); System.exit(5);
+        }
+        Map<String, Integer> depts = StatisticsService.appointmentsByDepartment();
+        if (StatisticsService.appointmentsOn(today) != 2 || depts.get("Cardiology") != 1 || depts.get("Pediatrics") != 1) {
+            System.err.println("Appointment update not applied: " + depts); System.exit(6);
+        }
+        if (!ReportService.billingOverviewDaily().equals(Arrays.asList("Total: 150.00", "Paid: 1", "Pending: 1"))
+                || !ReportService.appointmentSummary().equals(Arrays.asList("Cardiology: 1", "Pediatrics: 1"))) {
+            System.err.println("Report output wrong: " + ReportService.billingOverviewDaily()); System.exit(7);
+        }
+
+        // 3) A bulk write that published nothing is noticed and recounted
+        Map<String, Room> rooms = new LinkedHashMap<>();
+        rooms.put("R1", new Room("R1", RoomStatus.OCCUPIED, "P1"));
+        rooms.put("R2", new Room("R2", RoomStatus.VACANT, null));
+        DataStore.rooms.replaceContents(rooms);
+        if (StatisticsService.occupiedRooms() != 1) { System.err.println("Rooms not recounted"); System.exit(8); }
+        DataStore.bills.replaceContents(Collections.emptyMap());
+        DomainEvents.reloaded(DomainEvents.Kind.BILL);
+        if (StatisticsService.billCount() != 0 || StatisticsService.billedTotal() != 0) {
+            System.err.println("Reload not applied"); System.exit(9);
+        }
+
+        System.out.println("Statistics service tests passed");
+        System.exit(0);
+    }
+
+    private static void put(Appointment a) {
+        DataStore.appointments.put(a.id, a);
+    }
+}
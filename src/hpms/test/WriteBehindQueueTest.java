@@ -0,0 +1,43 @@
+package hpms.test;
+
+import hpms.config.DatabaseConfig;
+import hpms.util.WriteBehindQueue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+public class WriteBehindQueueTest {
+    public static void main(String[] args) throws Exception {
+        System.out.println("Starting write-behind queue tests...");
+        // A fresh journal location, set before DatabaseConfig is loaded
+        System.setProperty("user.home", Files.createTempDirectory("hpms-wbq").toString());
+        Path journal = Paths.get(DatabaseConfig.WRITE_JOURNAL_PATH);
+
+        // 1) Without a database, writes stay queued and their records are reported as pending
+        WriteBehindQueue.submitFor("appointments:A9001", "appointment_db_update A9001",
+                "UPDATE appointments SET notes=? WHERE id=?", "moved", "A9001");
+        WriteBehindQueue.submitBatchFor(Arrays.asList("patient_status:P1", "patient_status:P2", "patient_status:P1"), null,
+                "INSERT INTO patient_status (patient_id, status) VALUES (?, ?)",
+                Arrays.asList(new Object[]{"P1", "OUTPATIENT"}, new Object[]{"P2", "INPATIENT"}));
+        WriteBehindQueue.submit(null, "DELETE FROM bills WHERE id=?", "B1");
+        if (!WriteBehindQueue.hasPending("appointments:A9001") || !WriteBehindQueue.hasPending("patient_status:P2")
+                || WriteBehindQueue.hasPending("bills:B1") || WriteBehindQueue.stats().pending < 3) {
+            System.err.println("Pending records wrong"); System.exit(2);
+        }
+
+        // 2) The journal keeps the record keys and is readable by its owner only
+        String text = new String(Files.readAllBytes(journal), StandardCharsets.UTF_8);
+        if (!text.contains("\tK:appointments:A9001\tS:moved") || !text.contains("\tK:patient_status:P1\tK:patient_status:P2\tR:")) {
+            System.err.println("Journal lacks keys: " + text); System.exit(3);
+        }
+        if (journal.getFileSystem().supportedFileAttributeViews().contains("posix")
+                && !Files.getPosixFilePermissions(journal).toString().equals("[OWNER_WRITE, OWNER_READ]")
+                && !Files.getPosixFilePermissions(journal).toString().equals("[OWNER_READ, OWNER_WRITE]")) {
+            System.err.println("Journal permissions: " + Files.getPosixFilePermissions(journal)); System.exit(4);
+        }
+
+        System.out.println("Write-behind queue tests passed");
+        System.exit(0);
+    }
+}
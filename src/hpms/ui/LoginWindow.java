@@ -4,14 +4,11 @@ import javax.swing.*;
 import hpms.model.RoomStatus;
 import hpms.model.Room;
 import hpms.util.DataStore;
+import hpms.util.DomainEvents;
 import hpms.util.IDGenerator;
 import hpms.auth.AuthService;
 import hpms.service.PatientService;
-import hpms.service.PatientStatusService;
-import hpms.service.DatabaseInitializer;
-import hpms.service.StaffService;
-import hpms.service.AppointmentService;
-import hpms.service.BillingService;
+import hpms.ui.login.StartupProgressWindow;
 
 public class LoginWindow extends JFrame {
     
@@ -23,19 +20,9 @@ public class LoginWindow extends JFrame {
             try { PatientService.migrateRegistrationTypeDefault(); } catch (Exception ex) { }
             if (!DataStore.users.containsKey("admin")) { AuthService.seedAdmin(); }
             seedRooms();
-            // Load staff from database
-            try { StaffService.loadFromDatabase(); } catch (Exception ex) { }
-            // Load patients from database
-            try { PatientService.loadFromDatabase(); } catch (Exception ex) { }
-            // Initialize patient status table and load data
-            try { DatabaseInitializer.initializePatientStatusTable(); } catch (Exception ex) { }
-            try { PatientStatusService.loadFromDatabase(); } catch (Exception ex) { }
-            // Load appointments from database
-            try { AppointmentService.loadFromDatabase(); } catch (Exception ex) { }
-            // Load bills from database
-            try { BillingService.loadFromDatabase(); } catch (Exception ex) { }
+            // Load database tables in the background (see StartupLoader)
             // Medicine functionality removed
-            new hpms.ui.login.LoginWindow().setVisible(true);
+            StartupProgressWindow.showWhileLoading(() -> new hpms.ui.login.LoginWindow().setVisible(true));
         });
     }
     
@@ -51,5 +38,6 @@ public class LoginWindow extends JFrame {
             String id = IDGenerator.nextId("R");
             DataStore.rooms.put(id, new Room(id, RoomStatus.VACANT, null));
         }
+        DomainEvents.reloaded(DomainEvents.Kind.ROOM);
     }
 }
@@ -28,7 +28,7 @@ public class MainGUI extends JFrame {
     private SidebarButton currentSelected;
     private final java.util.concurrent.ScheduledExecutorService autosaveScheduler = java.util.concurrent.Executors
             .newSingleThreadScheduledExecutor();
-    private javax.swing.Timer dashboardAutoRefresh;
+    private final DomainEvents.Listener domainListener = this::applyDomainEvents;
 
     private final DefaultTableModel staffModel = new DefaultTableModel(
             new String[] { "Staff ID", "Name", "Department", "Details", "Status", "Joined Date" }, 0) {
@@ -58,6 +58,8 @@ public class MainGUI extends JFrame {
             return false;
         }
     };
+    // Next ActivityLog sequence number not yet shown in logModel
+    private long activitySeq;
     private hpms.ui.panels.PatientsPanel patientsPanel;
     private hpms.ui.panels.DashboardPanel dashboardPanel;
     private hpms.ui.doctor.DoctorDashboardPanel doctorDashboardPanel;
@@ -244,15 +246,9 @@ public class MainGUI extends JFrame {
 
         refreshTables();
 
-        // Auto-refresh dashboards every 2 seconds to reflect any cross-module changes
-        // (add/edit/delete/status)
-        dashboardAutoRefresh = new javax.swing.Timer(2000, e -> {
-            if (this.isVisible()) {
-                refreshTables();
-            }
-        });
-        dashboardAutoRefresh.setRepeats(true);
-        dashboardAutoRefresh.start();
+        // Reflect cross-module changes (add/edit/delete/status) as they are published,
+        // instead of polling: the tables below are patched row by row
+        DomainEvents.subscribe(domainListener);
 
         // Disabled periodic autosave - using database instead
         setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
@@ -263,12 +259,7 @@ public class MainGUI extends JFrame {
                     autosaveScheduler.shutdownNow();
                 } catch (Exception ex) {
                 }
-                try {
-                    if (dashboardAutoRefresh != null) {
-                        dashboardAutoRefresh.stop();
-                    }
-                } catch (Exception ex) {
-                }
+                DomainEvents.unsubscribe(domainListener);
                 dispose();
                 System.exit(0);
             }
@@ -480,48 +471,149 @@ public class MainGUI extends JFrame {
             patientsPanel.refresh();
 
         // Refresh all dashboard panels
-        if (dashboardPanel != null) {
-            dashboardPanel.refresh();
+        refreshDashboards();
+
+        reloadModel(DomainEvents.Kind.STAFF);
+        reloadModel(DomainEvents.Kind.APPOINTMENT);
+        reloadModel(DomainEvents.Kind.BILL);
+        reloadModel(DomainEvents.Kind.ROOM);
+        logModel.setRowCount(0);
+        activitySeq = 0;
+        appendActivity();
+    }
+
+    /**
+     * Apply one frame's worth of DataStore changes: patch the affected rows of
+     * the staff, appointment, bill and room tables and append new activity
+     * entries. PatientsPanel and the dashboards follow the events they show
+     * themselves.
+     */
+    private void applyDomainEvents(List<DomainEvents.Event> events) {
+        for (DomainEvents.Event e : events) {
+            if (e.kind == DomainEvents.Kind.ACTIVITY) {
+                appendActivity();
+                continue;
+            }
+            DefaultTableModel m = modelFor(e.kind);
+            if (m == null)
+                continue;
+            if (e.op == DomainEvents.Op.RELOADED)
+                reloadModel(e.kind);
+            else if (e.op == DomainEvents.Op.DELETED)
+                rows(m).remove(e.id);
+            else
+                rows(m).upsert(e.id, rowFor(e.kind, e.id));
         }
-        if (doctorDashboardPanel != null) {
+    }
+
+    private void refreshDashboards() {
+        if (dashboardPanel != null)
+            dashboardPanel.refresh();
+        if (doctorDashboardPanel != null)
             doctorDashboardPanel.refresh();
-        }
-        if (nurseDashboardPanel != null) {
+        if (nurseDashboardPanel != null)
             nurseDashboardPanel.refresh();
-        }
-        if (cashierDashboardPanel != null) {
+        if (cashierDashboardPanel != null)
             cashierDashboardPanel.refresh();
+    }
+
+    private DefaultTableModel modelFor(DomainEvents.Kind kind) {
+        switch (kind) {
+            case STAFF:
+                return staffModel;
+            case APPOINTMENT:
+                return apptModel;
+            case BILL:
+                return billModel;
+            case ROOM:
+                return roomModel;
+            default:
+                return null;
         }
+    }
 
-        staffModel.setRowCount(0);
-        for (Staff s : DataStore.staff.values()) {
-            String details = "";
-            if (s.role == StaffRole.DOCTOR) {
-                details = (s.specialty != null && !s.specialty.isEmpty() ? s.specialty : "")
-                        + (s.licenseNumber != null && !s.licenseNumber.isEmpty() ? " | License: " + s.licenseNumber
-                                : "");
-            } else if (s.role == StaffRole.NURSE) {
-                details = (s.qualifications != null && !s.qualifications.isEmpty() ? s.qualifications : "")
-                        + (s.licenseNumber != null && !s.licenseNumber.isEmpty() ? " | License: " + s.licenseNumber
-                                : "");
+    private void reloadModel(DomainEvents.Kind kind) {
+        DefaultTableModel m = modelFor(kind);
+        if (m == null)
+            return;
+        m.setRowCount(0);
+        Iterable<String> ids;
+        switch (kind) {
+            case STAFF:
+                ids = DataStore.staff.keySet();
+                break;
+            case APPOINTMENT:
+                ids = DataStore.appointments.keySet();
+                break;
+            case BILL:
+                ids = DataStore.bills.keySet();
+                break;
+            default:
+                ids = DataStore.rooms.keySet();
+        }
+        for (String id : ids)
+            m.addRow(rowFor(kind, id));
+    }
+
+    /** Table row for a record, or null when it no longer exists */
+    private Object[] rowFor(DomainEvents.Kind kind, String id) {
+        switch (kind) {
+            case STAFF: {
+                Staff s = DataStore.staff.get(id);
+                if (s == null)
+                    return null;
+                String details = "";
+                if (s.role == StaffRole.DOCTOR) {
+                    details = (s.specialty != null && !s.specialty.isEmpty() ? s.specialty : "")
+                            + (s.licenseNumber != null && !s.licenseNumber.isEmpty() ? " | License: " + s.licenseNumber
+                                    : "");
+                } else if (s.role == StaffRole.NURSE) {
+                    details = (s.qualifications != null && !s.qualifications.isEmpty() ? s.qualifications : "")
+                            + (s.licenseNumber != null && !s.licenseNumber.isEmpty() ? " | License: " + s.licenseNumber
+                                    : "");
+                }
+                String joinDate = s.createdAt != null ? s.createdAt.toLocalDate().toString() : "";
+                String status = s.isAvailable ? "Available" : "Unavailable";
+                return new Object[] { s.id, s.name, s.department, details, status, joinDate };
+            }
+            case APPOINTMENT: {
+                Appointment a = DataStore.appointments.get(id);
+                return a == null ? null : new Object[] { a.id, a.patientId, a.staffId, a.dateTime, a.department };
             }
-            String joinDate = s.createdAt != null ? s.createdAt.toLocalDate().toString() : "";
-            String status = s.isAvailable ? "Available" : "Unavailable";
-            staffModel.addRow(new Object[] { s.id, s.name, s.department, details, status, joinDate });
+            case BILL: {
+                Bill b = DataStore.bills.get(id);
+                return b == null ? null
+                        : new Object[] { b.id, b.patientId, String.format(Locale.US, "%.2f", b.total),
+                                b.paid ? "PAID" : "UNPAID", b.paymentMethod == null ? "" : b.paymentMethod };
+            }
+            case ROOM: {
+                Room r = DataStore.rooms.get(id);
+                return r == null ? null
+                        : new Object[] { r.id, r.status, r.occupantPatientId == null ? "" : r.occupantPatientId };
+            }
+            default:
+                return null;
         }
-        apptModel.setRowCount(0);
-        for (Appointment a : DataStore.appointments.values())
-            apptModel.addRow(new Object[] { a.id, a.patientId, a.staffId, a.dateTime, a.department });
-        billModel.setRowCount(0);
-        for (Bill b : DataStore.bills.values())
-            billModel.addRow(new Object[] { b.id, b.patientId, String.format(Locale.US, "%.2f", b.total),
-                    b.paid ? "PAID" : "UNPAID", b.paymentMethod == null ? "" : b.paymentMethod });
-        roomModel.setRowCount(0);
-        for (Room r : DataStore.rooms.values())
-            roomModel.addRow(new Object[] { r.id, r.status, r.occupantPatientId == null ? "" : r.occupantPatientId });
-        logModel.setRowCount(0);
-        for (String entry : ReportService.activity())
-            logModel.addRow(new Object[] { entry });
+    }
+
+    private final java.util.Map<DefaultTableModel, TableRows> tableRows = new java.util.IdentityHashMap<>();
+
+    private TableRows rows(DefaultTableModel m) {
+        return tableRows.computeIfAbsent(m, TableRows::new);
+    }
+
+    /** The activity log only grows, so only entries not yet shown are added */
+    private void appendActivity() {
+        List<ActivityLog.Entry> entries = ActivityLog.since(activitySeq);
+        if (entries.isEmpty())
+            return;
+        for (ActivityLog.Entry e : entries)
+            logModel.addRow(new Object[] { e.toString() });
+        activitySeq = entries.get(entries.size() - 1).seq + 1;
+        // Show no more than the log keeps in memory
+        int excess = logModel.getRowCount() - hpms.config.DatabaseConfig.ACTIVITY_LOG_CAPACITY;
+        for (int i = 0; i < excess; i++)
+            logModel.removeRow(0);
     }
 
     public void addPatientDialog() {
@@ -677,8 +769,24 @@ public class MainGUI extends JFrame {
                 JOptionPane.showMessageDialog(this, "Username required and password must be >=6 chars");
                 return;
             }
-            showOut(hpms.auth.AuthService.register(u, p, String.valueOf(role.getSelectedItem())));
-            refreshTables();
+            String roleName = String.valueOf(role.getSelectedItem());
+            // Password hashing is deliberately slow; keep it off the EDT
+            new SwingWorker<java.util.List<String>, Void>() {
+                @Override
+                protected java.util.List<String> doInBackground() {
+                    return hpms.auth.AuthService.register(u, p, roleName);
+                }
+
+                @Override
+                protected void done() {
+                    try {
+                        showOut(get());
+                    } catch (Exception ex) {
+                        showOut(java.util.Collections.singletonList("Error: " + ex.getMessage()));
+                    }
+                    refreshTables();
+                }
+            }.execute();
         }
     }
 
@@ -789,12 +897,7 @@ public class MainGUI extends JFrame {
         if (i < 0)
             return;
         String id = String.valueOf(t.getValueAt(i, 0));
-        List<String> out = new ArrayList<>();
-        DataStore.bills.remove(id);
-        // Disabled backup save - using database instead
-        out.add("Bill deleted " + id);
-        showOut(out);
-        refreshTables();
+        showOut(BillingService.delete(id));
     }
 
     private void assignRoomDialog() {
@@ -885,8 +988,7 @@ public class MainGUI extends JFrame {
 
     @SuppressWarnings("unused")
     private Appointment latestAppointmentForPatient(String pid) {
-        return DataStore.appointments.values().stream().filter(a -> a.patientId.equals(pid))
-                .max(Comparator.comparing(a -> a.dateTime)).orElse(null);
+        return DataStore.appointments.latestForPatient(pid);
     }
 
     private Integer parseIntSafe(String s) {
@@ -964,12 +1066,29 @@ public class MainGUI extends JFrame {
                 return;
             }
             String username = String.valueOf(t.getValueAt(sel, 0));
-            String newPwd = hpms.auth.AuthService.resetPassword(username);
-            if (newPwd == null)
-                JOptionPane.showMessageDialog(this, "Reset failed");
-            else
-                JOptionPane.showMessageDialog(this, "New password for " + username + ":\n" + newPwd);
-            refreshTables();
+            resetPwd.setEnabled(false);
+            new SwingWorker<String, Void>() {
+                @Override
+                protected String doInBackground() {
+                    return hpms.auth.AuthService.resetPassword(username);
+                }
+
+                @Override
+                protected void done() {
+                    resetPwd.setEnabled(true);
+                    String newPwd;
+                    try {
+                        newPwd = get();
+                    } catch (Exception ex) {
+                        newPwd = null;
+                    }
+                    if (newPwd == null)
+                        JOptionPane.showMessageDialog(MainGUI.this, "Reset failed");
+                    else
+                        JOptionPane.showMessageDialog(MainGUI.this, "New password for " + username + ":\n" + newPwd);
+                    refreshTables();
+                }
+            }.execute();
         });
         SwingUtilities.invokeLater(() -> {
             usersModel.setRowCount(0);
@@ -1024,8 +1143,26 @@ public class MainGUI extends JFrame {
                     JOptionPane.showMessageDialog(this, "New passwords do not match");
                     return;
                 }
-                java.util.List<String> out = AuthService.changePasswordNoOld(AuthService.current.username, nstr);
-                JOptionPane.showMessageDialog(this, String.join("\n", out));
+                String username = AuthService.current.username;
+                changePwd.setEnabled(false);
+                new SwingWorker<java.util.List<String>, Void>() {
+                    @Override
+                    protected java.util.List<String> doInBackground() {
+                        return AuthService.changePasswordNoOld(username, nstr);
+                    }
+
+                    @Override
+                    protected void done() {
+                        changePwd.setEnabled(true);
+                        java.util.List<String> out;
+                        try {
+                            out = get();
+                        } catch (Exception ex) {
+                            out = java.util.Collections.singletonList("Error: " + ex.getMessage());
+                        }
+                        JOptionPane.showMessageDialog(MainGUI.this, String.join("\n", out));
+                    }
+                }.execute();
             }
         });
         return p;
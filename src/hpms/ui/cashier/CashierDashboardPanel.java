@@ -3,7 +3,9 @@ package hpms.ui.cashier;
 import hpms.auth.AuthSession;
 import hpms.model.*;
 import hpms.service.BillingService;
+import hpms.ui.components.TableRows;
 import hpms.util.DataStore;
+import hpms.util.DomainEvents;
 
 import javax.swing.*;
 import javax.swing.border.LineBorder;
@@ -15,6 +17,22 @@ public class CashierDashboardPanel extends JPanel {
     private JTable pendingTable;
     private JLabel summaryLabel;
     private JComboBox<String> methodCombo;
+    private final DefaultTableModel pendingModel = new DefaultTableModel(new String[]{"Bill ID","Patient","Total","Method","Created","Status"}, 0) {
+        public boolean isCellEditable(int r, int c) { return false; }
+    };
+    private final TableRows pendingRows = new TableRows(pendingModel);
+    // Patch the changed bills' rows; a reload rebuilds the table
+    private final DomainEvents.Listener billListener = events -> {
+        for (DomainEvents.Event e : events) {
+            if (e.op == DomainEvents.Op.RELOADED) {
+                refresh();
+                return;
+            }
+        }
+        for (DomainEvents.Event e : events)
+            pendingRows.upsert(e.id, rowFor(DataStore.bills.get(e.id)));
+        updateSummary();
+    };
 
     public CashierDashboardPanel(AuthSession session) {
         setLayout(new BorderLayout(12, 12));
@@ -46,7 +64,7 @@ public class CashierDashboardPanel extends JPanel {
         listTitle.setFont(new Font("Arial", Font.BOLD, 13));
         center.add(listTitle, BorderLayout.NORTH);
 
-        pendingTable = new JTable();
+        pendingTable = new JTable(pendingModel);
         pendingTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         pendingTable.setRowHeight(26);
         center.add(new JScrollPane(pendingTable), BorderLayout.CENTER);
@@ -96,44 +114,63 @@ public class CashierDashboardPanel extends JPanel {
             if (confirm == JOptionPane.YES_OPTION) {
                 java.util.List<String> out = BillingService.confirmPayment(id);
                 JOptionPane.showMessageDialog(this, String.join("\n", out));
-                refresh();
             }
         } else {
             // This is a regular payment - set method and pay
             String method = String.valueOf(methodCombo.getSelectedItem());
             java.util.List<String> out = BillingService.pay(id, method);
             JOptionPane.showMessageDialog(this, String.join("\n", out));
-            refresh();
         }
     }
 
     public void refresh() {
-        DefaultTableModel m = new DefaultTableModel(new String[]{"Bill ID","Patient","Total","Method","Created","Status"}, 0) {
-            public boolean isCellEditable(int r, int c) { return false; }
-        };
+        pendingModel.setRowCount(0);
+        for (Bill b : DataStore.bills.values()) {
+            Object[] row = rowFor(b);
+            if (row != null)
+                pendingModel.addRow(row);
+        }
+        updateSummary();
+    }
+
+    /** Table row for an unpaid bill; null once it is paid or gone */
+    private Object[] rowFor(Bill b) {
+        if (b == null || b.paid)
+            return null;
+        Patient p = DataStore.patients.get(b.patientId);
+        String status = b.paymentMethod != null ? "PENDING CONFIRMATION" : "UNPAID";
+        String method = b.paymentMethod != null ? b.paymentMethod.name() : "Not set";
+        return new Object[]{b.id, p != null ? p.name : b.patientId,
+            String.format(Locale.US, "%.2f", b.total), method, b.createdAt, status};
+    }
+
+    /** Totals over the rows shown, which are exactly the unpaid bills */
+    private void updateSummary() {
         double unpaid = 0;
         int pendingCount = 0;
         int pendingConfirmationCount = 0;
-        for (Bill b : DataStore.bills.values()) {
-            if (!b.paid) {
-                Patient p = DataStore.patients.get(b.patientId);
-                String status;
-                if (b.paymentMethod != null) {
-                    status = "PENDING CONFIRMATION";
-                    pendingConfirmationCount++;
-                } else {
-                    status = "UNPAID";
-                    pendingCount++;
-                }
-                String method = b.paymentMethod != null ? b.paymentMethod.name() : "Not set";
-                m.addRow(new Object[]{b.id, p != null ? p.name : b.patientId, 
-                    String.format(Locale.US, "%.2f", b.total), method, b.createdAt, status});
+        for (int i = 0; i < pendingModel.getRowCount(); i++) {
+            if ("PENDING CONFIRMATION".equals(pendingModel.getValueAt(i, 5)))
+                pendingConfirmationCount++;
+            else
+                pendingCount++;
+            Bill b = DataStore.bills.get(String.valueOf(pendingModel.getValueAt(i, 0)));
+            if (b != null)
                 unpaid += b.total;
-            }
         }
-        pendingTable.setModel(m);
         summaryLabel.setText(String.format(Locale.US, "Unpaid: %d | Pending Confirmation: %d | Total Due: $%.2f", 
             pendingCount, pendingConfirmationCount, unpaid));
     }
-}
 
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        DomainEvents.subscribe(billListener, DomainEvents.Kind.BILL);
+    }
+
+    @Override
+    public void removeNotify() {
+        DomainEvents.unsubscribe(billListener);
+        super.removeNotify();
+    }
+}
@@ -0,0 +1,82 @@
+package hpms.ui.components;
+
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import javax.swing.table.DefaultTableModel;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Row-level updates for a DefaultTableModel whose first column holds the
+ * record id, so a DomainEvents listener can patch the one row that changed
+ * instead of rebuilding the table.
+ *
+ * Row numbers are looked up through an index. Appended rows and cell edits
+ * outside the id column keep it current; any other change marks it stale and
+ * it is rebuilt on the next lookup. Use on the EDT only.
+ */
+public final class TableRows implements TableModelListener {
+    private final DefaultTableModel model;
+    private final Map<Object, Integer> rows = new HashMap<>();
+    private boolean stale = true;
+
+    public TableRows(DefaultTableModel model) {
+        this.model = model;
+        model.addTableModelListener(this);
+    }
+
+    public DefaultTableModel model() {
+        return model;
+    }
+
+    /** Row number of the record, or -1 when it is not shown */
+    public int rowOf(String id) {
+        if (stale) {
+            rows.clear();
+            for (int i = 0; i < model.getRowCount(); i++)
+                rows.putIfAbsent(model.getValueAt(i, 0), i);
+            stale = false;
+        }
+        Integer i = rows.get(id);
+        return i == null ? -1 : i;
+    }
+
+    public void remove(String id) {
+        int i = id == null ? -1 : rowOf(id);
+        if (i >= 0)
+            model.removeRow(i);
+    }
+
+    /** Update the changed cells of the record's row, add it, or drop it when row is null */
+    public void upsert(String id, Object[] row) {
+        if (id == null)
+            return;
+        if (row == null) {
+            remove(id);
+            return;
+        }
+        int i = rowOf(id);
+        if (i < 0) {
+            model.addRow(row);
+            return;
+        }
+        for (int c = 0; c < row.length; c++)
+            if (!Objects.equals(model.getValueAt(i, c), row[c]))
+                model.setValueAt(row[c], i, c);
+    }
+
+    @Override
+    public void tableChanged(TableModelEvent e) {
+        if (stale)
+            return;
+        int first = e.getFirstRow(), last = e.getLastRow();
+        if (e.getType() == TableModelEvent.INSERT && first >= 0 && last == model.getRowCount() - 1) {
+            for (int i = first; i <= last; i++)
+                rows.putIfAbsent(model.getValueAt(i, 0), i);
+        } else if (!(e.getType() == TableModelEvent.UPDATE && first >= 0 && last != Integer.MAX_VALUE
+                && e.getColumn() > 0)) {
+            stale = true;
+        }
+    }
+}
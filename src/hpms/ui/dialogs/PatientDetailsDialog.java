@@ -67,39 +67,91 @@ public class PatientDetailsDialog extends JDialog {
                     JOptionPane.showMessageDialog(this, "New passwords do not match");
                     return;
                 }
-                java.util.List<String> out = hpms.auth.AuthService.changePasswordNoOld(p.id, nstr);
-                if (!out.isEmpty() && out.get(0).startsWith("Error:"))
-                    JOptionPane.showMessageDialog(this, out.get(0));
-                else {
-                    JOptionPane.showMessageDialog(this, "Password changed for " + p.id);
-                    pwdLbl.setText("Portal: Active • Password: " + nstr);
-                }
+                // Password hashing is deliberately slow; keep it off the EDT
+                changePwdBtn.setEnabled(false);
+                new SwingWorker<java.util.List<String>, Void>() {
+                    @Override
+                    protected java.util.List<String> doInBackground() {
+                        return hpms.auth.AuthService.changePasswordNoOld(p.id, nstr);
+                    }
+
+                    @Override
+                    protected void done() {
+                        changePwdBtn.setEnabled(true);
+                        java.util.List<String> out;
+                        try {
+                            out = get();
+                        } catch (Exception ex) {
+                            out = java.util.Collections.singletonList("Error: " + ex.getMessage());
+                        }
+                        if (!out.isEmpty() && out.get(0).startsWith("Error:"))
+                            JOptionPane.showMessageDialog(PatientDetailsDialog.this, out.get(0));
+                        else {
+                            JOptionPane.showMessageDialog(PatientDetailsDialog.this, "Password changed for " + p.id);
+                            pwdLbl.setText("Portal: Active • Password: " + nstr);
+                        }
+                    }
+                }.execute();
             }
         });
         JButton resetPwdBtn = new JButton("Reset Password");
         resetPwdBtn.setFont(new Font("Arial", Font.PLAIN, 11));
         resetPwdBtn.addActionListener(e -> {
             // If portal account doesn't exist yet create it with a generated password
+            // Both paths hash a new password, which is deliberately slow; keep it off the EDT
+            resetPwdBtn.setEnabled(false);
             if (!DataStore.users.containsKey(p.id)) {
                 String newPw = hpms.auth.AuthService.generateRandomPasswordForUI();
-                java.util.List<String> createOut = hpms.auth.AuthService.createPatientAccount(p.id, newPw);
-                if (createOut.size() > 0 && createOut.get(0).startsWith("Patient account created")) {
-                    JOptionPane.showMessageDialog(this, "New patient portal password: \n" + newPw);
-                    pwdLbl.setText("Portal: Active • Password: " + newPw);
-                } else {
-                    JOptionPane.showMessageDialog(this,
-                            "Could not create portal account: " + String.join(";", createOut));
-                }
+                new SwingWorker<java.util.List<String>, Void>() {
+                    @Override
+                    protected java.util.List<String> doInBackground() {
+                        return hpms.auth.AuthService.createPatientAccount(p.id, newPw);
+                    }
+
+                    @Override
+                    protected void done() {
+                        resetPwdBtn.setEnabled(true);
+                        java.util.List<String> createOut;
+                        try {
+                            createOut = get();
+                        } catch (Exception ex) {
+                            createOut = java.util.Collections.singletonList("Error: " + ex.getMessage());
+                        }
+                        if (createOut.size() > 0 && createOut.get(0).startsWith("Patient account created")) {
+                            JOptionPane.showMessageDialog(PatientDetailsDialog.this, "New patient portal password: \n" + newPw);
+                            pwdLbl.setText("Portal: Active • Password: " + newPw);
+                        } else {
+                            JOptionPane.showMessageDialog(PatientDetailsDialog.this,
+                                    "Could not create portal account: " + String.join(";", createOut));
+                        }
+                    }
+                }.execute();
                 return;
             }
             // Reset existing user's password and display it
-            String newPwd = hpms.auth.AuthService.resetPassword(p.id);
-            if (newPwd == null)
-                JOptionPane.showMessageDialog(this, "Reset failed");
-            else {
-                JOptionPane.showMessageDialog(this, "New password for " + p.id + ":\n" + newPwd);
-                pwdLbl.setText("Portal: Active • Password: " + newPwd);
-            }
+            new SwingWorker<String, Void>() {
+                @Override
+                protected String doInBackground() {
+                    return hpms.auth.AuthService.resetPassword(p.id);
+                }
+
+                @Override
+                protected void done() {
+                    resetPwdBtn.setEnabled(true);
+                    String newPwd;
+                    try {
+                        newPwd = get();
+                    } catch (Exception ex) {
+                        newPwd = null;
+                    }
+                    if (newPwd == null)
+                        JOptionPane.showMessageDialog(PatientDetailsDialog.this, "Reset failed");
+                    else {
+                        JOptionPane.showMessageDialog(PatientDetailsDialog.this, "New password for " + p.id + ":\n" + newPwd);
+                        pwdLbl.setText("Portal: Active • Password: " + newPwd);
+                    }
+                }
+            }.execute();
         });
         JPanel tleft = new JPanel();
         tleft.setOpaque(false);
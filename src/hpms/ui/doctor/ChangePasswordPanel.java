@@ -77,7 +77,7 @@ public class ChangePasswordPanel extends JPanel {
         saveBtn.setForeground(Color.WHITE);
         saveBtn.setFocusPainted(false);
         saveBtn.setBorder(BorderFactory.createEmptyBorder(8, 24, 8, 24));
-        saveBtn.addActionListener(e -> changePassword());
+        saveBtn.addActionListener(e -> changePassword(saveBtn));
 
         JButton resetBtn = new JButton("Clear");
         resetBtn.setFont(new Font("Arial", Font.PLAIN, 12));
@@ -91,7 +91,7 @@ public class ChangePasswordPanel extends JPanel {
         add(buttonPanel, BorderLayout.SOUTH);
     }
 
-    private void changePassword() {
+    private void changePassword(JButton saveBtn) {
         String newPwd = new String(newField.getPassword());
         String confirm = new String(confirmField.getPassword());
 
@@ -111,17 +111,33 @@ public class ChangePasswordPanel extends JPanel {
             return;
         }
 
-        // Change password without requiring the current password
-        java.util.List<String> result = AuthService.changePasswordNoOld(session.userId, newPwd);
-        
-        if (result != null && !result.isEmpty()) {
-            if (result.get(0).startsWith("Error:")) {
-                JOptionPane.showMessageDialog(this, result.get(0), "Error", JOptionPane.ERROR_MESSAGE);
-            } else {
-                JOptionPane.showMessageDialog(this, "Password changed successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
-                clearFields();
+        // Change password without requiring the current password; hashing runs off the EDT
+        saveBtn.setEnabled(false);
+        new SwingWorker<java.util.List<String>, Void>() {
+            @Override
+            protected java.util.List<String> doInBackground() {
+                return AuthService.changePasswordNoOld(session.userId, newPwd);
             }
-        }
+
+            @Override
+            protected void done() {
+                saveBtn.setEnabled(true);
+                java.util.List<String> result;
+                try {
+                    result = get();
+                } catch (Exception ex) {
+                    result = java.util.Collections.singletonList("Error: " + ex.getMessage());
+                }
+                if (result != null && !result.isEmpty()) {
+                    if (result.get(0).startsWith("Error:")) {
+                        JOptionPane.showMessageDialog(ChangePasswordPanel.this, result.get(0), "Error", JOptionPane.ERROR_MESSAGE);
+                    } else {
+                        JOptionPane.showMessageDialog(ChangePasswordPanel.this, "Password changed successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
+                        clearFields();
+                    }
+                }
+            }
+        }.execute();
     }
 
     private void clearFields() {
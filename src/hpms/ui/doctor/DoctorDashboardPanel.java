@@ -3,6 +3,7 @@ package hpms.ui.doctor;
 import hpms.auth.AuthSession;
 import hpms.model.*;
 import hpms.util.DataStore;
+import hpms.util.DomainEvents;
 import javax.swing.*;
 import javax.swing.border.*;
 import java.awt.*;
@@ -19,6 +20,13 @@ public class DoctorDashboardPanel extends JPanel {
     private JTable upcomingTable;
     private JTable requestsTable;
     private JTable patientsTable;
+    // Ids of this doctor's appointments as last shown, so a moved or deleted one is noticed
+    private final Set<String> myAppointments = new HashSet<>();
+    // Rebuild the tables only when one of this doctor's appointments or patients changed
+    private final DomainEvents.Listener appointmentListener = events -> {
+        if (concernsMe(events))
+            refresh();
+    };
 
     public DoctorDashboardPanel(AuthSession session) {
         this.session = session;
@@ -160,15 +168,8 @@ public class DoctorDashboardPanel extends JPanel {
 
     private void refreshAppointmentsTable() {
         LocalDate today = LocalDate.now();
-        java.util.List<Appointment> todayAppts = new ArrayList<>();
-        
-        for (Appointment a : DataStore.appointments.values()) {
-            if (session.userId.equals(a.staffId) && a.dateTime.toLocalDate().equals(today)) {
-                todayAppts.add(a);
-            }
-        }
-
-        todayAppts.sort((a, b) -> a.dateTime.compareTo(b.dateTime));
+        // Index returns today's appointments already sorted by time
+        java.util.List<Appointment> todayAppts = DataStore.appointments.forStaffOn(session.userId, today);
 
         String[] columns = {"Time", "Patient ID", "Patient Name"};
         Object[][] data = new Object[todayAppts.size()][3];
@@ -216,16 +217,8 @@ public class DoctorDashboardPanel extends JPanel {
     private void refreshUpcomingTable() {
         LocalDate today = LocalDate.now();
         LocalDate nextWeek = today.plusDays(7);
-        java.util.List<Appointment> upcoming = new ArrayList<>();
-
-        for (Appointment a : DataStore.appointments.values()) {
-            LocalDate d = a.dateTime.toLocalDate();
-            if (session.userId.equals(a.staffId) && d.isAfter(today) && d.isBefore(nextWeek)) {
-                upcoming.add(a);
-            }
-        }
-
-        upcoming.sort((a, b) -> a.dateTime.compareTo(b.dateTime));
+        java.util.List<Appointment> upcoming = DataStore.appointments.forStaffBetween(session.userId,
+                today.plusDays(1).atStartOfDay(), nextWeek.atStartOfDay());
 
         String[] columns = {"Date", "Time", "Patient ID", "Patient Name"};
         Object[][] data = new Object[upcoming.size()][4];
@@ -248,12 +241,11 @@ public class DoctorDashboardPanel extends JPanel {
 
     private void refreshRequestsTable() {
         java.util.List<Appointment> pending = new ArrayList<>();
-        for (Appointment a : DataStore.appointments.values()) {
-            if (session.userId.equals(a.staffId) && a.notes != null && a.notes.toLowerCase().contains("pending")) {
+        for (Appointment a : DataStore.appointments.forStaff(session.userId)) {
+            if (a.notes != null && a.notes.toLowerCase().contains("pending")) {
                 pending.add(a);
             }
         }
-        pending.sort((a,b) -> a.dateTime.compareTo(b.dateTime));
         String[] columns = {"ID", "Patient", "Requested Date", "Department", "Status"};
         Object[][] data = new Object[pending.size()][5];
         for (int i=0;i<pending.size();i++) {
@@ -279,11 +271,11 @@ public class DoctorDashboardPanel extends JPanel {
         System.out.println("DEBUG: Total appointments in system: " + DataStore.appointments.size());
         System.out.println("DEBUG: Total patients in system: " + DataStore.patients.size());
         
-        for (Appointment a : DataStore.appointments.values()) {
-            if (session.userId.equals(a.staffId)) {
-                patientIds.add(a.patientId);
-                System.out.println("DEBUG: Found appointment for patient: " + a.patientId);
-            }
+        myAppointments.clear();
+        for (Appointment a : DataStore.appointments.forStaff(session.userId)) {
+            myAppointments.add(a.id);
+            patientIds.add(a.patientId);
+            System.out.println("DEBUG: Found appointment for patient: " + a.patientId);
         }
         
         System.out.println("DEBUG: Found " + patientIds.size() + " patients for this doctor");
@@ -390,6 +382,36 @@ public class DoctorDashboardPanel extends JPanel {
         refreshPatientsTable();
     }
 
+    /** True when a batch touches an appointment of this doctor, before or after the change, or one of their patients */
+    private boolean concernsMe(java.util.List<DomainEvents.Event> events) {
+        for (DomainEvents.Event e : events) {
+            if (e.op == DomainEvents.Op.RELOADED)
+                return true;
+            if (e.kind == DomainEvents.Kind.APPOINTMENT) {
+                Appointment a = DataStore.appointments.get(e.id);
+                if (myAppointments.contains(e.id) || (a != null && session.userId.equals(a.staffId)))
+                    return true;
+            } else if (patientsTable != null) {
+                for (int i = 0; i < patientsTable.getRowCount(); i++)
+                    if (e.id.equals(patientsTable.getModel().getValueAt(i, 0)))
+                        return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        DomainEvents.subscribe(appointmentListener, DomainEvents.Kind.APPOINTMENT, DomainEvents.Kind.PATIENT);
+    }
+
+    @Override
+    public void removeNotify() {
+        DomainEvents.unsubscribe(appointmentListener);
+        super.removeNotify();
+    }
+
     private JPanel createProfileTab() {
         JPanel profilePanel = new JPanel(new BorderLayout(12, 12));
         profilePanel.setBackground(Color.WHITE);
@@ -4,6 +4,7 @@ import javax.swing.*;
 import hpms.model.RoomStatus;
 import hpms.model.Room;
 import hpms.util.DataStore;
+import hpms.util.DomainEvents;
 import hpms.util.IDGenerator;
 import hpms.auth.AuthService;
 import java.awt.*;
@@ -42,20 +43,9 @@ public class LoginWindow extends JFrame {
             }
             seedRooms();
             seedSampleAppointments();
-            // Load staff from database
-            try { hpms.service.StaffService.loadFromDatabase(); } catch (Exception ex) { }
-            // Load patients from database
-            try { hpms.service.PatientService.loadFromDatabase(); } catch (Exception ex) { }
-            // Load notes/alerts from database (critical alerts + staff notes)
-            try { hpms.service.CommunicationService.loadNotesAndAlertsFromDatabase(); } catch (Exception ex) { }
-            // Initialize patient status table and load data
-            try { hpms.service.DatabaseInitializer.initializePatientStatusTable(); } catch (Exception ex) { }
-            try { hpms.service.PatientStatusService.loadFromDatabase(); } catch (Exception ex) { }
-            // Load appointments from database
-            try { hpms.service.AppointmentService.loadFromDatabase(); } catch (Exception ex) { }
-            // Load bills from database
-            try { hpms.service.BillingService.loadFromDatabase(); } catch (Exception ex) { }
-            new LoginWindow().setVisible(true);
+            // Load staff, patients, notes/alerts, patient status, appointments and bills
+            // from the database in the background, then show the login form
+            StartupProgressWindow.showWhileLoading(() -> new LoginWindow().setVisible(true));
         });
     }
 
@@ -211,8 +201,31 @@ public class LoginWindow extends JFrame {
             return;
         }
 
-        List<String> out = AuthService.login(username, password);
+        // Password hashing is deliberately slow; keep it off the EDT
+        loginBtn.setEnabled(false);
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        new SwingWorker<List<String>, Void>() {
+            @Override
+            protected List<String> doInBackground() {
+                return AuthService.login(username, password);
+            }
+
+            @Override
+            protected void done() {
+                loginBtn.setEnabled(true);
+                setCursor(Cursor.getDefaultCursor());
+                List<String> out;
+                try {
+                    out = get();
+                } catch (Exception ex) {
+                    out = java.util.Collections.singletonList("Error: " + ex.getMessage());
+                }
+                finishLogin(out);
+            }
+        }.execute();
+    }
 
+    private void finishLogin(List<String> out) {
         if (!out.isEmpty() && out.get(0).startsWith("Login successful")) {
             hpms.auth.User u = hpms.auth.AuthService.current;
             if (u != null && u.role == hpms.model.UserRole.PATIENT) {
@@ -286,18 +299,35 @@ public class LoginWindow extends JFrame {
                 return;
             }
             
-            // Reset password logic
-            List<String> result = AuthService.resetPassword(username, email);
-            if (result.isEmpty() || result.get(0).startsWith("Error:")) {
-                JOptionPane.showMessageDialog(dialog, 
-                    result.isEmpty() ? "Password reset failed" : result.get(0), 
-                    "Reset Failed", JOptionPane.ERROR_MESSAGE);
-            } else {
-                JOptionPane.showMessageDialog(dialog, 
-                    "Password reset instructions have been sent to your email.\n" + result.get(0), 
-                    "Reset Successful", JOptionPane.INFORMATION_MESSAGE);
-                dialog.dispose();
-            }
+            // Reset password logic; hashing the new password runs off the EDT
+            resetBtn.setEnabled(false);
+            new SwingWorker<List<String>, Void>() {
+                @Override
+                protected List<String> doInBackground() {
+                    return AuthService.resetPassword(username, email);
+                }
+
+                @Override
+                protected void done() {
+                    resetBtn.setEnabled(true);
+                    List<String> result;
+                    try {
+                        result = get();
+                    } catch (Exception ex) {
+                        result = java.util.Collections.singletonList("Error: " + ex.getMessage());
+                    }
+                    if (result.isEmpty() || result.get(0).startsWith("Error:")) {
+                        JOptionPane.showMessageDialog(dialog, 
+                            result.isEmpty() ? "Password reset failed" : result.get(0), 
+                            "Reset Failed", JOptionPane.ERROR_MESSAGE);
+                    } else {
+                        JOptionPane.showMessageDialog(dialog, 
+                            "Password reset instructions have been sent to your email.\n" + result.get(0), 
+                            "Reset Successful", JOptionPane.INFORMATION_MESSAGE);
+                        dialog.dispose();
+                    }
+                }
+            }.execute();
         });
         
         cancelBtn.addActionListener(e -> dialog.dispose());
@@ -318,6 +348,7 @@ public class LoginWindow extends JFrame {
             String id = IDGenerator.nextId("R");
             DataStore.rooms.put(id, new Room(id, RoomStatus.VACANT, null));
         }
+        DomainEvents.reloaded(DomainEvents.Kind.ROOM);
     }
 
     public static void seedSampleAppointments() {
@@ -367,6 +398,7 @@ public class LoginWindow extends JFrame {
         hpms.model.Patient patient3 = new hpms.model.Patient("1003", "Bob Johnson", 28, "1997-09-10", 
             hpms.model.Gender.Male, "bob@example.com", "789 Pine Rd", java.time.LocalDateTime.now());
         DataStore.patients.put("1003", patient3);
+        hpms.util.PatientSearchIndex.rebuild(DataStore.patients.values());
     }
 
     private static void seedSampleStaff() {
@@ -391,8 +423,15 @@ public class LoginWindow extends JFrame {
         // Only create if user doesn't already exist
         if (!DataStore.users.containsKey(username)) {
             String salt = hpms.auth.PasswordUtil.generateSalt();
-            String hashedPassword = hpms.auth.PasswordUtil.hash(password, salt);
-            DataStore.users.put(username, new hpms.auth.User(username, hashedPassword, salt, hpms.model.UserRole.DOCTOR));
+            // Runs on the EDT during startup; hash on the KDF pool and add the account when done
+            hpms.auth.PasswordUtil.hashAsync(password, salt).thenAccept(hashedPassword -> {
+                if (hashedPassword != null)
+                    DataStore.users.putIfAbsent(username,
+                            new hpms.auth.User(username, hashedPassword, salt, hpms.model.UserRole.DOCTOR));
+            }).exceptionally(ex -> {
+                System.err.println("Could not create sample account " + username + ": " + ex.getMessage());
+                return null;
+            });
         }
     }
 
@@ -0,0 +1,59 @@
+package hpms.ui.login;
+
+import hpms.service.StartupLoader;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Small splash shown while StartupLoader reads the database in the background
+ */
+public class StartupProgressWindow extends JWindow {
+    private final JProgressBar progress = new JProgressBar();
+    private final JLabel status = new JLabel("Loading hospital data...");
+
+    public StartupProgressWindow() {
+        JPanel panel = new JPanel(new BorderLayout(0, 10));
+        panel.setBackground(Color.WHITE);
+        panel.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(new Color(60, 120, 200), 2),
+                BorderFactory.createEmptyBorder(20, 24, 20, 24)));
+
+        JLabel brand = new JLabel("HPMS");
+        brand.setFont(brand.getFont().deriveFont(Font.BOLD, 28f));
+        brand.setForeground(new Color(60, 120, 200));
+        panel.add(brand, BorderLayout.NORTH);
+
+        status.setForeground(new Color(30, 30, 30));
+        panel.add(status, BorderLayout.CENTER);
+
+        progress.setIndeterminate(true);
+        progress.setStringPainted(false);
+        panel.add(progress, BorderLayout.SOUTH);
+
+        setContentPane(panel);
+        setSize(360, 140);
+        setLocationRelativeTo(null);
+    }
+
+    /**
+     * Show the splash, load startup data off the event thread and run onReady
+     * on the event thread once everything has been published to DataStore.
+     * Must be called on the event thread.
+     */
+    public static void showWhileLoading(Runnable onReady) {
+        StartupProgressWindow splash = new StartupProgressWindow();
+        splash.setVisible(true);
+        StartupLoader.loadAsync((stage, completed, total) -> SwingUtilities.invokeLater(() -> {
+            splash.progress.setIndeterminate(false);
+            splash.progress.setMaximum(total);
+            splash.progress.setValue(completed);
+            splash.status.setText("Loaded " + stage.name.replace('_', ' ') + " (" + completed + "/" + total + ")");
+        })).whenComplete((timings, err) -> SwingUtilities.invokeLater(() -> {
+            if (err != null)
+                System.err.println("Startup load failed: " + err.getMessage());
+            splash.dispose();
+            onReady.run();
+        }));
+    }
+}
@@ -472,14 +472,31 @@ public class UserLoginWindow extends JFrame {
                 return;
             }
             
-            // Reset password
-            boolean success = resetUserPassword(username, newPassword);
-            if (success) {
-                JOptionPane.showMessageDialog(resetDialog, "Password reset successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
-                resetDialog.dispose();
-            } else {
-                JOptionPane.showMessageDialog(resetDialog, "Username not found. Please check your username.", "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            // Reset password; hashing and the database update run off the EDT
+            resetButton.setEnabled(false);
+            new SwingWorker<Boolean, Void>() {
+                @Override
+                protected Boolean doInBackground() {
+                    return resetUserPassword(username, newPassword);
+                }
+
+                @Override
+                protected void done() {
+                    resetButton.setEnabled(true);
+                    boolean success;
+                    try {
+                        success = get();
+                    } catch (Exception ex) {
+                        success = false;
+                    }
+                    if (success) {
+                        JOptionPane.showMessageDialog(resetDialog, "Password reset successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
+                        resetDialog.dispose();
+                    } else {
+                        JOptionPane.showMessageDialog(resetDialog, "Username not found. Please check your username.", "Error", JOptionPane.ERROR_MESSAGE);
+                    }
+                }
+            }.execute();
         });
         
         cancelButton.addActionListener(e -> resetDialog.dispose());
@@ -521,6 +538,7 @@ public class UserLoginWindow extends JFrame {
                         stmt.setString(3, username);
                         stmt.executeUpdate();
                     }
+                    hpms.auth.UserCache.invalidate(username);
                 }
             } catch (Exception e) {
                 // Database update failed, but DataStore update succeeded
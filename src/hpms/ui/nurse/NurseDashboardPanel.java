@@ -6,8 +6,10 @@ import hpms.service.PatientService;
 import hpms.service.PatientStatusService;
 import hpms.ui.components.CardPanel;
 import hpms.ui.components.SectionHeader;
+import hpms.ui.components.TableRows;
 import hpms.ui.components.Theme;
 import hpms.util.DataStore;
+import hpms.util.DomainEvents;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableCellRenderer;
@@ -26,6 +28,43 @@ public class NurseDashboardPanel extends JPanel {
     private JTextField heightField;
     private JTextField weightField;
     private JComboBox<String> statusCombo;
+    private final DefaultTableModel patientModel = new DefaultTableModel(new String[]{"Patient ID","Name","Room","Status","BP","HR","SpO2"}, 0) {
+        public boolean isCellEditable(int r, int c) { return false; }
+    };
+    private final TableRows patientRows = new TableRows(patientModel);
+    // Occupied rooms both ways, so a room event finds the patients whose row changes
+    private final java.util.Map<String, String> roomOfPatient = new java.util.HashMap<>();
+    private final java.util.Map<String, String> patientInRoom = new java.util.HashMap<>();
+    // Patch the rows of the changed patients; a reload rebuilds the table
+    private final DomainEvents.Listener patientListener = events -> {
+        for (DomainEvents.Event e : events) {
+            if (e.op == DomainEvents.Op.RELOADED) {
+                refresh();
+                return;
+            }
+        }
+        java.util.Set<String> changed = new java.util.LinkedHashSet<>();
+        for (DomainEvents.Event e : events) {
+            if (e.kind != DomainEvents.Kind.ROOM) {
+                changed.add(e.id);
+                continue;
+            }
+            String before = patientInRoom.remove(e.id);
+            if (before != null) {
+                roomOfPatient.remove(before);
+                changed.add(before);
+            }
+            Room r = DataStore.rooms.get(e.id);
+            if (occupied(r)) {
+                patientInRoom.put(r.id, r.occupantPatientId);
+                roomOfPatient.put(r.occupantPatientId, r.id);
+                changed.add(r.occupantPatientId);
+            }
+        }
+        for (String id : changed)
+            patientRows.upsert(id, rowFor(DataStore.patients.get(id)));
+        updateStats();
+    };
 
     public NurseDashboardPanel(AuthSession session) {
         this.session = session;
@@ -50,9 +89,21 @@ public class NurseDashboardPanel extends JPanel {
         leftTitle.setFont(Theme.HEADING_4);
         leftTitle.setForeground(Theme.TEXT);
         left.add(leftTitle, BorderLayout.NORTH);
-        inpatientsTable = new JTable();
+        inpatientsTable = new JTable(patientModel);
         inpatientsTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         inpatientsTable.setRowHeight(26);
+        Theme.styleTable(inpatientsTable);
+        inpatientsTable.setRowSorter(new TableRowSorter<>(patientModel));
+        inpatientsTable.setDefaultRenderer(Object.class, new javax.swing.table.TableCellRenderer() {
+            private final DefaultTableCellRenderer d = new DefaultTableCellRenderer();
+            @Override public Component getTableCellRendererComponent(JTable t, Object v, boolean sel, boolean foc, int r, int c) {
+                Component comp = d.getTableCellRendererComponent(t, v, sel, foc, r, c);
+                if (comp instanceof JComponent) ((JComponent)comp).setOpaque(true);
+                if (sel) { comp.setBackground(Theme.SELECTED_BACKGROUND); comp.setForeground(Theme.SELECTED_FOREGROUND); }
+                else { comp.setBackground(r % 2 == 0 ? Color.WHITE : new Color(245,246,248)); comp.setForeground(Theme.FOREGROUND); }
+                return comp;
+            }
+        });
         JScrollPane sp = new JScrollPane(inpatientsTable);
         Theme.styleScrollPane(sp);
         left.add(sp, BorderLayout.CENTER);
@@ -147,7 +198,6 @@ public class NurseDashboardPanel extends JPanel {
                 null, null, null,
                 null);
         JOptionPane.showMessageDialog(this, String.join("\n", out));
-        refresh();
     }
 
     private void onUpdateStatus() {
@@ -156,55 +206,56 @@ public class NurseDashboardPanel extends JPanel {
         String st = String.valueOf(statusCombo.getSelectedItem());
         java.util.List<String> out = PatientStatusService.setStatus(pid, st, session.userId, "Updated by " + session.fullName);
         JOptionPane.showMessageDialog(this, String.join("\n", out));
-        refresh();
     }
 
     public void refresh() {
-        DefaultTableModel m = new DefaultTableModel(new String[]{"Patient ID","Name","Room","Status","BP","HR","SpO2"}, 0) {
-            public boolean isCellEditable(int r, int c) { return false; }
-        };
-
-        int inpatients = 0;
-        int totalPatients = 0;
-        
-        // Show all patients, not just those in rooms
-        for (Patient p : DataStore.patients.values()) {
-            totalPatients++;
-            String patientId = p.id;
-            String name = p.name;
-            String room = "N/A";
-            PatientStatus status = DataStore.patientStatus.getOrDefault(patientId, PatientStatus.INPATIENT);
-            
-            // Find room if patient is in one
-            for (Room r : DataStore.rooms.values()) {
-                if (r.status == RoomStatus.OCCUPIED && r.occupantPatientId != null && r.occupantPatientId.equals(patientId)) {
-                    room = r.id;
-                    inpatients++;
-                    break;
-                }
+        roomOfPatient.clear();
+        patientInRoom.clear();
+        for (Room r : DataStore.rooms.values()) {
+            if (occupied(r)) {
+                roomOfPatient.putIfAbsent(r.occupantPatientId, r.id);
+                patientInRoom.put(r.id, r.occupantPatientId);
             }
-            
-            String bp = p.bloodPressure != null ? p.bloodPressure : "";
-            String hr = p.initialHr != null ? p.initialHr : "";
-            String sp = p.initialSpo2 != null ? p.initialSpo2 : "";
-            
-            m.addRow(new Object[]{patientId, name, room, status, bp, hr, sp});
         }
-        
-        inpatientsTable.setModel(m);
-        Theme.styleTable(inpatientsTable);
-        inpatientsTable.setRowSorter(new TableRowSorter<>(m));
-        inpatientsTable.setDefaultRenderer(Object.class, new javax.swing.table.TableCellRenderer() {
-            private final DefaultTableCellRenderer d = new DefaultTableCellRenderer();
-            @Override public Component getTableCellRendererComponent(JTable t, Object v, boolean sel, boolean foc, int r, int c) {
-                Component comp = d.getTableCellRendererComponent(t, v, sel, foc, r, c);
-                if (comp instanceof JComponent) ((JComponent)comp).setOpaque(true);
-                if (sel) { comp.setBackground(Theme.SELECTED_BACKGROUND); comp.setForeground(Theme.SELECTED_FOREGROUND); }
-                else { comp.setBackground(r % 2 == 0 ? Color.WHITE : new Color(245,246,248)); comp.setForeground(Theme.FOREGROUND); }
-                return comp;
-            }
-        });
-        statsLabel.setText(String.format(Locale.US, "Total Patients: %d | Inpatients: %d", totalPatients, inpatients));
+        // Show all patients, not just those in rooms
+        patientModel.setRowCount(0);
+        for (Patient p : DataStore.patients.values())
+            patientModel.addRow(rowFor(p));
+        updateStats();
+    }
+
+    private static boolean occupied(Room r) {
+        return r != null && r.status == RoomStatus.OCCUPIED && r.occupantPatientId != null;
+    }
+
+    /** Table row for a patient, or null once the patient is gone */
+    private Object[] rowFor(Patient p) {
+        if (p == null)
+            return null;
+        String room = roomOfPatient.getOrDefault(p.id, "N/A");
+        PatientStatus status = DataStore.patientStatus.getOrDefault(p.id, PatientStatus.INPATIENT);
+        String bp = p.bloodPressure != null ? p.bloodPressure : "";
+        String hr = p.initialHr != null ? p.initialHr : "";
+        String sp = p.initialSpo2 != null ? p.initialSpo2 : "";
+        return new Object[]{p.id, p.name, room, status, bp, hr, sp};
+    }
+
+    private void updateStats() {
+        statsLabel.setText(String.format(Locale.US, "Total Patients: %d | Inpatients: %d",
+                patientModel.getRowCount(), roomOfPatient.size()));
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        DomainEvents.subscribe(patientListener, DomainEvents.Kind.PATIENT, DomainEvents.Kind.STATUS,
+                DomainEvents.Kind.ROOM);
+    }
+
+    @Override
+    public void removeNotify() {
+        DomainEvents.unsubscribe(patientListener);
+        super.removeNotify();
     }
 
     private void viewPatientAttachments() {
@@ -1,6 +1,7 @@
 package hpms.ui.panels;
 
 import hpms.model.*;
+import hpms.util.ActivityLog;
 import hpms.util.DataStore;
 import hpms.ui.components.RoundedCard;
 import hpms.ui.components.SectionHeader;
@@ -172,8 +173,8 @@ public class AdminDashboardPanel extends JPanel {
 
     private void updateActivityLog() {
         logContent.removeAll();
-        java.util.List<String> recentLogs = DataStore.activityLog.stream()
-                .skip(Math.max(0, DataStore.activityLog.size() - 10))
+        java.util.List<String> recentLogs = ActivityLog.recent(10).stream()
+                .map(ActivityLog.Entry::toString)
                 .collect(java.util.stream.Collectors.toList());
 
         if (recentLogs.isEmpty()) {
@@ -114,8 +114,11 @@ public class AdministrationPanel extends JPanel {
             if (confirm == JOptionPane.YES_OPTION) {
                 hpms.auth.User user = hpms.util.DataStore.users.get(username);
                 if (user != null) {
-                    user.status = "DEACTIVATED";
-                    // Disabled backup save - using database instead
+                    if (!hpms.auth.AuthServiceDB.setStatus(username, "DEACTIVATED")) {
+                        JOptionPane.showMessageDialog(this, "Could not save the deactivation to the database",
+                                "Error", JOptionPane.ERROR_MESSAGE);
+                        return;
+                    }
                     JOptionPane.showMessageDialog(this, "Account deactivated successfully", "Success",
                             JOptionPane.INFORMATION_MESSAGE);
                     refresh();
@@ -394,19 +397,36 @@ public class AdministrationPanel extends JPanel {
                 return;
             }
 
-            java.util.List<String> result = hpms.auth.AuthService.register(
-                    usernameField.getText().trim(),
-                    new String(passwordField.getPassword()),
-                    roleCombo.getSelectedItem().toString());
+            String username = usernameField.getText().trim();
+            String password = new String(passwordField.getPassword());
+            String role = roleCombo.getSelectedItem().toString();
+            // Password hashing is deliberately slow; keep it off the EDT
+            saveBtn.setEnabled(false);
+            new SwingWorker<java.util.List<String>, Void>() {
+                @Override
+                protected java.util.List<String> doInBackground() {
+                    return hpms.auth.AuthService.register(username, password, role);
+                }
 
-            if (result.get(0).startsWith("User registered")) {
-                JOptionPane.showMessageDialog(dialog, "User added successfully!", "Success",
-                        JOptionPane.INFORMATION_MESSAGE);
-                dialog.dispose();
-                refresh();
-            } else {
-                JOptionPane.showMessageDialog(dialog, result.get(0), "Error", JOptionPane.ERROR_MESSAGE);
-            }
+                @Override
+                protected void done() {
+                    saveBtn.setEnabled(true);
+                    java.util.List<String> result;
+                    try {
+                        result = get();
+                    } catch (Exception ex) {
+                        result = java.util.Collections.singletonList("Error: " + ex.getMessage());
+                    }
+                    if (result.get(0).startsWith("User registered")) {
+                        JOptionPane.showMessageDialog(dialog, "User added successfully!", "Success",
+                                JOptionPane.INFORMATION_MESSAGE);
+                        dialog.dispose();
+                        refresh();
+                    } else {
+                        JOptionPane.showMessageDialog(dialog, result.get(0), "Error", JOptionPane.ERROR_MESSAGE);
+                    }
+                }
+            }.execute();
         });
 
         dialog.add(panel, BorderLayout.CENTER);
@@ -552,29 +572,42 @@ public class AdministrationPanel extends JPanel {
             System.out.println("Current user: " + (hpms.auth.AuthService.current != null ? 
                 hpms.auth.AuthService.current.username + " (" + hpms.auth.AuthService.current.role + ")" : "null"));
 
-            // Create user account for patient
+            // Create user account for patient; hashing runs off the EDT
             System.out.println("About to call AuthService.register...");
-            java.util.List<String> result = hpms.auth.AuthService.register(
-                    username,
-                    password,
-                    "PATIENT"
-            );
-
-            System.out.println("AuthService.register result: " + result.get(0));
-
-            if (result.get(0).startsWith("User registered")) {
-                JOptionPane.showMessageDialog(dialog, 
-                    "Patient account created successfully!\n\n" +
-                    "Patient: " + patient.name + "\n" +
-                    "Username: " + username + "\n" +
-                    "Password: " + password + "\n\n" +
-                    "The patient can now login with these credentials.",
-                    "Success", JOptionPane.INFORMATION_MESSAGE);
-                dialog.dispose();
-                refresh();
-            } else {
-                JOptionPane.showMessageDialog(dialog, result.get(0), "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            createBtn.setEnabled(false);
+            new SwingWorker<java.util.List<String>, Void>() {
+                @Override
+                protected java.util.List<String> doInBackground() {
+                    return hpms.auth.AuthService.register(username, password, "PATIENT");
+                }
+
+                @Override
+                protected void done() {
+                    createBtn.setEnabled(true);
+                    java.util.List<String> result;
+                    try {
+                        result = get();
+                    } catch (Exception ex) {
+                        result = java.util.Collections.singletonList("Error: " + ex.getMessage());
+                    }
+
+                    System.out.println("AuthService.register result: " + result.get(0));
+
+                    if (result.get(0).startsWith("User registered")) {
+                        JOptionPane.showMessageDialog(dialog, 
+                            "Patient account created successfully!\n\n" +
+                            "Patient: " + patient.name + "\n" +
+                            "Username: " + username + "\n" +
+                            "Password: " + password + "\n\n" +
+                            "The patient can now login with these credentials.",
+                            "Success", JOptionPane.INFORMATION_MESSAGE);
+                        dialog.dispose();
+                        refresh();
+                    } else {
+                        JOptionPane.showMessageDialog(dialog, result.get(0), "Error", JOptionPane.ERROR_MESSAGE);
+                    }
+                }
+            }.execute();
         });
         
         cancelBtn.addActionListener(e -> dialog.dispose());
@@ -435,6 +435,16 @@ public class AppointmentsPanel extends JPanel {
         c.gridx = 0;
         c.gridy = 5;
         c.weightx = 0.3;
+        panel.add(new JLabel("Consultation"), c);
+        c.gridx = 1;
+        c.weightx = 0.7;
+        JComboBox<ConsultationType> typeCombo = new JComboBox<>(ConsultationType.values());
+        typeCombo.setSelectedItem(ConsultationType.FOLLOW_UP);
+        panel.add(typeCombo, c);
+
+        c.gridx = 0;
+        c.gridy = 6;
+        c.weightx = 0.3;
         panel.add(new JLabel("Notes"), c);
         c.gridx = 1;
         c.weightx = 0.7;
@@ -455,7 +465,26 @@ public class AppointmentsPanel extends JPanel {
         saveBtn.setBorder(BorderFactory.createEmptyBorder(6, 12, 6, 12));
         JButton cancelBtn = new JButton("Cancel");
         cancelBtn.addActionListener(e -> dialog.dispose());
+        JButton nextFreeBtn = new JButton("Next Free Slot");
+        nextFreeBtn.addActionListener(e -> {
+            if (doctorCombo.getSelectedIndex() < 0)
+                return;
+            String docId = doctorCombo.getSelectedItem().toString().split(" - ")[0];
+            java.time.LocalDateTime from = ((java.util.Date) dateSpinner.getValue()).toInstant()
+                    .atZone(java.time.ZoneId.systemDefault()).toLocalDate().atStartOfDay();
+            java.util.List<hpms.service.SchedulingEngine.FreeSlot> slots = hpms.service.SchedulingEngine
+                    .nextFreeSlots(docId, from, (ConsultationType) typeCombo.getSelectedItem(), 1);
+            if (slots.isEmpty()) {
+                JOptionPane.showMessageDialog(dialog, "No free slot in the next " + hpms.service.SchedulingEngine.HORIZON_DAYS + " days",
+                        "Next Free Slot", JOptionPane.INFORMATION_MESSAGE);
+                return;
+            }
+            java.util.Date when = java.util.Date.from(slots.get(0).start.atZone(java.time.ZoneId.systemDefault()).toInstant());
+            dateSpinner.setValue(when);
+            timeSpinner.setValue(when);
+        });
 
+        buttonPanel.add(nextFreeBtn);
         buttonPanel.add(cancelBtn);
         buttonPanel.add(saveBtn);
 
@@ -473,7 +502,8 @@ public class AppointmentsPanel extends JPanel {
             String time = new java.text.SimpleDateFormat("HH:mm").format((java.util.Date) timeSpinner.getValue());
             String dept = deptCombo.getSelectedItem().toString();
 
-            java.util.List<String> result = AppointmentService.schedule(patientId, docId, date, time, dept);
+            java.util.List<String> result = AppointmentService.schedule(patientId, docId, date, time, dept,
+                    (ConsultationType) typeCombo.getSelectedItem());
             if (result.get(0).startsWith("Appointment created")) {
                 JOptionPane.showMessageDialog(dialog, "Appointment scheduled successfully!", "Success",
                         JOptionPane.INFORMATION_MESSAGE);
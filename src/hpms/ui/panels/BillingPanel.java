@@ -4,6 +4,7 @@ import hpms.model.*;
 import hpms.service.*;
 import hpms.util.*;
 import hpms.ui.components.SectionHeader;
+import hpms.ui.components.TableRows;
 import hpms.ui.components.Theme;
 
 import javax.swing.*;
@@ -16,6 +17,23 @@ public class BillingPanel extends JPanel {
     private DefaultTableModel billModel;
     private JTable billTable;
     private JLabel statsLabel;
+    private TableRows billRows;
+    // What each shown bill adds to the stats line, so one change adjusts the sums
+    private final java.util.Map<String, Bill> counted = new java.util.HashMap<>();
+    private int pendingCount;
+    private double paidAmount, unpaidAmount, pendingAmount;
+    // Patch the changed bills' rows; a reload rebuilds the table
+    private final DomainEvents.Listener billListener = events -> {
+        for (DomainEvents.Event e : events) {
+            if (e.op == DomainEvents.Op.RELOADED) {
+                refresh();
+                return;
+            }
+        }
+        for (DomainEvents.Event e : events)
+            show(e.id, DataStore.bills.get(e.id));
+        updateStats();
+    };
 
     public BillingPanel() {
         setLayout(new BorderLayout());
@@ -35,6 +53,7 @@ public class BillingPanel extends JPanel {
                 return false;
             }
         };
+        billRows = new TableRows(billModel);
         billTable = new JTable(billModel);
         billTable.setFont(new Font("Segoe UI", Font.PLAIN, 12));
         billTable.getColumnModel().getColumn(0).setPreferredWidth(70);
@@ -197,7 +216,6 @@ public class BillingPanel extends JPanel {
                 JOptionPane.showMessageDialog(dialog, "Bill created successfully!", "Success",
                         JOptionPane.INFORMATION_MESSAGE);
                 dialog.dispose();
-                refresh();
             } else {
                 JOptionPane.showMessageDialog(dialog, result.get(0), "Error", JOptionPane.ERROR_MESSAGE);
             }
@@ -279,7 +297,6 @@ public class BillingPanel extends JPanel {
                 JOptionPane.showMessageDialog(dialog, "Item added successfully!", "Success",
                         JOptionPane.INFORMATION_MESSAGE);
                 dialog.dispose();
-                refresh();
             } else {
                 JOptionPane.showMessageDialog(dialog, result.get(0), "Error", JOptionPane.ERROR_MESSAGE);
             }
@@ -321,7 +338,6 @@ public class BillingPanel extends JPanel {
                 if (result.get(0).startsWith("Payment confirmed")) {
                     JOptionPane.showMessageDialog(this, "Payment confirmed successfully!", "Success",
                             JOptionPane.INFORMATION_MESSAGE);
-                    refresh();
                 } else {
                     JOptionPane.showMessageDialog(this, result.get(0), "Error", JOptionPane.ERROR_MESSAGE);
                 }
@@ -394,7 +410,6 @@ public class BillingPanel extends JPanel {
                 JOptionPane.showMessageDialog(dialog, "Payment processed successfully!", "Success",
                         JOptionPane.INFORMATION_MESSAGE);
                 dialog.dispose();
-                refresh();
             } else {
                 JOptionPane.showMessageDialog(dialog, result.get(0), "Error", JOptionPane.ERROR_MESSAGE);
             }
@@ -515,7 +530,6 @@ public class BillingPanel extends JPanel {
             if (result.get(0).startsWith("Payment confirmed")) {
                 JOptionPane.showMessageDialog(this, "Payment confirmed successfully!", "Success",
                         JOptionPane.INFORMATION_MESSAGE);
-                refresh();
             } else {
                 JOptionPane.showMessageDialog(this, result.get(0), "Error", JOptionPane.ERROR_MESSAGE);
             }
@@ -535,54 +549,88 @@ public class BillingPanel extends JPanel {
                 "Confirm Deletion", JOptionPane.YES_NO_OPTION);
 
         if (confirm == JOptionPane.YES_OPTION) {
-            DataStore.bills.remove(billId);
-            // Disabled backup save - using database instead
+            java.util.List<String> result = BillingService.delete(billId);
+            if (result.get(0).startsWith("Error")) {
+                JOptionPane.showMessageDialog(this, result.get(0), "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
             JOptionPane.showMessageDialog(this, "Bill deleted successfully", "Success",
                     JOptionPane.INFORMATION_MESSAGE);
-            refresh();
         }
     }
 
     public void refresh() {
         billModel.setRowCount(0);
+        counted.clear();
+        pendingCount = 0;
+        paidAmount = unpaidAmount = pendingAmount = 0;
+        for (Bill bill : DataStore.bills.values())
+            show(bill.id, bill);
+        updateStats();
+    }
 
-        double paidAmount = 0;
-        double unpaidAmount = 0;
-        double pendingAmount = 0;
-        int pendingCount = 0;
+    /** Put the bill's current row and stats contribution in place of the shown ones; null removes both */
+    private void show(String id, Bill bill) {
+        count(counted.remove(id), -1);
+        if (bill == null) {
+            billRows.remove(id);
+            return;
+        }
+        Bill copy = new Bill(bill.id, bill.patientId, bill.total, bill.createdAt);
+        copy.paid = bill.paid;
+        copy.paymentMethod = bill.paymentMethod;
+        counted.put(id, copy);
+        count(copy, 1);
+
+        Patient patient = DataStore.patients.get(bill.patientId);
+        String patientName = patient != null ? patient.name : bill.patientId;
+        billRows.upsert(id, new Object[] {
+                bill.id,
+                patientName,
+                String.format(Locale.US, "%.2f", bill.total),
+                bill.items.size(),
+                status(bill),
+                bill.paymentMethod != null ? bill.paymentMethod : "-",
+                bill.updatedAt
+        });
+    }
 
-        for (Bill bill : DataStore.bills.values()) {
-            Patient patient = DataStore.patients.get(bill.patientId);
-            String patientName = patient != null ? patient.name : bill.patientId;
-            String status;
-            
-            if (bill.paid) {
-                status = "PAID";
-                paidAmount += bill.total;
-            } else if (bill.paymentMethod != null) {
-                status = "PENDING CONFIRMATION";
-                unpaidAmount += bill.total;
-                pendingAmount += bill.total;
-                pendingCount++;
-            } else {
-                status = "UNPAID";
-                unpaidAmount += bill.total;
-            }
+    private static String status(Bill bill) {
+        if (bill.paid)
+            return "PAID";
+        return bill.paymentMethod != null ? "PENDING CONFIRMATION" : "UNPAID";
+    }
 
-            billModel.addRow(new Object[] {
-                    bill.id,
-                    patientName,
-                    String.format(Locale.US, "%.2f", bill.total),
-                    bill.items.size(),
-                    status,
-                    bill.paymentMethod != null ? bill.paymentMethod : "-",
-                    bill.updatedAt
-            });
+    private void count(Bill bill, int sign) {
+        if (bill == null)
+            return;
+        if (bill.paid) {
+            paidAmount += sign * bill.total;
+            return;
+        }
+        unpaidAmount += sign * bill.total;
+        if (bill.paymentMethod != null) {
+            pendingAmount += sign * bill.total;
+            pendingCount += sign;
         }
+    }
 
+    private void updateStats() {
         String stats = String.format(Locale.US, 
             "Total Bills: %d | Paid: $%.2f | Unpaid: $%.2f | Pending: %d ($%.2f)",
-            DataStore.bills.size(), paidAmount, unpaidAmount, pendingCount, pendingAmount);
+            counted.size(), paidAmount, unpaidAmount, pendingCount, pendingAmount);
         statsLabel.setText(stats);
     }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        DomainEvents.subscribe(billListener, DomainEvents.Kind.BILL);
+    }
+
+    @Override
+    public void removeNotify() {
+        DomainEvents.unsubscribe(billListener);
+        super.removeNotify();
+    }
 }
@@ -1,7 +1,9 @@
 package hpms.ui.panels;
 
 import hpms.model.*;
+import hpms.service.StatisticsService;
 import hpms.util.DataStore;
+import hpms.util.DomainEvents;
 import hpms.ui.components.RoundedCard;
 import hpms.ui.components.SectionHeader;
 import hpms.ui.components.Theme;
@@ -19,6 +21,20 @@ public class DashboardPanel extends JPanel {
     private JLabel nursesValue;
     private JLabel cashiersValue;
     private JPanel grid;
+    // Update only the cards whose kind of record changed
+    private final DomainEvents.Listener cardUpdater = events -> {
+        java.util.EnumSet<DomainEvents.Kind> kinds = java.util.EnumSet.noneOf(DomainEvents.Kind.class);
+        for (DomainEvents.Event e : events)
+            kinds.add(e.kind);
+        if (kinds.contains(DomainEvents.Kind.PATIENT))
+            updatePatients();
+        if (kinds.contains(DomainEvents.Kind.APPOINTMENT))
+            updateAppointments();
+        if (kinds.contains(DomainEvents.Kind.ROOM))
+            updateRooms();
+        if (kinds.contains(DomainEvents.Kind.STAFF))
+            updateStaff();
+    };
 
     public DashboardPanel() {
         setLayout(new BorderLayout());
@@ -79,41 +95,55 @@ public class DashboardPanel extends JPanel {
      * Called automatically when panel becomes visible, or can be called manually.
      */
     public void refresh() {
-        if (patientsValue != null) {
+        updatePatients();
+        updateAppointments();
+        updateRooms();
+        updateStaff();
+    }
+
+    private void updatePatients() {
+        if (patientsValue != null)
             patientsValue.setText(String.valueOf(DataStore.patients.size()));
-        }
+    }
 
-        if (appointmentsValue != null) {
-            long todaysAppts = DataStore.appointments.values().stream()
-                    .filter(a -> a.dateTime.toLocalDate().equals(LocalDate.now())).count();
-            appointmentsValue.setText(String.valueOf(todaysAppts));
-        }
+    private void updateAppointments() {
+        if (appointmentsValue != null)
+            appointmentsValue.setText(String.valueOf(StatisticsService.appointmentsOn(LocalDate.now())));
+    }
 
-        if (bedOccupancyValue != null) {
-            long occupied = DataStore.rooms.values().stream().filter(r -> r.status == RoomStatus.OCCUPIED).count();
-            long total = DataStore.rooms.size();
-            bedOccupancyValue.setText(occupied + "/" + total);
-        }
+    private void updateRooms() {
+        if (bedOccupancyValue != null)
+            bedOccupancyValue.setText(StatisticsService.occupiedRooms() + "/" + DataStore.rooms.size());
+    }
 
-        if (doctorsValue != null) {
-            long doctors = DataStore.staff.values().stream().filter(s -> s.role == StaffRole.DOCTOR).count();
-            doctorsValue.setText(String.valueOf(doctors));
+    private void updateStaff() {
+        int doctors = 0, nurses = 0, cashiers = 0;
+        for (Staff s : DataStore.staff.values()) {
+            if (s.role == StaffRole.DOCTOR)
+                doctors++;
+            else if (s.role == StaffRole.NURSE)
+                nurses++;
+            else if (s.role == StaffRole.CASHIER)
+                cashiers++;
         }
-
-        if (nursesValue != null) {
-            long nurses = DataStore.staff.values().stream().filter(s -> s.role == StaffRole.NURSE).count();
+        if (doctorsValue != null)
+            doctorsValue.setText(String.valueOf(doctors));
+        if (nursesValue != null)
             nursesValue.setText(String.valueOf(nurses));
-        }
-
-        if (cashiersValue != null) {
-            long cashiers = DataStore.staff.values().stream().filter(s -> s.role == StaffRole.CASHIER).count();
+        if (cashiersValue != null)
             cashiersValue.setText(String.valueOf(cashiers));
-        }
+    }
 
-        // Repaint to ensure visual update
-        if (grid != null) {
-            grid.revalidate();
-            grid.repaint();
-        }
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        DomainEvents.subscribe(cardUpdater, DomainEvents.Kind.PATIENT, DomainEvents.Kind.APPOINTMENT,
+                DomainEvents.Kind.ROOM, DomainEvents.Kind.STAFF);
+    }
+
+    @Override
+    public void removeNotify() {
+        DomainEvents.unsubscribe(cardUpdater);
+        super.removeNotify();
     }
 }
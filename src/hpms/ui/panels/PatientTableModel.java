@@ -0,0 +1,111 @@
+package hpms.ui.panels;
+
+import hpms.model.*;
+import hpms.service.PatientStatusService;
+import hpms.util.DataStore;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Read-only model for the patients table. It shows one page of a filtered
+ * index array over a patient snapshot; cell values are derived on demand, so
+ * changing the filter or the page copies no row objects.
+ */
+class PatientTableModel extends AbstractTableModel {
+    // Show room, status and patient type (registration type) instead of
+    // contact/address so staff sees important info at a glance
+    private static final String[] COLUMNS = { "ID", "Name", "Age", "Gender", "Room", "Status", "Type" };
+
+    /**
+     * Patients with the room and status each had when the snapshot was taken.
+     * Take it on the EDT; it can then be read from any thread.
+     */
+    static final class Snapshot {
+        final Patient[] patients;
+        final PatientStatus[] status;
+        final Map<String, String> roomOf = new HashMap<>();
+
+        private Snapshot(Patient[] patients) {
+            this.patients = patients;
+            this.status = new PatientStatus[patients.length];
+        }
+
+        static Snapshot take() {
+            Snapshot s = new Snapshot(DataStore.patients.values().toArray(new Patient[0]));
+            for (int i = 0; i < s.patients.length; i++)
+                s.status[i] = PatientStatusService.getStatus(s.patients[i].id);
+            for (Room r : DataStore.rooms.values())
+                if (r.occupantPatientId != null)
+                    s.roomOf.putIfAbsent(r.occupantPatientId, r.id);
+            return s;
+        }
+    }
+
+    private Snapshot snapshot;
+    private int[] rows = new int[0];
+    private int offset;
+    private int length;
+
+    /**
+     * Show rows[offset, offset + length) of the snapshot
+     */
+    void setPage(Snapshot snapshot, int[] rows, int offset, int length) {
+        this.snapshot = snapshot;
+        this.rows = rows;
+        this.offset = offset;
+        this.length = length;
+        fireTableDataChanged();
+    }
+
+    String idAt(int row) {
+        return snapshot.patients[rows[offset + row]].id;
+    }
+
+    @Override
+    public int getRowCount() {
+        return length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        int i = rows[offset + row];
+        Patient p = snapshot.patients[i];
+        switch (column) {
+            case 0:
+                return p.id;
+            case 1:
+                return p.name;
+            case 2:
+                return p.age;
+            case 3:
+                return p.gender;
+            case 4: {
+                String room = snapshot.roomOf.get(p.id);
+                return room == null ? "Not Assigned" : room;
+            }
+            case 5: {
+                PatientStatus st = snapshot.status[i];
+                String statusDisplay = st == null ? "" : st.name();
+                // Add lock indicator for OUTPATIENT/DISCHARGED records
+                if (p.isOutpatientPermanent || st == PatientStatus.OUTPATIENT || st == PatientStatus.DISCHARGED)
+                    statusDisplay = "🔒 " + statusDisplay;
+                return statusDisplay;
+            }
+            default:
+                return p.registrationType == null || p.registrationType.trim().isEmpty() ? "Walk-in Patient"
+                        : p.registrationType;
+        }
+    }
+}
@@ -26,13 +26,26 @@ import java.util.List;
 import java.util.Locale;
 
 public class PatientsPanel extends JPanel {
-    // Show room, status and patient type (registration type) instead of
-    // contact/address so staff sees important info at a glance
-    private final DefaultTableModel patientsModel = new DefaultTableModel(
-            new String[] { "ID", "Name", "Age", "Gender", "Room", "Status", "Type" }, 0) {
-        public boolean isCellEditable(int r, int c) {
-            return false;
-        }
+    private final PatientTableModel patientsModel = new PatientTableModel();
+    // Filtering runs on this thread over a snapshot taken on the EDT; a newer
+    // query cancels the one still running
+    private static final java.util.concurrent.ExecutorService FILTER_EXECUTOR = java.util.concurrent.Executors
+            .newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "patient-filter");
+                t.setDaemon(true);
+                return t;
+            });
+    private static final int FILTER_DEBOUNCE_MS = 200;
+    private final java.util.concurrent.atomic.AtomicLong filterGeneration = new java.util.concurrent.atomic.AtomicLong();
+    private java.util.concurrent.Future<?> pendingFilter;
+    private final javax.swing.Timer filterDebounce = new javax.swing.Timer(FILTER_DEBOUNCE_MS, e -> applyPatientFilter());
+    private PatientTableModel.Snapshot snapshot; // null once patients, statuses or rooms change
+    private PatientTableModel.Snapshot shownSnapshot;
+    private int[] filteredRows = new int[0];
+    private final DomainEvents.Listener snapshotInvalidator = events -> {
+        snapshot = null;
+        if (isShowing())
+            applyPatientFilter();
     };
     private JLabel nameLabel, ageGenderLabel, contactLabel, roomLabel, doctorLabel, lastVisitLabel;
     private JLabel allergiesLabel, registrationLabel, vitalsLabel;
@@ -58,6 +71,7 @@ public class PatientsPanel extends JPanel {
     private PatientStatus selectedCategory = null; // null means show all, otherwise filter by category
 
     public PatientsPanel() {
+        filterDebounce.setRepeats(false);
         setLayout(new BorderLayout(12, 12));
         setBackground(Theme.BG);
         add(SectionHeader.info("Patient Management", "Add, search, and update patient records with quick actions."),
@@ -465,11 +479,8 @@ public class PatientsPanel extends JPanel {
         // Live-sync both search boxes (keep them identical and filter as user types)
         javax.swing.event.DocumentListener syncSearch = new javax.swing.event.DocumentListener() {
             private void doSync(javax.swing.event.DocumentEvent e) {
-                try {
-                    currentPage = 1;
-                    applyPatientFilter();
-                } catch (Exception ex) {
-                }
+                currentPage = 1;
+                filterDebounce.restart();
             }
 
             public void insertUpdate(javax.swing.event.DocumentEvent e) {
@@ -520,7 +531,7 @@ public class PatientsPanel extends JPanel {
         javax.swing.event.DocumentListener ageListener = new javax.swing.event.DocumentListener() {
             private void d() {
                 currentPage = 1;
-                applyPatientFilter();
+                filterDebounce.restart();
             }
 
             public void insertUpdate(javax.swing.event.DocumentEvent e) {
@@ -809,7 +820,7 @@ public class PatientsPanel extends JPanel {
                 java.io.File[] files = fc.getSelectedFiles();
                 for (java.io.File f : files)
                     p.attachmentPaths.add(f.getAbsolutePath());
-                LogManager.log("attach_files " + id);
+                LogManager.log("attach_files", id);
                 JOptionPane.showMessageDialog(this, "Files attached: " + files.length);
                 updateOverviewFromSelection(table);
             }
@@ -829,12 +840,12 @@ public class PatientsPanel extends JPanel {
         prevPage.addActionListener(e -> {
             if (currentPage > 1) {
                 currentPage--;
-                applyPatientFilter();
+                showPage();
             }
         });
         nextPage.addActionListener(e -> {
             currentPage++;
-            applyPatientFilter();
+            showPage();
         });
 
         // toggle notes
@@ -858,9 +869,23 @@ public class PatientsPanel extends JPanel {
     }
 
     public void refresh() {
+        snapshot = null;
         applyPatientFilter();
     }
 
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        DomainEvents.subscribe(snapshotInvalidator, DomainEvents.Kind.PATIENT, DomainEvents.Kind.STATUS,
+                DomainEvents.Kind.ROOM);
+    }
+
+    @Override
+    public void removeNotify() {
+        DomainEvents.unsubscribe(snapshotInvalidator);
+        super.removeNotify();
+    }
+
     public void addPatientDialog() {
         JDialog dialog = new JDialog((Frame) SwingUtilities.getWindowAncestor(this), "Add Patient", true);
         dialog.setLayout(new BorderLayout(10, 10));
@@ -1311,9 +1336,51 @@ public class PatientsPanel extends JPanel {
 
         dialog.add(scrollPane, BorderLayout.CENTER);
 
+        // Likely duplicates, refreshed shortly after the clerk stops typing
+        JLabel duplicatesLabel = new JLabel(" ");
+        duplicatesLabel.setForeground(new Color(180, 90, 0));
+        duplicatesLabel.setBorder(BorderFactory.createEmptyBorder(0, 20, 0, 0));
+        javax.swing.Timer duplicateCheck = new javax.swing.Timer(FILTER_DEBOUNCE_MS, ev -> {
+            java.util.List<Patient> similar = findSimilarPatients(nameField.getText(), phoneField.getText(),
+                    emailField.getText());
+            if (similar.isEmpty()) {
+                duplicatesLabel.setText(" ");
+                return;
+            }
+            StringBuilder sb = new StringBuilder("<html>Possible existing record: ");
+            for (int i = 0; i < similar.size(); i++) {
+                Patient sp = similar.get(i);
+                sb.append(i == 0 ? "" : "; ").append(sp.id).append(" ")
+                        .append(sp.name == null ? "" : sp.name.replace("<", "&lt;"))
+                        .append(sp.birthday == null ? "" : " (" + sp.birthday + ")");
+            }
+            duplicatesLabel.setText(sb.append("</html>").toString());
+        });
+        duplicateCheck.setRepeats(false);
+        javax.swing.event.DocumentListener duplicateListener = new javax.swing.event.DocumentListener() {
+            public void insertUpdate(javax.swing.event.DocumentEvent e) {
+                duplicateCheck.restart();
+            }
+
+            public void removeUpdate(javax.swing.event.DocumentEvent e) {
+                duplicateCheck.restart();
+            }
+
+            public void changedUpdate(javax.swing.event.DocumentEvent e) {
+                duplicateCheck.restart();
+            }
+        };
+        nameField.getDocument().addDocumentListener(duplicateListener);
+        phoneField.getDocument().addDocumentListener(duplicateListener);
+        emailField.getDocument().addDocumentListener(duplicateListener);
+
         // ==================== BUTTONS ====================
-        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 10));
+        JPanel buttonPanel = new JPanel(new BorderLayout());
         buttonPanel.setBackground(Color.WHITE);
+        buttonPanel.add(duplicatesLabel, BorderLayout.CENTER);
+        JPanel buttonRow = new JPanel(new FlowLayout(FlowLayout.RIGHT, 10, 10));
+        buttonRow.setBackground(Color.WHITE);
+        buttonPanel.add(buttonRow, BorderLayout.EAST);
 
         JButton saveButton = new JButton("Save Patient");
         saveButton.setFont(new Font("Arial", Font.BOLD, 12));
@@ -1325,8 +1392,8 @@ public class PatientsPanel extends JPanel {
         cancelButton.setFont(new Font("Arial", Font.PLAIN, 12));
         cancelButton.setFocusPainted(false);
 
-        buttonPanel.add(saveButton);
-        buttonPanel.add(cancelButton);
+        buttonRow.add(saveButton);
+        buttonRow.add(cancelButton);
 
         dialog.add(buttonPanel, BorderLayout.SOUTH);
 
@@ -1479,16 +1546,17 @@ public class PatientsPanel extends JPanel {
                 // Store additional new fields in patient record
                 Patient newPatient = DataStore.patients.get(patientId);
                 if (newPatient != null) {
+                    java.util.List<String> registrationNotes = new java.util.ArrayList<>();
                     // Store emergency contact info
                     if (!emergencyContactName.getText().trim().isEmpty()) {
-                        newPatient.progressNotes.add("Emergency Contact: " + emergencyContactName.getText().trim() +
+                        registrationNotes.add("Emergency Contact: " + emergencyContactName.getText().trim() +
                                 " | Phone: " + emergencyContactPhone.getText().trim() +
                                 " | Relationship: " + emergencyRelationship.getText().trim());
                     }
 
                     // Store pharmacy info
                     if (!pharmacyName.getText().trim().isEmpty()) {
-                        newPatient.progressNotes.add("Preferred Pharmacy: " + pharmacyName.getText().trim() +
+                        registrationNotes.add("Preferred Pharmacy: " + pharmacyName.getText().trim() +
                                 " | Phone: " + pharmacyPhone.getText().trim() +
                                 " | Address: " + pharmacyAddress.getText().trim());
                     }
@@ -1504,12 +1572,12 @@ public class PatientsPanel extends JPanel {
                     if (pronounOther.isSelected())
                         pronouns.append(pronounOtherText.getText().trim());
                     if (pronouns.length() > 0) {
-                        newPatient.progressNotes.add("Preferred Pronouns: " + pronouns.toString().trim());
+                        registrationNotes.add("Preferred Pronouns: " + pronouns.toString().trim());
                     }
 
                     // Store primary language and interpreter
                     if (!primaryLanguageField.getText().trim().isEmpty()) {
-                        newPatient.progressNotes.add("Primary Language: " + primaryLanguageField.getText().trim() +
+                        registrationNotes.add("Primary Language: " + primaryLanguageField.getText().trim() +
                                 " | Interpreter needed: " + (interpreterYes.isSelected() ? "Yes" : "No"));
                     }
 
@@ -1522,9 +1590,12 @@ public class PatientsPanel extends JPanel {
                     if (contactText.isSelected())
                         contactMethods.append("Text ");
                     if (contactMethods.length() > 0) {
-                        newPatient.progressNotes.add("Preferred Contact: " + contactMethods.toString().trim());
+                        registrationNotes.add("Preferred Contact: " + contactMethods.toString().trim());
                     }
 
+                    PatientService.addProgressNotes(patientId,
+                            hpms.auth.AuthService.current == null ? null : hpms.auth.AuthService.current.username, registrationNotes);
+
                     // Store insurance group number if provided
                     if (!groupNumber.getText().trim().isEmpty()) {
                         newPatient.insuranceGroup = groupNumber.getText().trim();
@@ -1535,12 +1606,12 @@ public class PatientsPanel extends JPanel {
 
                 // Generate patient portal credentials
                 String defaultPassword = generateDefaultPassword(patientId);
-                showPatientCredentialsDialog(patientId, defaultPassword);
-
-                JOptionPane.showMessageDialog(dialog, "Patient created successfully!\nPatient ID: " + patientId,
-                        "Success", JOptionPane.INFORMATION_MESSAGE);
-                dialog.dispose();
-                refresh();
+                showPatientCredentialsDialog(patientId, defaultPassword, () -> {
+                    JOptionPane.showMessageDialog(dialog, "Patient created successfully!\nPatient ID: " + patientId,
+                            "Success", JOptionPane.INFORMATION_MESSAGE);
+                    dialog.dispose();
+                    refresh();
+                });
             } else {
                 JOptionPane.showMessageDialog(dialog, result.get(0), "Error", JOptionPane.ERROR_MESSAGE);
             }
@@ -3964,19 +4035,12 @@ public class PatientsPanel extends JPanel {
         new PatientDetailsDialogNew(owner, p);
     }
 
-    // Find patients that are likely duplicates based on name or contact
-    @SuppressWarnings("unused")
-    private java.util.List<Patient> findSimilarPatients(String name, String contact) {
+    // Find patients that are likely duplicates based on name, phone or email
+    private java.util.List<Patient> findSimilarPatients(String name, String phone, String email) {
         java.util.List<Patient> matches = new java.util.ArrayList<>();
-        if ((name == null || name.trim().isEmpty()) && (contact == null || contact.trim().isEmpty()))
-            return matches;
-        String n = name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
-        String c = contact == null ? "" : contact.trim();
-        for (Patient p : DataStore.patients.values()) {
-            boolean nameMatch = !n.isEmpty() && p.name != null && p.name.trim().toLowerCase(Locale.ROOT).equals(n);
-            boolean contactMatch = !c.isEmpty() && p.contact != null && p.contact.trim().equals(c);
-            // prefer exact matches first (both name+contact)
-            if (nameMatch || contactMatch)
+        for (String id : PatientSearchIndex.likelyDuplicates(name, phone, email, 5)) {
+            Patient p = DataStore.patients.get(id);
+            if (p != null)
                 matches.add(p);
         }
         return matches;
@@ -3990,8 +4054,7 @@ public class PatientsPanel extends JPanel {
     }
 
     private Appointment latestAppointmentForPatient(String pid) {
-        return DataStore.appointments.values().stream().filter(a -> a.patientId.equals(pid))
-                .max(Comparator.comparing(a -> a.dateTime)).orElse(null);
+        return DataStore.appointments.latestForPatient(pid);
     }
 
     private void applyPatientFilter() {
@@ -4030,64 +4093,98 @@ public class PatientsPanel extends JPanel {
             }
         }
 
-        java.util.List<Patient> filtered = new java.util.ArrayList<>();
-        for (Patient p : DataStore.patients.values()) {
+        FilterCriteria c = new FilterCriteria();
+        c.query = q;
+        c.gender = gSel;
+        c.minAge = minAge;
+        c.maxAge = maxAge;
+        c.needAssigned = needAssigned;
+        c.needNotAssigned = needNotAssigned;
+        c.recentPatients = recentOnly ? recentPatientIds() : null;
+        c.showInactive = showInactive;
+        c.dateStart = dateStart;
+        c.dateEnd = dateEnd;
+        c.category = selectedCategory;
+
+        filterDebounce.stop();
+        if (snapshot == null)
+            snapshot = PatientTableModel.Snapshot.take();
+        PatientTableModel.Snapshot snap = snapshot;
+        long generation = filterGeneration.incrementAndGet();
+        if (pendingFilter != null)
+            pendingFilter.cancel(true);
+        pendingFilter = FILTER_EXECUTOR.submit(() -> {
+            int[] rows = filterRows(snap, c, () -> filterGeneration.get() != generation);
+            if (rows == null)
+                return;
+            SwingUtilities.invokeLater(() -> {
+                if (filterGeneration.get() != generation)
+                    return; // a newer query is on its way
+                shownSnapshot = snap;
+                filteredRows = rows;
+                showPage();
+            });
+        });
+    }
+
+    /** Filter values read from the controls on the EDT */
+    private static final class FilterCriteria {
+        String query;
+        String gender;
+        Integer minAge, maxAge;
+        boolean needAssigned, needNotAssigned, showInactive;
+        java.util.Set<String> recentPatients; // null unless "recent" is checked
+        LocalDateTime dateStart, dateEnd;
+        PatientStatus category;
+    }
+
+    /**
+     * Indexes of the snapshot patients matching the criteria, or null when
+     * cancelled. Runs off the EDT and reads nothing outside the snapshot.
+     */
+    private static int[] filterRows(PatientTableModel.Snapshot snap, FilterCriteria c,
+            java.util.function.BooleanSupplier cancelled) {
+        String q = c.query;
+        // Name, contact, email, address and ID terms come from the search index
+        java.util.Set<String> indexed = q.isEmpty() ? null : PatientSearchIndex.search(q);
+        int[] out = new int[snap.patients.length];
+        int n = 0;
+        for (int i = 0; i < snap.patients.length; i++) {
+            if ((i & 1023) == 0 && (cancelled.getAsBoolean() || Thread.currentThread().isInterrupted()))
+                return null;
+            Patient p = snap.patients[i];
             // Skip inactive patients unless showInactive is checked
-            if (!p.isActive && !showInactive)
+            if (!p.isActive && !c.showInactive)
                 continue;
 
             // Skip incomplete patients (missing required fields)
             // Required: name, age > 0, birthday, gender, contact, address, patientType
-            p.validateCompleteness(); // Update completeness status
-            if (!p.isComplete) {
-                // Patient has incomplete information - skip from main list
+            if (!p.hasRequiredFields())
                 continue;
-            }
 
             // Date range filter
-            if (dateStart != null && p.createdAt != null && p.createdAt.isBefore(dateStart))
+            if (c.dateStart != null && p.createdAt != null && p.createdAt.isBefore(c.dateStart))
                 continue;
-            if (dateEnd != null && p.createdAt != null && p.createdAt.isAfter(dateEnd))
+            if (c.dateEnd != null && p.createdAt != null && p.createdAt.isAfter(c.dateEnd))
                 continue;
 
-            Room r = findRoomForPatient(p.id);
-            hpms.model.PatientStatus st = PatientStatusService.getStatus(p.id);
+            String room = snap.roomOf.get(p.id);
+            PatientStatus st = snap.status[i];
 
-            // Category filter (NEW) - filter by selected patient category
-            if (selectedCategory != null && st != selectedCategory) {
+            // Category filter - filter by selected patient category
+            if (c.category != null && st != c.category)
                 continue;
-            }
 
             if (!q.isEmpty()) {
-                // Enhanced search: prioritize exact ID match, then name contains, then other fields
-                boolean matches = false;
-                
-                // Exact ID match (highest priority)
-                if (q.equalsIgnoreCase(p.id)) {
-                    matches = true;
-                }
-                // Name contains (high priority)
-                else if (p.name != null && p.name.toLowerCase(Locale.ROOT).contains(q)) {
-                    matches = true;
-                }
-                // Partial ID match (medium priority)
-                else if (p.id.toLowerCase(Locale.ROOT).contains(q)) {
-                    matches = true;
-                }
-                // Other fields (low priority)
-                else {
-                    String blob = (r == null ? "" : r.id) + " " + (st == null ? "" : st.name())
-                            + " " + (p.registrationType == null ? "" : p.registrationType);
-                    blob = blob.toLowerCase(Locale.ROOT);
-                    if (blob.contains(q)) {
-                        matches = true;
-                    }
-                }
-                
+                // Exact ID or indexed terms first, then room, status and registration type
+                boolean matches = q.equalsIgnoreCase(p.id) || indexed.contains(p.id)
+                        || (room != null && room.toLowerCase(Locale.ROOT).contains(q))
+                        || (st != null && st.name().toLowerCase(Locale.ROOT).contains(q))
+                        || (p.registrationType != null && p.registrationType.toLowerCase(Locale.ROOT).contains(q));
                 if (!matches) continue;
             }
-            if (!"All".equalsIgnoreCase(gSel)) {
-                String sel = gSel.trim().toLowerCase(Locale.ROOT);
+            if (!"All".equalsIgnoreCase(c.gender)) {
+                String sel = c.gender.trim().toLowerCase(Locale.ROOT);
                 String gname = p.gender == null ? "" : p.gender.name();
                 if ("other".equalsIgnoreCase(sel)) {
                     // treat anything that's not Male or Female as Other (includes LGBTQ_PLUS)
@@ -4097,26 +4194,37 @@ public class PatientsPanel extends JPanel {
                     continue;
                 }
             }
-            if (minAge != null && p.age < minAge)
+            if (c.minAge != null && p.age < c.minAge)
                 continue;
-            if (maxAge != null && p.age > maxAge)
+            if (c.maxAge != null && p.age > c.maxAge)
                 continue;
 
-            if (needAssigned && r == null)
+            if (c.needAssigned && room == null)
                 continue;
-            if (needNotAssigned && r != null)
+            if (c.needNotAssigned && room != null)
                 continue;
-            if (recentOnly) {
-                Appointment latest = latestAppointmentForPatient(p.id);
-                if (latest == null)
-                    continue;
-                if (latest.dateTime.isBefore(LocalDateTime.now().minusDays(30)))
-                    continue;
-            }
-            filtered.add(p);
+            if (c.recentPatients != null && !c.recentPatients.contains(p.id))
+                continue;
+            out[n++] = i;
         }
-        // pagination
-        int total = filtered.size();
+        return java.util.Arrays.copyOf(out, n);
+    }
+
+    /** Patients whose latest appointment is no more than 30 days old */
+    private java.util.Set<String> recentPatientIds() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(30);
+        java.util.Set<String> out = new java.util.HashSet<>();
+        for (Appointment a : DataStore.appointments.values())
+            if (a.patientId != null && a.dateTime != null && !a.dateTime.isBefore(cutoff))
+                out.add(a.patientId);
+        return out;
+    }
+
+    /** Show the current page of the last filter result */
+    private void showPage() {
+        if (shownSnapshot == null)
+            return;
+        int total = filteredRows.length;
         int totalPages = Math.max(1, (int) Math.ceil(total / (double) pageSize));
         if (currentPage > totalPages)
             currentPage = totalPages;
@@ -4124,45 +4232,28 @@ public class PatientsPanel extends JPanel {
             currentPage = 1;
         int start = (currentPage - 1) * pageSize;
         int end = Math.min(start + pageSize, total);
-        
+
         // Preserve selected patient ID to restore selection after refresh
         String selectedPatientId = null;
         int selectedRow = table.getSelectedRow();
         if (selectedRow >= 0) {
             selectedPatientId = (String) table.getValueAt(selectedRow, 0);
         }
-        
-        patientsModel.setRowCount(0);
-        for (int i = start; i < end; i++) {
-            Patient p = filtered.get(i);
-            Room r = findRoomForPatient(p.id);
-            hpms.model.PatientStatus st = PatientStatusService.getStatus(p.id);
-            String reg = (p.registrationType == null || p.registrationType.trim().isEmpty()) ? "Walk-in Patient"
-                    : p.registrationType;
-
-            // Add lock indicator for OUTPATIENT/DISCHARGED records
-            String statusDisplay = (st == null ? "" : st.name());
-            boolean isLocked = p.isOutpatientPermanent || st == PatientStatus.OUTPATIENT
-                    || st == PatientStatus.DISCHARGED;
-            if (isLocked) {
-                statusDisplay = "🔒 " + statusDisplay; // Lock emoji indicator
-            }
 
-            patientsModel.addRow(new Object[] { p.id, p.name, p.age, p.gender, (r == null ? "Not Assigned" : r.id),
-                    statusDisplay, reg });
-        }
-        
+        patientsModel.setPage(shownSnapshot, filteredRows, start, end - start);
+
         // Restore selection after table refresh
         if (selectedPatientId != null) {
             for (int i = 0; i < patientsModel.getRowCount(); i++) {
-                if (selectedPatientId.equals(patientsModel.getValueAt(i, 0))) {
-                    table.setRowSelectionInterval(i, i);
+                if (selectedPatientId.equals(patientsModel.idAt(i))) {
+                    int view = table.convertRowIndexToView(i);
+                    table.setRowSelectionInterval(view, view);
                     updateOverviewFromSelection(table);
                     break;
                 }
             }
         }
-        
+
         if (pageInfo != null)
             pageInfo.setText("Page " + currentPage + " of " + totalPages + " (" + total + " items)");
         if (prevPage != null)
@@ -4188,7 +4279,7 @@ public class PatientsPanel extends JPanel {
         return patientId + randomNum;
     }
 
-    private void showPatientCredentialsDialog(String patientId, String defaultPassword) {
+    private void showPatientCredentialsDialog(String patientId, String defaultPassword, Runnable afterClose) {
         // Create a custom dialog to display patient credentials
         JDialog dialog = new JDialog((java.awt.Frame) javax.swing.SwingUtilities.getWindowAncestor(this),
                 "Patient Account Created", true);
@@ -4298,14 +4389,38 @@ public class PatientsPanel extends JPanel {
         mainPanel.add(buttonPanel, gbc);
 
         dialog.add(mainPanel);
-        // Persist patient portal credential in secure hashed storage (AuthService)
-        java.util.List<String> created = hpms.auth.AuthService.createPatientAccount(patientId, defaultPassword);
+        // Persist patient portal credential in secure hashed storage (AuthService); hashing runs off the EDT
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        new SwingWorker<java.util.List<String>, Void>() {
+            @Override
+            protected java.util.List<String> doInBackground() {
+                return hpms.auth.AuthService.createPatientAccount(patientId, defaultPassword);
+            }
+
+            @Override
+            protected void done() {
+                setCursor(Cursor.getDefaultCursor());
+                java.util.List<String> created;
+                try {
+                    created = get();
+                } catch (Exception ex) {
+                    created = java.util.Collections.singletonList("Error: " + ex.getMessage());
+                }
+                portalAccountResult(patientId, created);
+                dialog.setVisible(true);
+                afterClose.run();
+            }
+        }.execute();
+    }
+
+    /** Log and email a new portal account, or warn that it was not created */
+    private void portalAccountResult(String patientId, java.util.List<String> created) {
         boolean portalOk = !created.isEmpty() &&
                 (created.get(0).startsWith("Patient account created")
                         || created.get(0).startsWith("Patient account already exists")
                         || created.get(0).startsWith("Patient account updated"));
         if (portalOk) {
-            LogManager.log("patient_portal_created " + patientId);
+            LogManager.log("patient_portal_created", patientId);
             
             // Send email with credentials to patient
             Patient p = DataStore.patients.get(patientId);
@@ -4351,8 +4466,6 @@ public class PatientsPanel extends JPanel {
                     "Warning: patient portal account not created: " + String.join(";", created), "Portal account",
                     JOptionPane.WARNING_MESSAGE);
         }
-
-        dialog.setVisible(true);
     }
 
     /**
@@ -1,6 +1,9 @@
 package hpms.ui.panels;
 
 import hpms.model.*;
+import hpms.service.AnalyticsStore;
+import hpms.service.ReportEngine;
+import hpms.service.StatisticsService;
 import hpms.util.*;
 import hpms.ui.components.SectionHeader;
 import hpms.ui.components.Theme;
@@ -12,7 +15,15 @@ import java.awt.*;
 
 public class ReportsPanel extends JPanel {
     private JTabbedPane tabbedPane;
-    private DefaultTableModel appointmentModel, activityModel, billingModel, deactivatedModel;
+    private DefaultTableModel appointmentModel, activityModel, billingModel, deactivatedModel, trendsModel;
+    private JComboBox<String> activityRange;
+    private JComboBox<String> trendMeasure, trendGroup, trendBucket, trendRange;
+    private JLabel trendStatus;
+    private JLabel totalLabel, upcomingLabel, completedLabel, totalRevenueLabel, paidLabel, unpaidLabel;
+    // Running table loads; a newer load cancels the one before it
+    private ReportEngine.Job appointmentJob, billingJob, deactivatedJob;
+    // Most activity rows shown for one range
+    private static final int ACTIVITY_ROWS = 5000;
 
     public ReportsPanel() {
         setLayout(new BorderLayout());
@@ -44,6 +55,9 @@ public class ReportsPanel extends JPanel {
         JPanel deactivatedTab = createDeactivatedAccountsTab();
         tabbedPane.addTab("Deactivated Accounts", deactivatedTab);
 
+        // Tab 6: Long-range trends from the analytics store
+        tabbedPane.addTab("Trends", createTrendsTab());
+
         add(tabbedPane, BorderLayout.CENTER);
         refresh();
 
@@ -86,12 +100,12 @@ public class ReportsPanel extends JPanel {
         JPanel statsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 24, 8));
         statsPanel.setBackground(Theme.BG);
 
-        JLabel totalLabel = new JLabel("Total: 0");
+        totalLabel = new JLabel("Total: 0");
         totalLabel.setFont(new Font("Segoe UI", Font.BOLD, 12));
-        JLabel upcomingLabel = new JLabel("Upcoming: 0");
+        upcomingLabel = new JLabel("Upcoming: 0");
         upcomingLabel.setFont(new Font("Segoe UI", Font.BOLD, 12));
         upcomingLabel.setForeground(new Color(0, 110, 102));
-        JLabel completedLabel = new JLabel("Completed: 0");
+        completedLabel = new JLabel("Completed: 0");
         completedLabel.setFont(new Font("Segoe UI", Font.BOLD, 12));
         completedLabel.setForeground(new Color(52, 152, 219));
 
@@ -124,37 +138,11 @@ public class ReportsPanel extends JPanel {
 
         JButton refreshBtn = new JButton("Refresh");
         styleButton(refreshBtn, new Color(0, 110, 102));
-        refreshBtn.addActionListener(e -> {
-            appointmentModel.setRowCount(0);
-            int total = 0, upcoming = 0, completed = 0;
-
-            for (Appointment apt : DataStore.appointments.values()) {
-                Patient p = DataStore.patients.get(apt.patientId);
-                Staff s = DataStore.staff.get(apt.staffId);
-                String patientName = p != null ? p.name : "Unknown";
-                String staffName = s != null ? s.name : "Unknown";
-
-                appointmentModel.addRow(new Object[] {
-                        apt.id,
-                        patientName,
-                        staffName,
-                        apt.dateTime.toLocalDate(),
-                        apt.dateTime.toLocalTime(),
-                        "Scheduled"
-                });
-                total++;
-                upcoming++;
-            }
+        refreshBtn.addActionListener(e -> loadAppointments());
 
-            totalLabel.setText("Total: " + total);
-            upcomingLabel.setText("Upcoming: " + upcoming);
-            completedLabel.setText("Completed: " + completed);
-        });
-
-        JButton exportBtn = new JButton("Export to CSV");
+        JButton exportBtn = new JButton("Export...");
         styleButton(exportBtn, new Color(41, 128, 185));
-        exportBtn.addActionListener(e -> JOptionPane.showMessageDialog(this, "Export feature: Save report as CSV file",
-                "Export", JOptionPane.INFORMATION_MESSAGE));
+        exportBtn.addActionListener(e -> exportReport(false));
 
         actionPanel.add(refreshBtn);
         actionPanel.add(exportBtn);
@@ -172,15 +160,15 @@ public class ReportsPanel extends JPanel {
         JPanel statsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 24, 8));
         statsPanel.setBackground(Theme.BG);
 
-        JLabel totalRevenueLabel = new JLabel("Total Revenue: $0");
+        totalRevenueLabel = new JLabel("Total Revenue: $0");
         totalRevenueLabel.setFont(new Font("Segoe UI", Font.BOLD, 13));
         totalRevenueLabel.setForeground(new Color(46, 204, 113));
 
-        JLabel paidLabel = new JLabel("Paid: $0");
+        paidLabel = new JLabel("Paid: $0");
         paidLabel.setFont(new Font("Segoe UI", Font.BOLD, 12));
         paidLabel.setForeground(new Color(52, 152, 219));
 
-        JLabel unpaidLabel = new JLabel("Unpaid: $0");
+        unpaidLabel = new JLabel("Unpaid: $0");
         unpaidLabel.setFont(new Font("Segoe UI", Font.BOLD, 12));
         unpaidLabel.setForeground(new Color(192, 57, 43));
 
@@ -209,44 +197,173 @@ public class ReportsPanel extends JPanel {
 
         JButton refreshBtn = new JButton("Refresh");
         styleButton(refreshBtn, new Color(0, 110, 102));
-        refreshBtn.addActionListener(e -> {
-            billingModel.setRowCount(0);
-            double totalRevenue = 0, paid = 0, unpaid = 0;
-
-            for (Bill bill : DataStore.bills.values()) {
-                Patient p = DataStore.patients.get(bill.patientId);
-                String patientName = p != null ? p.name : "Unknown";
-
-                billingModel.addRow(new Object[] {
-                        bill.id,
-                        patientName,
-                        "$" + String.format("%.2f", bill.total),
-                        bill.paid ? "$" + String.format("%.2f", bill.total) : "$0.00",
-                        bill.paid ? "PAID" : "PENDING",
-                        bill.createdAt != null ? bill.createdAt.toLocalDate().toString() : "Unknown"
-                });
-                totalRevenue += bill.total;
-                paid += bill.paid ? bill.total : 0;
-                unpaid += bill.paid ? 0 : bill.total;
-            }
+        refreshBtn.addActionListener(e -> loadBilling());
 
-            totalRevenueLabel.setText(String.format("Total Revenue: $%.2f", totalRevenue));
-            paidLabel.setText(String.format("Paid: $%.2f", paid));
-            unpaidLabel.setText(String.format("Unpaid: $%.2f", unpaid));
-        });
+        JButton exportBtn = new JButton("Export...");
+        styleButton(exportBtn, new Color(41, 128, 185));
+        exportBtn.addActionListener(e -> exportReport(true));
 
         actionPanel.add(refreshBtn);
+        actionPanel.add(exportBtn);
         panel.add(actionPanel, BorderLayout.SOUTH);
         return panel;
     }
 
+    /** Build the appointment table on the report pool and show it when done */
+    private void loadAppointments() {
+        if (appointmentJob != null)
+            appointmentJob.cancel();
+        ReportEngine.Job job = appointmentJob = new ReportEngine.Job();
+        new SwingWorker<java.util.Vector<java.util.Vector<Object>>, Void>() {
+            @Override
+            protected java.util.Vector<java.util.Vector<Object>> doInBackground() {
+                return toVectors(hpms.service.ReportService.appointmentTable(job).rows);
+            }
+
+            @Override
+            protected void done() {
+                if (job.isCancelled())
+                    return;
+                try {
+                    java.util.Vector<java.util.Vector<Object>> rows = get();
+                    setRows(appointmentModel, rows);
+                    totalLabel.setText("Total: " + rows.size());
+                    upcomingLabel.setText("Upcoming: " + rows.size());
+                    completedLabel.setText("Completed: 0");
+                } catch (Exception ex) {
+                    System.err.println("ReportsPanel: appointment report failed: " + ex.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    /** Build the bill table and read the billing totals off the event thread */
+    private void loadBilling() {
+        if (billingJob != null)
+            billingJob.cancel();
+        ReportEngine.Job job = billingJob = new ReportEngine.Job();
+        new SwingWorker<java.util.Vector<java.util.Vector<Object>>, Void>() {
+            private double billed, paid;
+
+            @Override
+            protected java.util.Vector<java.util.Vector<Object>> doInBackground() {
+                java.util.Vector<java.util.Vector<Object>> rows = toVectors(hpms.service.ReportService.billingTable(job).rows);
+                billed = StatisticsService.billedTotal();
+                paid = StatisticsService.paidTotal();
+                return rows;
+            }
+
+            @Override
+            protected void done() {
+                if (job.isCancelled())
+                    return;
+                try {
+                    setRows(billingModel, get());
+                    totalRevenueLabel.setText(String.format("Total Revenue: $%.2f", billed));
+                    paidLabel.setText(String.format("Paid: $%.2f", paid));
+                    unpaidLabel.setText(String.format("Unpaid: $%.2f", billed - paid));
+                } catch (Exception ex) {
+                    System.err.println("ReportsPanel: billing report failed: " + ex.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    /** Rows in the form DefaultTableModel keeps them, built off the event thread */
+    private static java.util.Vector<java.util.Vector<Object>> toVectors(java.util.List<Object[]> rows) {
+        java.util.Vector<java.util.Vector<Object>> out = new java.util.Vector<>(rows.size());
+        for (Object[] row : rows)
+            out.add(new java.util.Vector<>(java.util.Arrays.asList(row)));
+        return out;
+    }
+
+    /** Replace every row of model with one change event, keeping its columns */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static void setRows(DefaultTableModel model, java.util.Vector<java.util.Vector<Object>> rows) {
+        java.util.Vector data = model.getDataVector();
+        data.clear();
+        data.addAll(rows);
+        model.fireTableDataChanged();
+    }
+
+    /** Ask for a range and file, then stream the bill or appointment detail report to it in the background */
+    private void exportReport(boolean bills) {
+        String[] ranges = { "This year", "Last 12 months", "Last 3 years", "All time" };
+        Object choice = JOptionPane.showInputDialog(this, "Records to export:", "Export",
+                JOptionPane.QUESTION_MESSAGE, null, ranges, ranges[0]);
+        if (choice == null)
+            return;
+        java.time.LocalDate to = java.time.LocalDate.now().plusDays(1);
+        java.time.LocalDate from;
+        if (choice == ranges[0])
+            from = to.minusDays(1).withDayOfYear(1);
+        else if (choice == ranges[1])
+            from = to.minusMonths(12);
+        else if (choice == ranges[2])
+            from = to.minusYears(3);
+        else
+            from = java.time.LocalDate.of(1900, 1, 1);
+
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new java.io.File((bills ? "bills" : "appointments") + ".csv"));
+        chooser.addChoosableFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("Excel workbook (*.xlsx)", "xlsx"));
+        chooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("CSV file (*.csv)", "csv"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION)
+            return;
+        String path = chooser.getSelectedFile().getPath();
+        boolean xlsx = path.toLowerCase().endsWith(".xlsx")
+                || (!path.toLowerCase().endsWith(".csv") && chooser.getFileFilter().getDescription().contains("xlsx"));
+        if (!path.toLowerCase().endsWith(xlsx ? ".xlsx" : ".csv"))
+            path += xlsx ? ".xlsx" : ".csv";
+        java.nio.file.Path target = java.nio.file.Paths.get(path);
+        ReportEngine.Format format = xlsx ? ReportEngine.Format.XLSX : ReportEngine.Format.CSV;
+
+        ReportEngine.Job job = new ReportEngine.Job();
+        ProgressMonitor monitor = new ProgressMonitor(this, "Exporting " + (bills ? "bills" : "appointments"),
+                target.getFileName().toString(), 0, 100);
+        monitor.setMillisToDecideToPopup(200);
+        SwingWorker<ReportEngine.Totals, Void> worker = new SwingWorker<ReportEngine.Totals, Void>() {
+            @Override
+            protected ReportEngine.Totals doInBackground() throws Exception {
+                ReportEngine.Progress p = (done, total) -> setProgress(total == 0 ? 100 : done * 100 / total);
+                return bills ? hpms.service.ReportService.exportBills(from, to, format, target, job, p)
+                        : hpms.service.ReportService.exportAppointments(from, to, format, target, job, p);
+            }
+
+            @Override
+            protected void done() {
+                monitor.close();
+                try {
+                    ReportEngine.Totals t = get();
+                    JOptionPane.showMessageDialog(ReportsPanel.this, "Exported " + t.rows + " rows"
+                            + (bills ? String.format(" (total $%.2f)", t.amount) : "") + " to " + target,
+                            "Export", JOptionPane.INFORMATION_MESSAGE);
+                } catch (java.util.concurrent.ExecutionException ex) {
+                    if (ex.getCause() instanceof java.util.concurrent.CancellationException)
+                        return;
+                    JOptionPane.showMessageDialog(ReportsPanel.this, "Export failed: " + ex.getCause().getMessage(),
+                            "Export", JOptionPane.ERROR_MESSAGE);
+                } catch (Exception ex) {
+                    System.err.println("ReportsPanel: export failed: " + ex.getMessage());
+                }
+            }
+        };
+        worker.addPropertyChangeListener(evt -> {
+            if ("progress".equals(evt.getPropertyName()))
+                monitor.setProgress((Integer) evt.getNewValue());
+            if (monitor.isCanceled())
+                job.cancel();
+        });
+        worker.execute();
+    }
+
     private JPanel createActivityTab() {
         JPanel panel = new JPanel(new BorderLayout());
         panel.setBackground(Theme.BG);
         panel.setBorder(new EmptyBorder(12, 12, 12, 12));
 
         activityModel = new DefaultTableModel(
-                new String[] { "Timestamp", "User", "Action", "Details" }, 0) {
+                new String[] { "Timestamp", "Action", "Details" }, 0) {
             public boolean isCellEditable(int r, int c) {
                 return false;
             }
@@ -255,17 +372,8 @@ public class ReportsPanel extends JPanel {
         JTable table = new JTable(activityModel);
         table.setFont(new Font("Segoe UI", Font.PLAIN, 11));
         table.getColumnModel().getColumn(0).setPreferredWidth(150);
-        table.getColumnModel().getColumn(1).setPreferredWidth(80);
-        table.getColumnModel().getColumn(2).setPreferredWidth(120);
-        table.getColumnModel().getColumn(3).setPreferredWidth(300);
-
-        // Sample activity log entries
-        activityModel.addRow(new Object[] { "2024-01-20 14:30", "admin", "LOGIN", "User logged in" });
-        activityModel.addRow(new Object[] { "2024-01-20 14:35", "admin", "PATIENT_ADD", "Added patient: John Doe" });
-        activityModel.addRow(
-                new Object[] { "2024-01-20 14:45", "doctor1", "APPOINTMENT_SCHEDULE", "Scheduled appointment" });
-        activityModel.addRow(new Object[] { "2024-01-20 15:00", "nurse1", "BILL_CREATE", "Created billing record" });
-        activityModel.addRow(new Object[] { "2024-01-20 15:15", "admin", "BACKUP", "System backup completed" });
+        table.getColumnModel().getColumn(1).setPreferredWidth(160);
+        table.getColumnModel().getColumn(2).setPreferredWidth(380);
 
         panel.add(new JScrollPane(table), BorderLayout.CENTER);
 
@@ -273,6 +381,16 @@ public class ReportsPanel extends JPanel {
         JPanel actionPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 8, 8));
         actionPanel.setBackground(Theme.BG);
 
+        activityRange = new JComboBox<>(new String[] { "Last hour", "Today", "Last 7 days", "Last 30 days" });
+        activityRange.setSelectedIndex(1);
+        activityRange.addActionListener(e -> loadActivity());
+        JButton refreshBtn = new JButton("Refresh");
+        styleButton(refreshBtn, new Color(41, 128, 185));
+        refreshBtn.addActionListener(e -> loadActivity());
+        actionPanel.add(new JLabel("Show:"));
+        actionPanel.add(activityRange);
+        actionPanel.add(refreshBtn);
+
         JButton clearBtn = new JButton("Clear Log");
         styleButton(clearBtn, new Color(192, 57, 43));
         clearBtn.addActionListener(e -> {
@@ -289,6 +407,150 @@ public class ReportsPanel extends JPanel {
         return panel;
     }
 
+    /** Fill the activity table from the log for the selected range; older entries come from disk */
+    private void loadActivity() {
+        java.time.LocalDateTime to = java.time.LocalDateTime.now().plusSeconds(1);
+        java.time.LocalDateTime from;
+        switch (activityRange.getSelectedIndex()) {
+            case 0: from = to.minusHours(1); break;
+            case 2: from = to.toLocalDate().minusDays(6).atStartOfDay(); break;
+            case 3: from = to.toLocalDate().minusDays(29).atStartOfDay(); break;
+            default: from = to.toLocalDate().atStartOfDay();
+        }
+        new SwingWorker<java.util.List<ActivityLog.Entry>, Void>() {
+            @Override
+            protected java.util.List<ActivityLog.Entry> doInBackground() {
+                return hpms.service.ReportService.activity(from, to, ACTIVITY_ROWS);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    java.util.List<ActivityLog.Entry> entries = get();
+                    activityModel.setRowCount(0);
+                    java.time.format.DateTimeFormatter fmt = java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+                    // Newest first
+                    for (int i = entries.size() - 1; i >= 0; i--) {
+                        ActivityLog.Entry e = entries.get(i);
+                        activityModel.addRow(new Object[] { e.localTime().format(fmt), e.code, e.details() });
+                    }
+                } catch (Exception ex) {
+                    System.err.println("ReportsPanel: activity load failed: " + ex.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    private JPanel createTrendsTab() {
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.setBackground(Theme.BG);
+        panel.setBorder(new EmptyBorder(12, 12, 12, 12));
+
+        JPanel options = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 8));
+        options.setBackground(Theme.BG);
+        trendMeasure = new JComboBox<>(new String[] { "Revenue", "Appointments / no-shows" });
+        trendGroup = new JComboBox<>(new String[] { "Department", "Doctor", "Payment method", "None" });
+        trendBucket = new JComboBox<>(new String[] { "Week", "Month", "Year", "Day", "Whole range" });
+        trendBucket.setSelectedIndex(1);
+        trendRange = new JComboBox<>(new String[] { "Last 12 weeks", "Last year", "Last 3 years", "All time" });
+        trendRange.setSelectedIndex(1);
+        options.add(new JLabel("Show:"));
+        options.add(trendMeasure);
+        options.add(new JLabel("by"));
+        options.add(trendGroup);
+        options.add(new JLabel("per"));
+        options.add(trendBucket);
+        options.add(trendRange);
+        panel.add(options, BorderLayout.NORTH);
+
+        trendsModel = new DefaultTableModel(0, 0) {
+            public boolean isCellEditable(int r, int c) {
+                return false;
+            }
+        };
+        JTable table = new JTable(trendsModel);
+        table.setFont(new Font("Segoe UI", Font.PLAIN, 11));
+        panel.add(new JScrollPane(table), BorderLayout.CENTER);
+
+        JPanel actionPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 8, 8));
+        actionPanel.setBackground(Theme.BG);
+        trendStatus = new JLabel("Not loaded");
+        JButton runBtn = new JButton("Run");
+        styleButton(runBtn, new Color(0, 110, 102));
+        runBtn.addActionListener(e -> loadTrends(false));
+        JButton reloadBtn = new JButton("Reload Data");
+        styleButton(reloadBtn, new Color(41, 128, 185));
+        reloadBtn.addActionListener(e -> loadTrends(true));
+        actionPanel.add(trendStatus);
+        actionPanel.add(runBtn);
+        actionPanel.add(reloadBtn);
+        panel.add(actionPanel, BorderLayout.SOUTH);
+        return panel;
+    }
+
+    /** Run the selected trend query off the event thread, reloading the analytics store first if asked */
+    private void loadTrends(boolean reload) {
+        boolean revenue = trendMeasure.getSelectedIndex() == 0;
+        AnalyticsStore.Dimension by = new AnalyticsStore.Dimension[] { AnalyticsStore.Dimension.DEPARTMENT,
+                AnalyticsStore.Dimension.STAFF, AnalyticsStore.Dimension.PAYMENT_METHOD,
+                AnalyticsStore.Dimension.NONE }[trendGroup.getSelectedIndex()];
+        AnalyticsStore.Bucket bucket = new AnalyticsStore.Bucket[] { AnalyticsStore.Bucket.WEEK,
+                AnalyticsStore.Bucket.MONTH, AnalyticsStore.Bucket.YEAR, AnalyticsStore.Bucket.DAY,
+                AnalyticsStore.Bucket.ALL }[trendBucket.getSelectedIndex()];
+        java.time.LocalDate to = java.time.LocalDate.now().plusDays(1);
+        java.time.LocalDate from;
+        switch (trendRange.getSelectedIndex()) {
+            case 0: from = to.minusWeeks(12); break;
+            case 2: from = to.minusYears(3); break;
+            case 3: from = java.time.LocalDate.of(1900, 1, 1); break;
+            default: from = to.minusYears(1);
+        }
+        if (!revenue && by == AnalyticsStore.Dimension.PAYMENT_METHOD) {
+            JOptionPane.showMessageDialog(this, "Appointments have no payment method", "Trends",
+                    JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        trendStatus.setText(reload || AnalyticsStore.loadedAt() == null ? "Loading..." : "Running...");
+        new SwingWorker<AnalyticsStore.Table, Void>() {
+            @Override
+            protected AnalyticsStore.Table doInBackground() {
+                if (reload)
+                    AnalyticsStore.load();
+                return revenue ? AnalyticsStore.revenue(from, to, bucket, by)
+                        : AnalyticsStore.appointments(from, to, bucket, by);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    AnalyticsStore.Table t = get();
+                    trendsModel.setRowCount(0);
+                    trendsModel.setColumnIdentifiers(revenue
+                            ? new Object[] { "Period", "Group", "Bills", "Billed", "Paid Bills" }
+                            : new Object[] { "Period", "Group", "Appointments", "No-shows", "No-show Rate" });
+                    for (int p = 0; p < t.periods.size(); p++) {
+                        for (int g = 0; g < t.groups.size(); g++) {
+                            long n = t.count(p, g);
+                            if (n == 0)
+                                continue;
+                            trendsModel.addRow(revenue
+                                    ? new Object[] { t.periods.get(p), t.groups.get(g), n,
+                                            String.format("%.2f", t.sum(p, g)), t.flagged(p, g) }
+                                    : new Object[] { t.periods.get(p), t.groups.get(g), n, t.flagged(p, g),
+                                            String.format("%.1f%%", 100.0 * t.flagged(p, g) / n) });
+                        }
+                    }
+                    trendStatus.setText(AnalyticsStore.appointmentRows() + " appointments, "
+                            + AnalyticsStore.billRows() + " bills as of "
+                            + AnalyticsStore.loadedAt().withNano(0).toLocalTime());
+                } catch (Exception ex) {
+                    trendStatus.setText("Failed");
+                    System.err.println("ReportsPanel: trends query failed: " + ex.getMessage());
+                }
+            }
+        }.execute();
+    }
+
     private JPanel createStatsTab() {
         JPanel panel = new JPanel(new BorderLayout());
         panel.setBackground(Theme.BG);
@@ -311,7 +573,7 @@ public class ReportsPanel extends JPanel {
         JTextArea details = new JTextArea();
         details.setEditable(false);
         details.setFont(new Font("Courier New", Font.PLAIN, 11));
-        details.setText(generateStatistics());
+        loadStatistics(details);
         details.setBorder(new EmptyBorder(12, 12, 12, 12));
 
         panel.add(new JScrollPane(details), BorderLayout.CENTER);
@@ -322,7 +584,7 @@ public class ReportsPanel extends JPanel {
 
         JButton refreshBtn = new JButton("Refresh Stats");
         styleButton(refreshBtn, new Color(0, 110, 102));
-        refreshBtn.addActionListener(e -> details.setText(generateStatistics()));
+        refreshBtn.addActionListener(e -> loadStatistics(details));
 
         actionPanel.add(refreshBtn);
         panel.add(actionPanel, BorderLayout.SOUTH);
@@ -351,36 +613,47 @@ public class ReportsPanel extends JPanel {
         return card;
     }
 
+    /** Read the statistics counters off the event thread; a rebuild can walk every record */
+    private void loadStatistics(JTextArea details) {
+        new SwingWorker<String, Void>() {
+            @Override
+            protected String doInBackground() {
+                return generateStatistics();
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    details.setText(get());
+                } catch (Exception ex) {
+                    System.err.println("ReportsPanel: statistics failed: " + ex.getMessage());
+                }
+            }
+        }.execute();
+    }
+
     private String generateStatistics() {
         StringBuilder sb = new StringBuilder();
         sb.append("=== SYSTEM STATISTICS ===\n\n");
 
         sb.append("PATIENTS:\n");
         sb.append("  Total Count: ").append(DataStore.patients.size()).append("\n");
-        int activePatients = DataStore.patients.size(); // All patients are active by default
+        int activePatients = StatisticsService.activePatients();
         sb.append("  Active: ").append(activePatients).append("\n");
-        sb.append("  Discharged: 0\n\n");
+        sb.append("  Discharged: ").append(DataStore.patients.size() - activePatients).append("\n\n");
 
         sb.append("APPOINTMENTS:\n");
         sb.append("  Total: ").append(DataStore.appointments.size()).append("\n\n");
 
         sb.append("BILLING:\n");
-        double totalBilled = 0, totalPaid = 0;
-        for (Bill b : DataStore.bills.values()) {
-            totalBilled += b.total;
-            totalPaid += b.paid ? b.total : 0;
-        }
-        sb.append("  Total Bills: ").append(DataStore.bills.size()).append("\n");
+        double totalBilled = StatisticsService.billedTotal(), totalPaid = StatisticsService.paidTotal();
+        sb.append("  Total Bills: ").append(StatisticsService.billCount()).append("\n");
         sb.append("  Total Billed: $").append(String.format("%.2f", totalBilled)).append("\n");
         sb.append("  Total Paid: $").append(String.format("%.2f", totalPaid)).append("\n");
         sb.append("  Pending: $").append(String.format("%.2f", totalBilled - totalPaid)).append("\n\n");
 
         sb.append("ROOMS:\n");
-        int occupied = 0;
-        for (Room r : DataStore.rooms.values()) {
-            if (r.occupantPatientId != null && !r.occupantPatientId.isEmpty())
-                occupied++;
-        }
+        int occupied = StatisticsService.occupiedRooms();
         sb.append("  Total Rooms: ").append(DataStore.rooms.size()).append("\n");
         sb.append("  Occupied: ").append(occupied).append("\n");
         sb.append("  Available: ").append(DataStore.rooms.size() - occupied).append("\n\n");
@@ -476,69 +749,39 @@ public class ReportsPanel extends JPanel {
     }
 
     private void refreshDeactivatedAccounts() {
-        if (deactivatedModel != null) {
-            deactivatedModel.setRowCount(0);
-            for (Patient patient : DataStore.patients.values()) {
-                if (!patient.isActive) {
-                    deactivatedModel.addRow(new Object[] {
-                            patient.id,
-                            patient.name,
-                            patient.age,
-                            patient.contact,
-                            patient.patientType
-                    });
+        if (deactivatedModel == null)
+            return;
+        if (deactivatedJob != null)
+            deactivatedJob.cancel();
+        ReportEngine.Job job = deactivatedJob = new ReportEngine.Job();
+        new SwingWorker<java.util.Vector<java.util.Vector<Object>>, Void>() {
+            @Override
+            protected java.util.Vector<java.util.Vector<Object>> doInBackground() {
+                return toVectors(hpms.service.ReportService.deactivatedPatients(job).rows);
+            }
+
+            @Override
+            protected void done() {
+                if (job.isCancelled())
+                    return;
+                try {
+                    setRows(deactivatedModel, get());
+                } catch (Exception ex) {
+                    System.err.println("ReportsPanel: deactivated accounts load failed: " + ex.getMessage());
                 }
             }
-        }
+        }.execute();
     }
 
     public void refresh() {
-        // Refresh all report tabs when panel is shown
+        // Refresh all report tabs when panel is shown; the tables are built in the background
         if (tabbedPane != null) {
-            // Refresh billing tab
-            if (billingModel != null) {
-                billingModel.setRowCount(0);
-                double totalRevenue = 0, paid = 0, unpaid = 0;
-
-                for (Bill bill : DataStore.bills.values()) {
-                    Patient p = DataStore.patients.get(bill.patientId);
-                    String patientName = p != null ? p.name : "Unknown";
-
-                    billingModel.addRow(new Object[] {
-                            bill.id,
-                            patientName,
-                            "$" + String.format("%.2f", bill.total),
-                            bill.paid ? "$" + String.format("%.2f", bill.total) : "$0.00",
-                            bill.paid ? "PAID" : "PENDING",
-                            bill.createdAt != null ? bill.createdAt.toLocalDate().toString() : "Unknown"
-                    });
-                    totalRevenue += bill.total;
-                    paid += bill.paid ? bill.total : 0;
-                    unpaid += bill.paid ? 0 : bill.total;
-                }
-
-                // Update billing stats labels in the billing tab
-                JPanel billingTab = (JPanel) tabbedPane.getComponentAt(1); // Billing is tab index 1
-                if (billingTab != null) {
-                    for (Component comp : billingTab.getComponents()) {
-                        if (comp instanceof JPanel) {
-                            JPanel statsPanel = (JPanel) comp;
-                            Component[] children = statsPanel.getComponents();
-                            if (children.length >= 3 && children[0] instanceof JLabel) {
-                                ((JLabel) children[0]).setText(String.format("Total Revenue: $%.2f", totalRevenue));
-                                ((JLabel) children[1]).setText(String.format("Paid: $%.2f", paid));
-                                ((JLabel) children[2]).setText(String.format("Unpaid: $%.2f", unpaid));
-                                break;
-                            }
-                        }
-                    }
-                }
-            }
-
-            // Refresh deactivated accounts
-            if (deactivatedModel != null) {
+            if (billingModel != null)
+                loadBilling();
+            if (deactivatedModel != null)
                 refreshDeactivatedAccounts();
-            }
+            if (activityRange != null)
+                loadActivity();
         }
     }
 }
@@ -5,6 +5,7 @@ import hpms.service.*;
 import hpms.ui.staff.UnifiedRegistrationForm;
 import hpms.ui.components.*;
 import hpms.util.DataStore;
+import hpms.util.DomainEvents;
 
 import javax.swing.*;
 import javax.swing.border.*;
@@ -19,6 +20,25 @@ public class StaffPanel extends JPanel {
     private DoctorFilterPanel doctorFilterPanel;
     private JCheckBox showDeactivatedCheck;
     private JButton deactivateBtn;
+    private TableRows doctorRows, nurseRows, cashierRows, frontDeskRows;
+    private String doctorDepartment, doctorSpecialty;
+    private final DomainEvents.Listener staffListener = events -> {
+        for (DomainEvents.Event e : events) {
+            if (e.op == DomainEvents.Op.RELOADED) {
+                refresh();
+                return;
+            }
+        }
+        for (DomainEvents.Event e : events) {
+            Staff staff = DataStore.staff.get(e.id);
+            for (TableRows rows : new TableRows[] { doctorRows, nurseRows, cashierRows, frontDeskRows })
+                if (staff == null || rows != rowsFor(staff.role))
+                    rows.remove(e.id);
+            if (staff != null && rowsFor(staff.role) != null)
+                rowsFor(staff.role).upsert(staff.id, rowFor(staff));
+        }
+        updateStats();
+    };
 
     public StaffPanel() {
         setLayout(new BorderLayout());
@@ -73,7 +93,9 @@ public class StaffPanel extends JPanel {
         if ("DOCTOR".equals(role)) {
             doctorFilterPanel = new DoctorFilterPanel();
             doctorFilterPanel.setFilterChangeListener((dept, specialty) -> {
-                applyDoctorFilters(dept, specialty);
+                doctorDepartment = dept;
+                doctorSpecialty = specialty;
+                applyDoctorFilters();
             });
             panel.add(doctorFilterPanel, BorderLayout.NORTH);
         }
@@ -99,12 +121,16 @@ public class StaffPanel extends JPanel {
         // Store model reference
         if ("DOCTOR".equals(role)) {
             doctorModel = model;
+            doctorRows = new TableRows(model);
         } else if ("NURSE".equals(role)) {
             nurseModel = model;
+            nurseRows = new TableRows(model);
         } else if ("CASHIER".equals(role)) {
             cashierModel = model;
+            cashierRows = new TableRows(model);
         } else if ("FRONT_DESK".equals(role)) {
             frontDeskModel = model;
+            frontDeskRows = new TableRows(model);
         }
 
         // Create table
@@ -223,19 +249,7 @@ public class StaffPanel extends JPanel {
     }
 
     private void addStaff() {
-        UnifiedRegistrationForm form = new UnifiedRegistrationForm(SwingUtilities.getWindowAncestor(this));
-        form.addWindowListener(new java.awt.event.WindowAdapter() {
-            @Override
-            public void windowClosed(java.awt.event.WindowEvent e) {
-                refresh();
-            }
-
-            @Override
-            public void windowClosing(java.awt.event.WindowEvent e) {
-                refresh();
-            }
-        });
-        form.setVisible(true);
+        new UnifiedRegistrationForm(SwingUtilities.getWindowAncestor(this)).setVisible(true);
     }
 
     private JTable getSelectedRoleTable() {
@@ -425,10 +439,14 @@ public class StaffPanel extends JPanel {
             staff.email = emailField.getText().trim();
             staff.licenseNumber = licenseField.getText().trim();
             staff.qualifications = qualsArea.getText().trim();
+            java.util.List<String> result = StaffService.updateStaff(staff);
+            if (result.get(0).startsWith("Error")) {
+                JOptionPane.showMessageDialog(dialog, result.get(0), "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
             JOptionPane.showMessageDialog(dialog, "Staff updated successfully!", "Success",
                     JOptionPane.INFORMATION_MESSAGE);
             dialog.dispose();
-            refresh();
         });
 
         dialog.add(panel, BorderLayout.CENTER);
@@ -469,7 +487,6 @@ public class StaffPanel extends JPanel {
                         : "Success",
                         result.get(0).startsWith("Error") ? JOptionPane.ERROR_MESSAGE
                                 : JOptionPane.INFORMATION_MESSAGE);
-                refresh();
             }
         } else {
             int confirm = JOptionPane.showConfirmDialog(this, "Reactivate this account?", "Confirm Reactivation",
@@ -480,7 +497,6 @@ public class StaffPanel extends JPanel {
                         : "Success",
                         result.get(0).startsWith("Error") ? JOptionPane.ERROR_MESSAGE
                                 : JOptionPane.INFORMATION_MESSAGE);
-                refresh();
             }
         }
     }
@@ -661,13 +677,89 @@ public class StaffPanel extends JPanel {
         // Check and clear expired clinic schedules before displaying staff
         StaffService.checkAndClearExpiredSchedules();
 
-        boolean showDeactivated = showDeactivatedCheck != null && showDeactivatedCheck.isSelected();
-
         doctorModel.setRowCount(0);
         nurseModel.setRowCount(0);
         cashierModel.setRowCount(0);
         frontDeskModel.setRowCount(0);
 
+        for (Staff staff : DataStore.staff.values()) {
+            Object[] row = rowFor(staff);
+            if (row != null)
+                rowsFor(staff.role).model().addRow(row);
+        }
+        updateStats();
+
+        // Update button label based on selection
+        updateDeactivateButton();
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        DomainEvents.subscribe(staffListener, DomainEvents.Kind.STAFF);
+    }
+
+    @Override
+    public void removeNotify() {
+        DomainEvents.unsubscribe(staffListener);
+        super.removeNotify();
+    }
+
+    private TableRows rowsFor(StaffRole role) {
+        if (role == StaffRole.DOCTOR)
+            return doctorRows;
+        if (role == StaffRole.NURSE)
+            return nurseRows;
+        if (role == StaffRole.CASHIER)
+            return cashierRows;
+        if (role == StaffRole.FRONT_DESK)
+            return frontDeskRows;
+        return null;
+    }
+
+    /** The staff member's row for their role's table, or null when it is hidden by the current filters */
+    private Object[] rowFor(Staff staff) {
+        if (rowsFor(staff.role) == null)
+            return null;
+        // Skip deactivated unless checkbox is checked
+        if (!staff.isActive && (showDeactivatedCheck == null || !showDeactivatedCheck.isSelected()))
+            return null;
+        if (staff.role == StaffRole.DOCTOR) {
+            if (doctorDepartment != null && (staff.department == null || !staff.department.equals(doctorDepartment)))
+                return null;
+            if (doctorSpecialty != null && (staff.specialty == null || !staff.specialty.equals(doctorSpecialty)))
+                return null;
+        }
+
+        String details = getStaffDetails(staff);
+        String status = staff.isActive ? "Active" : "Deactivated";
+        if (staff.isActive && staff.isScheduleExpired()) {
+            status = "Schedule Expired";
+        } else if (staff.isActive && staff.scheduleEndDate != null) {
+            // Check if schedule expires within 7 days
+            long daysUntilExpiry = java.time.temporal.ChronoUnit.DAYS.between(
+                    java.time.LocalDateTime.now(),
+                    staff.scheduleEndDate);
+            if (daysUntilExpiry <= 7 && daysUntilExpiry > 0) {
+                status = "Expiring Soon (" + daysUntilExpiry + "d)";
+            }
+        }
+        String joined = staff.createdAt == null ? "" : staff.createdAt.toLocalDate().toString();
+
+        if (staff.role == StaffRole.DOCTOR) {
+            // Doctors have 7 columns: ID, Name, Department, Expertise, Details, Status, Joined Date
+            return new Object[] { staff.id, staff.name, staff.department,
+                    staff.specialty == null ? "" : staff.specialty, details, status, joined };
+        } else if (staff.role == StaffRole.NURSE) {
+            // Nurses have 5 columns: ID, Name, Details, Status, Joined Date (no Department)
+            return new Object[] { staff.id, staff.name, details, status, joined };
+        }
+        // Cashiers and front desk have 6 columns: ID, Name, Department, Details, Status, Joined Date
+        return new Object[] { staff.id, staff.name, staff.department, details, status, joined };
+    }
+
+    private void updateStats() {
+        boolean showDeactivated = showDeactivatedCheck != null && showDeactivatedCheck.isSelected();
         int doctorCount = 0;
         int nurseCount = 0;
         int cashierCount = 0;
@@ -675,113 +767,19 @@ public class StaffPanel extends JPanel {
         int deactivatedCount = 0;
 
         for (Staff staff : DataStore.staff.values()) {
-            // Skip deactivated unless checkbox is checked
             if (!staff.isActive) {
                 deactivatedCount++;
                 if (!showDeactivated)
                     continue;
             }
-
-            String details = getStaffDetails(staff);
-
-            if (staff.role == StaffRole.DOCTOR) {
-                // Doctors have 7 columns: ID, Name, Department, Expertise, Details, Status,
-                // Joined Date
-                String status = staff.isActive ? "Active" : "Deactivated";
-                if (staff.isActive && staff.isScheduleExpired()) {
-                    status = "Schedule Expired";
-                } else if (staff.isActive && staff.scheduleEndDate != null) {
-                    // Check if schedule expires within 7 days
-                    long daysUntilExpiry = java.time.temporal.ChronoUnit.DAYS.between(
-                            java.time.LocalDateTime.now(),
-                            staff.scheduleEndDate);
-                    if (daysUntilExpiry <= 7 && daysUntilExpiry > 0) {
-                        status = "Expiring Soon (" + daysUntilExpiry + "d)";
-                    }
-                }
-                Object[] row = new Object[] {
-                        staff.id,
-                        staff.name,
-                        staff.department,
-                        staff.specialty == null ? "" : staff.specialty, // Expertise column
-                        details,
-                        status,
-                        staff.createdAt == null ? "" : staff.createdAt.toLocalDate().toString()
-                };
-                doctorModel.addRow(row);
+            if (staff.role == StaffRole.DOCTOR)
                 doctorCount++;
-            } else if (staff.role == StaffRole.NURSE) {
-                // Nurses have 5 columns: ID, Name, Details, Status, Joined Date (no Department)
-                String status = staff.isActive ? "Active" : "Deactivated";
-                if (staff.isActive && staff.isScheduleExpired()) {
-                    status = "Schedule Expired";
-                } else if (staff.isActive && staff.scheduleEndDate != null) {
-                    // Check if schedule expires within 7 days
-                    long daysUntilExpiry = java.time.temporal.ChronoUnit.DAYS.between(
-                            java.time.LocalDateTime.now(),
-                            staff.scheduleEndDate);
-                    if (daysUntilExpiry <= 7 && daysUntilExpiry > 0) {
-                        status = "Expiring Soon (" + daysUntilExpiry + "d)";
-                    }
-                }
-                Object[] row = new Object[] {
-                        staff.id,
-                        staff.name,
-                        details,
-                        status,
-                        staff.createdAt == null ? "" : staff.createdAt.toLocalDate().toString()
-                };
-                nurseModel.addRow(row);
+            else if (staff.role == StaffRole.NURSE)
                 nurseCount++;
-            } else if (staff.role == StaffRole.CASHIER) {
-                // Cashiers have 6 columns: ID, Name, Department, Details, Status, Joined Date
-                String status = staff.isActive ? "Active" : "Deactivated";
-                if (staff.isActive && staff.isScheduleExpired()) {
-                    status = "Schedule Expired";
-                } else if (staff.isActive && staff.scheduleEndDate != null) {
-                    // Check if schedule expires within 7 days
-                    long daysUntilExpiry = java.time.temporal.ChronoUnit.DAYS.between(
-                            java.time.LocalDateTime.now(),
-                            staff.scheduleEndDate);
-                    if (daysUntilExpiry <= 7 && daysUntilExpiry > 0) {
-                        status = "Expiring Soon (" + daysUntilExpiry + "d)";
-                    }
-                }
-                Object[] row = new Object[] {
-                        staff.id,
-                        staff.name,
-                        staff.department,
-                        details,
-                        status,
-                        staff.createdAt == null ? "" : staff.createdAt.toLocalDate().toString()
-                };
-                cashierModel.addRow(row);
+            else if (staff.role == StaffRole.CASHIER)
                 cashierCount++;
-            } else if (staff.role == StaffRole.FRONT_DESK) {
-                // Front Desk have 6 columns: ID, Name, Department, Details, Status, Joined Date
-                String status = staff.isActive ? "Active" : "Deactivated";
-                if (staff.isActive && staff.isScheduleExpired()) {
-                    status = "Schedule Expired";
-                } else if (staff.isActive && staff.scheduleEndDate != null) {
-                    // Check if schedule expires within 7 days
-                    long daysUntilExpiry = java.time.temporal.ChronoUnit.DAYS.between(
-                            java.time.LocalDateTime.now(),
-                            staff.scheduleEndDate);
-                    if (daysUntilExpiry <= 7 && daysUntilExpiry > 0) {
-                        status = "Expiring Soon (" + daysUntilExpiry + "d)";
-                    }
-                }
-                Object[] row = new Object[] {
-                        staff.id,
-                        staff.name,
-                        staff.department,
-                        details,
-                        status,
-                        staff.createdAt == null ? "" : staff.createdAt.toLocalDate().toString()
-                };
-                frontDeskModel.addRow(row);
+            else if (staff.role == StaffRole.FRONT_DESK)
                 frontDeskCount++;
-            }
         }
 
         int totalActive = doctorCount + nurseCount + cashierCount + frontDeskCount;
@@ -790,9 +788,6 @@ public class StaffPanel extends JPanel {
         if (deactivatedCount > 0 && !showDeactivated)
             stats += " | Deactivated: " + deactivatedCount + " (hidden)";
         statsLabel.setText(stats);
-
-        // Update button label based on selection
-        updateDeactivateButton();
     }
 
     private void updateDeactivateButton() {
@@ -828,57 +823,16 @@ public class StaffPanel extends JPanel {
     }
 
     /**
-     * Apply filters to doctor list based on selected department and specialty
-     * 
-     * @param department Selected department or null for all
-     * @param specialty  Selected specialty or null for all
+     * Apply filters to doctor list based on the selected department and specialty
      */
-    private void applyDoctorFilters(String department, String specialty) {
+    private void applyDoctorFilters() {
         doctorModel.setRowCount(0);
-        boolean showDeactivated = showDeactivatedCheck != null && showDeactivatedCheck.isSelected();
-
         for (Staff staff : DataStore.staff.values()) {
             if (staff.role != StaffRole.DOCTOR)
                 continue;
-
-            // Skip deactivated unless checkbox is checked
-            if (!staff.isActive && !showDeactivated)
-                continue;
-
-            // Apply department filter
-            if (department != null && (staff.department == null || !staff.department.equals(department))) {
-                continue;
-            }
-
-            // Apply specialty filter
-            if (specialty != null && (staff.specialty == null || !staff.specialty.equals(specialty))) {
-                continue;
-            }
-
-            // If passed all filters, add to table
-            String details = getStaffDetails(staff);
-            String status = staff.isActive ? "Active" : "Deactivated";
-            if (staff.isActive && staff.isScheduleExpired()) {
-                status = "Schedule Expired";
-            } else if (staff.isActive && staff.scheduleEndDate != null) {
-                // Check if schedule expires within 7 days
-                long daysUntilExpiry = java.time.temporal.ChronoUnit.DAYS.between(
-                        java.time.LocalDateTime.now(),
-                        staff.scheduleEndDate);
-                if (daysUntilExpiry <= 7 && daysUntilExpiry > 0) {
-                    status = "Expiring Soon (" + daysUntilExpiry + "d)";
-                }
-            }
-            Object[] row = new Object[] {
-                    staff.id,
-                    staff.name,
-                    staff.department,
-                    staff.specialty == null ? "" : staff.specialty, // Expertise column
-                    details,
-                    status,
-                    staff.createdAt == null ? "" : staff.createdAt.toLocalDate().toString()
-            };
-            doctorModel.addRow(row);
+            Object[] row = rowFor(staff);
+            if (row != null)
+                doctorModel.addRow(row);
         }
     }
 }
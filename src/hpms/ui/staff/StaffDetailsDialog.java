@@ -428,16 +428,34 @@ public class StaffDetailsDialog extends JDialog {
                 return;
             }
 
-            java.util.List<String> result = AuthService.changePasswordNoOld(staffId, newPwd);
-            if (result != null && !result.isEmpty() && result.get(0).startsWith("Error:")) {
-                JOptionPane.showMessageDialog(pwdDialog, result.get(0), "Error", JOptionPane.ERROR_MESSAGE);
-            } else {
-                JOptionPane.showMessageDialog(pwdDialog, "Password changed successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
-                pwdDialog.dispose();
-                if (currentPasswordLbl != null) {
-                    currentPasswordLbl.setText(newPwd);
+            // Password hashing is deliberately slow; keep it off the EDT
+            saveBtn.setEnabled(false);
+            new SwingWorker<java.util.List<String>, Void>() {
+                @Override
+                protected java.util.List<String> doInBackground() {
+                    return AuthService.changePasswordNoOld(staffId, newPwd);
                 }
-            }
+
+                @Override
+                protected void done() {
+                    saveBtn.setEnabled(true);
+                    java.util.List<String> result;
+                    try {
+                        result = get();
+                    } catch (Exception ex) {
+                        result = java.util.Collections.singletonList("Error: " + ex.getMessage());
+                    }
+                    if (result != null && !result.isEmpty() && result.get(0).startsWith("Error:")) {
+                        JOptionPane.showMessageDialog(pwdDialog, result.get(0), "Error", JOptionPane.ERROR_MESSAGE);
+                    } else {
+                        JOptionPane.showMessageDialog(pwdDialog, "Password changed successfully!", "Success", JOptionPane.INFORMATION_MESSAGE);
+                        pwdDialog.dispose();
+                        if (currentPasswordLbl != null) {
+                            currentPasswordLbl.setText(newPwd);
+                        }
+                    }
+                }
+            }.execute();
         });
 
         footer.add(cancelBtn);
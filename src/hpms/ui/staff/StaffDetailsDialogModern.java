@@ -408,15 +408,31 @@ public class StaffDetailsDialogModern extends JDialog {
                 JOptionPane.showMessageDialog(this, "Passwords do not match");
                 return;
             }
-            java.util.List<String> out = AuthService.changePasswordNoOld(staffId, nstr);
-            if (!out.isEmpty() && out.get(0).startsWith("Error:")) {
-                JOptionPane.showMessageDialog(this, out.get(0));
-            } else {
-                JOptionPane.showMessageDialog(this, "Password changed successfully");
-                if (currentPasswordLbl != null) {
-                    currentPasswordLbl.setText(nstr);
+            // Password hashing is deliberately slow; keep it off the EDT
+            new SwingWorker<java.util.List<String>, Void>() {
+                @Override
+                protected java.util.List<String> doInBackground() {
+                    return AuthService.changePasswordNoOld(staffId, nstr);
                 }
-            }
+
+                @Override
+                protected void done() {
+                    java.util.List<String> out;
+                    try {
+                        out = get();
+                    } catch (Exception ex) {
+                        out = java.util.Collections.singletonList("Error: " + ex.getMessage());
+                    }
+                    if (!out.isEmpty() && out.get(0).startsWith("Error:")) {
+                        JOptionPane.showMessageDialog(StaffDetailsDialogModern.this, out.get(0));
+                    } else {
+                        JOptionPane.showMessageDialog(StaffDetailsDialogModern.this, "Password changed successfully");
+                        if (currentPasswordLbl != null) {
+                            currentPasswordLbl.setText(nstr);
+                        }
+                    }
+                }
+            }.execute();
         }
     }
 }
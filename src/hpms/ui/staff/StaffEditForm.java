@@ -359,6 +359,7 @@ public class StaffEditForm extends JDialog {
                 for (hpms.model.Appointment a : hpms.util.DataStore.appointments.values()) {
                     if (staff.id.equals(a.staffId) && a.dateTime.toLocalDate().equals(today) && !a.isCompleted) {
                         a.notes = (a.notes==null?"":"[Doctor unavailable] ") + "Doctor marked unavailable; please await reschedule";
+                        hpms.util.DomainEvents.updated(hpms.util.DomainEvents.Kind.APPOINTMENT, a.id);
                         try { hpms.service.CommunicationService.addAlert(a.patientId, "Your doctor (" + (staff.name==null?staff.id:staff.name) + ") is unavailable today. We will reschedule or advise you shortly."); } catch (Exception ex) { }
                     }
                 }
@@ -467,7 +468,11 @@ public class StaffEditForm extends JDialog {
         }
 
         logStaffUpdate(staff.id, "Staff information updated");
-        DataStore.staff.put(staff.id, staff);
+        java.util.List<String> result = hpms.service.StaffService.updateStaff(staff);
+        if (result.get(0).startsWith("Error")) {
+            javax.swing.JOptionPane.showMessageDialog(this, result.get(0), "Error", javax.swing.JOptionPane.ERROR_MESSAGE);
+            return;
+        }
         javax.swing.JOptionPane.showMessageDialog(this, "Staff information updated successfully", "Success", javax.swing.JOptionPane.INFORMATION_MESSAGE);
         dispose();
     }
@@ -4,6 +4,7 @@ import hpms.model.Staff;
 import hpms.model.StaffRole;
 import hpms.ui.doctor.DoctorPublicProfilePanel;
 import hpms.util.DataStore;
+import hpms.util.DomainEvents;
 import javax.swing.*;
 import javax.swing.border.LineBorder;
 import javax.swing.table.JTableHeader;
@@ -19,6 +20,17 @@ import java.awt.event.MouseEvent;
 public class StaffPanel extends JPanel {
     private JTabbedPane tabbedPane;
     private java.util.Map<String, TabPanel> tabPanels = new java.util.HashMap<>();
+    private final DomainEvents.Listener staffListener = events -> {
+        for (DomainEvents.Event e : events) {
+            if (e.op == DomainEvents.Op.RELOADED) {
+                refreshAllTabs();
+                return;
+            }
+        }
+        for (DomainEvents.Event e : events)
+            for (TabPanel panel : tabPanels.values())
+                panel.tableModel.showStaff(e.id);
+    };
 
     public StaffPanel() {
         setLayout(new BorderLayout());
@@ -205,7 +217,6 @@ public class StaffPanel extends JPanel {
             Staff staff = tableModel.getStaffAt(row);
             if (staff != null) {
                 new StaffEditForm(SwingUtilities.getWindowAncestor(this), staff).setVisible(true);
-                refresh();
             }
         }
 
@@ -225,15 +236,12 @@ public class StaffPanel extends JPanel {
                         JOptionPane.WARNING_MESSAGE);
 
                 if (confirm == JOptionPane.YES_OPTION) {
-                    // Delete from DataStore
-                    DataStore.staff.remove(staff.id);
-                    
-                    // Also delete account if exists
-                    if (DataStore.users.containsKey(staff.id)) {
-                        DataStore.users.remove(staff.id);
+                    // Soft delete: the staff record is kept and deactivated, and their account signed out
+                    java.util.List<String> result = hpms.service.StaffService.delete(staff.id);
+                    if (result.get(0).startsWith("Error")) {
+                        JOptionPane.showMessageDialog(this, result.get(0), "Error", JOptionPane.ERROR_MESSAGE);
+                        return;
                     }
-
-                    tableModel.removeStaff(staff.id);
                     JOptionPane.showMessageDialog(this, "Staff member deleted successfully", "Delete Success", JOptionPane.INFORMATION_MESSAGE);
                 }
             }
@@ -285,9 +293,21 @@ public class StaffPanel extends JPanel {
 
     private void openRegistrationForm() {
         new UnifiedRegistrationForm(SwingUtilities.getWindowAncestor(this)).setVisible(true);
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        DomainEvents.subscribe(staffListener, DomainEvents.Kind.STAFF);
         refreshAllTabs();
     }
 
+    @Override
+    public void removeNotify() {
+        DomainEvents.unsubscribe(staffListener);
+        super.removeNotify();
+    }
+
     @Override
     public void updateUI() {
         super.updateUI();
@@ -15,6 +15,7 @@ public class StaffPasswordManager extends JPanel {
     private JLabel passwordStatusLabel;
     private JLabel currentPasswordValueLabel;
     private JButton revealButton;
+    private JButton changeButton;
     private String currentPlaintext;
     private boolean showCurrent;
     private String staffId;
@@ -86,18 +87,35 @@ public class StaffPasswordManager extends JPanel {
                         "Generate Password",
                         JOptionPane.OK_CANCEL_OPTION);
                 if (r == JOptionPane.OK_OPTION) {
-                    String pwd = AuthService.resetPassword(staffId);
-                    if (pwd != null && !pwd.isEmpty()) {
-                        currentPlaintext = pwd;
-                        showCurrent = true;
-                        revealButton.setEnabled(true);
-                        updateCurrentPasswordDisplay();
-                        passwordStatusLabel.setText("✓ New password generated");
-                        passwordStatusLabel.setForeground(new Color(0, 140, 60));
-                    } else {
-                        passwordStatusLabel.setText("✗ Failed to generate password");
-                        passwordStatusLabel.setForeground(new Color(200, 0, 0));
-                    }
+                    // Password hashing is deliberately slow; keep it off the EDT
+                    revealButton.setEnabled(false);
+                    new SwingWorker<String, Void>() {
+                        @Override
+                        protected String doInBackground() {
+                            return AuthService.resetPassword(staffId);
+                        }
+
+                        @Override
+                        protected void done() {
+                            revealButton.setEnabled(true);
+                            String pwd;
+                            try {
+                                pwd = get();
+                            } catch (Exception ex) {
+                                pwd = null;
+                            }
+                            if (pwd != null && !pwd.isEmpty()) {
+                                currentPlaintext = pwd;
+                                showCurrent = true;
+                                updateCurrentPasswordDisplay();
+                                passwordStatusLabel.setText("✓ New password generated");
+                                passwordStatusLabel.setForeground(new Color(0, 140, 60));
+                            } else {
+                                passwordStatusLabel.setText("✗ Failed to generate password");
+                                passwordStatusLabel.setForeground(new Color(200, 0, 0));
+                            }
+                        }
+                    }.execute();
                 }
                 return;
             }
@@ -177,7 +195,7 @@ public class StaffPasswordManager extends JPanel {
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 0));
         buttonPanel.setOpaque(false);
 
-        JButton changeButton = new JButton("Change Password");
+        changeButton = new JButton("Change Password");
         changeButton.setFont(new Font("Arial", Font.BOLD, 11));
         changeButton.setBackground(new Color(47, 111, 237));
         changeButton.setForeground(Color.WHITE);
@@ -239,8 +257,29 @@ public class StaffPasswordManager extends JPanel {
             return;
         }
 
-        // Change password without requiring current password
-        java.util.List<String> changeResult = AuthService.changePasswordNoOld(staffId, newPwd);
+        // Change password without requiring current password; hashing runs off the EDT
+        changeButton.setEnabled(false);
+        new SwingWorker<java.util.List<String>, Void>() {
+            @Override
+            protected java.util.List<String> doInBackground() {
+                return AuthService.changePasswordNoOld(staffId, newPwd);
+            }
+
+            @Override
+            protected void done() {
+                changeButton.setEnabled(true);
+                java.util.List<String> changeResult;
+                try {
+                    changeResult = get();
+                } catch (Exception ex) {
+                    changeResult = java.util.Collections.singletonList("Error: " + ex.getMessage());
+                }
+                passwordChanged(newPwd, changeResult);
+            }
+        }.execute();
+    }
+
+    private void passwordChanged(String newPwd, java.util.List<String> changeResult) {
         if (changeResult != null && !changeResult.isEmpty()) {
             if (changeResult.get(0).contains("success") || changeResult.get(0).contains("changed")) {
                 passwordStatusLabel.setText("✓ Password changed successfully");
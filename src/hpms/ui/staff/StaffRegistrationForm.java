@@ -18,6 +18,7 @@ public class StaffRegistrationForm extends JFrame {
     private JTextField subSpec, licenseDoctor, yearsPracticeDoctor, licenseNurse, certsField, yearsExpNurse;
     private JPanel doctorPanel, nursePanel, cashierPanel, adminPanel, frontDeskPanel;
     private JLabel empId;
+    private JButton saveBtn;
 
     public StaffRegistrationForm(AuthSession session) {
         this.session = Objects.requireNonNull(session, "Session cannot be null");
@@ -65,7 +66,7 @@ public class StaffRegistrationForm extends JFrame {
         cancelBtn.setCursor(new Cursor(Cursor.HAND_CURSOR));
         cancelBtn.addActionListener(e -> dispose());
 
-        JButton saveBtn = new JButton("Save Staff");
+        saveBtn = new JButton("Save Staff");
         saveBtn.setFont(new Font("Arial", Font.BOLD, 12));
         saveBtn.setBackground(Theme.PRIMARY);
         saveBtn.setForeground(Color.WHITE);
@@ -625,57 +626,78 @@ public class StaffRegistrationForm extends JFrame {
             // Extract staff ID from response
             String staffId = result.get(0).replaceAll(".*\\s", ""); // Get the ID from "Staff added SXXX"
 
-            // Automatically create a staff account with a generated password
+            // Automatically create a staff account with a generated password; hashing runs off the EDT
             String generatedPassword = AuthService.generateRandomPasswordForUI();
-            java.util.List<String> accountResult = AuthService.register(staffId, generatedPassword, role);
+            saveBtn.setEnabled(false);
+            setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+            new SwingWorker<Boolean, Void>() {
+                @Override
+                protected Boolean doInBackground() {
+                    java.util.List<String> accountResult = AuthService.register(staffId, generatedPassword, role);
+                    if (accountResult == null || accountResult.isEmpty()
+                            || !accountResult.get(0).startsWith("User registered"))
+                        return false;
+                    AuthService.changePasswordNoOld(staffId, generatedPassword);
+
+                    // Send email with credentials (especially for doctors - they receive credentials only via email)
+                    if (role.equalsIgnoreCase("DOCTOR")) {
+                        hpms.model.Staff doctor = hpms.util.DataStore.staff.get(staffId);
+                        if (doctor != null && doctor.email != null && !doctor.email.trim().isEmpty()) {
+                            hpms.util.EmailService.sendDoctorCredentialsEmail(
+                                doctor.email,
+                                staffId,
+                                generatedPassword,
+                                doctor.name);
+                        }
+                    } else {
+                        // For other staff, also send email if available
+                        hpms.model.Staff staffMember = hpms.util.DataStore.staff.get(staffId);
+                        if (staffMember != null && staffMember.email != null && !staffMember.email.trim().isEmpty()) {
+                            hpms.util.EmailService.sendAccountCreationEmail(
+                                staffMember.email,
+                                staffId,
+                                generatedPassword,
+                                role,
+                                staffMember.name
+                            );
+                        }
+                    }
+                    return true;
+                }
 
-            if (accountResult != null && !accountResult.isEmpty()
-                    && accountResult.get(0).startsWith("User registered")) {
-                AuthService.changePasswordNoOld(staffId, generatedPassword);
-                
-                // Send email with credentials (especially for doctors - they receive credentials only via email)
-                if (role.equalsIgnoreCase("DOCTOR")) {
-                    hpms.model.Staff doctor = hpms.util.DataStore.staff.get(staffId);
-                    if (doctor != null && doctor.email != null && !doctor.email.trim().isEmpty()) {
-                        hpms.util.EmailService.sendDoctorCredentialsEmail(
-                            doctor.email,
-                            staffId,
-                            generatedPassword,
-                            doctor.name);
+                @Override
+                protected void done() {
+                    saveBtn.setEnabled(true);
+                    setCursor(Cursor.getDefaultCursor());
+                    boolean created;
+                    try {
+                        created = get();
+                    } catch (Exception ex) {
+                        System.err.println("Account creation failed: " + ex.getMessage());
+                        created = false;
                     }
-                } else {
-                    // For other staff, also send email if available
-                    hpms.model.Staff staffMember = hpms.util.DataStore.staff.get(staffId);
-                    if (staffMember != null && staffMember.email != null && !staffMember.email.trim().isEmpty()) {
-                        hpms.util.EmailService.sendAccountCreationEmail(
-                            staffMember.email,
-                            staffId,
-                            generatedPassword,
-                            role,
-                            staffMember.name
-                        );
+                    if (created) {
+                        JOptionPane.showMessageDialog(StaffRegistrationForm.this,
+                                "Staff registered successfully!\n\n" +
+                                        "Staff ID: " + staffId + "\n" +
+                                        "Login Password: " + generatedPassword + "\n\n" +
+                                        (role.equalsIgnoreCase("DOCTOR") ? 
+                                            "Credentials have been sent to the doctor's email address." :
+                                            role.equalsIgnoreCase("FRONT_DESK") ?
+                                            "Credentials have been sent to the front desk staff's email address." :
+                                            "Please save this password securely."),
+                                "Registration Success",
+                                JOptionPane.INFORMATION_MESSAGE);
+                    } else {
+                        JOptionPane.showMessageDialog(StaffRegistrationForm.this,
+                                "Staff registered but account creation failed.\n" +
+                                        "Staff ID: " + staffId,
+                                "Partial Success",
+                                JOptionPane.WARNING_MESSAGE);
                     }
+                    dispose();
                 }
-                
-                JOptionPane.showMessageDialog(this,
-                        "Staff registered successfully!\n\n" +
-                                "Staff ID: " + staffId + "\n" +
-                                "Login Password: " + generatedPassword + "\n\n" +
-                                (role.equalsIgnoreCase("DOCTOR") ? 
-                                    "Credentials have been sent to the doctor's email address." :
-                                    role.equalsIgnoreCase("FRONT_DESK") ?
-                                    "Credentials have been sent to the front desk staff's email address." :
-                                    "Please save this password securely."),
-                        "Registration Success",
-                        JOptionPane.INFORMATION_MESSAGE);
-            } else {
-                JOptionPane.showMessageDialog(this,
-                        "Staff registered but account creation failed.\n" +
-                                "Staff ID: " + staffId,
-                        "Partial Success",
-                        JOptionPane.WARNING_MESSAGE);
-            }
-            dispose();
+            }.execute();
         } else {
             // Show detailed error message
             StringBuilder errorMsg = new StringBuilder("Error saving staff:\n\n");
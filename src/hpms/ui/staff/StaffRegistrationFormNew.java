@@ -20,6 +20,7 @@ public class StaffRegistrationFormNew extends JDialog {
     private JComboBox<String> specCombo, nursingCombo;
     private JTextField licenseField, yearsExperienceField, yearsOfWorkField;
     private JPanel roleSpecificPanel;
+    private JButton saveBtn;
     private JLabel roleSpecInfoLabel;
     
     // Clinic schedule components
@@ -216,7 +217,7 @@ public class StaffRegistrationFormNew extends JDialog {
         cancelBtn.setCursor(new Cursor(Cursor.HAND_CURSOR));
         cancelBtn.addActionListener(e -> dispose());
 
-        JButton saveBtn = new JButton("Register Staff");
+        saveBtn = new JButton("Register Staff");
         saveBtn.setFont(new Font("Arial", Font.BOLD, 11));
         saveBtn.setBackground(new Color(47, 111, 237));
         saveBtn.setForeground(Color.WHITE);
@@ -589,27 +590,51 @@ public class StaffRegistrationFormNew extends JDialog {
         }
 
         if (actualStaffId != null) {
+            // Hashing the new password is deliberately slow; keep it off the EDT
+            String staffId = actualStaffId;
             String code = AuthService.generateRandomPasswordForUI();
-            java.util.List<String> result = AuthService.register(actualStaffId, code, role);
-            if (result != null && !result.isEmpty() && result.get(0).startsWith("User registered")) {
-                AuthService.changePasswordNoOld(actualStaffId, code);
-                JOptionPane.showMessageDialog(this,
-                        "Staff registered successfully!\n\n" +
-                                "Staff ID: " + actualStaffId + "\n" +
-                                "Role: " + role + "\n" +
-                                "6-Digit Login Code: " + code + "\n\n" +
-                                "Please save this information securely.",
-                        "Registration Success",
-                        JOptionPane.INFORMATION_MESSAGE);
-                dispose();
-            } else {
-                JOptionPane.showMessageDialog(this,
-                        "Staff registered but account creation failed.\n" +
-                                "Staff ID: " + actualStaffId,
-                        "Partial Success",
-                        JOptionPane.WARNING_MESSAGE);
-                dispose();
-            }
+            saveBtn.setEnabled(false);
+            setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+            new SwingWorker<Boolean, Void>() {
+                @Override
+                protected Boolean doInBackground() {
+                    java.util.List<String> result = AuthService.register(staffId, code, role);
+                    if (result == null || result.isEmpty() || !result.get(0).startsWith("User registered"))
+                        return false;
+                    AuthService.changePasswordNoOld(staffId, code);
+                    return true;
+                }
+
+                @Override
+                protected void done() {
+                    saveBtn.setEnabled(true);
+                    setCursor(Cursor.getDefaultCursor());
+                    boolean created;
+                    try {
+                        created = get();
+                    } catch (Exception ex) {
+                        System.err.println("Account creation failed: " + ex.getMessage());
+                        created = false;
+                    }
+                    if (created) {
+                        JOptionPane.showMessageDialog(StaffRegistrationFormNew.this,
+                                "Staff registered successfully!\n\n" +
+                                        "Staff ID: " + staffId + "\n" +
+                                        "Role: " + role + "\n" +
+                                        "6-Digit Login Code: " + code + "\n\n" +
+                                        "Please save this information securely.",
+                                "Registration Success",
+                                JOptionPane.INFORMATION_MESSAGE);
+                    } else {
+                        JOptionPane.showMessageDialog(StaffRegistrationFormNew.this,
+                                "Staff registered but account creation failed.\n" +
+                                        "Staff ID: " + staffId,
+                                "Partial Success",
+                                JOptionPane.WARNING_MESSAGE);
+                    }
+                    dispose();
+                }
+            }.execute();
         } else {
             JOptionPane.showMessageDialog(this,
                     "Failed to register staff. Please try again.",
@@ -120,6 +120,26 @@ public class StaffTableModel extends AbstractTableModel {
         }
     }
 
+    /**
+     * Bring one staff member's row in line with DataStore: update it, add it
+     * when it now matches the filter, or drop it when it no longer does
+     */
+    public void showStaff(String staffId) {
+        Staff staff = DataStore.staff.get(staffId);
+        if (staff == null || (filterRole != null && staff.role != filterRole)) {
+            removeStaff(staffId);
+            return;
+        }
+        for (int i = 0; i < staffList.size(); i++) {
+            if (staffList.get(i).id.equals(staffId)) {
+                staffList.set(i, staff);
+                fireTableRowsUpdated(i, i);
+                return;
+            }
+        }
+        addStaff(staff);
+    }
+
     /**
      * Remove staff member from the model
      */
@@ -22,6 +22,7 @@ public class UnifiedRegistrationForm extends JDialog {
     private JComboBox<String> specCombo, nursingCombo;
     private JTextField licenseField, yearsExperienceField, yearsOfWorkField;
     private JPanel roleSpecificPanel;
+    private JButton registerBtn;
     private JPanel detailedDoctorPanel;
     private JPanel simplifiedStaffPanel;
 
@@ -905,7 +906,7 @@ public class UnifiedRegistrationForm extends JDialog {
         cancelBtn.setCursor(new Cursor(Cursor.HAND_CURSOR));
         cancelBtn.addActionListener(e -> dispose());
         
-        JButton registerBtn = new JButton("Register Staff");
+        registerBtn = new JButton("Register Staff");
         registerBtn.setFont(new Font("Arial", Font.BOLD, 11));
         registerBtn.setBackground(new Color(34, 197, 94));
         registerBtn.setForeground(Color.WHITE);
@@ -1104,30 +1105,53 @@ public class UnifiedRegistrationForm extends JDialog {
                     }
                 }
             }
-            // Create user account
+            // Hashing the new password is deliberately slow; keep it off the EDT
+            String staffId = actualStaffId;
             String code = AuthService.generateRandomPasswordForUI();
-            java.util.List<String> result = AuthService.register(actualStaffId, code, role);
-            if (result != null && !result.isEmpty() && result.get(0).startsWith("User registered")) {
-                AuthService.changePasswordNoOld(actualStaffId, code);
-                JOptionPane.showMessageDialog(this,
-                        "Staff registered successfully!\n\n" +
-                                "Staff ID: " + actualStaffId + "\n" +
-                                "Name: " + staff.name + "\n" +
-                                "Role: " + role + "\n" +
-                                "Department: " + dept + "\n" +
-                                "6-Digit Login Code: " + code + "\n\n" +
-                                "Please save this information securely.",
-                        "Registration Success",
-                        JOptionPane.INFORMATION_MESSAGE);
-                dispose();
-            } else {
-                JOptionPane.showMessageDialog(this,
-                        "Staff registered but account creation failed.\n" +
-                                "Staff ID: " + actualStaffId,
-                        "Partial Success",
-                        JOptionPane.WARNING_MESSAGE);
-                dispose();
-            }
+            registerBtn.setEnabled(false);
+            setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+            new SwingWorker<Boolean, Void>() {
+                @Override
+                protected Boolean doInBackground() {
+                    java.util.List<String> result = AuthService.register(staffId, code, role);
+                    if (result == null || result.isEmpty() || !result.get(0).startsWith("User registered"))
+                        return false;
+                    AuthService.changePasswordNoOld(staffId, code);
+                    return true;
+                }
+
+                @Override
+                protected void done() {
+                    registerBtn.setEnabled(true);
+                    setCursor(Cursor.getDefaultCursor());
+                    boolean created;
+                    try {
+                        created = get();
+                    } catch (Exception ex) {
+                        System.err.println("Account creation failed: " + ex.getMessage());
+                        created = false;
+                    }
+                    if (created) {
+                        JOptionPane.showMessageDialog(UnifiedRegistrationForm.this,
+                                "Staff registered successfully!\n\n" +
+                                        "Staff ID: " + staffId + "\n" +
+                                        "Name: " + staff.name + "\n" +
+                                        "Role: " + role + "\n" +
+                                        "Department: " + dept + "\n" +
+                                        "6-Digit Login Code: " + code + "\n\n" +
+                                        "Please save this information securely.",
+                                "Registration Success",
+                                JOptionPane.INFORMATION_MESSAGE);
+                    } else {
+                        JOptionPane.showMessageDialog(UnifiedRegistrationForm.this,
+                                "Staff registered but account creation failed.\n" +
+                                        "Staff ID: " + staffId,
+                                "Partial Success",
+                                JOptionPane.WARNING_MESSAGE);
+                    }
+                    dispose();
+                }
+            }.execute();
         } else {
             JOptionPane.showMessageDialog(this,
                     "Failed to register staff. Please try again.",
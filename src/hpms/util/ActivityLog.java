@@ -0,0 +1,271 @@
+package hpms.util;
+
+import hpms.config.DatabaseConfig;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Session activity log: what users and services did, for the activity panes
+ * and the Reports panel.
+ *
+ * The newest ACTIVITY_LOG_CAPACITY entries are kept in memory in a ring, so a
+ * long session no longer grows without bound. Every entry is also appended to
+ * rolling segment files in ACTIVITY_LOG_DIR; a segment is closed once it
+ * reaches ACTIVITY_SEGMENT_BYTES and only the newest ACTIVITY_SEGMENT_COUNT are
+ * kept. query() reads the segments, so it reaches further back than the ring.
+ *
+ * Segment files are named activity-&lt;first entry millis&gt;.log and hold one
+ * entry per line: "time code arg..." tab separated, escaped as in the
+ * write-behind journal.
+ */
+public class ActivityLog {
+
+    public static class Entry {
+        public final long seq;
+        public final long time;
+        public final String code;
+        public final List<String> args;
+
+        Entry(long seq, long time, String code, List<String> args) {
+            this.seq = seq;
+            this.time = time;
+            this.code = code;
+            this.args = args;
+        }
+
+        public LocalDateTime localTime() {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+        }
+
+        public String details() {
+            return String.join(" ", args);
+        }
+
+        @Override
+        public String toString() {
+            return localTime() + " " + code + (args.isEmpty() ? "" : " " + details());
+        }
+    }
+
+    private static final Entry[] ring = new Entry[DatabaseConfig.ACTIVITY_LOG_CAPACITY];
+    private static long nextSeq;
+    private static Path dir;
+    private static Writer segment;
+    private static long segmentBytes;
+    private static boolean diskFailed;
+    private static ScheduledExecutorService flusher;
+
+    /** Record code with its arguments, e.g. record("pay_bill", billId, method) */
+    public static Entry record(String code, Object... args) {
+        List<String> a = new ArrayList<>(args.length);
+        for (Object o : args)
+            a.add(String.valueOf(o));
+        return add(System.currentTimeMillis(), code, a);
+    }
+
+    /** Record a legacy "code rest of message" line; the text after the code is its one argument */
+    public static Entry recordMessage(String message) {
+        String m = message == null ? "" : message.trim();
+        int sp = m.indexOf(' ');
+        if (sp < 0)
+            return add(System.currentTimeMillis(), m, Collections.emptyList());
+        return add(System.currentTimeMillis(), m.substring(0, sp),
+                Collections.singletonList(m.substring(sp + 1).trim()));
+    }
+
+    private static Entry add(long time, String code, List<String> args) {
+        Entry e;
+        synchronized (ActivityLog.class) {
+            e = new Entry(nextSeq, time, code, Collections.unmodifiableList(args));
+            ring[(int) (nextSeq % ring.length)] = e;
+            nextSeq++;
+            append(e);
+        }
+        DomainEvents.publish(DomainEvents.Kind.ACTIVITY, DomainEvents.Op.CREATED, null);
+        return e;
+    }
+
+    /** Entries still in memory with seq >= fromSeq, oldest first; since(0) is the whole ring */
+    public static synchronized List<Entry> since(long fromSeq) {
+        long first = Math.max(fromSeq, nextSeq - ring.length);
+        List<Entry> out = new ArrayList<>((int) Math.max(0, nextSeq - Math.max(first, 0)));
+        for (long s = Math.max(first, 0); s < nextSeq; s++)
+            out.add(ring[(int) (s % ring.length)]);
+        return out;
+    }
+
+    /** The newest n entries, oldest first */
+    public static synchronized List<Entry> recent(int n) {
+        return since(nextSeq - n);
+    }
+
+    public static synchronized boolean isEmpty() {
+        return nextSeq == 0;
+    }
+
+    /**
+     * Entries logged in [fromMillis, toMillis), oldest first. At most limit
+     * entries are returned; when more match, the newest ones are kept. Reads
+     * the segment files, so call it off the event thread for long ranges.
+     */
+    public static List<Entry> query(long fromMillis, long toMillis, int limit) {
+        ArrayDeque<Entry> out = new ArrayDeque<>();
+        List<Path> files;
+        synchronized (ActivityLog.class) {
+            flush();
+            files = diskFailed || dir == null ? null : segments();
+            if (files == null || files.isEmpty()) {
+                for (Entry e : since(0))
+                    keep(out, e, fromMillis, toMillis, limit);
+                return new ArrayList<>(out);
+            }
+        }
+        for (int i = 0; i < files.size(); i++) {
+            // A segment holds entries from its own start up to the next segment's start
+            if (startOf(files.get(i)) >= toMillis)
+                break;
+            if (i + 1 < files.size() && startOf(files.get(i + 1)) <= fromMillis)
+                continue;
+            try (BufferedReader r = Files.newBufferedReader(files.get(i), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = r.readLine()) != null) {
+                    Entry e = decode(line);
+                    if (e != null)
+                        keep(out, e, fromMillis, toMillis, limit);
+                }
+            } catch (NoSuchFileException gone) {
+                // Rotated away while reading
+            } catch (IOException ex) {
+                System.err.println("ActivityLog: cannot read " + files.get(i) + ": " + ex.getMessage());
+            }
+        }
+        return new ArrayList<>(out);
+    }
+
+    private static void keep(ArrayDeque<Entry> out, Entry e, long from, long to, int limit) {
+        if (e.time < from || e.time >= to)
+            return;
+        out.addLast(e);
+        if (out.size() > limit)
+            out.removeFirst();
+    }
+
+    // ---- segment files; callers hold the class lock ----
+
+    private static void append(Entry e) {
+        if (diskFailed)
+            return;
+        try {
+            if (segment == null)
+                openSegment(e.time);
+            String line = encode(e);
+            segment.write(line);
+            segment.write('\n');
+            segmentBytes += line.length() + 1;
+            if (segmentBytes >= DatabaseConfig.ACTIVITY_SEGMENT_BYTES) {
+                segment.close();
+                segment = null;
+            }
+        } catch (IOException ex) {
+            diskFailed = true;
+            System.err.println("ActivityLog: segment files unavailable, keeping memory only: " + ex.getMessage());
+        }
+    }
+
+    private static void openSegment(long start) throws IOException {
+        if (dir == null) {
+            dir = Paths.get(DatabaseConfig.ACTIVITY_LOG_DIR);
+            Files.createDirectories(dir);
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "hpms-activity-log");
+                t.setDaemon(true);
+                return t;
+            });
+            flusher.scheduleWithFixedDelay(() -> {
+                synchronized (ActivityLog.class) {
+                    flush();
+                }
+            }, 1, 1, TimeUnit.SECONDS);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                synchronized (ActivityLog.class) {
+                    flush();
+                }
+            }, "hpms-activity-log-shutdown"));
+        }
+        List<Path> files = segments();
+        // Entries logged in the same millisecond as the previous segment's first one still sort after it
+        long last = files.isEmpty() ? Long.MIN_VALUE : startOf(files.get(files.size() - 1));
+        start = Math.max(start, last + 1);
+        Path p = dir.resolve("activity-" + start + ".log");
+        segment = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(p.toFile(), true), StandardCharsets.UTF_8));
+        segmentBytes = 0;
+        for (int i = 0; i <= files.size() - DatabaseConfig.ACTIVITY_SEGMENT_COUNT; i++)
+            Files.deleteIfExists(files.get(i));
+    }
+
+    private static void flush() {
+        if (segment == null)
+            return;
+        try {
+            segment.flush();
+        } catch (IOException ex) {
+            System.err.println("ActivityLog: flush failed: " + ex.getMessage());
+        }
+    }
+
+    /** Segment files, oldest first */
+    private static List<Path> segments() {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "activity-*.log")) {
+            for (Path p : ds)
+                if (startOf(p) != Long.MIN_VALUE)
+                    files.add(p);
+        } catch (IOException ex) {
+            System.err.println("ActivityLog: cannot list " + dir + ": " + ex.getMessage());
+        }
+        files.sort(Comparator.comparingLong(ActivityLog::startOf));
+        return files;
+    }
+
+    private static long startOf(Path p) {
+        String n = p.getFileName().toString();
+        try {
+            return Long.parseLong(n.substring("activity-".length(), n.length() - ".log".length()));
+        } catch (RuntimeException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    private static String encode(Entry e) {
+        StringBuilder sb = new StringBuilder(64).append(e.time).append('\t').append(WriteBehindQueue.escape(e.code));
+        for (String a : e.args)
+            sb.append('\t').append(WriteBehindQueue.escape(a));
+        return sb.toString();
+    }
+
+    private static Entry decode(String line) {
+        String[] f = line.split("\t", -1);
+        if (f.length < 2)
+            return null;
+        try {
+            List<String> args = new ArrayList<>(f.length - 2);
+            for (int i = 2; i < f.length; i++)
+                args.add(WriteBehindQueue.unescape(f[i]));
+            return new Entry(-1, Long.parseLong(f[0]), WriteBehindQueue.unescape(f[1]),
+                    Collections.unmodifiableList(args));
+        } catch (NumberFormatException e) {
+            // A torn last line from a crash mid-append
+            return null;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package hpms.util;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -21,28 +23,8 @@ public class AuditLogService {
      * Log an action to the audit_logs table with IP address
      */
     public static void logAction(String username, String action, String entityType, String entityId, String details, String ipAddress) {
-        try (Connection conn = DBConnection.getConnection()) {
-            if (conn == null) {
-                // Fallback to in-memory logging if DB unavailable
-                LogManager.log("audit_log_failed action=" + action + " reason=db_unavailable");
-                return;
-            }
-
-            String sql = "INSERT INTO audit_logs (username, action, entity_type, entity_id, details, ip_address) VALUES (?, ?, ?, ?, ?, ?)";
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setString(1, username);
-                stmt.setString(2, action);
-                stmt.setString(3, entityType);
-                stmt.setString(4, entityId);
-                stmt.setString(5, details);
-                stmt.setString(6, ipAddress);
-                stmt.executeUpdate();
-            }
-        } catch (SQLException e) {
-            System.err.println("AuditLogService: Failed to log action: " + e.getMessage());
-            // Fallback to in-memory logging
-            LogManager.log("audit_log_failed action=" + action + " error=" + e.getMessage());
-        }
+        // Buffered and batch-inserted by AuditPipeline; never waits for MySQL
+        AuditPipeline.offer(username, action, entityType, entityId, details, ipAddress);
     }
 
     /**
@@ -81,8 +63,10 @@ public class AuditLogService {
     }
 
     /**
-     * Get audit logs (admin only)
+     * Get the newest audit logs (admin only). Deep OFFSETs scan every skipped
+     * row; page with getAuditLogPage instead.
      */
+    @Deprecated
     public static List<AuditLogEntry> getAuditLogs(int limit, int offset) {
         List<AuditLogEntry> logs = new ArrayList<>();
         try (Connection conn = DBConnection.getConnection()) {
@@ -90,23 +74,14 @@ public class AuditLogService {
                 return logs;
             }
 
-            String sql = "SELECT username, action, entity_type, entity_id, details, ip_address, logged_at " +
-                        "FROM audit_logs ORDER BY logged_at DESC LIMIT ? OFFSET ?";
+            String sql = "SELECT " + COLUMNS + " FROM audit_logs ORDER BY logged_at DESC, id DESC LIMIT ? OFFSET ?";
             try (PreparedStatement stmt = conn.prepareStatement(sql)) {
                 stmt.setInt(1, limit);
                 stmt.setInt(2, offset);
-                ResultSet rs = stmt.executeQuery();
-                while (rs.next()) {
-                    AuditLogEntry entry = new AuditLogEntry(
-                        rs.getString("username"),
-                        rs.getString("action"),
-                        rs.getString("entity_type"),
-                        rs.getString("entity_id"),
-                        rs.getString("details"),
-                        rs.getString("ip_address"),
-                        rs.getTimestamp("logged_at")
-                    );
-                    logs.add(entry);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        logs.add(read(rs));
+                    }
                 }
             }
         } catch (SQLException e) {
@@ -116,44 +91,265 @@ public class AuditLogService {
     }
 
     /**
-     * Get audit logs by username
+     * Get audit logs by username, newest first
      */
     public static List<AuditLogEntry> getAuditLogsByUser(String username, int limit) {
+        Filter f = new Filter();
+        f.username = username;
+        return getAuditLogPage(f, null, limit).entries;
+    }
+
+    /**
+     * One page of audit logs matching the filter, newest first. Pass null for
+     * the first page and the previous page's next cursor after that. Each page
+     * seeks straight to its first row on (logged_at, id), so page 10,000 costs
+     * the same as page 1.
+     */
+    public static Page getAuditLogPage(Filter filter, Cursor after, int limit) {
         List<AuditLogEntry> logs = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT ").append(COLUMNS).append(" FROM audit_logs");
+        where(sql, params, filter, after);
+        sql.append(" ORDER BY logged_at DESC, id DESC LIMIT ?");
+        params.add(limit);
         try (Connection conn = DBConnection.getConnection()) {
             if (conn == null) {
-                return logs;
+                return new Page(logs, null);
             }
+            try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+                bind(stmt, params);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        logs.add(read(rs));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("AuditLogService: Failed to get audit log page: " + e.getMessage());
+        }
+        AuditLogEntry last = logs.size() == limit && limit > 0 ? logs.get(logs.size() - 1) : null;
+        return new Page(logs, last == null ? null : new Cursor(last.loggedAt, last.id));
+    }
 
-            String sql = "SELECT username, action, entity_type, entity_id, details, ip_address, logged_at " +
-                        "FROM audit_logs WHERE username = ? ORDER BY logged_at DESC LIMIT ?";
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setString(1, username);
-                stmt.setInt(2, limit);
-                ResultSet rs = stmt.executeQuery();
-                while (rs.next()) {
-                    AuditLogEntry entry = new AuditLogEntry(
-                        rs.getString("username"),
-                        rs.getString("action"),
-                        rs.getString("entity_type"),
-                        rs.getString("entity_id"),
-                        rs.getString("details"),
-                        rs.getString("ip_address"),
-                        rs.getTimestamp("logged_at")
-                    );
-                    logs.add(entry);
+    /**
+     * Write every audit log matching the filter to out, newest first, as CSV
+     * (with a header row) or JSON Lines. Rows are streamed from MySQL and
+     * written as they arrive, so the export never holds the whole result in
+     * memory. Returns the number of rows written, or -1 if the database is
+     * unavailable or the query failed.
+     */
+    public static long exportAuditLogs(Filter filter, ExportFormat format, Writer out) throws IOException {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT ").append(COLUMNS).append(" FROM audit_logs");
+        where(sql, params, filter, null);
+        sql.append(" ORDER BY logged_at DESC, id DESC");
+        long rows = 0;
+        try (Connection conn = DBConnection.getConnection()) {
+            if (conn == null) {
+                return -1;
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(sql.toString(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                // Connector/J streams rows one at a time instead of reading the whole result first
+                stmt.setFetchSize(Integer.MIN_VALUE);
+                bind(stmt, params);
+                if (format == ExportFormat.CSV) {
+                    out.write("id,logged_at,username,action,entity_type,entity_id,details,ip_address\r\n");
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        AuditLogEntry e = read(rs);
+                        if (format == ExportFormat.CSV) {
+                            writeCsv(out, e);
+                        } else {
+                            writeJson(out, e);
+                        }
+                        rows++;
+                    }
                 }
             }
         } catch (SQLException e) {
-            System.err.println("AuditLogService: Failed to get audit logs by user: " + e.getMessage());
+            System.err.println("AuditLogService: Failed to export audit logs: " + e.getMessage());
+            return -1;
+        }
+        out.flush();
+        return rows;
+    }
+
+    private static final String COLUMNS =
+            "id, username, action, entity_type, entity_id, details, ip_address, logged_at";
+
+    /** Filter conditions all match an index ending in (logged_at, id) */
+    private static void where(StringBuilder sql, List<Object> params, Filter f, Cursor after) {
+        List<String> conds = new ArrayList<>();
+        if (f != null) {
+            if (f.username != null) { conds.add("username = ?"); params.add(f.username); }
+            if (f.action != null) { conds.add("action = ?"); params.add(f.action); }
+            if (f.entityType != null) { conds.add("entity_type = ?"); params.add(f.entityType); }
+            if (f.entityId != null) { conds.add("entity_id = ?"); params.add(f.entityId); }
+            if (f.from != null) { conds.add("logged_at >= ?"); params.add(f.from); }
+            if (f.to != null) { conds.add("logged_at < ?"); params.add(f.to); }
+        }
+        if (after != null) {
+            // The leading "logged_at <= ?" gives MySQL a range to seek to; the rest breaks ties on id
+            conds.add("logged_at <= ? AND (logged_at < ? OR id < ?)");
+            params.add(after.loggedAt);
+            params.add(after.loggedAt);
+            params.add(after.id);
+        }
+        for (int i = 0; i < conds.size(); i++) {
+            sql.append(i == 0 ? " WHERE " : " AND ").append(conds.get(i));
+        }
+    }
+
+    private static void bind(PreparedStatement stmt, List<Object> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            stmt.setObject(i + 1, params.get(i));
+        }
+    }
+
+    private static AuditLogEntry read(ResultSet rs) throws SQLException {
+        return new AuditLogEntry(
+            rs.getLong("id"),
+            rs.getString("username"),
+            rs.getString("action"),
+            rs.getString("entity_type"),
+            rs.getString("entity_id"),
+            rs.getString("details"),
+            rs.getString("ip_address"),
+            rs.getTimestamp("logged_at")
+        );
+    }
+
+    private static void writeCsv(Writer out, AuditLogEntry e) throws IOException {
+        out.write(Long.toString(e.id));
+        out.write(',');
+        csv(out, e.loggedAt == null ? null : e.loggedAt.toString());
+        out.write(',');
+        csv(out, e.username);
+        out.write(',');
+        csv(out, e.action);
+        out.write(',');
+        csv(out, e.entityType);
+        out.write(',');
+        csv(out, e.entityId);
+        out.write(',');
+        csv(out, e.details);
+        out.write(',');
+        csv(out, e.ipAddress);
+        out.write("\r\n");
+    }
+
+    // RFC 4180: quote fields holding a comma, quote or line break, doubling inner quotes
+    private static void csv(Writer out, String s) throws IOException {
+        if (s == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < s.length() && !quote; i++) {
+            char c = s.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(s);
+            return;
+        }
+        out.write('"');
+        out.write(s.replace("\"", "\"\""));
+        out.write('"');
+    }
+
+    private static void writeJson(Writer out, AuditLogEntry e) throws IOException {
+        out.write("{\"id\":");
+        out.write(Long.toString(e.id));
+        out.write(",\"logged_at\":");
+        json(out, e.loggedAt == null ? null : e.loggedAt.toString());
+        out.write(",\"username\":");
+        json(out, e.username);
+        out.write(",\"action\":");
+        json(out, e.action);
+        out.write(",\"entity_type\":");
+        json(out, e.entityType);
+        out.write(",\"entity_id\":");
+        json(out, e.entityId);
+        out.write(",\"details\":");
+        json(out, e.details);
+        out.write(",\"ip_address\":");
+        json(out, e.ipAddress);
+        out.write("}\n");
+    }
+
+    private static void json(Writer out, String s) throws IOException {
+        if (s == null) {
+            out.write("null");
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': out.write("\\\""); break;
+                case '\\': out.write("\\\\"); break;
+                case '\n': out.write("\\n"); break;
+                case '\r': out.write("\\r"); break;
+                case '\t': out.write("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+            }
+        }
+        out.write('"');
+    }
+
+    public enum ExportFormat { CSV, JSONL }
+
+    /**
+     * Audit log query conditions; null fields match everything. from is
+     * inclusive, to exclusive.
+     */
+    public static class Filter {
+        public String username;
+        public String action;
+        public String entityType;
+        public String entityId;
+        public Timestamp from;
+        public Timestamp to;
+    }
+
+    /**
+     * Position after the last row of a page
+     */
+    public static class Cursor {
+        public final Timestamp loggedAt;
+        public final long id;
+
+        public Cursor(Timestamp loggedAt, long id) {
+            this.loggedAt = loggedAt;
+            this.id = id;
+        }
+    }
+
+    /**
+     * A page of audit logs; next is null on the last page
+     */
+    public static class Page {
+        public final List<AuditLogEntry> entries;
+        public final Cursor next;
+
+        Page(List<AuditLogEntry> entries, Cursor next) {
+            this.entries = entries;
+            this.next = next;
         }
-        return logs;
     }
 
     /**
      * Audit log entry model
      */
     public static class AuditLogEntry {
+        public final long id;
         public final String username;
         public final String action;
         public final String entityType;
@@ -162,8 +358,9 @@ public class AuditLogService {
         public final String ipAddress;
         public final Timestamp loggedAt;
 
-        public AuditLogEntry(String username, String action, String entityType, String entityId, 
+        public AuditLogEntry(long id, String username, String action, String entityType, String entityId,
                            String details, String ipAddress, Timestamp loggedAt) {
+            this.id = id;
             this.username = username;
             this.action = action;
             this.entityType = entityType;
@@ -0,0 +1,501 @@
+package hpms.util;
+
+import hpms.config.DatabaseConfig;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Non-blocking path from AuditLogService to the audit_logs table.
+ *
+ * offer() claims a slot in a bounded ring buffer with one compare-and-set and
+ * returns; it never takes a lock or touches the database. A single flusher
+ * thread drains the buffer and inserts events in batches of AUDIT_BATCH_SIZE,
+ * or whatever is buffered every AUDIT_FLUSH_INTERVAL_MS. Each event carries the
+ * time it was logged, so rows keep their original logged_at however late they
+ * are written.
+ *
+ * While MySQL is unreachable, drained batches are appended to the spill file
+ * AUDIT_SPILL_PATH instead, and an event arriving at a full buffer is appended
+ * there directly. The flusher retries with backoff; once the database answers
+ * it replays the spill file, oldest first, before inserting new events. A
+ * spilled event is written at least once: a crash during replay can repeat a
+ * batch, but never loses one.
+ *
+ * Spill lines are tab separated: "loggedAt username action entityType
+ * entityId details ipAddress", escaped as in the write-behind journal. Like
+ * the journal, spill files are readable and writable by their owner only.
+ */
+public class AuditPipeline {
+
+    public static class Stats {
+        public final int buffered;
+        public final long inserted;
+        public final long spilled;
+        public final long replayed;
+        public final long dropped;
+
+        Stats(int buffered, long inserted, long spilled, long replayed, long dropped) {
+            this.buffered = buffered;
+            this.inserted = inserted;
+            this.spilled = spilled;
+            this.replayed = replayed;
+            this.dropped = dropped;
+        }
+
+        @Override
+        public String toString() {
+            return "buffered=" + buffered + " inserted=" + inserted + " spilled=" + spilled
+                    + " replayed=" + replayed + " dropped=" + dropped;
+        }
+    }
+
+    static final class Event {
+        final Timestamp loggedAt;
+        final String username;
+        final String action;
+        final String entityType;
+        final String entityId;
+        final String details;
+        final String ipAddress;
+
+        Event(Timestamp loggedAt, String username, String action, String entityType, String entityId,
+              String details, String ipAddress) {
+            this.loggedAt = loggedAt;
+            this.username = username;
+            this.action = action;
+            this.entityType = entityType;
+            this.entityId = entityId;
+            this.details = details;
+            this.ipAddress = ipAddress;
+        }
+    }
+
+    private static final String INSERT = "INSERT INTO audit_logs "
+            + "(username, action, entity_type, entity_id, details, ip_address, logged_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String UNAVAILABLE = "database unavailable";
+    private static volatile AuditPipeline instance;
+
+    /** Queue an audit event; returns at once whether or not MySQL is up */
+    public static void offer(String username, String action, String entityType, String entityId,
+                             String details, String ipAddress) {
+        get().add(new Event(new Timestamp(System.currentTimeMillis()), username, action, entityType, entityId,
+                details, ipAddress));
+    }
+
+    /**
+     * Wait until every event offered before this call is in MySQL or the spill
+     * file. Returns false on timeout; returns true at once if nothing was offered.
+     */
+    public static boolean flush(long timeoutMs) {
+        AuditPipeline p = instance;
+        return p == null || p.awaitFlushed(timeoutMs);
+    }
+
+    public static Stats stats() {
+        AuditPipeline p = instance;
+        return p == null ? new Stats(0, 0, 0, 0, 0) : p.snapshot();
+    }
+
+    private static AuditPipeline get() {
+        AuditPipeline p = instance;
+        if (p != null)
+            return p;
+        synchronized (AuditPipeline.class) {
+            if (instance == null)
+                instance = new AuditPipeline(DatabaseConfig.AUDIT_BUFFER_CAPACITY, DatabaseConfig.AUDIT_BATCH_SIZE,
+                        DatabaseConfig.AUDIT_FLUSH_INTERVAL_MS, Paths.get(DatabaseConfig.AUDIT_SPILL_PATH));
+            return instance;
+        }
+    }
+
+    // ---- ring buffer ----
+    // Each slot's sequence number says whose turn it is: a producer may fill slot
+    // i when seq == tail, the flusher may take it when seq == head + 1. A filled
+    // slot is published by the volatile write of its sequence number.
+
+    private final int capacity;
+    private final int mask;
+    private final Event[] slots;
+    private final AtomicLongArray seq;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    private final int batchSize;
+    private final long intervalMs;
+    private final Path spillPath;
+    private final Path replayPath;
+    private final Object spillLock = new Object();
+    private final Object flushLock = new Object();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong overflowed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread flusher;
+    private Writer spill;
+    private FileOutputStream spillStream;
+    private volatile boolean flushRequested;
+    private volatile boolean spillWritten;
+    private volatile long done;
+    private volatile long inserted, spilled, replayed;
+
+    AuditPipeline(int capacity, int batchSize, long intervalMs, Path spillPath) {
+        int c = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.capacity = c;
+        this.mask = c - 1;
+        this.slots = new Event[c];
+        this.seq = new AtomicLongArray(c);
+        for (int i = 0; i < c; i++)
+            seq.set(i, i);
+        this.batchSize = batchSize;
+        this.intervalMs = intervalMs;
+        this.spillPath = spillPath;
+        this.replayPath = spillPath.resolveSibling(spillPath.getFileName() + ".replay");
+        this.spillWritten = Files.exists(spillPath) || Files.exists(replayPath);
+        flusher = new Thread(this::runFlusher, "hpms-audit-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    void add(Event e) {
+        accepted.incrementAndGet();
+        while (true) {
+            long t = tail.get();
+            int i = (int) t & mask;
+            long s = seq.get(i);
+            if (s == t) {
+                if (tail.compareAndSet(t, t + 1)) {
+                    slots[i] = e;
+                    seq.set(i, t + 1);
+                    if (t + 1 - head >= batchSize)
+                        LockSupport.unpark(flusher);
+                    return;
+                }
+            } else if (s < t) {
+                // Full: the flusher is behind, so keep the event on disk rather than wait
+                List<Event> one = new ArrayList<>(1);
+                one.add(e);
+                appendSpill(one, false);
+                overflowed.incrementAndGet();
+                LockSupport.unpark(flusher);
+                return;
+            }
+        }
+    }
+
+    /** Take up to max events; only called by the flusher */
+    private List<Event> drain(int max) {
+        List<Event> out = new ArrayList<>(Math.min(max, capacity));
+        long h = head;
+        while (out.size() < max) {
+            int i = (int) h & mask;
+            if (seq.get(i) != h + 1)
+                break;
+            out.add(slots[i]);
+            slots[i] = null;
+            seq.set(i, h + capacity);
+            h++;
+        }
+        head = h;
+        return out;
+    }
+
+    private boolean awaitFlushed(long timeoutMs) {
+        long target = accepted.get();
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (flushLock) {
+            while (done + overflowed.get() < target) {
+                long left = deadline - System.currentTimeMillis();
+                if (left <= 0)
+                    return false;
+                flushRequested = true;
+                LockSupport.unpark(flusher);
+                try {
+                    flushLock.wait(Math.min(left, 100));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private Stats snapshot() {
+        return new Stats((int) (tail.get() - head), inserted, spilled + overflowed.get(), replayed, dropped.get());
+    }
+
+    // ---- flusher thread ----
+
+    private void runFlusher() {
+        long backoff = 250;
+        long retryAt = 0;
+        while (true) {
+            try {
+                long due = System.nanoTime() + intervalMs * 1_000_000L;
+                while (tail.get() - head < batchSize && !flushRequested && System.nanoTime() < due)
+                    LockSupport.parkNanos(this, due - System.nanoTime());
+                flushRequested = false;
+                if (Thread.interrupted())
+                    return;
+
+                boolean dbUp = System.currentTimeMillis() >= retryAt;
+                if (dbUp && spillWritten)
+                    dbUp = replay();
+                List<Event> batch;
+                while (!(batch = drain(batchSize)).isEmpty()) {
+                    if (dbUp && !insert(batch)) {
+                        dbUp = false;
+                    }
+                    if (!dbUp) {
+                        appendSpill(batch, true);
+                        spilled += batch.size();
+                    } else {
+                        inserted += batch.size();
+                    }
+                    done += batch.size();
+                }
+                if (dbUp) {
+                    backoff = 250;
+                    retryAt = 0;
+                } else if (retryAt <= System.currentTimeMillis()) {
+                    retryAt = System.currentTimeMillis() + backoff;
+                    backoff = Math.min(backoff * 2, DatabaseConfig.WRITE_MAX_BACKOFF_MS);
+                }
+            } catch (Exception e) {
+                System.err.println("AuditPipeline: flusher error: " + e.getMessage());
+            } finally {
+                synchronized (flushLock) {
+                    flushLock.notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Insert the batch in one transaction. Returns false only when the database
+     * cannot be reached; rows MySQL rejects are inserted one by one and the ones
+     * that still fail are reported and dropped, since retrying cannot fix them.
+     */
+    private boolean insert(List<Event> batch) {
+        String error = execute(batch);
+        if (error == null)
+            return true;
+        if (UNAVAILABLE.equals(error))
+            return false;
+        for (Event e : batch) {
+            List<Event> one = new ArrayList<>(1);
+            one.add(e);
+            String err = execute(one);
+            if (UNAVAILABLE.equals(err))
+                return false;
+            if (err != null) {
+                dropped.incrementAndGet();
+                System.err.println("AuditLogService: Failed to log action " + e.action + ": " + err);
+            }
+        }
+        return true;
+    }
+
+    private String execute(List<Event> batch) {
+        Connection conn = DBConnection.getConnection();
+        if (conn == null)
+            return UNAVAILABLE;
+        try (Connection c = conn) {
+            c.setAutoCommit(false);
+            try (PreparedStatement stmt = c.prepareStatement(INSERT)) {
+                for (Event e : batch) {
+                    stmt.setString(1, e.username);
+                    stmt.setString(2, e.action);
+                    stmt.setString(3, e.entityType);
+                    stmt.setString(4, e.entityId);
+                    stmt.setString(5, e.details);
+                    stmt.setString(6, e.ipAddress);
+                    stmt.setTimestamp(7, e.loggedAt);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                c.commit();
+                return null;
+            } catch (SQLException e) {
+                try {
+                    c.rollback();
+                } catch (SQLException ignored) {
+                }
+                String state = e.getSQLState();
+                if (state != null && state.startsWith("08"))
+                    return UNAVAILABLE;
+                return e.getMessage() == null ? e.toString() : e.getMessage();
+            } finally {
+                try {
+                    c.setAutoCommit(true);
+                } catch (SQLException ignored) {
+                }
+            }
+        } catch (SQLException e) {
+            return UNAVAILABLE;
+        }
+    }
+
+    // ---- spill file ----
+
+    private void appendSpill(List<Event> events, boolean sync) {
+        synchronized (spillLock) {
+            try {
+                if (spill == null) {
+                    if (!Files.exists(spillPath))
+                        WriteBehindQueue.createPrivate(spillPath);
+                    spillStream = new FileOutputStream(spillPath.toFile(), true);
+                    spill = new BufferedWriter(new OutputStreamWriter(spillStream, StandardCharsets.UTF_8));
+                }
+                for (Event e : events) {
+                    spill.write(encode(e));
+                    spill.write('\n');
+                }
+                spill.flush();
+                if (sync)
+                    spillStream.getFD().sync();
+                spillWritten = true;
+            } catch (IOException ex) {
+                dropped.addAndGet(events.size());
+                System.err.println("AuditPipeline: spill file unavailable, " + events.size() + " audit event(s) lost: "
+                        + ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Insert every spilled event, oldest first, reading the file in batches of
+     * batchSize so a large spill never has to fit in memory. The spill file is
+     * first moved aside so producers keep appending to a fresh one. Returns
+     * false if the database went away; the events not yet inserted stay in the
+     * replay file.
+     */
+    private boolean replay() {
+        synchronized (spillLock) {
+            spillWritten = false;
+            try {
+                if (spill != null) {
+                    spill.close();
+                    spill = null;
+                    spillStream = null;
+                }
+                if (!Files.exists(replayPath) && Files.exists(spillPath))
+                    Files.move(spillPath, replayPath, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                spillWritten = true;
+                System.err.println("AuditPipeline: cannot rotate spill file: " + e.getMessage());
+                return false;
+            }
+        }
+        if (!Files.exists(replayPath))
+            return true;
+        long count = 0;
+        Path unsent = null;
+        boolean failed = false;
+        try (BufferedReader r = Files.newBufferedReader(replayPath, StandardCharsets.UTF_8)) {
+            List<Event> batch = new ArrayList<>(batchSize);
+            while (true) {
+                String line;
+                while (batch.size() < batchSize && (line = r.readLine()) != null) {
+                    try {
+                        batch.add(decode(line));
+                    } catch (RuntimeException e) {
+                        // A torn last line from a crash mid-append; everything before it is intact
+                        System.err.println("AuditPipeline: skipping unreadable spill line");
+                    }
+                }
+                if (batch.isEmpty())
+                    break;
+                if (!insert(batch)) {
+                    failed = true;
+                    unsent = keepUnsent(batch, r);
+                    break;
+                }
+                replayed += batch.size();
+                count += batch.size();
+                batch.clear();
+            }
+        } catch (IOException e) {
+            spillWritten = true;
+            System.err.println("AuditPipeline: cannot read spill file: " + e.getMessage());
+            return false;
+        }
+        if (failed) {
+            // The reader is closed now, so the rewritten file can replace the one it read
+            if (unsent != null) {
+                try {
+                    Files.move(unsent, replayPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    System.err.println("AuditPipeline: cannot rewrite spill file: " + e.getMessage());
+                }
+            }
+            spillWritten = true;
+            return false;
+        }
+        try {
+            Files.deleteIfExists(replayPath);
+        } catch (IOException e) {
+            System.err.println("AuditPipeline: cannot remove replayed spill file: " + e.getMessage());
+        }
+        if (count > 0)
+            System.err.println("AuditPipeline: replayed " + count + " spilled audit event(s)");
+        // Events that overflowed the buffer meanwhile are in a new spill file and set spillWritten again
+        return true;
+    }
+
+    /**
+     * Write the batch that failed and the lines the reader has not reached yet
+     * to a new owner-only file. Returns it, or null if it could not be written
+     * and the replay file should stay as it is.
+     */
+    private Path keepUnsent(List<Event> batch, BufferedReader rest) {
+        Path tmp = replayPath.resolveSibling(replayPath.getFileName() + ".tmp");
+        try {
+            WriteBehindQueue.createPrivate(tmp);
+            try (Writer w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                for (Event e : batch) {
+                    w.write(encode(e));
+                    w.write('\n');
+                }
+                String line;
+                while ((line = rest.readLine()) != null) {
+                    w.write(line);
+                    w.write('\n');
+                }
+            }
+            return tmp;
+        } catch (IOException e) {
+            System.err.println("AuditPipeline: cannot rewrite spill file: " + e.getMessage());
+            return null;
+        }
+    }
+
+    static String encode(Event e) {
+        return e.loggedAt.getTime() + "\t" + field(e.username) + "\t" + field(e.action) + "\t" + field(e.entityType)
+                + "\t" + field(e.entityId) + "\t" + field(e.details) + "\t" + field(e.ipAddress);
+    }
+
+    static Event decode(String line) {
+        String[] f = line.split("\t", -1);
+        if (f.length != 7)
+            throw new IllegalArgumentException("Bad spill line");
+        return new Event(new Timestamp(Long.parseLong(f[0])), value(f[1]), value(f[2]), value(f[3]), value(f[4]),
+                value(f[5]), value(f[6]));
+    }
+
+    // null is written as a lone "\N", which escape() can never produce
+    private static String field(String s) {
+        return s == null ? "\\N" : WriteBehindQueue.escape(s);
+    }
+
+    private static String value(String f) {
+        return "\\N".equals(f) ? null : WriteBehindQueue.unescape(f);
+    }
+}
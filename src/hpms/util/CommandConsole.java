@@ -32,6 +32,18 @@ public class CommandConsole {
                         "Error: Missing parameters. Usage: add_patient <name> <age> <birthday> <gender> <contact> <address> <patientType>");
             return PatientService.add(t[1], t[2], t[3], t[4], t[5], t[6], t[7]);
         }
+        if (cmd.equals("import_patients") || cmd.equals("import_staff")) {
+            if (t.length < 2)
+                return Collections.singletonList("Error: Missing parameters. Usage: " + cmd + " <file.csv> [--dry-run]");
+            boolean dryRun = t[t.length - 1].equalsIgnoreCase("--dry-run");
+            String file = dryRun ? joinRest(Arrays.copyOf(t, t.length - 1), 1) : joinRest(t, 1);
+            ImportService.Progress progress = s -> System.out.println(String.format(Locale.US,
+                    "%d rows read, %d imported, %d rejected (%.0f rows/sec)", s.read, s.imported, s.rejected,
+                    s.rowsPerSecond()));
+            java.nio.file.Path path = java.nio.file.Paths.get(file);
+            return cmd.equals("import_patients") ? ImportService.importPatients(path, dryRun, progress)
+                    : ImportService.importStaff(path, dryRun, progress);
+        }
         if (cmd.equals("list_patients")) {
             List<String> out = new ArrayList<>();
             for (Patient p : DataStore.patients.values()) {
@@ -106,6 +118,7 @@ public class CommandConsole {
         if (cmd.equals("help")) {
             return Arrays.asList("login <user> <pass>", "logout", "register_user <user> <pass> <role>",
                     "add_patient <name> <age> <gender> <contact> <address>", "list_patients",
+                    "import_patients <file.csv> [--dry-run]", "import_staff <file.csv> [--dry-run]",
                     "add_staff <name> <role> <department>", "list_staff",
                     "schedule_appt <pid> <sid> <date> <time> <dept>", "list_appts", "create_bill <pid> <amount>",
                     "pay_bill <billId> <method>", "assign_room <roomId> <pid>", "list_rooms", "backup", "restore",
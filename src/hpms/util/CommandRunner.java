@@ -0,0 +1,202 @@
+package hpms.util;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Headless batch mode for CommandConsole: runs a script of console commands,
+ * one per line, from a file or stdin, without Swing.
+ *
+ * <pre>
+ * java -Djava.awt.headless=true -cp ... hpms.util.CommandRunner [--parallel N] [--no-load] [script | -]
+ * </pre>
+ *
+ * Runs of consecutive read-only commands (list_*, help, backup) are executed
+ * concurrently, up to N at a time. Any other command waits for the reads
+ * before it to finish and then runs on its own, so every command sees exactly
+ * the writes that precede it in the script. Results are printed in script
+ * order as soon as each command and all commands before it are done. Blank
+ * lines and lines starting with # are skipped.
+ *
+ * When the script ends, a latency summary per command is printed to stderr.
+ * The exit status is 2 if any command returned an error, otherwise 0. Unless
+ * --no-load is given, the database is loaded first as at login.
+ */
+public class CommandRunner {
+
+    private static final Set<String> READS = new HashSet<>(Arrays.asList(
+            "list_patients", "list_staff", "list_appts", "list_rooms", "help", "backup"));
+    // Commands that open dialogs
+    private static final Set<String> GUI_ONLY = new HashSet<>(Collections.singletonList("restore"));
+
+    /** Latencies and error counts per command name */
+    public static final class Summary {
+        private final Map<String, List<Long>> nanos = new TreeMap<>();
+        private final Map<String, Integer> errors = new HashMap<>();
+        private long commands, errorCount, wallNanos;
+
+        synchronized void record(String cmd, long tookNanos, boolean error) {
+            nanos.computeIfAbsent(cmd, k -> new ArrayList<>()).add(tookNanos);
+            commands++;
+            if (error) {
+                errors.merge(cmd, 1, Integer::sum);
+                errorCount++;
+            }
+        }
+
+        public synchronized long commands() {
+            return commands;
+        }
+
+        public synchronized long errors() {
+            return errorCount;
+        }
+
+        public synchronized int count(String cmd) {
+            List<Long> l = nanos.get(cmd);
+            return l == null ? 0 : l.size();
+        }
+
+        public synchronized List<String> format() {
+            List<String> out = new ArrayList<>();
+            out.add(String.format(Locale.US, "%-20s %7s %6s %9s %9s %9s %9s", "command", "count", "errors", "mean_ms",
+                    "p50_ms", "p95_ms", "max_ms"));
+            for (Map.Entry<String, List<Long>> e : nanos.entrySet()) {
+                List<Long> l = new ArrayList<>(e.getValue());
+                Collections.sort(l);
+                double sum = 0;
+                for (long v : l)
+                    sum += v;
+                out.add(String.format(Locale.US, "%-20s %7d %6d %9.3f %9.3f %9.3f %9.3f", e.getKey(), l.size(),
+                        errors.getOrDefault(e.getKey(), 0), sum / l.size() / 1e6, pct(l, 50) / 1e6,
+                        pct(l, 95) / 1e6, l.get(l.size() - 1) / 1e6));
+            }
+            double secs = wallNanos / 1e9;
+            out.add(String.format(Locale.US, "%d commands, %d errors in %.2f s (%.0f commands/sec)", commands,
+                    errorCount, secs, secs > 0 ? commands / secs : 0));
+            return out;
+        }
+
+        private static long pct(List<Long> sorted, int p) {
+            int i = (int) Math.ceil(p / 100.0 * sorted.size()) - 1;
+            return sorted.get(Math.max(0, Math.min(sorted.size() - 1, i)));
+        }
+    }
+
+    /** A command whose output has not been printed yet */
+    private static final class Pending {
+        final String line;
+        final Future<List<String>> result;
+
+        Pending(String line, Future<List<String>> result) {
+            this.line = line;
+            this.result = result;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int parallel = Runtime.getRuntime().availableProcessors();
+        boolean load = true;
+        String script = "-";
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--parallel") && i + 1 < args.length)
+                parallel = Math.max(1, Integer.parseInt(args[++i]));
+            else if (args[i].equals("--no-load"))
+                load = false;
+            else
+                script = args[i];
+        }
+        if (load)
+            hpms.service.StartupLoader.load();
+        Summary summary;
+        try (BufferedReader in = script.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : new BufferedReader(new InputStreamReader(new FileInputStream(script), StandardCharsets.UTF_8))) {
+            summary = run(in, System.out, parallel);
+        }
+        System.out.flush();
+        for (String l : summary.format())
+            System.err.println(l);
+        System.exit(summary.errors() > 0 ? 2 : 0);
+    }
+
+    /** Run every command in the script, printing each result to out in script order */
+    public static Summary run(BufferedReader in, PrintStream out, int parallel) throws IOException {
+        Summary summary = new Summary();
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, parallel), r -> {
+            Thread t = new Thread(r, "hpms-command-runner");
+            t.setDaemon(true);
+            return t;
+        });
+        ArrayDeque<Pending> window = new ArrayDeque<>();
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String cmdLine = line.trim();
+                if (cmdLine.isEmpty() || cmdLine.startsWith("#"))
+                    continue;
+                if (READS.contains(name(cmdLine))) {
+                    while (window.size() >= parallel)
+                        print(window.poll(), out);
+                    window.add(new Pending(cmdLine, pool.submit(() -> timed(cmdLine, summary))));
+                } else {
+                    // A write: everything before it must have finished
+                    while (!window.isEmpty())
+                        print(window.poll(), out);
+                    print(new Pending(cmdLine, CompletableFuture.completedFuture(timed(cmdLine, summary))), out);
+                }
+                while (!window.isEmpty() && window.peek().result.isDone())
+                    print(window.poll(), out);
+            }
+            while (!window.isEmpty())
+                print(window.poll(), out);
+        } finally {
+            pool.shutdownNow();
+        }
+        synchronized (summary) {
+            summary.wallNanos = System.nanoTime() - start;
+        }
+        return summary;
+    }
+
+    private static String name(String cmdLine) {
+        int sp = cmdLine.indexOf(' ');
+        return (sp < 0 ? cmdLine : cmdLine.substring(0, sp)).toLowerCase(Locale.ROOT);
+    }
+
+    private static List<String> timed(String cmdLine, Summary summary) {
+        String cmd = name(cmdLine);
+        long t0 = System.nanoTime();
+        List<String> result;
+        if (GUI_ONLY.contains(cmd)) {
+            result = Collections.singletonList("Error: " + cmd + " is not available in batch mode");
+        } else {
+            try {
+                result = CommandConsole.execute(cmdLine);
+            } catch (RuntimeException e) {
+                result = Collections.singletonList("Error: " + e);
+            }
+        }
+        boolean error = !result.isEmpty() && result.get(0).startsWith("Error");
+        summary.record(cmd, System.nanoTime() - t0, error);
+        return result;
+    }
+
+    private static void print(Pending p, PrintStream out) {
+        List<String> result;
+        try {
+            result = p.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result = Collections.singletonList("Error: interrupted");
+        } catch (ExecutionException e) {
+            result = Collections.singletonList("Error: " + e.getCause());
+        }
+        out.println("> " + p.line);
+        for (String l : result)
+            out.println(l);
+    }
+}
@@ -0,0 +1,344 @@
+package hpms.util;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Insertion-ordered id -&gt; entity map (backs the DataStore maps) that the
+ * event thread, background loaders and delta sync can use at the same time.
+ *
+ * get, containsKey and size never lock. Writes to one id are serialised by
+ * one of STRIPES locks chosen by the id's hash, so writes to different ids
+ * rarely wait for each other. Iterating the map, its keySet, values or
+ * entrySet walks a point-in-time snapshot: a loop never throws
+ * ConcurrentModificationException and never sees a half-applied bulk load.
+ * The snapshot is cached until the next write, so repeated iteration of an
+ * unchanged map copies nothing. Removing through an iterator or calling
+ * setValue on an entry writes through to the live map.
+ *
+ * replaceContents swaps in a fully built new content set in one step, where
+ * clear() followed by putAll() would let readers see an empty or partial map.
+ * Like LinkedHashMap, putting an existing id keeps its position and null
+ * values are allowed; null ids are not.
+ *
+ * Entities themselves are not copied; code that changes an entity's fields in
+ * place still has to do so on one thread, as before.
+ */
+public class ConcurrentEntityMap<V> extends AbstractMap<String, V> {
+    private static final int STRIPES = 16;
+
+    private static final class Node<V> {
+        final long seq;
+        final String key;
+        volatile V value;
+
+        Node(long seq, String key, V value) {
+            this.seq = seq;
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /** Lookup and iteration-order structures, swapped as a whole by replaceContents */
+    private static final class Contents<V> {
+        final ConcurrentHashMap<String, Node<V>> byKey;
+        final ConcurrentSkipListMap<Long, Node<V>> byOrder = new ConcurrentSkipListMap<>();
+
+        Contents(int expected) {
+            byKey = new ConcurrentHashMap<>(Math.max(16, expected * 4 / 3 + 1));
+        }
+    }
+
+    /** Point-in-time copy of the map in insertion order */
+    private static final class Snapshot<V> {
+        final long version;
+        final String[] keys;
+        final Object[] values;
+
+        Snapshot(long version, String[] keys, Object[] values) {
+            this.version = version;
+            this.keys = keys;
+            this.values = values;
+        }
+    }
+
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    // Writers share this lock; snapshot copies and replaceContents take it exclusively
+    private final ReentrantReadWriteLock bulk = new ReentrantReadWriteLock();
+    private final AtomicLong nextSeq = new AtomicLong();
+    private final AtomicLong version = new AtomicLong();
+    private volatile Contents<V> contents = new Contents<>(16);
+    private volatile Snapshot<V> cached;
+    private final Set<Entry<String, V>> entrySet = new EntrySet();
+
+    public ConcurrentEntityMap() {
+        for (int i = 0; i < STRIPES; i++)
+            stripes[i] = new ReentrantLock();
+    }
+
+    @Override
+    public int size() {
+        return contents.byKey.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return contents.byKey.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key != null && contents.byKey.containsKey(key);
+    }
+
+    @Override
+    public V get(Object key) {
+        if (key == null)
+            return null;
+        Node<V> n = contents.byKey.get(key);
+        return n == null ? null : n.value;
+    }
+
+    @Override
+    public V getOrDefault(Object key, V defaultValue) {
+        if (key == null)
+            return defaultValue;
+        Node<V> n = contents.byKey.get(key);
+        return n == null ? defaultValue : n.value;
+    }
+
+    @Override
+    public V put(String key, V value) {
+        Objects.requireNonNull(key, "key");
+        ReentrantLock stripe = lockFor(key);
+        try {
+            return putLocked(key, value);
+        } finally {
+            unlock(stripe);
+        }
+    }
+
+    @Override
+    public V putIfAbsent(String key, V value) {
+        Objects.requireNonNull(key, "key");
+        ReentrantLock stripe = lockFor(key);
+        try {
+            Node<V> n = contents.byKey.get(key);
+            if (n != null && n.value != null)
+                return n.value;
+            putLocked(key, value);
+            return null;
+        } finally {
+            unlock(stripe);
+        }
+    }
+
+    @Override
+    public V computeIfAbsent(String key, Function<? super String, ? extends V> mapping) {
+        Objects.requireNonNull(key, "key");
+        Node<V> n = contents.byKey.get(key);
+        if (n != null && n.value != null)
+            return n.value;
+        ReentrantLock stripe = lockFor(key);
+        try {
+            n = contents.byKey.get(key);
+            if (n != null && n.value != null)
+                return n.value;
+            V v = mapping.apply(key);
+            if (v != null)
+                putLocked(key, v);
+            return v;
+        } finally {
+            unlock(stripe);
+        }
+    }
+
+    @Override
+    public V remove(Object key) {
+        if (key == null)
+            return null;
+        ReentrantLock stripe = lockFor((String) key);
+        try {
+            Contents<V> c = contents;
+            Node<V> n = c.byKey.remove(key);
+            if (n == null)
+                return null;
+            c.byOrder.remove(n.seq);
+            version.incrementAndGet();
+            return n.value;
+        } finally {
+            unlock(stripe);
+        }
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ? extends V> m) {
+        for (Entry<? extends String, ? extends V> e : m.entrySet())
+            put(e.getKey(), e.getValue());
+    }
+
+    @Override
+    public void clear() {
+        replaceContents(Collections.emptyMap());
+    }
+
+    /**
+     * Replace everything with m, in m's iteration order. Readers see either
+     * the old contents or the new, never a mix; writes racing with the swap
+     * are lost, as they would be with clear() and putAll().
+     */
+    public void replaceContents(Map<String, ? extends V> m) {
+        Contents<V> next = new Contents<>(m.size());
+        for (Entry<String, ? extends V> e : m.entrySet()) {
+            Node<V> n = new Node<>(nextSeq.getAndIncrement(), Objects.requireNonNull(e.getKey(), "key"), e.getValue());
+            Node<V> old = next.byKey.put(n.key, n);
+            if (old != null)
+                next.byOrder.remove(old.seq);
+            next.byOrder.put(n.seq, n);
+        }
+        bulk.writeLock().lock();
+        try {
+            contents = next;
+            version.incrementAndGet();
+        } finally {
+            bulk.writeLock().unlock();
+        }
+    }
+
+    /** Values as of now, in insertion order; unmodifiable */
+    @SuppressWarnings("unchecked")
+    public List<V> snapshotValues() {
+        return (List<V>) Collections.unmodifiableList(Arrays.asList(snapshot().values));
+    }
+
+    /** Contents as of now, in insertion order; an unmodifiable copy */
+    @SuppressWarnings("unchecked")
+    public Map<String, V> snapshotMap() {
+        Snapshot<V> s = snapshot();
+        Map<String, V> m = new LinkedHashMap<>(s.keys.length * 4 / 3 + 1);
+        for (int i = 0; i < s.keys.length; i++)
+            m.put(s.keys[i], (V) s.values[i]);
+        return Collections.unmodifiableMap(m);
+    }
+
+    @Override
+    public Set<Entry<String, V>> entrySet() {
+        return entrySet;
+    }
+
+    // ---- internals ----
+
+    /** Lock for writing key: shared bulk lock, then the key's stripe */
+    private ReentrantLock lockFor(String key) {
+        bulk.readLock().lock();
+        ReentrantLock stripe = stripes[(key.hashCode() ^ (key.hashCode() >>> 16)) & (STRIPES - 1)];
+        stripe.lock();
+        return stripe;
+    }
+
+    private void unlock(ReentrantLock stripe) {
+        stripe.unlock();
+        bulk.readLock().unlock();
+    }
+
+    private V putLocked(String key, V value) {
+        Contents<V> c = contents;
+        Node<V> n = c.byKey.get(key);
+        V old = null;
+        if (n != null) {
+            old = n.value;
+            n.value = value;
+        } else {
+            n = new Node<>(nextSeq.getAndIncrement(), key, value);
+            c.byKey.put(key, n);
+            c.byOrder.put(n.seq, n);
+        }
+        version.incrementAndGet();
+        return old;
+    }
+
+    private Snapshot<V> snapshot() {
+        Snapshot<V> s = cached;
+        if (s != null && s.version == version.get())
+            return s;
+        // Exclusive, so no write is half done while the copy is taken
+        bulk.writeLock().lock();
+        try {
+            long v = version.get();
+            s = cached;
+            if (s != null && s.version == v)
+                return s;
+            Collection<Node<V>> nodes = contents.byOrder.values();
+            String[] keys = new String[nodes.size()];
+            Object[] values = new Object[keys.length];
+            int i = 0;
+            for (Node<V> n : nodes) {
+                keys[i] = n.key;
+                values[i++] = n.value;
+            }
+            s = new Snapshot<>(v, keys, values);
+            cached = s;
+            return s;
+        } finally {
+            bulk.writeLock().unlock();
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<String, V>> {
+        @Override
+        public int size() {
+            return ConcurrentEntityMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Entry))
+                return false;
+            Entry<?, ?> e = (Entry<?, ?>) o;
+            Node<V> n = e.getKey() == null ? null : contents.byKey.get(e.getKey());
+            return n != null && Objects.equals(n.value, e.getValue());
+        }
+
+        @Override
+        public Iterator<Entry<String, V>> iterator() {
+            Snapshot<V> s = snapshot();
+            return new Iterator<Entry<String, V>>() {
+                private int next;
+                private String current;
+
+                @Override
+                public boolean hasNext() {
+                    return next < s.keys.length;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public Entry<String, V> next() {
+                    if (next >= s.keys.length)
+                        throw new NoSuchElementException();
+                    current = s.keys[next];
+                    return new SimpleEntry<String, V>(current, (V) s.values[next++]) {
+                        @Override
+                        public V setValue(V value) {
+                            super.setValue(value);
+                            return put(getKey(), value);
+                        }
+                    };
+                }
+
+                @Override
+                public void remove() {
+                    if (current == null)
+                        throw new IllegalStateException();
+                    ConcurrentEntityMap.this.remove(current);
+                    current = null;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package hpms.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded JDBC connection pool used by {@link DBConnection}.
+ * Physical connections are kept idle (most recently used first), validated on
+ * borrow, retired after their max lifetime and evicted when idle too long.
+ * Callers receive a proxy whose close() hands the connection back to the pool.
+ */
+public class ConnectionPool {
+    /** Upper bounds (ms) of the borrow latency histogram buckets; the last bucket is open ended */
+    public static final long[] LATENCY_BUCKETS_MS = {1, 5, 10, 50, 100, 500, 1000};
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+    private final int minIdle;
+    private final long idleTimeoutMs;
+    private final long maxLifetimeMs;
+    private final long borrowTimeoutMs;
+    private final int validationTimeoutSec;
+    private final long validationBypassMs;
+
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger total = new AtomicInteger();
+    private final LongAdder borrows = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLongArray histogram = new AtomicLongArray(LATENCY_BUCKETS_MS.length + 1);
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean shutdown;
+    private volatile String initSql;
+
+    public ConnectionPool(String url, String user, String password, int maxSize, int minIdle,
+            long idleTimeoutMs, long maxLifetimeMs, long borrowTimeoutMs, int validationTimeoutSec) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = Math.max(1, maxSize);
+        this.minIdle = Math.max(0, Math.min(minIdle, this.maxSize));
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.maxLifetimeMs = maxLifetimeMs;
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.validationTimeoutSec = Math.max(1, validationTimeoutSec);
+        this.validationBypassMs = 500;
+        this.permits = new Semaphore(this.maxSize, true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "hpms-db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, Math.min(30000, idleTimeoutMs / 2));
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Statement run once on every new physical connection (e.g. to set session
+     * variables). Failures are logged and the connection is still used.
+     */
+    public void setInitSql(String sql) {
+        this.initSql = sql;
+    }
+
+    /**
+     * Borrow a connection, waiting at most the configured borrow timeout for a free slot.
+     */
+    public Connection borrow() throws SQLException {
+        if (shutdown)
+            throw new SQLException("Connection pool is shut down");
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        if (!acquired) {
+            timeouts.increment();
+            record(System.nanoTime() - start);
+            throw new SQLException("Timed out after " + borrowTimeoutMs + " ms waiting for a database connection ("
+                    + maxSize + " in use)");
+        }
+        try {
+            PooledConnection pc;
+            while ((pc = idle.pollFirst()) != null) {
+                long now = System.currentTimeMillis();
+                if (isExpired(pc, now) || !isAlive(pc, now)) {
+                    discard(pc);
+                    continue;
+                }
+                break;
+            }
+            if (pc == null)
+                pc = open();
+            active.incrementAndGet();
+            borrows.increment();
+            record(System.nanoTime() - start);
+            return pc.lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Close idle connections and refuse further borrows. Borrowed connections
+     * are closed when they are returned.
+     */
+    public void shutdown() {
+        shutdown = true;
+        housekeeper.shutdownNow();
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null)
+            discard(pc);
+    }
+
+    public PoolStats stats() {
+        long[] buckets = new long[histogram.length()];
+        for (int i = 0; i < buckets.length; i++)
+            buckets[i] = histogram.get(i);
+        long n = borrows.sum() + timeouts.sum();
+        return new PoolStats(maxSize, active.get(), idle.size(), total.get(), permits.getQueueLength(),
+                borrows.sum(), timeouts.sum(), created.sum(), evicted.sum(),
+                n == 0 ? 0 : waitNanos.sum() / n / 1000, buckets);
+    }
+
+    private PooledConnection open() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, user, password);
+        String sql = initSql;
+        if (sql != null) {
+            try (java.sql.Statement st = physical.createStatement()) {
+                st.execute(sql);
+            } catch (SQLException e) {
+                System.err.println("ConnectionPool: init statement failed: " + e.getMessage());
+            }
+        }
+        total.incrementAndGet();
+        created.increment();
+        return new PooledConnection(physical);
+    }
+
+    private void release(PooledConnection pc) {
+        active.decrementAndGet();
+        try {
+            boolean reusable = !shutdown && !pc.physical.isClosed() && !isExpired(pc, System.currentTimeMillis());
+            if (reusable && !pc.physical.getAutoCommit()) {
+                // Never hand a half-finished transaction to the next borrower
+                pc.physical.rollback();
+                pc.physical.setAutoCommit(true);
+            }
+            if (reusable) {
+                pc.lastUsed = System.currentTimeMillis();
+                idle.offerFirst(pc);
+            } else {
+                discard(pc);
+            }
+        } catch (SQLException e) {
+            discard(pc);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private boolean isExpired(PooledConnection pc, long now) {
+        return maxLifetimeMs > 0 && now - pc.createdAt >= maxLifetimeMs;
+    }
+
+    private boolean isAlive(PooledConnection pc, long now) {
+        if (now - pc.lastUsed < validationBypassMs)
+            return true;
+        try {
+            return pc.physical.isValid(validationTimeoutSec);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void discard(PooledConnection pc) {
+        total.decrementAndGet();
+        evicted.increment();
+        try {
+            pc.physical.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+        // Oldest idle connections sit at the tail; keep at least minIdle around
+        for (PooledConnection pc : idle) {
+            boolean stale = idleTimeoutMs > 0 && now - pc.lastUsed >= idleTimeoutMs && idle.size() > minIdle;
+            if ((stale || isExpired(pc, now)) && idle.remove(pc))
+                discard(pc);
+        }
+    }
+
+    private void record(long nanos) {
+        waitNanos.add(nanos);
+        long ms = nanos / 1_000_000L;
+        int i = 0;
+        while (i < LATENCY_BUCKETS_MS.length && ms >= LATENCY_BUCKETS_MS[i])
+            i++;
+        histogram.incrementAndGet(i);
+    }
+
+    private final class PooledConnection {
+        final Connection physical;
+        final long createdAt = System.currentTimeMillis();
+        volatile long lastUsed = createdAt;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        Connection lease() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class }, new Lease(this));
+        }
+    }
+
+    /** Per-borrow view of a pooled connection; close() returns it exactly once */
+    private final class Lease implements InvocationHandler {
+        private final PooledConnection pc;
+        private boolean closed;
+
+        Lease(PooledConnection pc) {
+            this.pc = pc;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        release(pc);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || pc.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pc.physical + (closed ? ", returned" : "") + "]";
+                default:
+                    break;
+            }
+            if (closed)
+                throw new SQLException("Connection already returned to the pool");
+            try {
+                return method.invoke(pc.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Point-in-time pool statistics used to size the pool
+     */
+    public static class PoolStats {
+        public final int maxSize;
+        public final int active;
+        public final int idle;
+        public final int total;
+        public final int waiting;
+        public final long borrows;
+        public final long timeouts;
+        public final long created;
+        public final long evicted;
+        public final long avgWaitMicros;
+        public final long[] latencyHistogram;
+
+        public PoolStats(int maxSize, int active, int idle, int total, int waiting, long borrows, long timeouts,
+                long created, long evicted, long avgWaitMicros, long[] latencyHistogram) {
+            this.maxSize = maxSize;
+            this.active = active;
+            this.idle = idle;
+            this.total = total;
+            this.waiting = waiting;
+            this.borrows = borrows;
+            this.timeouts = timeouts;
+            this.created = created;
+            this.evicted = evicted;
+            this.avgWaitMicros = avgWaitMicros;
+            this.latencyHistogram = latencyHistogram;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("active=").append(active).append('/').append(maxSize)
+                    .append(" idle=").append(idle)
+                    .append(" total=").append(total)
+                    .append(" waiting=").append(waiting)
+                    .append(" borrows=").append(borrows)
+                    .append(" timeouts=").append(timeouts)
+                    .append(" created=").append(created)
+                    .append(" evicted=").append(evicted)
+                    .append(" avgWaitUs=").append(avgWaitMicros)
+                    .append(" latency={");
+            for (int i = 0; i < latencyHistogram.length; i++) {
+                if (i > 0)
+                    sb.append(", ");
+                sb.append(i < LATENCY_BUCKETS_MS.length ? "<" + LATENCY_BUCKETS_MS[i] + "ms"
+                        : ">=" + LATENCY_BUCKETS_MS[LATENCY_BUCKETS_MS.length - 1] + "ms")
+                        .append('=').append(latencyHistogram[i]);
+            }
+            return sb.append('}').toString();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package hpms.util;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming RFC 4180 reader: one record at a time, so files of any size can
+ * be read. Fields may be quoted; quoted fields may hold commas, doubled
+ * quotes and line breaks. A UTF-8 byte order mark at the start is skipped.
+ */
+public class CsvReader implements Closeable {
+    private final Reader in;
+    private long line = 1;
+    private long recordLine;
+    private boolean started;
+
+    public CsvReader(Reader in) {
+        this.in = in instanceof BufferedReader ? in : new BufferedReader(in, 64 * 1024);
+    }
+
+    /** Next record's fields, or null at end of input; blank lines are skipped */
+    public List<String> next() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false, any = false;
+        int c;
+        while (true) {
+            c = in.read();
+            if (!started) {
+                started = true;
+                if (c == '\uFEFF')
+                    c = in.read();
+            }
+            if (!any) {
+                if (c == -1)
+                    return null;
+                if (c == '\n') {
+                    line++;
+                    continue;
+                }
+                if (c == '\r')
+                    continue;
+                any = true;
+                recordLine = line;
+            }
+            if (quoted) {
+                if (c == -1)
+                    throw new IOException("Unterminated quoted field starting on line " + recordLine);
+                if (c == '"') {
+                    in.mark(1);
+                    int n = in.read();
+                    if (n == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (n != -1)
+                            in.reset();
+                    }
+                } else {
+                    if (c == '\n')
+                        line++;
+                    field.append((char) c);
+                }
+                continue;
+            }
+            if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                if (c == '\n')
+                    line++;
+                int end = field.length();
+                if (end > 0 && field.charAt(end - 1) == '\r')
+                    field.setLength(end - 1);
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+        }
+    }
+
+    /** Line on which the record last returned by next() started */
+    public long recordLine() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -2,23 +2,29 @@ package hpms.util;
 
 import hpms.config.DatabaseConfig;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 /**
  * Database connection utility class
- * Uses DatabaseConfig for connection settings
+ * Uses DatabaseConfig for connection settings. Connections are borrowed from a
+ * shared ConnectionPool; closing them returns them to the pool. The first
+ * connection handed out brings the schema up to date (see SchemaMigrator).
  */
 public class DBConnection {
-    
+
+    /** Random per-process id recorded as the origin of this workstation's changes */
+    public static final String WORKSTATION_ID = java.util.UUID.randomUUID().toString().replace("-", "").substring(0, 16);
+
+    private static volatile ConnectionPool pool;
+    private static boolean shutdownHookInstalled;
+    private static volatile boolean schemaChecked;
+
     public static Connection getConnection() {
         try {
-            Class.forName(DatabaseConfig.JDBC_DRIVER);
-            return DriverManager.getConnection(
-                DatabaseConfig.JDBC_URL, 
-                DatabaseConfig.JDBC_USER, 
-                DatabaseConfig.JDBC_PASSWORD
-            );
+            Connection conn = pool().borrow();
+            if (!schemaChecked)
+                checkSchema(conn);
+            return conn;
         } catch (ClassNotFoundException e) {
             System.err.println("MySQL JDBC Driver not found!");
             e.printStackTrace();
@@ -30,6 +36,14 @@ public class DBConnection {
         }
     }
 
+    private static synchronized void checkSchema(Connection conn) {
+        if (schemaChecked)
+            return;
+        // Once per process: a failed migration is reported, not retried on every borrow
+        schemaChecked = true;
+        SchemaMigrator.migrate(conn);
+    }
+
     public static void closeConnection(Connection conn) {
         if (conn != null) {
             try {
@@ -39,4 +53,68 @@ public class DBConnection {
             }
         }
     }
+
+    /**
+     * "?, ?, ?" with n placeholders, for building IN (...) clauses
+     */
+    public static String placeholders(int n) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++)
+            sb.append(i == 0 ? "?" : ", ?");
+        return sb.toString();
+    }
+
+    /**
+     * Current pool statistics (active, idle, wait time, borrow latency histogram)
+     */
+    public static ConnectionPool.PoolStats getPoolStats() {
+        ConnectionPool p = pool;
+        return p == null ? null : p.stats();
+    }
+
+    /**
+     * Close all idle pooled connections; the pool is recreated on next use
+     */
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            LogManager.log("db_pool_shutdown", pool.stats());
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    private static ConnectionPool pool() throws ClassNotFoundException {
+        ConnectionPool p = pool;
+        if (p != null)
+            return p;
+        synchronized (DBConnection.class) {
+            if (pool == null) {
+                Class.forName(DatabaseConfig.JDBC_DRIVER);
+                pool = new ConnectionPool(
+                    DatabaseConfig.JDBC_URL,
+                    DatabaseConfig.JDBC_USER,
+                    DatabaseConfig.JDBC_PASSWORD,
+                    DatabaseConfig.POOL_MAX_SIZE,
+                    DatabaseConfig.POOL_MIN_IDLE,
+                    DatabaseConfig.POOL_IDLE_TIMEOUT_MS,
+                    DatabaseConfig.POOL_MAX_LIFETIME_MS,
+                    DatabaseConfig.POOL_BORROW_TIMEOUT_MS,
+                    DatabaseConfig.POOL_VALIDATION_TIMEOUT_SEC
+                );
+                // Tags rows written by this process in change_log so delta sync can skip its own changes
+                pool.setInitSql("SET @hpms_origin = '" + WORKSTATION_ID + "'");
+                if (!shutdownHookInstalled) {
+                    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                        // Give queued write-behind statements a chance to reach MySQL; the rest stay journaled
+                        WriteBehindQueue.flush(3000);
+                        // Buffered audit events reach MySQL or the spill file
+                        AuditPipeline.flush(2000);
+                        shutdown();
+                    }, "hpms-db-pool-shutdown"));
+                    shutdownHookInstalled = true;
+                }
+            }
+            return pool;
+        }
+    }
 }
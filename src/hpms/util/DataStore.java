@@ -7,31 +7,36 @@ import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * In-memory store shared by the services and the UI. The entity maps are
+ * ConcurrentEntityMaps: safe to read, write and iterate from any thread, with
+ * loaders swapping in whole tables through replaceContents.
+ */
 public class DataStore {
-    public static final Map<String, Patient> patients = new LinkedHashMap<>();
-    public static final Map<String, Staff> staff = new LinkedHashMap<>();
-    public static final Map<String, Appointment> appointments = new LinkedHashMap<>();
-    public static final Map<String, Bill> bills = new LinkedHashMap<>();
-    public static final Map<String, Room> rooms = new LinkedHashMap<>();
-    public static final Map<String, User> users = new LinkedHashMap<>();
-    public static final Map<String, hpms.model.LabTestRequest> labTests = new LinkedHashMap<>();
-    public static final Map<String, hpms.model.LabResult> labResults = new LinkedHashMap<>();
-    public static final Map<String, hpms.model.Service> services = new LinkedHashMap<>();
-    public static final Map<String, hpms.model.LeaveRequest> leaveRequests = new LinkedHashMap<>();
+    public static final ConcurrentEntityMap<Patient> patients = new ConcurrentEntityMap<>();
+    public static final ConcurrentEntityMap<Staff> staff = new ConcurrentEntityMap<>();
+    // Indexed by staff/day and by patient; call appointments.reindex(a) after changing a.dateTime
+    public static final IndexedAppointmentMap appointments = new IndexedAppointmentMap();
+    public static final ConcurrentEntityMap<Bill> bills = new ConcurrentEntityMap<>();
+    public static final ConcurrentEntityMap<Room> rooms = new ConcurrentEntityMap<>();
+    public static final ConcurrentEntityMap<User> users = new ConcurrentEntityMap<>();
+    public static final ConcurrentEntityMap<hpms.model.LabTestRequest> labTests = new ConcurrentEntityMap<>();
+    public static final ConcurrentEntityMap<hpms.model.LabResult> labResults = new ConcurrentEntityMap<>();
+    public static final ConcurrentEntityMap<hpms.model.Service> services = new ConcurrentEntityMap<>();
+    public static final ConcurrentEntityMap<hpms.model.LeaveRequest> leaveRequests = new ConcurrentEntityMap<>();
     // Medicine functionality removed
-    public static final Map<String, hpms.model.PatientStatus> patientStatus = new LinkedHashMap<>();
-    public static final Map<String, java.util.List<hpms.model.StatusHistoryEntry>> statusHistory = new LinkedHashMap<>();
-    public static final Map<String, java.util.List<hpms.model.StaffNote>> staffNotes = new LinkedHashMap<>();
-    public static final Map<String, java.util.List<String>> criticalAlerts = new LinkedHashMap<>();
+    public static final ConcurrentEntityMap<hpms.model.PatientStatus> patientStatus = new ConcurrentEntityMap<>();
+    public static final ConcurrentEntityMap<java.util.List<hpms.model.StatusHistoryEntry>> statusHistory = new ConcurrentEntityMap<>();
+    public static final ConcurrentEntityMap<java.util.List<hpms.model.StaffNote>> staffNotes = new ConcurrentEntityMap<>();
+    public static final ConcurrentEntityMap<java.util.List<String>> criticalAlerts = new ConcurrentEntityMap<>();
 
     // NEW: Prescription, Lab Test Types (Medicine removed)
-    public static final Map<String, hpms.model.Prescription> prescriptions = new LinkedHashMap<>();
-    public static final Map<String, hpms.model.LabTestType> labTestTypes = new LinkedHashMap<>();
-    public static final Map<String, hpms.model.Discharge> discharges = new LinkedHashMap<>();
-    public static final Map<String, hpms.model.Communication> communications = new LinkedHashMap<>();
+    public static final ConcurrentEntityMap<hpms.model.Prescription> prescriptions = new ConcurrentEntityMap<>();
+    public static final ConcurrentEntityMap<hpms.model.LabTestType> labTestTypes = new ConcurrentEntityMap<>();
+    public static final ConcurrentEntityMap<hpms.model.Discharge> discharges = new ConcurrentEntityMap<>();
+    public static final ConcurrentEntityMap<hpms.model.Communication> communications = new ConcurrentEntityMap<>();
 
-    public static final List<String> activityLog = new ArrayList<>();
-    public static final Set<String> departments = new LinkedHashSet<>(Arrays.asList("Cardiology", "Neurology",
+    public static final Set<String> departments = new java.util.concurrent.CopyOnWriteArraySet<>(Arrays.asList("Cardiology", "Neurology",
             "Orthopedics", "Pediatrics", "Oncology", "ER", "Admin", "Nursing", "Billing", "Reception"));
     public static final java.util.EnumSet<hpms.model.PaymentMethod> allowedPaymentMethods = java.util.EnumSet
             .of(hpms.model.PaymentMethod.CASH, hpms.model.PaymentMethod.INSURANCE);
@@ -49,6 +54,6 @@ public class DataStore {
     public static final AtomicInteger commCounter = new AtomicInteger(10000); // Communication counter
 
     public static void log(String message) {
-        activityLog.add(LocalDateTime.now() + " " + message);
+        ActivityLog.recordMessage(message);
     }
 }
@@ -0,0 +1,182 @@
+package hpms.util;
+
+import javax.swing.SwingUtilities;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Process-wide bus for changes to the in-memory DataStore. Services publish
+ * an event whenever they create, change or delete a record; subscribers are
+ * called on the EDT with every event published since the previous delivery,
+ * so a burst of changes (a bulk reschedule, a delta-sync poll) costs one
+ * repaint instead of one per record.
+ *
+ * Within a batch, events for the same record are coalesced into one and a
+ * RELOADED event for a kind replaces every other event of that kind.
+ * publish() is safe to call from any thread.
+ *
+ * Derived in-memory state that must never lag the DataStore (running
+ * statistics) uses subscribeSync instead: its listener is called on the
+ * publishing thread with each event as it is published, before publish()
+ * returns. Such listeners must be quick and thread-safe.
+ */
+public class DomainEvents {
+    public enum Kind { PATIENT, STAFF, APPOINTMENT, BILL, ROOM, STATUS, ACTIVITY }
+
+    public enum Op { CREATED, UPDATED, DELETED, RELOADED }
+
+    public static final class Event {
+        public final Kind kind;
+        public final Op op;
+        /** Record id, or null for RELOADED and ACTIVITY events */
+        public final String id;
+
+        public Event(Kind kind, Op op, String id) {
+            this.kind = kind;
+            this.op = op;
+            this.id = id;
+        }
+
+        @Override
+        public String toString() {
+            return kind + " " + op + (id == null ? "" : " " + id);
+        }
+    }
+
+    public interface Listener {
+        void onEvents(List<Event> events);
+    }
+
+    private static final class Subscription {
+        final Listener listener;
+        final EnumSet<Kind> kinds;
+
+        Subscription(Listener listener, EnumSet<Kind> kinds) {
+            this.listener = listener;
+            this.kinds = kinds;
+        }
+    }
+
+    private static final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private static final List<Subscription> syncSubscriptions = new CopyOnWriteArrayList<>();
+    private static final Object lock = new Object();
+    private static LinkedHashMap<String, Event> pending = new LinkedHashMap<>();
+    private static final EnumSet<Kind> pendingReloads = EnumSet.noneOf(Kind.class);
+    private static boolean deliveryScheduled;
+
+    /**
+     * Receive events of the given kinds (all kinds when none are given)
+     */
+    public static void subscribe(Listener l, Kind... kinds) {
+        if (l == null)
+            return;
+        EnumSet<Kind> set = kinds.length == 0 ? EnumSet.allOf(Kind.class) : EnumSet.copyOf(Arrays.asList(kinds));
+        subscriptions.add(new Subscription(l, set));
+    }
+
+    /**
+     * Receive each event of the given kinds (all kinds when none are given)
+     * on the publishing thread, uncoalesced
+     */
+    public static void subscribeSync(Listener l, Kind... kinds) {
+        if (l == null)
+            return;
+        EnumSet<Kind> set = kinds.length == 0 ? EnumSet.allOf(Kind.class) : EnumSet.copyOf(Arrays.asList(kinds));
+        syncSubscriptions.add(new Subscription(l, set));
+    }
+
+    public static void unsubscribe(Listener l) {
+        subscriptions.removeIf(s -> s.listener == l);
+        syncSubscriptions.removeIf(s -> s.listener == l);
+    }
+
+    public static void publish(Kind kind, Op op, String id) {
+        if (kind == null || op == null)
+            return;
+        for (Subscription s : syncSubscriptions) {
+            if (!s.kinds.contains(kind))
+                continue;
+            try {
+                s.listener.onEvents(Collections.singletonList(new Event(kind, op, id)));
+            } catch (Exception ex) {
+                System.err.println("DomainEvents listener failed: " + ex.getMessage());
+            }
+        }
+        boolean schedule;
+        synchronized (lock) {
+            if (op == Op.RELOADED || id == null) {
+                if (op == Op.RELOADED) {
+                    pendingReloads.add(kind);
+                    pending.values().removeIf(e -> e.kind == kind);
+                }
+                String key = kind.name() + "\u0000" + op.name();
+                if (op != Op.RELOADED && !pendingReloads.contains(kind))
+                    pending.putIfAbsent(key, new Event(kind, op, null));
+            } else if (!pendingReloads.contains(kind)) {
+                String key = kind.name() + "\u0000\u0000" + id;
+                Event prev = pending.get(key);
+                Op merged = prev == null ? op : merge(prev.op, op);
+                if (merged == null)
+                    pending.remove(key);
+                else
+                    pending.put(key, new Event(kind, merged, id));
+            }
+            schedule = !deliveryScheduled;
+            deliveryScheduled = true;
+        }
+        if (schedule)
+            SwingUtilities.invokeLater(DomainEvents::deliver);
+    }
+
+    public static void created(Kind kind, String id) {
+        publish(kind, Op.CREATED, id);
+    }
+
+    public static void updated(Kind kind, String id) {
+        publish(kind, Op.UPDATED, id);
+    }
+
+    public static void deleted(Kind kind, String id) {
+        publish(kind, Op.DELETED, id);
+    }
+
+    public static void reloaded(Kind kind) {
+        publish(kind, Op.RELOADED, null);
+    }
+
+    /** Net effect of two operations on the same record within one batch; null means nothing happened */
+    private static Op merge(Op first, Op second) {
+        if (first == Op.CREATED)
+            return second == Op.DELETED ? null : Op.CREATED;
+        if (first == Op.DELETED && second != Op.DELETED)
+            return Op.UPDATED;
+        return second;
+    }
+
+    private static void deliver() {
+        List<Event> batch = new ArrayList<>();
+        synchronized (lock) {
+            for (Kind k : pendingReloads)
+                batch.add(new Event(k, Op.RELOADED, null));
+            batch.addAll(pending.values());
+            pendingReloads.clear();
+            pending = new LinkedHashMap<>();
+            deliveryScheduled = false;
+        }
+        if (batch.isEmpty())
+            return;
+        for (Subscription s : subscriptions) {
+            List<Event> mine = new ArrayList<>();
+            for (Event e : batch)
+                if (s.kinds.contains(e.kind))
+                    mine.add(e);
+            if (mine.isEmpty())
+                continue;
+            try {
+                s.listener.onEvents(mine);
+            } catch (Exception ex) {
+                System.err.println("DomainEvents listener failed: " + ex.getMessage());
+            }
+        }
+    }
+}
@@ -2,12 +2,32 @@ package hpms.util;
 
 public class IDGenerator {
     public static String nextId(String type) {
-        if ("P".equals(type)) return "P" + DataStore.pCounter.incrementAndGet();
-        if ("S".equals(type)) return "S" + DataStore.sCounter.incrementAndGet();
-        if ("A".equals(type)) return "A" + DataStore.aCounter.incrementAndGet();
-        if ("B".equals(type)) return "B" + DataStore.bCounter.incrementAndGet();
+        // Patient, staff, appointment and bill ids are unique across workstations
+        if (IdSequences.handles(type)) return type + IdSequences.next(type);
+        // Rooms are seeded per session and never stored, so a local counter is enough
         if ("R".equals(type)) return "R" + DataStore.rCounter.incrementAndGet();
         return java.util.UUID.randomUUID().toString();
     }
-}
 
+    /**
+     * Make sure a counter never hands out an id that already exists elsewhere
+     * (e.g. a row another workstation inserted)
+     */
+    public static void observe(String id) {
+        if (id == null || id.length() < 2) return;
+        java.util.concurrent.atomic.AtomicInteger counter;
+        switch (id.charAt(0)) {
+            case 'P': counter = DataStore.pCounter; break;
+            case 'S': counter = DataStore.sCounter; break;
+            case 'A': counter = DataStore.aCounter; break;
+            case 'B': counter = DataStore.bCounter; break;
+            case 'R': counter = DataStore.rCounter; break;
+            default: return;
+        }
+        try {
+            int n = Integer.parseInt(id.substring(1));
+            counter.accumulateAndGet(n, Math::max);
+        } catch (NumberFormatException ignored) {
+        }
+    }
+}
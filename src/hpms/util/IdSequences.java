@@ -0,0 +1,159 @@
+package hpms.util;
+
+import hpms.config.DatabaseConfig;
+
+import java.sql.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cluster-wide numbers for patient, staff, appointment and bill ids.
+ *
+ * Each workstation reserves a block of ID_BLOCK_SIZE numbers from the
+ * id_sequences table with one atomic UPDATE, then hands them out locally with
+ * a single getAndIncrement. Two workstations therefore never issue the same
+ * id, and the database is asked once per block, not once per insert. When a
+ * block is 80% used the next one is reserved in the background, so callers
+ * on the event thread rarely wait for MySQL.
+ *
+ * While MySQL is unreachable, ids come from the DataStore counter as before
+ * (collisions with other workstations are then possible) and the database is
+ * not tried again for ID_RETRY_MS. The next block reserved starts above every
+ * id this workstation has issued or loaded, so the two sources never overlap.
+ */
+public class IdSequences {
+
+    private static final class Block {
+        final AtomicLong next;
+        final long end; // exclusive
+
+        Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+
+    private static final class Sequence {
+        final String name;
+        final AtomicInteger counter;
+        volatile Block current;
+        Block prefetched;       // guarded by this
+        boolean prefetching;    // guarded by this
+        volatile long retryAt;
+
+        Sequence(String name, AtomicInteger counter) {
+            this.name = name;
+            this.counter = counter;
+        }
+    }
+
+    // Reserve size numbers starting no lower than the floor; LAST_INSERT_ID(expr) hands the new value back to this connection
+    private static final String RESERVE = "INSERT INTO id_sequences (name, next_value) VALUES (?, LAST_INSERT_ID(? + ?)) "
+            + "ON DUPLICATE KEY UPDATE next_value = LAST_INSERT_ID(GREATEST(next_value, ?) + ?)";
+
+    private static final Sequence PATIENT = new Sequence("P", DataStore.pCounter);
+    private static final Sequence STAFF = new Sequence("S", DataStore.sCounter);
+    private static final Sequence APPOINTMENT = new Sequence("A", DataStore.aCounter);
+    private static final Sequence BILL = new Sequence("B", DataStore.bCounter);
+
+    private static final ExecutorService prefetcher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "hpms-id-prefetch");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** True for the id prefixes backed by a database sequence */
+    public static boolean handles(String prefix) {
+        return sequenceFor(prefix) != null;
+    }
+
+    /** Next number for prefix P, S, A or B */
+    public static int next(String prefix) {
+        Sequence s = sequenceFor(prefix);
+        if (s == null)
+            throw new IllegalArgumentException("No sequence for " + prefix);
+        while (true) {
+            Block b = s.current;
+            if (b != null) {
+                long v = b.next.getAndIncrement();
+                if (v < b.end) {
+                    if (b.end - v == Math.max(1, DatabaseConfig.ID_BLOCK_SIZE / 5))
+                        prefetch(s);
+                    // Keep the counter at the highest id issued; snapshots and backups save it
+                    s.counter.accumulateAndGet((int) v, Math::max);
+                    return (int) v;
+                }
+            }
+            synchronized (s) {
+                if (s.current != b)
+                    continue; // another thread already moved to a new block
+                Block n = s.prefetched;
+                s.prefetched = null;
+                if (n == null || n.next.get() <= s.counter.get())
+                    n = System.currentTimeMillis() < s.retryAt ? null : reserve(s);
+                if (n == null) {
+                    s.current = null;
+                    return s.counter.incrementAndGet();
+                }
+                s.current = n;
+            }
+        }
+    }
+
+    private static Sequence sequenceFor(String prefix) {
+        switch (prefix) {
+            case "P": return PATIENT;
+            case "S": return STAFF;
+            case "A": return APPOINTMENT;
+            case "B": return BILL;
+            default: return null;
+        }
+    }
+
+    private static void prefetch(Sequence s) {
+        synchronized (s) {
+            if (s.prefetched != null || s.prefetching || System.currentTimeMillis() < s.retryAt)
+                return;
+            s.prefetching = true;
+        }
+        prefetcher.execute(() -> {
+            Block b = reserve(s);
+            synchronized (s) {
+                s.prefetching = false;
+                if (b != null && s.prefetched == null)
+                    s.prefetched = b;
+            }
+        });
+    }
+
+    /** Reserve a block in one statement, or null (and back off) if the database is unavailable */
+    private static Block reserve(Sequence s) {
+        int size = DatabaseConfig.ID_BLOCK_SIZE;
+        long floor = s.counter.get() + 1L;
+        try (Connection conn = DBConnection.getConnection()) {
+            if (conn != null) {
+                try (PreparedStatement st = conn.prepareStatement(RESERVE)) {
+                    st.setString(1, s.name);
+                    st.setLong(2, floor);
+                    st.setInt(3, size);
+                    st.setLong(4, floor);
+                    st.setInt(5, size);
+                    st.executeUpdate();
+                }
+                try (Statement st = conn.createStatement();
+                     ResultSet rs = st.executeQuery("SELECT LAST_INSERT_ID()")) {
+                    if (rs.next()) {
+                        long end = rs.getLong(1);
+                        return new Block(end - size, end);
+                    }
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            System.err.println("IdSequences: cannot reserve " + s.name + " ids, using local counter: " + e.getMessage());
+        }
+        s.retryAt = System.currentTimeMillis() + DatabaseConfig.ID_RETRY_MS;
+        return null;
+    }
+}
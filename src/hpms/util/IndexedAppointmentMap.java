@@ -0,0 +1,305 @@
+package hpms.util;
+
+import hpms.model.Appointment;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Appointment map (backs DataStore.appointments) that keeps its secondary
+ * indexes in step with every put, remove and replaceContents:
+ * staffId -> day -> appointments sorted by start time,
+ * staffId -> interval tree of [start, end) for conflict and free-slot queries, and
+ * patientId -> appointments sorted by start time.
+ *
+ * Lookups by id and iteration behave as in ConcurrentEntityMap. The secondary
+ * indexes span many appointments, so they have one read/write lock: queries
+ * run in parallel, and a write holds them off only while it re-indexes.
+ *
+ * Code that changes an indexed appointment in place (dateTime, consultationType,
+ * staffId or patientId) must call {@link #reindex(Appointment)} afterwards.
+ */
+public class IndexedAppointmentMap extends ConcurrentEntityMap<Appointment> {
+    private final ReentrantReadWriteLock indexLock = new ReentrantReadWriteLock();
+    private final Map<String, Slot> slots = new HashMap<>();
+    private final Map<String, Map<LocalDate, NavigableMap<Slot, Appointment>>> byStaffDay = new HashMap<>();
+    private final Map<String, NavigableMap<Slot, Appointment>> byPatient = new HashMap<>();
+    private final Map<String, IntervalTree<Appointment>> timelines = new HashMap<>();
+
+    @Override
+    public Appointment put(String key, Appointment value) {
+        indexLock.writeLock().lock();
+        try {
+            Appointment old = super.put(key, value);
+            if (old != null)
+                unindex(key);
+            index(key, value);
+            return old;
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Appointment putIfAbsent(String key, Appointment value) {
+        indexLock.writeLock().lock();
+        try {
+            Appointment old = get(key);
+            return old != null ? old : put(key, value);
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Appointment computeIfAbsent(String key, java.util.function.Function<? super String, ? extends Appointment> mapping) {
+        indexLock.writeLock().lock();
+        try {
+            Appointment old = get(key);
+            if (old != null)
+                return old;
+            Appointment a = mapping.apply(key);
+            if (a != null)
+                put(key, a);
+            return a;
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Appointment remove(Object key) {
+        indexLock.writeLock().lock();
+        try {
+            Appointment old = super.remove(key);
+            if (old != null)
+                unindex((String) key);
+            return old;
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void replaceContents(Map<String, ? extends Appointment> m) {
+        indexLock.writeLock().lock();
+        try {
+            super.replaceContents(m);
+            slots.clear();
+            byStaffDay.clear();
+            byPatient.clear();
+            timelines.clear();
+            for (Entry<String, Appointment> e : entrySet())
+                index(e.getKey(), e.getValue());
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Re-position an appointment after its time, staff or patient changed
+     */
+    public void reindex(Appointment a) {
+        if (a == null)
+            return;
+        indexLock.writeLock().lock();
+        try {
+            if (get(a.id) != a)
+                return;
+            unindex(a.id);
+            index(a.id, a);
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Appointments of one staff member on one day, ordered by start time
+     */
+    public List<Appointment> forStaffOn(String staffId, LocalDate day) {
+        indexLock.readLock().lock();
+        try {
+            Map<LocalDate, NavigableMap<Slot, Appointment>> days = byStaffDay.get(staffId);
+            NavigableMap<Slot, Appointment> slotsOfDay = days == null ? null : days.get(day);
+            return slotsOfDay == null ? new ArrayList<>() : new ArrayList<>(slotsOfDay.values());
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Appointments of one staff member starting in [from, to), ordered by start time
+     */
+    public List<Appointment> forStaffBetween(String staffId, LocalDateTime from, LocalDateTime to) {
+        List<Appointment> out = new ArrayList<>();
+        indexLock.readLock().lock();
+        try {
+            Map<LocalDate, NavigableMap<Slot, Appointment>> days = byStaffDay.get(staffId);
+            if (days == null || !from.isBefore(to))
+                return out;
+            for (LocalDate d = from.toLocalDate(); !d.isAfter(to.toLocalDate()); d = d.plusDays(1)) {
+                NavigableMap<Slot, Appointment> slotsOfDay = days.get(d);
+                if (slotsOfDay != null)
+                    out.addAll(slotsOfDay.subMap(Slot.lowest(from), true, Slot.lowest(to), false).values());
+            }
+            return out;
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * All appointments of one staff member, ordered by start time
+     */
+    public List<Appointment> forStaff(String staffId) {
+        List<Appointment> out = new ArrayList<>();
+        indexLock.readLock().lock();
+        try {
+            Map<LocalDate, NavigableMap<Slot, Appointment>> days = byStaffDay.get(staffId);
+            if (days == null)
+                return out;
+            for (LocalDate d : new TreeSet<>(days.keySet()))
+                out.addAll(days.get(d).values());
+            return out;
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * All appointments of a patient, ordered by start time
+     */
+    public List<Appointment> forPatient(String patientId) {
+        indexLock.readLock().lock();
+        try {
+            NavigableMap<Slot, Appointment> m = byPatient.get(patientId);
+            return m == null ? new ArrayList<>() : new ArrayList<>(m.values());
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The patient's appointment with the latest start time, or null
+     */
+    public Appointment latestForPatient(String patientId) {
+        indexLock.readLock().lock();
+        try {
+            NavigableMap<Slot, Appointment> m = byPatient.get(patientId);
+            return m == null || m.isEmpty() ? null : m.lastEntry().getValue();
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Appointment of the staff member overlapping [start, end), ignoring
+     * excludeId, or null. Touching intervals do not overlap. When several
+     * overlap, the one ending last is returned.
+     */
+    public Appointment findOverlap(String staffId, LocalDateTime start, LocalDateTime end, String excludeId) {
+        indexLock.readLock().lock();
+        try {
+            IntervalTree<Appointment> tree = timelines.get(staffId);
+            return tree == null ? null : tree.findOverlap(epoch(start), epoch(end), excludeId);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * End of the latest appointment overlapping [start, end) for this staff
+     * member, or null if the range is free. Used to skip past conflicts.
+     */
+    public LocalDateTime busyUntil(String staffId, LocalDateTime start, LocalDateTime end, String excludeId) {
+        long until;
+        indexLock.readLock().lock();
+        try {
+            IntervalTree<Appointment> tree = timelines.get(staffId);
+            if (tree == null)
+                return null;
+            until = tree.overlapEnd(epoch(start), epoch(end), excludeId);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+        return until == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(until, 0, ZoneOffset.UTC);
+    }
+
+    private static long epoch(LocalDateTime t) {
+        return t.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private void index(String id, Appointment a) {
+        if (a == null || a.dateTime == null)
+            return;
+        Slot s = new Slot(a.dateTime, id, a.staffId, a.patientId);
+        slots.put(id, s);
+        if (a.staffId != null) {
+            byStaffDay.computeIfAbsent(a.staffId, k -> new HashMap<>())
+                    .computeIfAbsent(a.dateTime.toLocalDate(), k -> new TreeMap<>()).put(s, a);
+            timelines.computeIfAbsent(a.staffId, k -> new IntervalTree<>())
+                    .insert(epoch(a.dateTime), epoch(a.endTime()), id, a);
+        }
+        if (a.patientId != null)
+            byPatient.computeIfAbsent(a.patientId, k -> new TreeMap<>()).put(s, a);
+    }
+
+    private void unindex(String id) {
+        Slot s = slots.remove(id);
+        if (s == null)
+            return;
+        if (s.staffId != null) {
+            Map<LocalDate, NavigableMap<Slot, Appointment>> days = byStaffDay.get(s.staffId);
+            NavigableMap<Slot, Appointment> slotsOfDay = days == null ? null : days.get(s.start.toLocalDate());
+            if (slotsOfDay != null) {
+                slotsOfDay.remove(s);
+                if (slotsOfDay.isEmpty())
+                    days.remove(s.start.toLocalDate());
+                if (days.isEmpty())
+                    byStaffDay.remove(s.staffId);
+            }
+            IntervalTree<Appointment> tree = timelines.get(s.staffId);
+            if (tree != null) {
+                tree.remove(epoch(s.start), s.id);
+                if (tree.size() == 0)
+                    timelines.remove(s.staffId);
+            }
+        }
+        if (s.patientId != null) {
+            NavigableMap<Slot, Appointment> m = byPatient.get(s.patientId);
+            if (m != null) {
+                m.remove(s);
+                if (m.isEmpty())
+                    byPatient.remove(s.patientId);
+            }
+        }
+    }
+
+    /** Indexed position of an appointment, captured when it was indexed */
+    private static final class Slot implements Comparable<Slot> {
+        final LocalDateTime start;
+        final String id;
+        final String staffId;
+        final String patientId;
+
+        Slot(LocalDateTime start, String id, String staffId, String patientId) {
+            this.start = start;
+            this.id = id;
+            this.staffId = staffId;
+            this.patientId = patientId;
+        }
+
+        static Slot lowest(LocalDateTime start) {
+            return new Slot(start, "", null, null);
+        }
+
+        @Override
+        public int compareTo(Slot o) {
+            int c = start.compareTo(o.start);
+            return c != 0 ? c : id.compareTo(o.id);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package hpms.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * AVL-balanced interval tree over half-open [start, end) intervals keyed by
+ * (start, id). Every node carries the largest end of its subtree so overlap
+ * queries visit O(log n + k) nodes. Not thread-safe.
+ */
+public class IntervalTree<T> {
+    private Node<T> root;
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    public void insert(long start, long end, String id, T value) {
+        root = insert(root, new Node<>(start, Math.max(start, end), id, value));
+    }
+
+    /**
+     * Remove the interval inserted with this start and id; returns false if absent
+     */
+    public boolean remove(long start, String id) {
+        int before = size;
+        root = remove(root, start, id);
+        return size < before;
+    }
+
+    /**
+     * Any interval overlapping [start, end) whose id is not excludeId, or null.
+     * When several overlap, the one ending last is returned so callers can
+     * jump past the whole conflict in one step.
+     */
+    public T findOverlap(long start, long end, String excludeId) {
+        Node<T> best = findOverlap(root, start, end, excludeId, null);
+        return best == null ? null : best.value;
+    }
+
+    /**
+     * Latest end among intervals overlapping [start, end), ignoring excludeId;
+     * Long.MIN_VALUE when nothing overlaps
+     */
+    public long overlapEnd(long start, long end, String excludeId) {
+        Node<T> best = findOverlap(root, start, end, excludeId, null);
+        return best == null ? Long.MIN_VALUE : best.end;
+    }
+
+    /**
+     * All intervals overlapping [start, end) in start order
+     */
+    public List<T> overlapping(long start, long end) {
+        List<T> out = new ArrayList<>();
+        collect(root, start, end, out);
+        return out;
+    }
+
+    private Node<T> findOverlap(Node<T> n, long start, long end, String excludeId, Node<T> best) {
+        if (n == null || n.maxEnd <= start)
+            return best;
+        best = findOverlap(n.left, start, end, excludeId, best);
+        if (n.start < end && start < n.end && !n.id.equals(excludeId) && (best == null || n.end > best.end))
+            best = n;
+        if (n.start < end)
+            best = findOverlap(n.right, start, end, excludeId, best);
+        return best;
+    }
+
+    private void collect(Node<T> n, long start, long end, List<T> out) {
+        if (n == null || n.maxEnd <= start)
+            return;
+        collect(n.left, start, end, out);
+        if (n.start < end && start < n.end)
+            out.add(n.value);
+        if (n.start < end)
+            collect(n.right, start, end, out);
+    }
+
+    private static int compare(long start, String id, Node<?> n) {
+        int c = Long.compare(start, n.start);
+        return c != 0 ? c : id.compareTo(n.id);
+    }
+
+    private Node<T> insert(Node<T> n, Node<T> added) {
+        if (n == null) {
+            size++;
+            return added;
+        }
+        int c = compare(added.start, added.id, n);
+        if (c < 0) {
+            n.left = insert(n.left, added);
+        } else if (c > 0) {
+            n.right = insert(n.right, added);
+        } else {
+            n.end = added.end;
+            n.value = added.value;
+        }
+        return balance(n);
+    }
+
+    private Node<T> remove(Node<T> n, long start, String id) {
+        if (n == null)
+            return null;
+        int c = compare(start, id, n);
+        if (c < 0) {
+            n.left = remove(n.left, start, id);
+        } else if (c > 0) {
+            n.right = remove(n.right, start, id);
+        } else {
+            size--;
+            if (n.left == null)
+                return n.right;
+            if (n.right == null)
+                return n.left;
+            Node<T> min = n.right;
+            while (min.left != null)
+                min = min.left;
+            n.right = removeMin(n.right);
+            min.left = n.left;
+            min.right = n.right;
+            return balance(min);
+        }
+        return balance(n);
+    }
+
+    private Node<T> removeMin(Node<T> n) {
+        if (n.left == null)
+            return n.right;
+        n.left = removeMin(n.left);
+        return balance(n);
+    }
+
+    private static int height(Node<?> n) {
+        return n == null ? 0 : n.height;
+    }
+
+    private static <T> void update(Node<T> n) {
+        n.height = 1 + Math.max(height(n.left), height(n.right));
+        long m = n.end;
+        if (n.left != null && n.left.maxEnd > m)
+            m = n.left.maxEnd;
+        if (n.right != null && n.right.maxEnd > m)
+            m = n.right.maxEnd;
+        n.maxEnd = m;
+    }
+
+    private Node<T> balance(Node<T> n) {
+        update(n);
+        int bf = height(n.left) - height(n.right);
+        if (bf > 1) {
+            if (height(n.left.left) < height(n.left.right))
+                n.left = rotateLeft(n.left);
+            return rotateRight(n);
+        }
+        if (bf < -1) {
+            if (height(n.right.right) < height(n.right.left))
+                n.right = rotateRight(n.right);
+            return rotateLeft(n);
+        }
+        return n;
+    }
+
+    private Node<T> rotateRight(Node<T> n) {
+        Node<T> l = n.left;
+        n.left = l.right;
+        l.right = n;
+        update(n);
+        update(l);
+        return l;
+    }
+
+    private Node<T> rotateLeft(Node<T> n) {
+        Node<T> r = n.right;
+        n.right = r.left;
+        r.left = n;
+        update(n);
+        update(r);
+        return r;
+    }
+
+    private static final class Node<T> {
+        final long start;
+        final String id;
+        long end;
+        long maxEnd;
+        int height = 1;
+        T value;
+        Node<T> left;
+        Node<T> right;
+
+        Node(long start, long end, String id, T value) {
+            this.start = start;
+            this.end = end;
+            this.maxEnd = end;
+            this.id = id;
+            this.value = value;
+        }
+    }
+}
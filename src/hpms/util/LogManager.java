@@ -1,6 +1,9 @@
 package hpms.util;
 
 public class LogManager {
+    /** Log a legacy "code rest of message" line; prefer log(code, args...) */
     public static void log(String message) { DataStore.log(message); }
-}
 
+    /** Log code with its arguments, e.g. log("pay_bill", billId, method); each argument is kept as its own field */
+    public static void log(String code, Object... args) { ActivityLog.record(code, args); }
+}
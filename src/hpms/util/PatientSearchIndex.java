@@ -0,0 +1,331 @@
+package hpms.util;
+
+import hpms.model.Patient;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index over patient name, contact, email, address and ID.
+ *
+ * Text is normalized (lower case, accents stripped) and split into terms.
+ * Phone numbers are also indexed as their digits and emails as a whole. A
+ * query term matches a patient term exactly, as a prefix, or within a small
+ * edit distance (1 for terms of 4-7 characters, 2 from 8 on). search and rank
+ * also match a fragment of 3 or more characters inside a term ("son" finds
+ * "Johnson"), as the Patients filter did before the index; shorter fragments
+ * match only as prefixes. Fuzzy and substring candidates come from a trigram
+ * index over the terms, so nothing scans the whole patient list.
+ *
+ * PatientService keeps the index in step with DataStore.patients. Code that
+ * fills DataStore.patients directly must call {@link #rebuild(Collection)}.
+ * All methods are thread-safe.
+ */
+public final class PatientSearchIndex {
+    private static final int EXACT = 4, PREFIX = 3, SUBSTRING = 2, FUZZY = 1;
+    private static final int CONTACT_MATCH = 10;
+
+    private static final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // term -> ids of patients having it; sorted so prefixes are a range scan
+    private static final TreeMap<String, Set<String>> postings = new TreeMap<>();
+    // trigram -> terms containing it, for fuzzy candidates
+    private static final Map<String, Set<String>> grams = new HashMap<>();
+    // id -> terms indexed for that patient, for incremental removal
+    private static final Map<String, Set<String>> docs = new HashMap<>();
+
+    private PatientSearchIndex() {
+    }
+
+    /**
+     * Add a patient or re-index one whose fields changed
+     */
+    public static void index(Patient p) {
+        if (p == null || p.id == null)
+            return;
+        Set<String> terms = termsOf(p);
+        lock.writeLock().lock();
+        try {
+            removeLocked(p.id);
+            docs.put(p.id, terms);
+            for (String t : terms) {
+                Set<String> ids = postings.get(t);
+                if (ids == null) {
+                    postings.put(t, ids = new HashSet<>());
+                    for (String g : trigrams(t))
+                        grams.computeIfAbsent(g, k -> new HashSet<>()).add(t);
+                }
+                ids.add(p.id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public static void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replace the whole index, e.g. after DataStore.patients was reloaded
+     */
+    public static void rebuild(Collection<Patient> patients) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            grams.clear();
+            docs.clear();
+            for (Patient p : patients)
+                index(p);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public static int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * IDs of patients matching every term of the query
+     */
+    public static Set<String> search(String query) {
+        return scored(query).keySet();
+    }
+
+    /**
+     * Up to limit IDs matching every term of the query, best matches first
+     */
+    public static List<String> rank(String query, int limit) {
+        return top(scored(query), limit);
+    }
+
+    /**
+     * Existing patients that are probably the person being registered: same
+     * phone number or email, or every name term matching. Best matches first.
+     */
+    public static List<String> likelyDuplicates(String name, String phone, String email, int limit) {
+        Map<String, Integer> score = new HashMap<>();
+        List<String> nameTerms = tokenize(name);
+        lock.readLock().lock();
+        try {
+            if (!nameTerms.isEmpty())
+                score.putAll(matchAll(nameTerms, false));
+            String digits = digitsOf(phone);
+            if (digits.length() >= 7)
+                for (String id : postings.getOrDefault(digits, Collections.emptySet()))
+                    score.merge(id, CONTACT_MATCH, Integer::sum);
+            String mail = email == null ? "" : normalize(email.trim());
+            if (mail.contains("@"))
+                for (String id : postings.getOrDefault(mail, Collections.emptySet()))
+                    score.merge(id, CONTACT_MATCH, Integer::sum);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return top(score, limit);
+    }
+
+    private static Map<String, Integer> scored(String query) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty())
+            return new HashMap<>();
+        lock.readLock().lock();
+        try {
+            return matchAll(terms, true);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** id -> summed score for the patients matching every term; caller holds the read lock */
+    private static Map<String, Integer> matchAll(List<String> terms, boolean substrings) {
+        Map<String, Integer> result = null;
+        for (String q : terms) {
+            Map<String, Integer> hits = matchTerm(q, substrings);
+            if (result == null) {
+                result = hits;
+            } else {
+                Map<String, Integer> both = new HashMap<>();
+                for (Map.Entry<String, Integer> e : result.entrySet()) {
+                    Integer s = hits.get(e.getKey());
+                    if (s != null)
+                        both.put(e.getKey(), e.getValue() + s);
+                }
+                result = both;
+            }
+            if (result.isEmpty())
+                break;
+        }
+        return result;
+    }
+
+    /** id -> best score of any of the patient's terms for one query term */
+    private static Map<String, Integer> matchTerm(String q, boolean substrings) {
+        Map<String, Integer> hits = new HashMap<>();
+        for (Map.Entry<String, Set<String>> e : postings.subMap(q, true, q + Character.MAX_VALUE, false).entrySet()) {
+            int s = e.getKey().length() == q.length() ? EXACT : PREFIX;
+            for (String id : e.getValue())
+                hits.merge(id, s, Math::max);
+        }
+        if (substrings && q.length() >= 3) {
+            // A term containing q has every unpadded trigram of q
+            Set<String> candidates = null;
+            for (int i = 0; i + 3 <= q.length(); i++) {
+                Set<String> ts = grams.getOrDefault(q.substring(i, i + 3), Collections.emptySet());
+                if (candidates == null || ts.size() < candidates.size())
+                    candidates = ts;
+            }
+            for (String t : candidates)
+                if (t.indexOf(q, 1) > 0)
+                    for (String id : postings.get(t))
+                        hits.merge(id, SUBSTRING, Math::max);
+        }
+        int maxEdits = q.length() >= 8 ? 2 : q.length() >= 4 ? 1 : 0;
+        if (maxEdits == 0)
+            return hits;
+        List<String> qGrams = trigrams(q);
+        int needed = qGrams.size() - 3 * maxEdits;
+        Map<String, Integer> shared = new HashMap<>();
+        for (String g : qGrams)
+            for (String t : grams.getOrDefault(g, Collections.emptySet()))
+                shared.merge(t, 1, Integer::sum);
+        for (Map.Entry<String, Integer> e : shared.entrySet()) {
+            String t = e.getKey();
+            if (e.getValue() < needed || Math.abs(t.length() - q.length()) > maxEdits || t.startsWith(q))
+                continue;
+            if (withinDistance(q, t, maxEdits))
+                for (String id : postings.get(t))
+                    hits.merge(id, FUZZY, Math::max);
+        }
+        return hits;
+    }
+
+    private static List<String> top(Map<String, Integer> score, int limit) {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(score.entrySet());
+        entries.sort((a, b) -> a.getValue().equals(b.getValue()) ? a.getKey().compareTo(b.getKey())
+                : b.getValue() - a.getValue());
+        List<String> out = new ArrayList<>();
+        for (int i = 0; i < entries.size() && i < limit; i++)
+            out.add(entries.get(i).getKey());
+        return out;
+    }
+
+    private static void removeLocked(String id) {
+        Set<String> terms = docs.remove(id);
+        if (terms == null)
+            return;
+        for (String t : terms) {
+            Set<String> ids = postings.get(t);
+            if (ids == null)
+                continue;
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                postings.remove(t);
+                for (String g : trigrams(t)) {
+                    Set<String> ts = grams.get(g);
+                    if (ts != null && ts.remove(t) && ts.isEmpty())
+                        grams.remove(g);
+                }
+            }
+        }
+    }
+
+    private static Set<String> termsOf(Patient p) {
+        Set<String> terms = new HashSet<>();
+        terms.addAll(tokenize(p.id));
+        String idDigits = digitsOf(p.id);
+        if (!idDigits.isEmpty())
+            terms.add(idDigits);
+        terms.addAll(tokenize(p.name));
+        terms.addAll(tokenize(p.address));
+        terms.addAll(tokenize(p.email));
+        // contact is "<phone>" or "<phone> | <email>"
+        if (p.contact != null) {
+            for (String part : p.contact.split("\\|")) {
+                terms.addAll(tokenize(part));
+                String digits = digitsOf(part);
+                if (digits.length() >= 4)
+                    terms.add(digits);
+                if (part.contains("@"))
+                    terms.add(normalize(part.trim()));
+            }
+        }
+        if (p.email != null && p.email.contains("@"))
+            terms.add(normalize(p.email.trim()));
+        return terms;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> out = new ArrayList<>();
+        if (text == null)
+            return out;
+        for (String t : normalize(text).split("[^\\p{L}\\p{N}]+"))
+            if (!t.isEmpty())
+                out.add(t);
+        return out;
+    }
+
+    private static String normalize(String text) {
+        String s = Normalizer.normalize(text, Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+        return s.toLowerCase(Locale.ROOT);
+    }
+
+    private static String digitsOf(String text) {
+        if (text == null)
+            return "";
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < text.length(); i++)
+            if (Character.isDigit(text.charAt(i)))
+                sb.append(text.charAt(i));
+        return sb.toString();
+    }
+
+    /** Trigrams of the term padded with '$' at both ends */
+    private static List<String> trigrams(String term) {
+        String s = "$" + term + "$";
+        List<String> out = new ArrayList<>(s.length());
+        for (int i = 0; i + 3 <= s.length(); i++)
+            out.add(s.substring(i, i + 3));
+        return out;
+    }
+
+    /**
+     * Optimal string alignment distance (insert, delete, substitute, swap
+     * adjacent) of at most max, stopping as soon as it is exceeded
+     */
+    static boolean withinDistance(String a, String b, int max) {
+        int n = a.length(), m = b.length();
+        int[] prev2 = new int[m + 1], prev = new int[m + 1], cur = new int[m + 1];
+        for (int j = 0; j <= m; j++)
+            prev[j] = j;
+        for (int i = 1; i <= n; i++) {
+            cur[0] = i;
+            int rowMin = cur[0];
+            for (int j = 1; j <= m; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int v = Math.min(Math.min(prev[j] + 1, cur[j - 1] + 1), prev[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1))
+                    v = Math.min(v, prev2[j - 2] + 1);
+                cur[j] = v;
+                rowMin = Math.min(rowMin, v);
+            }
+            if (rowMin > max)
+                return false;
+            int[] t = prev2;
+            prev2 = prev;
+            prev = cur;
+            cur = t;
+        }
+        return prev[m] <= max;
+    }
+}
@@ -0,0 +1,374 @@
+package hpms.util;
+
+import hpms.config.DatabaseConfig;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.sql.*;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Applies the versioned schema scripts once per database. The scripts are read
+ * from database/migrations on the classpath, else from database/migrations
+ * next to the code (beside the classes directory or jar, or a parent of it),
+ * else from MIGRATIONS_DIR.
+ *
+ * Scripts are named V&lt;version&gt;__&lt;description&gt;.sql and run in version
+ * order. Each applied version is recorded in schema_version with a checksum
+ * of its script, so a started workstation runs only what is new. Statements
+ * end with ';' at the end of a line. Statements that older installations may
+ * already have applied (table, column, index or trigger exists) are skipped.
+ * A statement preceded by a "-- optional" line may fail without stopping the
+ * migration, e.g. a legacy fix-up or a trigger that needs extra privileges.
+ * Such a failure is recorded in schema_pending and the statement is tried
+ * again on every start until it succeeds.
+ *
+ * DBConnection runs this on the first connection it hands out, so services can
+ * use the schema without checking or creating anything themselves.
+ */
+public class SchemaMigrator {
+    private static final Pattern SCRIPT = Pattern.compile("V(\\d+)__(.+)\\.sql");
+    private static final String LOCK_NAME = "hpms_schema_migration";
+    // MySQL errors meaning the statement's change is already in place
+    private static final Set<Integer> ALREADY_APPLIED = new HashSet<>(Arrays.asList(
+            1050, // table exists
+            1060, // duplicate column
+            1061, // duplicate key name
+            1359  // trigger exists
+    ));
+
+    public static class Migration {
+        public final int version;
+        public final String description;
+        public final String script;
+        public final String checksum;
+        public final List<String> statements = new ArrayList<>();
+        public final Set<Integer> optional = new HashSet<>(); // indexes into statements
+
+        Migration(int version, String description, String script, String checksum) {
+            this.version = version;
+            this.description = description;
+            this.script = script;
+            this.checksum = checksum;
+        }
+
+        @Override
+        public String toString() {
+            return "V" + version + " " + description;
+        }
+    }
+
+    /**
+     * Migration scripts in dir, ordered by version
+     */
+    public static List<Migration> scan(Path dir) throws IOException {
+        List<Migration> out = new ArrayList<>();
+        if (!Files.isDirectory(dir))
+            return out;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "V*__*.sql")) {
+            for (Path f : files) {
+                Matcher m = SCRIPT.matcher(f.getFileName().toString());
+                if (!m.matches())
+                    continue;
+                byte[] bytes = Files.readAllBytes(f);
+                Migration mig = new Migration(Integer.parseInt(m.group(1)), m.group(2).replace('_', ' '),
+                        f.getFileName().toString(), sha256(bytes));
+                parse(new String(bytes, StandardCharsets.UTF_8), mig);
+                out.add(mig);
+            }
+        }
+        out.sort(Comparator.comparingInt(mm -> mm.version));
+        for (int i = 1; i < out.size(); i++)
+            if (out.get(i).version == out.get(i - 1).version)
+                throw new IOException("Two migration scripts for version " + out.get(i).version + ": "
+                        + out.get(i - 1).script + ", " + out.get(i).script);
+        return out;
+    }
+
+    /**
+     * Directory holding the shipped migration scripts, found independently of
+     * the working directory; MIGRATIONS_DIR when nothing else is found
+     */
+    public static Path locate() {
+        try {
+            java.net.URL url = SchemaMigrator.class.getResource("/database/migrations");
+            if (url != null) {
+                java.net.URI uri = url.toURI();
+                if ("jar".equals(uri.getScheme())) {
+                    try {
+                        FileSystems.newFileSystem(uri, Collections.<String, Object>emptyMap());
+                    } catch (FileSystemAlreadyExistsException ignored) {
+                    }
+                }
+                return Paths.get(uri);
+            }
+        } catch (Exception e) {
+            System.err.println("Schema migration: cannot open scripts on the classpath: " + e.getMessage());
+        }
+        try {
+            java.security.CodeSource src = SchemaMigrator.class.getProtectionDomain().getCodeSource();
+            if (src != null) {
+                // Walk up from the classes directory or jar, e.g. <project>/bin or <project>/lib/hpms.jar
+                for (Path p = Paths.get(src.getLocation().toURI()).toAbsolutePath(); p != null; p = p.getParent()) {
+                    Path dir = p.resolve("database").resolve("migrations");
+                    if (Files.isDirectory(dir))
+                        return dir;
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Schema migration: cannot resolve the code location: " + e.getMessage());
+        }
+        return Paths.get(DatabaseConfig.MIGRATIONS_DIR);
+    }
+
+    /**
+     * Apply every migration not yet recorded in schema_version, after retrying
+     * optional statements that failed on earlier starts. Returns false if a
+     * migration failed; later versions are then left for the next start.
+     */
+    public static boolean migrate(Connection conn) {
+        Path dir = locate();
+        List<Migration> all;
+        try {
+            all = scan(dir);
+        } catch (IOException e) {
+            System.err.println("Schema migration: cannot read " + dir + ": " + e.getMessage());
+            return false;
+        }
+        if (all.isEmpty()) {
+            System.err.println("Schema migration: no scripts in " + dir);
+            return false;
+        }
+        boolean autoCommit = true;
+        try {
+            autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(true);
+            try (Statement st = conn.createStatement()) {
+                st.execute("CREATE TABLE IF NOT EXISTS schema_version (" +
+                        "version INT PRIMARY KEY," +
+                        "description VARCHAR(200) NOT NULL," +
+                        "script VARCHAR(200) NOT NULL," +
+                        "checksum CHAR(64) NOT NULL," +
+                        "applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP," +
+                        "execution_ms INT NOT NULL" +
+                        ")");
+            }
+            // Several workstations may start together; one migrates while the others wait
+            if (!lock(conn))
+                return false;
+            try {
+                boolean backfill = !tableExists(conn, "schema_pending");
+                try (Statement st = conn.createStatement()) {
+                    st.execute("CREATE TABLE IF NOT EXISTS schema_pending (" +
+                            "version INT NOT NULL," +
+                            "statement_no INT NOT NULL," +
+                            "statement_sql TEXT NOT NULL," +
+                            "last_error TEXT," +
+                            "attempts INT NOT NULL DEFAULT 1," +
+                            "last_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP," +
+                            "PRIMARY KEY (version, statement_no)" +
+                            ")");
+                }
+                retryOptional(conn, all, backfill);
+                return applyPending(conn, all);
+            } finally {
+                try (PreparedStatement st = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+                    st.setString(1, LOCK_NAME);
+                    st.executeQuery().close();
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Schema migration failed: " + e.getMessage());
+            return false;
+        } finally {
+            try {
+                conn.setAutoCommit(autoCommit);
+            } catch (SQLException ignored) {
+            }
+        }
+    }
+
+    private static boolean lock(Connection conn) throws SQLException {
+        try (PreparedStatement st = conn.prepareStatement("SELECT GET_LOCK(?, 60)")) {
+            st.setString(1, LOCK_NAME);
+            try (ResultSet rs = st.executeQuery()) {
+                if (rs.next() && rs.getInt(1) == 1)
+                    return true;
+            }
+        }
+        System.err.println("Schema migration: another workstation held the migration lock for 60s; skipped");
+        return false;
+    }
+
+    private static boolean applyPending(Connection conn, List<Migration> all) throws SQLException {
+        Map<Integer, String> applied = new HashMap<>();
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT version, checksum FROM schema_version")) {
+            while (rs.next())
+                applied.put(rs.getInt(1), rs.getString(2));
+        }
+        for (Migration m : all) {
+            String sum = applied.get(m.version);
+            if (sum != null) {
+                if (!sum.equals(m.checksum))
+                    System.err.println("Schema migration: " + m.script + " changed after it was applied; not re-run");
+                continue;
+            }
+            long t0 = System.nanoTime();
+            for (int i = 0; i < m.statements.size(); i++) {
+                try (Statement st = conn.createStatement()) {
+                    st.execute(m.statements.get(i));
+                } catch (SQLException e) {
+                    if (ALREADY_APPLIED.contains(e.getErrorCode()))
+                        continue;
+                    if (m.optional.contains(i)) {
+                        System.err.println("Schema migration: " + m + " optional statement " + (i + 1)
+                                + " failed, will retry on next start: " + e.getMessage());
+                        recordFailure(conn, m.version, i + 1, m.statements.get(i), e);
+                        continue;
+                    }
+                    System.err.println("Schema migration: " + m + " failed at statement " + (i + 1) + ": "
+                            + e.getMessage());
+                    return false;
+                }
+            }
+            long ms = (System.nanoTime() - t0) / 1_000_000L;
+            try (PreparedStatement st = conn.prepareStatement(
+                    "INSERT INTO schema_version (version, description, script, checksum, execution_ms) VALUES (?, ?, ?, ?, ?)")) {
+                st.setInt(1, m.version);
+                st.setString(2, m.description);
+                st.setString(3, m.script);
+                st.setString(4, m.checksum);
+                st.setInt(5, (int) ms);
+                st.executeUpdate();
+            }
+            LogManager.log("schema_migration", m, ms + "ms");
+            System.out.println("Applied schema migration " + m + " in " + ms + "ms");
+        }
+        return true;
+    }
+
+    /**
+     * Run again the optional statements recorded in schema_pending, dropping
+     * each one that now succeeds. On the first start with schema_pending
+     * (backfill), every optional statement of the applied migrations is run
+     * once instead, since earlier versions did not record their failures.
+     */
+    private static void retryOptional(Connection conn, List<Migration> all, boolean backfill) throws SQLException {
+        Map<String, String> sqlByKey = new LinkedHashMap<>(); // "version:statement_no" -> statement, in order
+        if (backfill) {
+            Set<Integer> applied = new HashSet<>();
+            try (Statement st = conn.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT version FROM schema_version")) {
+                while (rs.next())
+                    applied.add(rs.getInt(1));
+            }
+            for (Migration m : all)
+                if (applied.contains(m.version))
+                    for (int i : new TreeSet<>(m.optional))
+                        sqlByKey.put(m.version + ":" + (i + 1), m.statements.get(i));
+        } else {
+            try (Statement st = conn.createStatement();
+                 ResultSet rs = st.executeQuery(
+                         "SELECT version, statement_no, statement_sql FROM schema_pending ORDER BY version, statement_no")) {
+                while (rs.next())
+                    sqlByKey.put(rs.getInt(1) + ":" + rs.getInt(2), rs.getString(3));
+            }
+        }
+        int done = 0;
+        for (Map.Entry<String, String> e : sqlByKey.entrySet()) {
+            int sep = e.getKey().indexOf(':');
+            int version = Integer.parseInt(e.getKey().substring(0, sep));
+            int no = Integer.parseInt(e.getKey().substring(sep + 1));
+            try (Statement st = conn.createStatement()) {
+                st.execute(e.getValue());
+            } catch (SQLException ex) {
+                if (!ALREADY_APPLIED.contains(ex.getErrorCode())) {
+                    System.err.println("Schema migration: V" + version + " optional statement " + no
+                            + " still failing: " + ex.getMessage());
+                    recordFailure(conn, version, no, e.getValue(), ex);
+                    continue;
+                }
+            }
+            try (PreparedStatement st = conn.prepareStatement(
+                    "DELETE FROM schema_pending WHERE version = ? AND statement_no = ?")) {
+                st.setInt(1, version);
+                st.setInt(2, no);
+                if (st.executeUpdate() > 0) {
+                    done++;
+                    LogManager.log("schema_migration_retry", "V" + version, "statement=" + no);
+                }
+            }
+        }
+        if (done > 0)
+            System.out.println("Applied " + done + " previously failed optional schema statement(s)");
+    }
+
+    private static void recordFailure(Connection conn, int version, int no, String sql, SQLException e) throws SQLException {
+        try (PreparedStatement st = conn.prepareStatement(
+                "INSERT INTO schema_pending (version, statement_no, statement_sql, last_error) VALUES (?, ?, ?, ?) " +
+                        "ON DUPLICATE KEY UPDATE statement_sql = VALUES(statement_sql), last_error = VALUES(last_error), " +
+                        "attempts = attempts + 1")) {
+            st.setInt(1, version);
+            st.setInt(2, no);
+            st.setString(3, sql);
+            st.setString(4, e.getMessage());
+            st.executeUpdate();
+        }
+    }
+
+    private static boolean tableExists(Connection conn, String table) throws SQLException {
+        try (PreparedStatement st = conn.prepareStatement(
+                "SELECT 1 FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?")) {
+            st.setString(1, table);
+            try (ResultSet rs = st.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /** Split a script into statements; "--" lines are comments, "-- optional" marks the next statement */
+    private static void parse(String sql, Migration m) {
+        StringBuilder cur = new StringBuilder();
+        boolean optional = false;
+        for (String line : sql.split("\r?\n")) {
+            String t = line.trim();
+            if (t.startsWith("--")) {
+                if (t.substring(2).trim().equalsIgnoreCase("optional"))
+                    optional = true;
+                continue;
+            }
+            if (t.isEmpty())
+                continue;
+            cur.append(cur.length() == 0 ? "" : "\n").append(line);
+            if (t.endsWith(";")) {
+                String stmt = cur.toString().trim();
+                m.statements.add(stmt.substring(0, stmt.length() - 1));
+                if (optional)
+                    m.optional.add(m.statements.size() - 1);
+                cur.setLength(0);
+                optional = false;
+            }
+        }
+        if (cur.toString().trim().length() > 0) {
+            m.statements.add(cur.toString().trim());
+            if (optional)
+                m.optional.add(m.statements.size() - 1);
+        }
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            byte[] d = java.security.MessageDigest.getInstance("SHA-256").digest(bytes);
+            StringBuilder sb = new StringBuilder();
+            for (byte b : d)
+                sb.append(String.format("%02x", b));
+            return sb.toString();
+        } catch (java.security.NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,529 @@
+package hpms.util;
+
+import hpms.config.DatabaseConfig;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.*;
+import javax.swing.SwingUtilities;
+
+/**
+ * Durable write-behind queue for service-layer INSERT/UPDATE/DELETE statements.
+ *
+ * submit() appends the statement to an append-only journal and returns at once;
+ * a single background writer drains the queue in order, committing up to
+ * WRITE_BATCH_SIZE queued entries per transaction. Consecutive entries with the
+ * same SQL share one PreparedStatement and go out through addBatch/executeBatch,
+ * and submitBatch() queues many rows of one statement as a single entry, so a
+ * bulk change is one round trip. While MySQL is unreachable the
+ * writer backs off and keeps the writes; a statement that fails with an SQL
+ * error is retried WRITE_MAX_ATTEMPTS times, then dropped and reported. Writes
+ * still in the journal when the process dies are replayed on next start.
+ *
+ * Journal lines are tab separated: "W seq label sql K:key... type:value..." for
+ * a write (record keys first; rows of a batch are each introduced by an "R:"
+ * field), "A seq" once
+ * committed and "F seq" once given up on.
+ */
+public class WriteBehindQueue {
+
+    public static class Stats {
+        public final int pending;
+        public final long committed;
+        public final long failed;
+        public final long batches;
+        public final long retries;
+
+        Stats(int pending, long committed, long failed, long batches, long retries) {
+            this.pending = pending;
+            this.committed = committed;
+            this.failed = failed;
+            this.batches = batches;
+            this.retries = retries;
+        }
+
+        @Override
+        public String toString() {
+            return "pending=" + pending + " committed=" + committed + " failed=" + failed
+                    + " batches=" + batches + " retries=" + retries;
+        }
+    }
+
+    private static final String UNAVAILABLE = "database unavailable";
+    private static volatile WriteBehindQueue instance;
+
+    /**
+     * Queue a statement. label (may be null) is written to the activity log on
+     * the event thread once the statement is committed. The future completes
+     * when MySQL has committed the write, or exceptionally if it was dropped.
+     */
+    public static CompletableFuture<Void> submit(String label, String sql, Object... params) {
+        return submitFor(null, label, sql, params);
+    }
+
+    /**
+     * Like submit, naming the record the statement changes as "table:id"
+     * (the change_log table name), so hasPending can report it until committed
+     */
+    public static CompletableFuture<Void> submitFor(String key, String label, String sql, Object... params) {
+        List<Object[]> rows = new ArrayList<>(1);
+        rows.add(params == null ? new Object[0] : params.clone());
+        return get().enqueue(key == null ? Collections.emptyList() : Collections.singletonList(key), label, sql, rows);
+    }
+
+    /**
+     * Queue one statement executed once per row, committed atomically with
+     * addBatch/executeBatch. An empty row list completes immediately.
+     */
+    public static CompletableFuture<Void> submitBatch(String label, String sql, List<Object[]> rows) {
+        return submitBatchFor(null, label, sql, rows);
+    }
+
+    /** Like submitBatch, naming the records it changes as "table:id" keys */
+    public static CompletableFuture<Void> submitBatchFor(Collection<String> keys, String label, String sql, List<Object[]> rows) {
+        if (rows == null || rows.isEmpty())
+            return CompletableFuture.completedFuture(null);
+        List<Object[]> copy = new ArrayList<>(rows.size());
+        for (Object[] r : rows)
+            copy.add(r == null ? new Object[0] : r.clone());
+        return get().enqueue(keys == null ? Collections.emptyList() : new ArrayList<>(new LinkedHashSet<>(keys)), label, sql, copy);
+    }
+
+    /** Whether a write naming this "table:id" key is queued and not yet committed or dropped */
+    public static boolean hasPending(String key) {
+        WriteBehindQueue q = instance;
+        return q != null && q.pendingKeys.containsKey(key);
+    }
+
+    /**
+     * Wait until every queued write has been committed or dropped.
+     * Returns false on timeout; returns true at once if nothing was ever queued.
+     */
+    public static boolean flush(long timeoutMs) {
+        WriteBehindQueue q = instance;
+        return q == null || q.awaitIdle(timeoutMs);
+    }
+
+    public static Stats stats() {
+        WriteBehindQueue q = instance;
+        return q == null ? new Stats(0, 0, 0, 0, 0) : q.snapshot();
+    }
+
+    private static WriteBehindQueue get() {
+        WriteBehindQueue q = instance;
+        if (q != null)
+            return q;
+        synchronized (WriteBehindQueue.class) {
+            if (instance == null)
+                instance = new WriteBehindQueue(Paths.get(DatabaseConfig.WRITE_JOURNAL_PATH));
+            return instance;
+        }
+    }
+
+    private static final class Op {
+        final long seq;
+        final List<String> keys;
+        final String label;
+        final String sql;
+        final List<Object[]> rows;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        int attempts;
+
+        Op(long seq, List<String> keys, String label, String sql, List<Object[]> rows) {
+            this.seq = seq;
+            this.keys = keys;
+            this.label = label;
+            this.sql = sql;
+            this.rows = rows;
+        }
+    }
+
+    private final Path journalPath;
+    private final Object journalLock = new Object();
+    private final LinkedBlockingQueue<Op> queue = new LinkedBlockingQueue<>();
+    private final ArrayDeque<Op> inFlight = new ArrayDeque<>();
+    // Queued writes per record key; guarded by journalLock for updates
+    private final ConcurrentHashMap<String, Integer> pendingKeys = new ConcurrentHashMap<>();
+    private Writer journal;
+    private FileOutputStream journalStream;
+    private long nextSeq = 1;
+    private int journalRecords;
+    private volatile int pending;
+    private volatile long committed, failed, batches, retries;
+
+    private WriteBehindQueue(Path journalPath) {
+        this.journalPath = journalPath;
+        List<Op> recovered = recover();
+        openJournal(recovered);
+        for (Op op : recovered) {
+            queue.add(op);
+            track(op, 1);
+        }
+        pending = recovered.size();
+        if (!recovered.isEmpty())
+            System.err.println("WriteBehindQueue: replaying " + recovered.size() + " journaled write(s)");
+        Thread t = new Thread(this::runWriter, "hpms-write-behind");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private CompletableFuture<Void> enqueue(List<String> keys, String label, String sql, List<Object[]> rows) {
+        Op op;
+        synchronized (journalLock) {
+            op = new Op(nextSeq++, keys, label, sql, rows);
+            append(encode(op));
+            pending++;
+            track(op, 1);
+            queue.add(op);
+        }
+        return op.done;
+    }
+
+    private void track(Op op, int delta) {
+        for (String k : op.keys)
+            pendingKeys.compute(k, (key, n) -> {
+                int v = (n == null ? 0 : n) + delta;
+                return v > 0 ? v : null;
+            });
+    }
+
+    private boolean awaitIdle(long timeoutMs) {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (journalLock) {
+            while (pending > 0) {
+                long left = deadline - System.currentTimeMillis();
+                if (left <= 0)
+                    return false;
+                try {
+                    journalLock.wait(left);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private Stats snapshot() {
+        return new Stats(pending, committed, failed, batches, retries);
+    }
+
+    // ---- writer thread ----
+
+    private void runWriter() {
+        long backoff = 250;
+        boolean isolate = false;
+        while (true) {
+            try {
+                if (inFlight.isEmpty()) {
+                    inFlight.add(queue.take());
+                    List<Op> more = new ArrayList<>();
+                    queue.drainTo(more, DatabaseConfig.WRITE_BATCH_SIZE - 1);
+                    inFlight.addAll(more);
+                    isolate = false;
+                }
+                syncJournal();
+                // After a batch hit an SQL error, send one statement at a time to find the bad one
+                List<Op> batch = new ArrayList<>();
+                for (Op op : inFlight) {
+                    if (isolate && !batch.isEmpty())
+                        break;
+                    batch.add(op);
+                }
+
+                String error = execute(batch);
+                if (error == null) {
+                    for (int i = 0; i < batch.size(); i++)
+                        acknowledge(inFlight.poll(), null);
+                    batches++;
+                    backoff = 250;
+                    continue;
+                }
+                retries++;
+                if (!UNAVAILABLE.equals(error)) {
+                    if (batch.size() > 1) {
+                        isolate = true;
+                        continue;
+                    }
+                    if (++batch.get(0).attempts >= DatabaseConfig.WRITE_MAX_ATTEMPTS) {
+                        acknowledge(inFlight.poll(), error);
+                        continue;
+                    }
+                }
+                Thread.sleep(backoff);
+                backoff = Math.min(backoff * 2, DatabaseConfig.WRITE_MAX_BACKOFF_MS);
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                System.err.println("WriteBehindQueue: writer error: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Run the batch in one transaction. Returns null on commit, UNAVAILABLE
+     * when the database cannot be reached, otherwise the SQL error message.
+     */
+    private String execute(List<Op> batch) {
+        Connection conn = DBConnection.getConnection();
+        if (conn == null)
+            return UNAVAILABLE;
+        try (Connection c = conn) {
+            c.setAutoCommit(false);
+            try {
+                int i = 0;
+                while (i < batch.size()) {
+                    String sql = batch.get(i).sql;
+                    try (PreparedStatement stmt = c.prepareStatement(sql)) {
+                        for (; i < batch.size() && batch.get(i).sql.equals(sql); i++) {
+                            for (Object[] row : batch.get(i).rows) {
+                                for (int k = 0; k < row.length; k++)
+                                    stmt.setObject(k + 1, row[k]);
+                                stmt.addBatch();
+                            }
+                        }
+                        stmt.executeBatch();
+                    }
+                }
+                c.commit();
+                return null;
+            } catch (SQLException e) {
+                try {
+                    c.rollback();
+                } catch (SQLException ignored) {
+                }
+                String state = e.getSQLState();
+                if (state != null && state.startsWith("08"))
+                    return UNAVAILABLE;
+                return e.getMessage() == null ? e.toString() : e.getMessage();
+            } finally {
+                try {
+                    c.setAutoCommit(true);
+                } catch (SQLException ignored) {
+                }
+            }
+        } catch (SQLException e) {
+            return UNAVAILABLE;
+        }
+    }
+
+    private void acknowledge(Op op, String error) {
+        synchronized (journalLock) {
+            append((error == null ? "A\t" : "F\t") + op.seq);
+            pending--;
+            track(op, -1);
+            if (pending == 0)
+                compactJournal();
+            journalLock.notifyAll();
+        }
+        if (error == null) {
+            committed++;
+            if (op.label != null)
+                SwingUtilities.invokeLater(() -> LogManager.log(op.label));
+            op.done.complete(null);
+        } else {
+            failed++;
+            System.err.println("WriteBehindQueue: dropped write " + (op.label != null ? op.label : op.sql) + ": " + error);
+            SwingUtilities.invokeLater(() -> LogManager.log("write_behind_failed", op.label != null ? op.label : op.seq));
+            op.done.completeExceptionally(new SQLException(error));
+        }
+    }
+
+    // ---- journal ----
+
+    private List<Op> recover() {
+        Map<Long, Op> open = new LinkedHashMap<>();
+        if (!Files.exists(journalPath))
+            return new ArrayList<>();
+        try (BufferedReader r = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                try {
+                    if (line.startsWith("W\t")) {
+                        Op op = decode(line);
+                        open.put(op.seq, op);
+                        nextSeq = Math.max(nextSeq, op.seq + 1);
+                    } else if (line.startsWith("A\t") || line.startsWith("F\t")) {
+                        open.remove(Long.parseLong(line.substring(2).trim()));
+                    }
+                } catch (Exception e) {
+                    // A torn last line from a crash mid-append; everything before it is intact
+                    System.err.println("WriteBehindQueue: skipping unreadable journal line");
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("WriteBehindQueue: could not read journal: " + e.getMessage());
+        }
+        return new ArrayList<>(open.values());
+    }
+
+    /** Start a fresh journal holding only the writes that are still pending */
+    private void openJournal(List<Op> keep) {
+        try {
+            Path tmp = journalPath.resolveSibling(journalPath.getFileName() + ".tmp");
+            createPrivate(tmp);
+            try (Writer w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8, StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (Op op : keep)
+                    w.write(encode(op) + "\n");
+            }
+            Files.move(tmp, journalPath, StandardCopyOption.REPLACE_EXISTING);
+            journalStream = new FileOutputStream(journalPath.toFile(), true);
+            journal = new BufferedWriter(new OutputStreamWriter(journalStream, StandardCharsets.UTF_8));
+            journalRecords = keep.size();
+        } catch (IOException e) {
+            System.err.println("WriteBehindQueue: journal unavailable, writes are memory-only: " + e.getMessage());
+            journal = null;
+        }
+    }
+
+    /**
+     * Create an empty file readable and writable only by the current user; the
+     * journal holds patient names, diagnoses and bills in plain text, and the
+     * audit spill file holds audit details
+     */
+    static void createPrivate(Path p) throws IOException {
+        Files.deleteIfExists(p);
+        if (p.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            Files.createFile(p, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            Files.createFile(p);
+            File f = p.toFile();
+            f.setReadable(false, false);
+            f.setWritable(false, false);
+            f.setReadable(true, true);
+            f.setWritable(true, true);
+        }
+    }
+
+    private void append(String record) {
+        if (journal == null)
+            return;
+        try {
+            journal.write(record);
+            journal.write('\n');
+            journal.flush();
+            journalRecords++;
+        } catch (IOException e) {
+            System.err.println("WriteBehindQueue: journal append failed: " + e.getMessage());
+        }
+    }
+
+    /** fsync before statements go to the database; called on the writer thread */
+    private void syncJournal() {
+        synchronized (journalLock) {
+            try {
+                if (journalStream != null)
+                    journalStream.getFD().sync();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void compactJournal() {
+        if (journal == null || journalRecords < 1000)
+            return;
+        try {
+            journal.close();
+        } catch (IOException ignored) {
+        }
+        openJournal(new ArrayList<>());
+    }
+
+    private static String encode(Op op) {
+        StringBuilder sb = new StringBuilder("W\t").append(op.seq).append('\t')
+                .append(escape(op.label == null ? "" : op.label)).append('\t').append(escape(op.sql));
+        for (String k : op.keys)
+            sb.append("\tK:").append(escape(k));
+        boolean batch = op.rows.size() > 1;
+        for (Object[] row : op.rows) {
+            if (batch)
+                sb.append("\tR:");
+            for (Object p : row)
+                encodeValue(sb.append('\t'), p);
+        }
+        return sb.toString();
+    }
+
+    private static void encodeValue(StringBuilder sb, Object p) {
+        if (p == null) sb.append("N:");
+        else if (p instanceof String) sb.append("S:").append(escape((String) p));
+        else if (p instanceof Integer) sb.append("I:").append(p);
+        else if (p instanceof Long) sb.append("L:").append(p);
+        else if (p instanceof Double) sb.append("D:").append(p);
+        else if (p instanceof Boolean) sb.append("B:").append(p);
+        else if (p instanceof Timestamp) sb.append("T:").append(p);
+        else if (p instanceof java.math.BigDecimal) sb.append("M:").append(((java.math.BigDecimal) p).toPlainString());
+        else throw new IllegalArgumentException("Unsupported parameter type " + p.getClass().getName());
+    }
+
+    private static Op decode(String line) {
+        String[] f = line.split("\t", -1);
+        List<Object[]> rows = new ArrayList<>();
+        List<Object> row = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        int first = 4;
+        while (first < f.length && f[first].startsWith("K:"))
+            keys.add(unescape(f[first++].substring(2)));
+        for (int i = first; i < f.length; i++) {
+            if (f[i].startsWith("R:")) {
+                if (i > first)
+                    rows.add(row.toArray());
+                row.clear();
+            } else {
+                row.add(decodeValue(f[i]));
+            }
+        }
+        rows.add(row.toArray());
+        String label = unescape(f[2]);
+        return new Op(Long.parseLong(f[1]), keys, label.isEmpty() ? null : label, unescape(f[3]), rows);
+    }
+
+    private static Object decodeValue(String field) {
+        String v = field.substring(2);
+        switch (field.charAt(0)) {
+            case 'N': return null;
+            case 'S': return unescape(v);
+            case 'I': return Integer.valueOf(v);
+            case 'L': return Long.valueOf(v);
+            case 'D': return Double.valueOf(v);
+            case 'B': return Boolean.valueOf(v);
+            case 'T': return Timestamp.valueOf(v);
+            case 'M': return new java.math.BigDecimal(v);
+            default: throw new IllegalArgumentException("Bad parameter " + field);
+        }
+    }
+
+    static String escape(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            switch (ch) {
+                case '\\': sb.append("\\\\"); break;
+                case '\t': sb.append("\\t"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                default: sb.append(ch);
+            }
+        }
+        return sb.toString();
+    }
+
+    static String unescape(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch == '\\' && i + 1 < s.length()) {
+                char n = s.charAt(++i);
+                sb.append(n == 't' ? '\t' : n == 'n' ? '\n' : n == 'r' ? '\r' : n);
+            } else {
+                sb.append(ch);
+            }
+        }
+        return sb.toString();
+    }
+}